@@ -326,6 +326,7 @@ public class PaletteDescriptionTool extends javax.swing.JFrame {
         }
         Gen3to5PaletteRandomizer paletteRandomizer = new Gen3to5PaletteRandomizer(romHandler, SETTINGS, RND);
         paletteRandomizer.savePaletteDescriptionSource(FILE_KEY, jlistToList(paletteDescriptions));
+        Gen3to5PaletteRandomizer.clearPalettePartDescriptionCache();
     }
 
     private List<PaletteDescription> jlistToList(JList<? extends PaletteDescription> jlist) {
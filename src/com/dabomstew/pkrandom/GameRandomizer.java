@@ -22,6 +22,7 @@ package com.dabomstew.pkrandom;
 /*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
 /*----------------------------------------------------------------------------*/
 
+import com.dabomstew.pkrandom.log.PhaseTimer;
 import com.dabomstew.pkrandom.log.RandomizationLogger;
 import com.dabomstew.pkrandom.random.RandomSource;
 import com.dabomstew.pkrandom.random.SeedPicker;
@@ -31,12 +32,16 @@ import com.dabomstew.pkrandom.updaters.SpeciesBaseStatUpdater;
 import com.dabomstew.pkrandom.updaters.TypeEffectivenessUpdater;
 import com.dabomstew.pkrandom.updaters.Updater;
 import com.dabomstew.pkromio.MiscTweak;
+import com.dabomstew.pkromio.exceptions.OperationCancelledException;
+import com.dabomstew.pkromio.romhandlers.GameSubsystem;
 import com.dabomstew.pkromio.romhandlers.Gen1RomHandler;
 import com.dabomstew.pkromio.romhandlers.RomHandler;
+import com.dabomstew.pkromio.romio.PatchFormat;
 
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.ResourceBundle;
+import java.io.Writer;
+import java.util.*;
 
 /**
  * Coordinates the randomization of a game, via a {@link RomHandler}, and various sub-{@link Randomizer}s,
@@ -52,7 +57,9 @@ public class GameRandomizer {
 
         private Exception e;
         private Exception logE;
+        private boolean cancelled;
         private int checkValue;
+        private List<PhaseTimer.Phase> phaseTimings = Collections.emptyList();
 
         private Results() {}
 
@@ -67,6 +74,13 @@ public class GameRandomizer {
             return e;
         }
 
+        /**
+         * Returns whether the randomization failed because it was cancelled, see {@link GameRandomizer#cancel()}.
+         */
+        public boolean wasCancelled() {
+            return cancelled;
+        }
+
         public boolean wasLogSuccessful() {
             return logE == null;
         }
@@ -81,15 +95,32 @@ public class GameRandomizer {
         public int getCheckValue() {
             return checkValue;
         }
+
+        /**
+         * Returns the timings of all phases of the randomization that were run, in order. If the randomization
+         * failed, the last phase is the one that failed.
+         */
+        public List<PhaseTimer.Phase> getPhaseTimings() {
+            return phaseTimings;
+        }
     }
 
-    private final RandomSource randomSource = new RandomSource();
+    private final RandomSource randomSource;
 
     private final Settings settings;
     private final RomHandler romHandler;
     private final boolean saveAsDirectory;
+    private PatchFormat patchFormat;
+    private Writer jsonLinesLog;
+    private RandomizationListener listener;
+
+    private final Object runningLock = new Object();
+    private Thread runningThread;
+    private volatile boolean cancelled;
 
-    private final RandomizationLogger logger;
+    private final ResourceBundle bundle;
+    // created right before randomizing, since it snapshots the unrandomized game data
+    private RandomizationLogger logger;
 
     private final SpeciesBaseStatUpdater speciesBSUpdater;
     private final MoveUpdater moveUpdater;
@@ -121,56 +152,91 @@ public class GameRandomizer {
         this.settings = settings;
         this.romHandler = romHandler;
         this.saveAsDirectory = saveAsDirectory;
+        this.bundle = bundle;
+        this.randomSource = new RandomSource(settings.getRNGScheme());
 
         this.speciesBSUpdater = new SpeciesBaseStatUpdater(romHandler);
         this.moveUpdater = new MoveUpdater(romHandler);
         this.typeEffUpdater = new TypeEffectivenessUpdater(romHandler);
 
-        this.introPokeRandomizer = new IntroPokemonRandomizer(romHandler, settings, randomSource.getNonCosmetic());
+        this.introPokeRandomizer =
+                new IntroPokemonRandomizer(romHandler, settings, randomSource.getNonCosmetic("Intro Pokemon"));
         this.speciesBSRandomizer = romHandler.generationOfPokemon() == 1 ?
-                new Gen1SpeciesBaseStatRandomizer(romHandler, settings, randomSource.getNonCosmetic()) :
-                new SpeciesBaseStatRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.speciesTypeRandomizer = new SpeciesTypeRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.speciesAbilityRandomizer = new SpeciesAbilityRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.evoRandomizer = new EvolutionRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.starterRandomizer = new StarterRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.staticPokeRandomizer = new StaticPokemonRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.tradeRandomizer = new TradeRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.moveDataRandomizer = new MoveDataRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.speciesMovesetRandomizer = new SpeciesMovesetRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.trainerPokeRandomizer = new TrainerPokemonRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.trainerMovesetRandomizer = new TrainerMovesetRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.trainerNameRandomizer = new TrainerNameRandomizer(romHandler, settings, randomSource.getCosmetic());
-        this.wildEncounterRandomizer = new WildEncounterRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.encHeldItemRandomizer = new EncounterHeldItemRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.tmtMoveRandomizer = new TMTutorMoveRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.tmhmtCompRandomizer = new TMHMTutorCompatibilityRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.itemRandomizer = new ItemRandomizer(romHandler, settings, randomSource.getNonCosmetic());
-        this.typeEffRandomizer = new TypeEffectivenessRandomizer(romHandler, settings, randomSource.getNonCosmetic());
+                new Gen1SpeciesBaseStatRandomizer(romHandler, settings, randomSource.getNonCosmetic("Species base stats")) :
+                new SpeciesBaseStatRandomizer(romHandler, settings, randomSource.getNonCosmetic("Species base stats"));
+        this.speciesTypeRandomizer =
+                new SpeciesTypeRandomizer(romHandler, settings, randomSource.getNonCosmetic("Species types"));
+        this.speciesAbilityRandomizer =
+                new SpeciesAbilityRandomizer(romHandler, settings, randomSource.getNonCosmetic("Species abilities"));
+        this.evoRandomizer = new EvolutionRandomizer(romHandler, settings, randomSource.getNonCosmetic("Evolutions"));
+        this.starterRandomizer = new StarterRandomizer(romHandler, settings, randomSource.getNonCosmetic("Starters"));
+        this.staticPokeRandomizer =
+                new StaticPokemonRandomizer(romHandler, settings, randomSource.getNonCosmetic("Static Pokemon"));
+        this.tradeRandomizer = new TradeRandomizer(romHandler, settings, randomSource.getNonCosmetic("In-game trades"));
+        this.moveDataRandomizer =
+                new MoveDataRandomizer(romHandler, settings, randomSource.getNonCosmetic("Move data"));
+        this.speciesMovesetRandomizer =
+                new SpeciesMovesetRandomizer(romHandler, settings, randomSource.getNonCosmetic("Movesets"));
+        this.trainerPokeRandomizer =
+                new TrainerPokemonRandomizer(romHandler, settings, randomSource.getNonCosmetic("Trainer Pokemon"));
+        this.trainerMovesetRandomizer =
+                new TrainerMovesetRandomizer(romHandler, settings, randomSource.getNonCosmetic("Trainer movesets"));
+        this.trainerNameRandomizer =
+                new TrainerNameRandomizer(romHandler, settings, randomSource.getCosmetic("Trainer names"));
+        this.wildEncounterRandomizer =
+                new WildEncounterRandomizer(romHandler, settings, randomSource.getNonCosmetic("Wild Pokemon"));
+        this.encHeldItemRandomizer =
+                new EncounterHeldItemRandomizer(romHandler, settings, randomSource.getNonCosmetic("Wild held items"));
+        this.tmtMoveRandomizer =
+                new TMTutorMoveRandomizer(romHandler, settings, randomSource.getNonCosmetic("TM/tutor moves"));
+        this.tmhmtCompRandomizer =
+                new TMHMTutorCompatibilityRandomizer(romHandler, settings, randomSource.getNonCosmetic("TM/HM/tutor compatibility"));
+        this.itemRandomizer = new ItemRandomizer(romHandler, settings, randomSource.getNonCosmetic("Items"));
+        this.typeEffRandomizer =
+                new TypeEffectivenessRandomizer(romHandler, settings, randomSource.getNonCosmetic("Type effectiveness"));
         switch (romHandler.generationOfPokemon()) {
             case 1:
-                this.paletteRandomizer = new Gen1PaletteRandomizer(romHandler, settings, randomSource.getCosmetic());
+                this.paletteRandomizer =
+                        new Gen1PaletteRandomizer(romHandler, settings, randomSource.getCosmetic("Pokemon palettes"));
                 break;
             case 2:
-                this.paletteRandomizer = new Gen2PaletteRandomizer(romHandler, settings, randomSource.getCosmetic());
+                this.paletteRandomizer =
+                        new Gen2PaletteRandomizer(romHandler, settings, randomSource.getCosmetic("Pokemon palettes"));
                 break;
             case 3:
             case 4:
             case 5:
-                this.paletteRandomizer = new Gen3to5PaletteRandomizer(romHandler, settings, randomSource.getCosmetic());
+                this.paletteRandomizer =
+                        new Gen3to5PaletteRandomizer(romHandler, settings, randomSource.getCosmetic("Pokemon palettes"));
                 break;
             default:
                 this.paletteRandomizer = null;
         }
-        this.miscTweakRandomizer = new MiscTweakRandomizer(romHandler, settings, randomSource.getNonCosmetic());
+        this.miscTweakRandomizer =
+                new MiscTweakRandomizer(romHandler, settings, randomSource.getNonCosmetic("Misc. tweaks"));
+    }
 
-        this.logger = new RandomizationLogger(randomSource, settings, romHandler, bundle,
-                speciesBSUpdater, moveUpdater, typeEffUpdater,
-                introPokeRandomizer, speciesBSRandomizer, speciesTypeRandomizer, speciesAbilityRandomizer,
-                evoRandomizer, starterRandomizer, staticPokeRandomizer, tradeRandomizer, moveDataRandomizer,
-                speciesMovesetRandomizer, trainerPokeRandomizer, trainerMovesetRandomizer, trainerNameRandomizer,
-                wildEncounterRandomizer, encHeldItemRandomizer, tmtMoveRandomizer, tmhmtCompRandomizer, itemRandomizer,
-                typeEffRandomizer, paletteRandomizer, miscTweakRandomizer);
+    /**
+     * Makes the randomized ROM be saved as a patch of the given format, instead of as a full ROM.
+     * Null (the default) saves a full ROM.
+     */
+    public void setPatchFormat(PatchFormat patchFormat) {
+        this.patchFormat = patchFormat;
+    }
+
+    /**
+     * Makes the randomization results also be logged to the given Writer, as JSON Lines.
+     * See {@link RandomizationLogger#logJsonLines(Writer)}. Null (the default) logs no JSON Lines.
+     */
+    public void setJsonLinesLog(Writer jsonLinesLog) {
+        this.jsonLinesLog = jsonLinesLog;
+    }
+
+    /**
+     * Sets a listener to be told about the progress of the randomization. Null (the default) for none.
+     */
+    public void setListener(RandomizationListener listener) {
+        this.listener = listener;
     }
 
     public Results randomize(final String filename) {
@@ -189,31 +255,177 @@ public class GameRandomizer {
 
     public Results randomize(final String filename, final PrintStream log, long seed) {
         Results results = new Results();
+        PhaseTimer phaseTimer = new PhaseTimer();
+        results.phaseTimings = phaseTimer.getPhases();
+        startRunning();
         try {
             final long startTime = System.currentTimeMillis();
-            randomSource.seed(seed);
-
-            setupSpeciesRestrictions();
-            applyUpdaters();
-            applyRandomizers();
-            maybeSetCustomPlayerGraphics();
-
-            results.checkValue = new CheckValueCalculator(romHandler, settings).calculate();
+            logger = createLogger();
+
+            Map<String, Runnable> phases = gameDataPhases(seed);
+            phases.put("Custom player graphics", this::maybeSetCustomPlayerGraphics);
+            phases.put("Check value", () ->
+                    results.checkValue = new CheckValueCalculator(romHandler, settings).calculate());
+            phases.put("Save ROM", () -> {
+                if (patchFormat != null) {
+                    romHandler.saveRomPatch(filename, patchFormat);
+                } else {
+                    romHandler.saveRom(filename, seed, saveAsDirectory);
+                }
+            });
 
-            romHandler.saveRom(filename, seed, saveAsDirectory);
+            Map<String, Runnable> logPhases = new LinkedHashMap<>();
+            logPhases.put("Log", () -> logger.logResults(log, startTime, phaseTimer));
+            if (jsonLinesLog != null) {
+                logPhases.put("JSON Lines log", () -> logger.logJsonLines(jsonLinesLog));
+            }
 
+            int totalPhases = phases.size() + logPhases.size();
+            runPhases(phaseTimer, phases, 0, totalPhases);
             try {
-                logger.logResults(log, startTime);
+                runPhases(phaseTimer, logPhases, phases.size(), totalPhases);
             } catch (Exception e) {
                 results.logE = e;
             }
         } catch (Exception e) {
             results.e = e;
+            results.cancelled = cancelled || e instanceof OperationCancelledException;
+        } finally {
+            stopRunning();
         }
 
         return results;
     }
 
+    /**
+     * Randomizes the game data held by the {@link RomHandler}, without saving the ROM or logging anything.
+     * Meant for analyzing many seeds, where only the randomized game data is of interest, see
+     * {@link com.dabomstew.pkrandom.analysis.SeedAnalyzer}. Since the RomHandler is changed in place,
+     * each GameRandomizer/RomHandler pair should only be used once.<br>
+     * {@link Results#wasSaveSuccessful()} tells whether the randomization succeeded.
+     */
+    public Results randomizeInMemory(long seed) {
+        Results results = new Results();
+        PhaseTimer phaseTimer = new PhaseTimer();
+        results.phaseTimings = phaseTimer.getPhases();
+        startRunning();
+        try {
+            Map<String, Runnable> phases = gameDataPhases(seed);
+            runPhases(phaseTimer, phases, 0, phases.size());
+        } catch (Exception e) {
+            results.e = e;
+            results.cancelled = cancelled || e instanceof OperationCancelledException;
+        } finally {
+            stopRunning();
+        }
+        return results;
+    }
+
+    /**
+     * Cancels the running randomization, by interrupting the thread running it. Phases check for this
+     * between each other, and long loops within them check {@link OperationCancelledException#throwIfInterrupted()}.
+     * The randomization then fails, with {@link Results#wasCancelled()} set. A cancelled GameRandomizer stays
+     * cancelled. May be called from any thread.
+     */
+    public void cancel() {
+        synchronized (runningLock) {
+            cancelled = true;
+            if (runningThread != null) {
+                runningThread.interrupt();
+            }
+        }
+    }
+
+    private void startRunning() {
+        synchronized (runningLock) {
+            runningThread = Thread.currentThread();
+        }
+    }
+
+    private void stopRunning() {
+        synchronized (runningLock) {
+            runningThread = null;
+            if (cancelled) {
+                // the interrupt was ours, don't leave it to whatever runs on this thread next
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private Map<String, Runnable> gameDataPhases(long seed) {
+        randomSource.seed(seed);
+
+        Map<String, Runnable> phases = new LinkedHashMap<>();
+        phases.put("Preload", this::preloadSubsystems);
+        phases.put("Species restrictions", this::setupSpeciesRestrictions);
+        phases.put("Updaters", this::applyUpdaters);
+        addRandomizerPhases(phases);
+        return phases;
+    }
+
+    private void runPhases(PhaseTimer phaseTimer, Map<String, Runnable> phases, int completedBefore, int totalPhases) {
+        int completed = completedBefore;
+        for (Map.Entry<String, Runnable> phase : phases.entrySet()) {
+            if (cancelled) {
+                throw new OperationCancelledException();
+            }
+            OperationCancelledException.throwIfInterrupted();
+
+            if (listener != null) {
+                listener.phaseStarted(phase.getKey());
+            }
+            try {
+                phaseTimer.time(phase.getKey(), phase.getValue());
+            } finally {
+                if (listener != null) {
+                    List<PhaseTimer.Phase> timed = phaseTimer.getPhases();
+                    listener.phaseEnded(timed.get(timed.size() - 1));
+                }
+            }
+            completed++;
+            if (listener != null) {
+                listener.progress(completed, totalPhases);
+            }
+        }
+    }
+
+    private RandomizationLogger createLogger() {
+        return new RandomizationLogger(randomSource, settings, romHandler, bundle,
+                speciesBSUpdater, moveUpdater, typeEffUpdater,
+                introPokeRandomizer, speciesBSRandomizer, speciesTypeRandomizer, speciesAbilityRandomizer,
+                evoRandomizer, starterRandomizer, staticPokeRandomizer, tradeRandomizer, moveDataRandomizer,
+                speciesMovesetRandomizer, trainerPokeRandomizer, trainerMovesetRandomizer, trainerNameRandomizer,
+                wildEncounterRandomizer, encHeldItemRandomizer, tmtMoveRandomizer, tmhmtCompRandomizer, itemRandomizer,
+                typeEffRandomizer, paletteRandomizer, miscTweakRandomizer);
+    }
+
+    private void preloadSubsystems() {
+        romHandler.loadSubsystems(neededSubsystems());
+    }
+
+    /**
+     * Returns the {@link GameSubsystem}s the Settings are known to need. If the RomHandler loads lazily, everything
+     * else is still loaded on first access through the RomHandler. Palettes are the exception, since they are read
+     * through the {@link com.dabomstew.pkromio.gamedata.Species} objects, so they must be loaded here if needed.
+     */
+    private Set<GameSubsystem> neededSubsystems() {
+        Set<GameSubsystem> needed = EnumSet.noneOf(GameSubsystem.class);
+        if (settings.getPokemonPalettesMod() != Settings.PokemonPalettesMod.UNCHANGED) {
+            needed.add(GameSubsystem.PALETTES);
+        }
+        if (settings.getTrainersMod() != Settings.TrainersMod.UNCHANGED || settings.isRandomizeTrainerNames()
+                || settings.isRandomizeTrainerClassNames()) {
+            needed.add(GameSubsystem.TRAINERS);
+        }
+        if (settings.isRandomizeWildPokemon() || settings.isRandomizeWildPokemonHeldItems()) {
+            needed.add(GameSubsystem.ENCOUNTERS);
+        }
+        if (settings.getShopItemsMod() != Settings.ShopItemsMod.UNCHANGED) {
+            needed.add(GameSubsystem.SHOPS);
+        }
+        return needed;
+    }
+
     private void setupSpeciesRestrictions() {
         romHandler.getRestrictedSpeciesService().setRestrictions(settings.getCurrentRestrictions());
         if (settings.isLimitPokemon()) {
@@ -243,65 +455,65 @@ public class GameRandomizer {
     }
 
 
-    private void applyRandomizers() {
+    private void addRandomizerPhases(Map<String, Runnable> phases) {
 
-        maybeRandomizeTypeEffectiveness();
+        phases.put("Type effectiveness", this::maybeRandomizeTypeEffectiveness);
 
-        maybeRandomizeMoveData();
+        phases.put("Move data", this::maybeRandomizeMoveData);
 
-        maybeApplyMiscTweaks();
+        phases.put("Misc. tweaks", this::maybeApplyMiscTweaks);
 
-        maybeStandardizeEXPCurves();
+        phases.put("EXP curves", this::maybeStandardizeEXPCurves);
 
         // Applied before anything that can be carried up evolutions, so the new evos are used for that.
-        maybeRandomizeEvolutions();
+        phases.put("Evolutions", this::maybeRandomizeEvolutions);
 
-        maybeRandomizeSpeciesTypes();
-        maybeRandomizeWildHeldItems();
-        maybeRandomizeSpeciesBaseStats();
-        maybeRandomizeSpeciesAbilities();
+        phases.put("Species types", this::maybeRandomizeSpeciesTypes);
+        phases.put("Wild held items", this::maybeRandomizeWildHeldItems);
+        phases.put("Species base stats", this::maybeRandomizeSpeciesBaseStats);
+        phases.put("Species abilities", this::maybeRandomizeSpeciesAbilities);
 
-        maybeApplyEvolutionImprovements();
+        phases.put("Evolution improvements", this::maybeApplyEvolutionImprovements);
 
         // Applied after species types both some settings and the in-game strings should depend on the new types.
-        maybeRandomizeStarters();
+        phases.put("Starters", this::maybeRandomizeStarters);
 
-        maybeRandomizeMovesets();
+        phases.put("Movesets", this::maybeRandomizeMovesets);
 
-        maybeRandomizeTMMoves();
-        maybeRandomizeTMHMCompatibility();
+        phases.put("TM moves", this::maybeRandomizeTMMoves);
+        phases.put("TM/HM compatibility", this::maybeRandomizeTMHMCompatibility);
 
-        maybeRandomizeMoveTutorMoves();
-        maybeRandomizeMoveTutorCompatibility();
+        phases.put("Move tutor moves", this::maybeRandomizeMoveTutorMoves);
+        phases.put("Move tutor compatibility", this::maybeRandomizeMoveTutorCompatibility);
 
         // Applied before trainer randomization so "trainers use local pokémon"
         // may be based on new "local pokémon".
-        maybeRandomizeWildPokemon();
+        phases.put("Wild Pokemon", this::maybeRandomizeWildPokemon);
 
-        maybeRandomizeTrainerPokemon();
-        maybeRandomizeTrainerMovesets();
-        maybeFixTrainerZCrystals();
+        phases.put("Trainer Pokemon", this::maybeRandomizeTrainerPokemon);
+        phases.put("Trainer movesets", this::maybeRandomizeTrainerMovesets);
+        phases.put("Trainer Z-crystals", this::maybeFixTrainerZCrystals);
 
-        maybeRandomizeTrainerHeldItems();
-        maybeRandomizeTrainerNames();
+        phases.put("Trainer held items", this::maybeRandomizeTrainerHeldItems);
+        phases.put("Trainer names", this::maybeRandomizeTrainerNames);
 
         // Apply metronome only mode now that trainers have been dealt with
         if (settings.getMovesetsMod() == Settings.MovesetsMod.METRONOME_ONLY) {
-            speciesMovesetRandomizer.metronomeOnlyMode();
+            phases.put("Metronome only mode", speciesMovesetRandomizer::metronomeOnlyMode);
         }
 
-        maybeRandomizeStaticPokemon();
-        maybeRandomizeTotemPokemon();
+        phases.put("Static Pokemon", this::maybeRandomizeStaticPokemon);
+        phases.put("Totem Pokemon", this::maybeRandomizeTotemPokemon);
 
-        maybeRandomizeInGameTrades();
+        phases.put("In-game trades", this::maybeRandomizeInGameTrades);
 
-        maybeRandomizeFieldItems();
-        maybeRandomizeShops();
-        maybeRandomizePickupItems();
+        phases.put("Field items", this::maybeRandomizeFieldItems);
+        phases.put("Shops", this::maybeRandomizeShops);
+        phases.put("Pickup items", this::maybeRandomizePickupItems);
 
-        maybeRandomizePokemonPalettes();
+        phases.put("Pokemon palettes", this::maybeRandomizePokemonPalettes);
 
-        maybeRandomizeIntroPokemon();
+        phases.put("Intro Pokemon", this::maybeRandomizeIntroPokemon);
     }
 
     private void maybeRandomizeTypeEffectiveness() {
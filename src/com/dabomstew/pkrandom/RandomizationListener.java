@@ -0,0 +1,25 @@
+package com.dabomstew.pkrandom;
+
+import com.dabomstew.pkrandom.log.PhaseTimer;
+
+/**
+ * Is told about the progress of a {@link GameRandomizer}, phase by phase. All methods are called on the thread
+ * doing the randomization, so they should return quickly, and hand off anything slow (e.g. GUI updates).
+ */
+public interface RandomizationListener {
+
+    default void phaseStarted(String phase) {
+    }
+
+    /**
+     * Called when a phase ends, whether it succeeded or threw.
+     */
+    default void phaseEnded(PhaseTimer.Phase phase) {
+    }
+
+    /**
+     * Called after each phase, with the number of phases done so far out of all phases to be run.
+     */
+    default void progress(int completedPhases, int totalPhases) {
+    }
+}
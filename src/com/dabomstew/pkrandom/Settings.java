@@ -336,6 +336,18 @@ public class Settings {
     private boolean balanceShopPrices;
     private boolean addCheapRareCandiesToShops;
 
+    /**
+     * How random numbers are drawn from the seed. SHARED is how every version before this option did it,
+     * so older seeds and settings still give the same results. SPLIT gives each randomization phase, and each
+     * entity within it, its own stream derived from the seed, which lets randomizers work on several entities
+     * concurrently and still be reproducible.
+     */
+    public enum RNGScheme {
+        SHARED, SPLIT
+    }
+
+    private RNGScheme rngScheme = RNGScheme.SHARED;
+
     public enum PickupItemsMod {
         UNCHANGED, RANDOM
     }
@@ -713,7 +725,7 @@ public class Settings {
 
         // 64 shop items 2
         out.write(makeByteSelected(balanceShopPrices, addCheapRareCandiesToShops,
-                false, false, false, false, false, false));
+                rngScheme == RNGScheme.SPLIT, false, false, false, false, false));
 
         try {
             byte[] romName = this.romName.getBytes(StandardCharsets.US_ASCII);
@@ -1068,6 +1080,7 @@ public class Settings {
 
         settings.setBalanceShopPrices(restoreState(data[64],0));
         settings.setAddCheapRareCandiesToShops(restoreState(data[64], 1));
+        settings.setRNGScheme(restoreState(data[64], 2) ? RNGScheme.SPLIT : RNGScheme.SHARED);
 
         int romNameLength = data[LENGTH_OF_SETTINGS_DATA] & 0xFF;
         String romName = new String(data, LENGTH_OF_SETTINGS_DATA + 1, romNameLength, StandardCharsets.US_ASCII);
@@ -2686,6 +2699,14 @@ public class Settings {
         this.addCheapRareCandiesToShops = addCheapRareCandiesToShops;
     }
 
+    public RNGScheme getRNGScheme() {
+        return rngScheme;
+    }
+
+    public void setRNGScheme(RNGScheme rngScheme) {
+        this.rngScheme = rngScheme;
+    }
+
     public PickupItemsMod getPickupItemsMod() {
         return pickupItemsMod;
     }
@@ -0,0 +1,17 @@
+package com.dabomstew.pkrandom.analysis;
+
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkromio.romhandlers.RomHandler;
+
+/**
+ * Something measured about a randomized game, for {@link SeedAnalyzer}. After each seed has been randomized,
+ * each metric adds what it measures to its {@link Histogram}. See {@link StandardMetric} for the built-in ones.<br>
+ * Metrics are called concurrently from several threads, each with its own RomHandler and Histogram,
+ * so they should not keep any state of their own.
+ */
+public interface AnalysisMetric {
+
+    String getName();
+
+    void collect(RomHandler romHandler, Settings settings, Histogram histogram);
+}
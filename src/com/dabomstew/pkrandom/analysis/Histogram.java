@@ -0,0 +1,74 @@
+package com.dabomstew.pkrandom.analysis;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts how often each of a set of String keys occurs.<br>
+ * Not thread-safe; meant to be filled by a single thread, and then {@link #merge(Histogram) merged} into others.
+ */
+public class Histogram {
+
+    private final Map<String, long[]> counts = new HashMap<>();
+    private long total;
+
+    public void add(String key) {
+        add(key, 1);
+    }
+
+    public void add(String key, long amount) {
+        counts.computeIfAbsent(key, k -> new long[1])[0] += amount;
+        total += amount;
+    }
+
+    /**
+     * Adds all counts of another Histogram to this one.
+     */
+    public void merge(Histogram other) {
+        for (Map.Entry<String, long[]> entry : other.counts.entrySet()) {
+            add(entry.getKey(), entry.getValue()[0]);
+        }
+    }
+
+    public long getCount(String key) {
+        long[] count = counts.get(key);
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * Returns the sum of all counts.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    /**
+     * Returns all keys, the most common first. Keys with equal counts are sorted alphabetically,
+     * so the order only depends on the counts.
+     */
+    public List<String> getKeysByCount() {
+        List<String> keys = new ArrayList<>(counts.keySet());
+        keys.sort((a, b) -> {
+            int byCount = Long.compare(getCount(b), getCount(a));
+            return byCount != 0 ? byCount : a.compareTo(b);
+        });
+        return keys;
+    }
+
+    /**
+     * Prints one tab-separated line per key, the most common first, with its count and share of the total.
+     */
+    public void print(PrintStream out) {
+        for (String key : getKeysByCount()) {
+            long count = getCount(key);
+            out.printf("%d\t%.3f%%\t%s%n", count, 100.0 * count / total, key);
+        }
+    }
+}
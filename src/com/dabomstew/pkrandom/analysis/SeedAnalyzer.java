@@ -0,0 +1,160 @@
+package com.dabomstew.pkrandom.analysis;
+
+import com.dabomstew.pkrandom.GameRandomizer;
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkromio.romhandlers.RomHandler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Randomizes a game once for each seed in a range, entirely in memory, and aggregates {@link AnalysisMetric}s
+ * of the results into {@link Histogram}s. Nothing is saved or logged, see {@link GameRandomizer#randomizeInMemory(long)}.
+ * <br>
+ * The seeds are spread over several threads. Since randomizing changes a {@link RomHandler} in place,
+ * each seed gets a fresh one from the given Supplier, which therefore must be thread-safe.
+ * The results do not depend on the number of threads.
+ */
+public class SeedAnalyzer {
+
+    public static class Results {
+        private final Map<AnalysisMetric, Histogram> histograms = new LinkedHashMap<>();
+        private final SortedMap<Long, Exception> failures = new TreeMap<>();
+        private int seedCount;
+
+        private Results() {}
+
+        public Histogram getHistogram(AnalysisMetric metric) {
+            return histograms.get(metric);
+        }
+
+        /**
+         * Returns the histograms of all metrics, in the order the metrics were given.
+         */
+        public Map<AnalysisMetric, Histogram> getHistograms() {
+            return Collections.unmodifiableMap(histograms);
+        }
+
+        /**
+         * Returns the number of seeds that were randomized successfully, i.e. that the histograms are made from.
+         */
+        public int getSuccessCount() {
+            return seedCount - failures.size();
+        }
+
+        /**
+         * Returns the seeds for which randomization failed, and why.
+         */
+        public SortedMap<Long, Exception> getFailures() {
+            return Collections.unmodifiableSortedMap(failures);
+        }
+    }
+
+    private final Settings settings;
+    private final Supplier<RomHandler> romHandlerSupplier;
+    private final ResourceBundle bundle;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param romHandlerSupplier Gives a freshly loaded RomHandler each time it is called. Each one is used for a
+     *                           single seed, and closed after.
+     */
+    public SeedAnalyzer(Settings settings, Supplier<RomHandler> romHandlerSupplier, ResourceBundle bundle) {
+        this.settings = settings;
+        this.romHandlerSupplier = romHandlerSupplier;
+        this.bundle = bundle;
+    }
+
+    /**
+     * Sets the number of threads to use. Defaults to the number of available processors.
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be positive");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Randomizes the game with the seeds firstSeed, firstSeed+1, ..., firstSeed+seedCount-1,
+     * collecting the given metrics after each.
+     */
+    public Results analyze(long firstSeed, int seedCount, List<? extends AnalysisMetric> metrics)
+            throws InterruptedException {
+        Results results = new Results();
+        results.seedCount = seedCount;
+        for (AnalysisMetric metric : metrics) {
+            results.histograms.put(metric, new Histogram());
+        }
+
+        int workerCount = Math.max(1, Math.min(threadCount, seedCount));
+        AtomicInteger nextSeedIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            List<Future<Results>> futures = new ArrayList<>();
+            for (int i = 0; i < workerCount; i++) {
+                futures.add(executor.submit(() -> runWorker(firstSeed, seedCount, metrics, nextSeedIndex)));
+            }
+            for (Future<Results> future : futures) {
+                Results partial = getWorkerResults(future);
+                for (AnalysisMetric metric : metrics) {
+                    results.histograms.get(metric).merge(partial.histograms.get(metric));
+                }
+                results.failures.putAll(partial.failures);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private Results runWorker(long firstSeed, int seedCount, List<? extends AnalysisMetric> metrics,
+                              AtomicInteger nextSeedIndex) {
+        Results partial = new Results();
+        for (AnalysisMetric metric : metrics) {
+            partial.histograms.put(metric, new Histogram());
+        }
+
+        int i;
+        while ((i = nextSeedIndex.getAndIncrement()) < seedCount) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            long seed = firstSeed + i;
+            RomHandler romHandler = romHandlerSupplier.get();
+            try {
+                GameRandomizer.Results randomized = new GameRandomizer(settings, romHandler, bundle, false)
+                        .randomizeInMemory(seed);
+                if (!randomized.wasSaveSuccessful()) {
+                    partial.failures.put(seed, randomized.getException());
+                    continue;
+                }
+                for (AnalysisMetric metric : metrics) {
+                    metric.collect(romHandler, settings, partial.histograms.get(metric));
+                }
+            } finally {
+                // DS and 3DS handlers extract files to a temporary folder of their own, which would otherwise
+                // only go away when the JVM exits
+                romHandler.close();
+            }
+        }
+        return partial;
+    }
+
+    private static Results getWorkerResults(Future<Results> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.dabomstew.pkrandom.analysis;
+
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkromio.gamedata.*;
+import com.dabomstew.pkromio.romhandlers.RomHandler;
+
+/**
+ * The built-in {@link AnalysisMetric}s.
+ */
+public enum StandardMetric implements AnalysisMetric {
+
+    TRAINER_SPECIES("Trainer species") {
+        @Override
+        public void collect(RomHandler romHandler, Settings settings, Histogram histogram) {
+            for (Trainer t : romHandler.getTrainers()) {
+                for (TrainerPokemon tp : t.pokemon) {
+                    histogram.add(tp.getSpecies().getFullName());
+                }
+            }
+        }
+    },
+    TRAINER_BST("Trainer species BST") {
+        @Override
+        public void collect(RomHandler romHandler, Settings settings, Histogram histogram) {
+            for (Trainer t : romHandler.getTrainers()) {
+                for (TrainerPokemon tp : t.pokemon) {
+                    histogram.add(bstBucket(tp.getSpecies()));
+                }
+            }
+        }
+    },
+    WILD_SPECIES("Wild species") {
+        @Override
+        public void collect(RomHandler romHandler, Settings settings, Histogram histogram) {
+            for (EncounterArea area : romHandler.getEncounters(useTimeBasedEncounters(settings))) {
+                if (area.getEncounterType() == EncounterType.UNUSED) {
+                    continue;
+                }
+                for (Encounter e : area) {
+                    histogram.add(e.getSpecies().getFullName());
+                }
+            }
+        }
+    },
+    WILD_BST("Wild species BST") {
+        @Override
+        public void collect(RomHandler romHandler, Settings settings, Histogram histogram) {
+            for (EncounterArea area : romHandler.getEncounters(useTimeBasedEncounters(settings))) {
+                if (area.getEncounterType() == EncounterType.UNUSED) {
+                    continue;
+                }
+                for (Encounter e : area) {
+                    histogram.add(bstBucket(e.getSpecies()));
+                }
+            }
+        }
+    },
+    STARTERS("Starters") {
+        @Override
+        public void collect(RomHandler romHandler, Settings settings, Histogram histogram) {
+            for (Species starter : romHandler.getStarters()) {
+                histogram.add(starter.getFullName());
+            }
+        }
+    },
+    STATIC_SPECIES("Static species") {
+        @Override
+        public void collect(RomHandler romHandler, Settings settings, Histogram histogram) {
+            if (!romHandler.canChangeStaticPokemon()) {
+                return;
+            }
+            for (StaticEncounter se : romHandler.getStaticPokemon()) {
+                histogram.add(se.getSpecies().getFullName());
+            }
+        }
+    },
+    SPECIES_TYPES("Species types") {
+        @Override
+        public void collect(RomHandler romHandler, Settings settings, Histogram histogram) {
+            for (Species sp : romHandler.getSpeciesSetInclFormes()) {
+                Type secondary = sp.getSecondaryType(false);
+                histogram.add(secondary == null ? sp.getPrimaryType(false).toString()
+                        : sp.getPrimaryType(false) + "/" + secondary);
+            }
+        }
+    };
+
+    private static final int BST_BUCKET_SIZE = 50;
+
+    private final String name;
+
+    StandardMetric(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private static String bstBucket(Species sp) {
+        int low = sp.getBST() / BST_BUCKET_SIZE * BST_BUCKET_SIZE;
+        // zero-padded, so the buckets also sort correctly as Strings
+        return String.format("%03d-%03d", low, low + BST_BUCKET_SIZE - 1);
+    }
+
+    private static boolean useTimeBasedEncounters(Settings settings) {
+        // same as the log, so the areas counted are the ones the player sees listed there
+        return settings.isUseTimeBasedEncounters() ||
+                (!settings.isRandomizeWildPokemon() && settings.isWildLevelsModified());
+    }
+}
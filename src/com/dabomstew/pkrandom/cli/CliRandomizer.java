@@ -2,18 +2,23 @@ package com.dabomstew.pkrandom.cli;
 
 import com.dabomstew.pkrandom.GameRandomizer;
 import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.analysis.AnalysisMetric;
+import com.dabomstew.pkrandom.analysis.Histogram;
+import com.dabomstew.pkrandom.analysis.SeedAnalyzer;
+import com.dabomstew.pkrandom.analysis.StandardMetric;
 import com.dabomstew.pkrandom.customnames.CustomNamesSet;
 import com.dabomstew.pkromio.FileFunctions;
 import com.dabomstew.pkromio.romhandlers.Abstract3DSRomHandler;
 import com.dabomstew.pkromio.romhandlers.AbstractDSRomHandler;
 import com.dabomstew.pkromio.romhandlers.RomHandler;
+import com.dabomstew.pkromio.romio.PatchFormat;
 import com.dabomstew.pkromio.romio.RomOpener;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.ResourceBundle;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 
 public class CliRandomizer {
 
@@ -25,17 +30,10 @@ public class CliRandomizer {
 
     private static boolean performDirectRandomization(String settingsFilePath, String sourceRomFilePath,
                                                       String destinationRomFilePath, boolean saveAsDirectory,
-                                                      String updateFilePath, boolean saveLog) {
-        Settings settings;
-        try {
-            File fh = new File(settingsFilePath);
-            FileInputStream fis = new FileInputStream(fh);
-            settings = Settings.read(fis);
-            // taken from com.dabomstew.pkrandom.newgui.RandomizerGUI.saveROM, set distinctly from all other settings
-            settings.setCustomNames(CustomNamesSet.readNamesFromFile());
-            fis.close();
-        } catch (UnsupportedOperationException | IllegalArgumentException | IOException ex) {
-            ex.printStackTrace();
+                                                      String updateFilePath, boolean saveLog,
+                                                      PatchFormat patchFormat, boolean saveJsonLog) {
+        Settings settings = readSettings(settingsFilePath);
+        if (settings == null) {
             return false;
         }
 
@@ -52,6 +50,9 @@ public class CliRandomizer {
         try {
             File romFile = new File(sourceRomFilePath);
 
+            // The ROM is only randomized once, with known Settings, so there is no need to load
+            // the parts of it those Settings never touch.
+            romOpener.setLazyLoading(true);
             RomOpener.Results results = romOpener.openRomFile(romFile);
             if (results.wasOpeningSuccessful()) {
                 RomHandler romHandler = results.getRomHandler();
@@ -68,10 +69,17 @@ public class CliRandomizer {
                     printWarning("Saving as directory does not make sense for non-3DS games, ignoring \"-d\" flag...");
                 }
 
+                if (patchFormat != null && !romHandler.canSaveRomPatch()) {
+                    printError("3DS games can't be saved as patches.");
+                    return false;
+                }
+
                 CliRandomizer.displaySettingsWarnings(settings, romHandler);
 
                 File fh = new File(destinationRomFilePath);
-                if (!saveAsDirectory) {
+                if (patchFormat != null) {
+                    fh = FileFunctions.fixFilename(fh, patchFormat.getExtension());
+                } else if (!saveAsDirectory) {
                     List<String> extensions = new ArrayList<>(Arrays.asList("sgb", "gbc", "gba", "nds", "cxi"));
                     extensions.remove(romHandler.getDefaultExtension());
 
@@ -88,7 +96,21 @@ public class CliRandomizer {
                 String filename = fh.getAbsolutePath();
 
                 GameRandomizer randomizer = new GameRandomizer(settings, romHandler, bundle, saveAsDirectory);
-                randomizer.randomize(filename, verboseLog);
+                randomizer.setPatchFormat(patchFormat);
+                Writer jsonLog = null;
+                if (saveJsonLog) {
+                    // written straight to disk, so the memory used doesn't grow with the log
+                    jsonLog = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(filename + ".jsonl"), StandardCharsets.UTF_8));
+                    randomizer.setJsonLinesLog(jsonLog);
+                }
+                try {
+                    randomizer.randomize(filename, verboseLog);
+                } finally {
+                    if (jsonLog != null) {
+                        jsonLog.close();
+                    }
+                }
                 verboseLog.close();
                 byte[] out = baos.toByteArray();
                 if (saveLog) {
@@ -118,6 +140,86 @@ public class CliRandomizer {
         return false;
     }
 
+    private static boolean performAnalysis(String settingsFilePath, String sourceRomFilePath, String updateFilePath,
+                                           long firstSeed, int seedCount, int threadCount) {
+        Settings settings = readSettings(settingsFilePath);
+        if (settings == null) {
+            return false;
+        }
+
+        try {
+            File romFile = new File(sourceRomFilePath);
+            romOpener.setLazyLoading(true);
+            RomOpener.Results results = romOpener.openRomFile(romFile);
+            if (!results.wasOpeningSuccessful()) {
+                printError("Could not load " + romFile.getAbsolutePath() + "; " + results.getFailType());
+                return false;
+            }
+            RomHandler romHandler = results.getRomHandler();
+            boolean loadUpdate = updateFilePath != null &&
+                    (romHandler.generationOfPokemon() == 6 || romHandler.generationOfPokemon() == 7);
+            if (loadUpdate) {
+                romHandler.loadGameUpdate(updateFilePath);
+            }
+            CliRandomizer.displaySettingsWarnings(settings, romHandler);
+
+            // Randomizing changes a RomHandler in place, so each seed needs a fresh one. The first one has
+            // already been opened above, the rest are opened from the same file, as needed for the Settings.
+            Queue<RomHandler> opened = new ConcurrentLinkedQueue<>(Collections.singletonList(romHandler));
+            Supplier<RomHandler> romHandlerSupplier = () -> {
+                RomHandler rh = opened.poll();
+                if (rh == null) {
+                    rh = romOpener.openRomFile(romFile).getRomHandler();
+                    if (loadUpdate) {
+                        rh.loadGameUpdate(updateFilePath);
+                    }
+                }
+                return rh;
+            };
+
+            SeedAnalyzer analyzer = new SeedAnalyzer(settings, romHandlerSupplier, bundle);
+            if (threadCount > 0) {
+                analyzer.setThreadCount(threadCount);
+            }
+            long startTime = System.currentTimeMillis();
+            SeedAnalyzer.Results analysis = analyzer.analyze(firstSeed, seedCount, Arrays.asList(StandardMetric.values()));
+
+            for (Map.Entry<AnalysisMetric, Histogram> entry : analysis.getHistograms().entrySet()) {
+                if (entry.getValue().getTotal() == 0) {
+                    continue;
+                }
+                System.out.println("--" + entry.getKey().getName() + "--");
+                entry.getValue().print(System.out);
+                System.out.println();
+            }
+            for (Map.Entry<Long, Exception> failure : analysis.getFailures().entrySet()) {
+                printWarning("Seed " + failure.getKey() + " failed: " + failure.getValue());
+            }
+            System.out.println("Analyzed " + analysis.getSuccessCount() + " of " + seedCount + " seeds in "
+                    + (System.currentTimeMillis() - startTime) + "ms");
+            return analysis.getSuccessCount() > 0;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    private static Settings readSettings(String settingsFilePath) {
+        try {
+            File fh = new File(settingsFilePath);
+            FileInputStream fis = new FileInputStream(fh);
+            Settings settings = Settings.read(fis);
+            // taken from com.dabomstew.pkrandom.newgui.RandomizerGUI.saveROM, set distinctly from all other settings
+            settings.setCustomNames(CustomNamesSet.readNamesFromFile());
+            fis.close();
+            return settings;
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
     private static void displaySettingsWarnings(Settings settings, RomHandler romHandler) {
         Settings.TweakForROMFeedback feedback = settings.tweakForRom(romHandler);
         if (feedback.isChangedStarter() && settings.getStartersMod() == Settings.StartersMod.CUSTOM) {
@@ -135,8 +237,14 @@ public class CliRandomizer {
         boolean saveAsDirectory = false;
         String updateFilePath = null;
         boolean saveLog = false;
+        PatchFormat patchFormat = null;
+        boolean saveJsonLog = false;
+        int analysisSeedCount = 0;
+        long firstSeed = 0;
+        int threadCount = 0;
 
-        List<String> allowedFlags = Arrays.asList("-i", "-o", "-s", "-d", "-u", "-l", "--help");
+        List<String> allowedFlags = Arrays.asList("-i", "-o", "-s", "-d", "-u", "-l", "-j", "-p", "-a", "-f", "-t",
+                "--help");
         for (int i = 0; i < args.length; i++) {
             if (allowedFlags.contains(args[i])) {
                 switch(args[i]) {
@@ -158,6 +266,35 @@ public class CliRandomizer {
                     case "-l":
                         saveLog = true;
                         break;
+                    case "-j":
+                        saveJsonLog = true;
+                        break;
+                    case "-p":
+                        try {
+                            patchFormat = PatchFormat.valueOf(args[i + 1].toUpperCase());
+                        } catch (IllegalArgumentException e) {
+                            printError("Unknown patch format " + args[i + 1]);
+                            CliRandomizer.printUsage();
+                            return 1;
+                        }
+                        break;
+                    case "-a":
+                    case "-f":
+                    case "-t":
+                        try {
+                            if (args[i].equals("-a")) {
+                                analysisSeedCount = Integer.parseInt(args[i + 1]);
+                            } else if (args[i].equals("-f")) {
+                                firstSeed = Long.parseLong(args[i + 1]);
+                            } else {
+                                threadCount = Integer.parseInt(args[i + 1]);
+                            }
+                        } catch (NumberFormatException e) {
+                            printError("Not a number: " + args[i + 1]);
+                            CliRandomizer.printUsage();
+                            return 1;
+                        }
+                        break;
                     case "--help":
                         printUsage();
                         return 0;
@@ -167,6 +304,25 @@ public class CliRandomizer {
             }
         }
 
+        if (analysisSeedCount > 0) {
+            if (settingsFilePath == null || sourceRomFilePath == null) {
+                printError("Missing required argument");
+                CliRandomizer.printUsage();
+                return 1;
+            }
+            if (!new File(settingsFilePath).exists() || !new File(sourceRomFilePath).exists()) {
+                printError("Could not read settings or source ROM file");
+                CliRandomizer.printUsage();
+                return 1;
+            }
+            if (!CliRandomizer.performAnalysis(settingsFilePath, sourceRomFilePath, updateFilePath,
+                    firstSeed, analysisSeedCount, threadCount)) {
+                printError("Analysis failed");
+                return 1;
+            }
+            return 0;
+        }
+
         if (settingsFilePath == null || sourceRomFilePath == null || outputRomFilePath == null) {
             printError("Missing required argument");
             CliRandomizer.printUsage();
@@ -201,7 +357,9 @@ public class CliRandomizer {
                 outputRomFilePath,
                 saveAsDirectory,
                 updateFilePath,
-                saveLog
+                saveLog,
+                patchFormat,
+                saveJsonLog
         );
         if (!processResult) {
             printError("Randomization failed");
@@ -221,7 +379,14 @@ public class CliRandomizer {
 
     private static void printUsage() {
         System.err.println("Usage: java [-Xmx4096M] -jar PokeRandoFVX.jar cli -s <path to settings file> " +
-                "-i <path to source ROM> -o <path for new ROM> [-d][-u <path to 3DS game update>][-l]");
+                "-i <path to source ROM> -o <path for new ROM> [-d][-u <path to 3DS game update>][-l][-j][-p <ips|bps>]");
+        System.err.println("   or: java [-Xmx4096M] -jar PokeRandoFVX.jar cli -s <path to settings file> " +
+                "-i <path to source ROM> -a <seed count> [-f <first seed>][-t <threads>][-u <path to 3DS game update>]");
         System.err.println("-d: Save 3DS game as directory (LayeredFS)");
+        System.err.println("-j: Save a machine-readable log (JSON Lines) next to the new ROM");
+        System.err.println("-p: Save an IPS or BPS patch against the source ROM, instead of a new ROM (not for 3DS games)");
+        System.err.println("-a: Randomize the seeds first seed (default 0) and up in memory, and print histograms " +
+                "of the results instead of saving anything");
+        System.err.println("-t: Number of threads to analyze with (default: number of processors)");
     }
 }
@@ -384,6 +384,8 @@ public class RandomizerGUI {
     public static boolean usedLauncher = false;
 
     private GenRestrictions currentRestrictions;
+    // not shown in the GUI, but kept from loaded settings
+    private Settings.RNGScheme rngScheme = Settings.RNGScheme.SHARED;
     private OperationDialog opDialog;
 
     private ResourceBundle bundle;
@@ -1193,6 +1195,23 @@ public class RandomizerGUI {
                                            boolean raceMode, boolean batchRandomization, boolean saveAsDirectory) {
         SwingUtilities.invokeLater(() -> opDialog.setVisible(!batchRandomization));
         GameRandomizer randomizer = new GameRandomizer(settings, romHandler, bundle, saveAsDirectory);
+        if (!batchRandomization) {
+            randomizer.setListener(new RandomizationListener() {
+                private String currentPhase = "";
+
+                @Override
+                public void phaseStarted(String phase) {
+                    currentPhase = phase;
+                }
+
+                @Override
+                public void progress(int completedPhases, int totalPhases) {
+                    String text = String.format(bundle.getString("GUI.savingProgressText"),
+                            currentPhase, completedPhases, totalPhases);
+                    SwingUtilities.invokeLater(() -> opDialog.setLoadingLabelText(text));
+                }
+            });
+        }
         GameRandomizer.Results results = randomizer.randomize(filename, log, seed);
 
         if (results.wasSaveSuccessful()) {
@@ -1585,6 +1604,7 @@ public class RandomizerGUI {
         }
         noIrregularAltFormesCheckBox.setSelected(settings.isBanIrregularAltFormes());
         raceModeCheckBox.setSelected(settings.isRaceMode());
+        rngScheme = settings.getRNGScheme();
 
         peChangeImpossibleEvosCheckBox.setSelected(settings.isChangeImpossibleEvolutions());
         mdUpdateMovesCheckBox.setSelected(settings.isUpdateMoves());
@@ -2133,6 +2153,7 @@ public class RandomizerGUI {
         }
 
         settings.setCurrentMiscTweaks(currentMiscTweaks);
+        settings.setRNGScheme(rngScheme);
 
         settings.setCustomNames(customNames);
 
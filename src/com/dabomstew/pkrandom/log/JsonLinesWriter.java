@@ -0,0 +1,187 @@
+package com.dabomstew.pkrandom.log;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes JSON Lines, i.e. one JSON object per line, straight to a {@link Writer}.<br>
+ * Nothing but the nesting of the current record is kept in memory, so arbitrarily long logs can be written.
+ * A line break is written whenever a top-level object ends. IOExceptions are rethrown as
+ * {@link UncheckedIOException}s.
+ */
+public class JsonLinesWriter implements Closeable, Flushable {
+
+    private static final int MAX_DEPTH = 32;
+
+    private final Writer out;
+    // whether a value has been written at each nesting level, i.e. whether the next one needs a comma
+    private final boolean[] hasValue = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    public JsonLinesWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonLinesWriter beginObject() {
+        return open('{');
+    }
+
+    public JsonLinesWriter endObject() {
+        close('}');
+        if (depth == 0) {
+            write("\n");
+        }
+        return this;
+    }
+
+    public JsonLinesWriter beginArray() {
+        return open('[');
+    }
+
+    public JsonLinesWriter endArray() {
+        close(']');
+        return this;
+    }
+
+    public JsonLinesWriter name(String name) {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Names are only allowed directly in objects");
+        }
+        beforeValue();
+        writeString(name);
+        write(":");
+        afterName = true;
+        return this;
+    }
+
+    public JsonLinesWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            write("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonLinesWriter value(long value) {
+        beforeValue();
+        write(Long.toString(value));
+        return this;
+    }
+
+    public JsonLinesWriter value(boolean value) {
+        beforeValue();
+        write(Boolean.toString(value));
+        return this;
+    }
+
+    /**
+     * Shorthand for {@link #name(String)} followed by {@link #value(String)}.
+     */
+    public JsonLinesWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    public JsonLinesWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    public JsonLinesWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    private JsonLinesWriter open(char bracket) {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        beforeValue();
+        write(String.valueOf(bracket));
+        hasValue[depth++] = false;
+        return this;
+    }
+
+    private void close(char bracket) {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Nothing to close");
+        }
+        depth--;
+        write(String.valueOf(bracket));
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasValue[depth - 1]) {
+                write(",");
+            }
+            hasValue[depth - 1] = true;
+        }
+    }
+
+    private void writeString(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        write(sb.toString());
+    }
+
+    private void write(String s) {
+        try {
+            out.write(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
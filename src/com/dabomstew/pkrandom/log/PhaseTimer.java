@@ -0,0 +1,110 @@
+package com.dabomstew.pkrandom.log;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records the wall time, CPU time and allocated bytes of named phases, run one after the other on the
+ * same thread.<br>
+ * CPU time and allocated bytes are measured per thread, with {@link ThreadMXBean}. Not all JVMs support
+ * measuring them; when they are not supported, they are reported as -1.
+ */
+public class PhaseTimer {
+
+    /**
+     * The measurements of a single phase.
+     */
+    public static class Phase {
+        private final String name;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+
+        private Phase(String name, long wallNanos, long cpuNanos, long allocatedBytes) {
+            this.name = name;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * Returns the CPU time used by the phase, or -1 if not measurable.
+         */
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        /**
+         * Returns the number of bytes allocated during the phase, or -1 if not measurable.
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %.3fms wall, %.3fms CPU, %d bytes allocated",
+                    name, wallNanos / 1e6, cpuNanos / 1e6, allocatedBytes);
+        }
+    }
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported;
+    private final com.sun.management.ThreadMXBean allocationMXBean;
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    public PhaseTimer() {
+        cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled()) {
+            allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        } else {
+            allocationMXBean = null;
+        }
+    }
+
+    /**
+     * Runs the given phase, and records its measurements. They are recorded even if the phase throws.
+     */
+    public void time(String name, Runnable phase) {
+        long cpuStart = cpuNanos();
+        long allocatedStart = allocatedBytes();
+        long wallStart = System.nanoTime();
+        try {
+            phase.run();
+        } finally {
+            long wall = System.nanoTime() - wallStart;
+            long cpu = cpuStart == -1 ? -1 : cpuNanos() - cpuStart;
+            long allocated = allocatedStart == -1 ? -1 : allocatedBytes() - allocatedStart;
+            phases.add(new Phase(name, wall, cpu, allocated));
+        }
+    }
+
+    /**
+     * Returns all phases timed so far, in the order they were run.
+     */
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    private long cpuNanos() {
+        return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    private long allocatedBytes() {
+        return allocationMXBean == null ? -1 : allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
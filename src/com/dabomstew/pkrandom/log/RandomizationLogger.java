@@ -4,14 +4,17 @@ import com.dabomstew.pkrandom.Settings;
 import com.dabomstew.pkrandom.SysConstants;
 import com.dabomstew.pkrandom.Version;
 import com.dabomstew.pkrandom.random.RandomSource;
+import com.dabomstew.pkrandom.random.RandomStream;
 import com.dabomstew.pkrandom.randomizers.*;
 import com.dabomstew.pkrandom.updaters.*;
 import com.dabomstew.pkromio.MiscTweak;
 import com.dabomstew.pkromio.gamedata.*;
+import com.dabomstew.pkromio.romhandlers.GameSubsystem;
 import com.dabomstew.pkromio.romhandlers.Gen1RomHandler;
 import com.dabomstew.pkromio.romhandlers.RomHandler;
 
 import java.io.PrintStream;
+import java.io.Writer;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
@@ -27,7 +30,7 @@ public class RandomizationLogger {
     private final ResourceBundle bundle;
 
     private final List<Integer> originalMTMoves;
-    private final List<String> originalTrainerNames;
+    private final List<String> originalTrainerNames; // null if the trainer names can't change
     private final List<StaticEncounter> originalStatics;
     private final List<TotemPokemon> originalTotems;
     private final List<InGameTrade> originalTrades;
@@ -80,7 +83,10 @@ public class RandomizationLogger {
         this.bundle = bundle;
 
         this.originalMTMoves = romHandler.getMoveTutorMoves();
-        this.originalTrainerNames = getTrainerNames(romHandler.getTrainers());
+        // getting the trainers loads them, which is not needed if their names aren't randomized
+        this.originalTrainerNames = romHandler.isSubsystemLoaded(GameSubsystem.TRAINERS)
+                || settings.isRandomizeTrainerNames() || settings.isRandomizeTrainerClassNames()
+                ? getTrainerNames(romHandler.getTrainers()) : null;
         this.originalStatics = romHandler.canChangeStaticPokemon() ? romHandler.getStaticPokemon() : null;
         this.originalTotems = romHandler.hasTotemPokemon() ? romHandler.getTotemPokemon() : null;
         this.originalTrades = romHandler.getInGameTrades();
@@ -119,7 +125,7 @@ public class RandomizationLogger {
         return bundle.getString(key);
     }
 
-    public void logResults(PrintStream log, long startTime) {
+    public void logResults(PrintStream log, long startTime, PhaseTimer phaseTimer) {
         this.log = log;
 
         logHead();
@@ -127,9 +133,181 @@ public class RandomizationLogger {
         logOverview();
         logOptionalSections();
         logStatistics(startTime);
+        logPhaseTimings(phaseTimer);
         logDiagnostics();
     }
 
+    /**
+     * Logs the main sections (evolutions, movesets, static Pokemon, in-game trades, trainers and wild Pokemon)
+     * in a machine-readable form, as JSON Lines. Each line is one record, e.g. one trainer, with a "record"
+     * field saying what it is. The first record is a "head" with the seed and game.<br>
+     * Records are written as they are made, so the writer can stream straight to disk.
+     */
+    public void logJsonLines(Writer out) {
+        JsonLinesWriter json = new JsonLinesWriter(out);
+
+        json.beginObject().field("record", "head")
+                .field("game", romHandler.getROMName())
+                .field("version", Version.VERSION_STRING)
+                .field("seed", randomSource.getSeed())
+                .field("settings", settings.toString())
+                .endObject();
+
+        if (shouldLogEvolutions())
+            logEvolutionsJson(json);
+        if (shouldLogMovesets() && settings.getMovesetsMod() != Settings.MovesetsMod.METRONOME_ONLY)
+            logMovesetsJson(json);
+        if (shouldLogStaticPokemon())
+            logStaticPokemonJson(json, originalStatics);
+        if (shouldLogInGameTrades())
+            logInGameTradesJson(json, originalTrades);
+        if (shouldLogTrainers())
+            logTrainersJson(json, originalTrainerNames);
+        if (shouldLogWildPokemon())
+            logWildPokemonJson(json);
+        json.flush();
+    }
+
+    private void logEvolutionsJson(JsonLinesWriter json) {
+        for (Species pk : romHandler.getSpeciesInclFormes()) {
+            if (pk == null || pk.isActuallyCosmetic()) {
+                continue;
+            }
+            for (Evolution evo : pk.getEvolutionsFrom()) {
+                json.beginObject().field("record", "evolution")
+                        .field("from", pk.getFullName())
+                        .field("to", evo.getTo().getFullName())
+                        .field("method", evolutionMethodToString(evo))
+                        .endObject();
+            }
+        }
+    }
+
+    private void logMovesetsJson(JsonLinesWriter json) {
+        Map<Integer, List<MoveLearnt>> moveData = romHandler.getMovesLearnt();
+        Map<Integer, List<Integer>> eggMoves = romHandler.getEggMoves();
+        List<Move> moves = romHandler.getMoves();
+        for (Species pk : romHandler.getSpeciesInclFormes()) {
+            if (pk == null || pk.isActuallyCosmetic()) {
+                continue;
+            }
+            json.beginObject().field("record", "moveset")
+                    .field("species", pk.getFullName())
+                    .field("number", pk.getNumber());
+            json.name("moves").beginArray();
+            for (MoveLearnt ml : moveData.get(pk.getNumber())) {
+                Move move = moves.get(ml.move);
+                json.beginObject()
+                        .field("level", ml.level)
+                        .field("move", move == null ? null : move.name)
+                        .endObject();
+            }
+            json.endArray();
+            json.name("eggMoves").beginArray();
+            List<Integer> eggMove = eggMoves.get(pk.getNumber());
+            if (eggMove != null) {
+                for (Integer move : eggMove) {
+                    json.value(moves.get(move).name);
+                }
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private void logStaticPokemonJson(JsonLinesWriter json, List<StaticEncounter> oldStatics) {
+        List<StaticEncounter> newStatics = romHandler.getStaticPokemon();
+        for (int i = 0; i < oldStatics.size(); i++) {
+            StaticEncounter oldP = oldStatics.get(i);
+            StaticEncounter newP = newStatics.get(i);
+            json.beginObject().field("record", "static")
+                    .field("index", i)
+                    .field("oldSpecies", oldP.getSpecies().getFullName())
+                    .field("oldLevel", oldP.getLevel())
+                    .field("newSpecies", newP.getSpecies().getFullName())
+                    .field("newLevel", newP.getLevel())
+                    .endObject();
+        }
+    }
+
+    private void logInGameTradesJson(JsonLinesWriter json, List<InGameTrade> oldTrades) {
+        List<InGameTrade> newTrades = romHandler.getInGameTrades();
+        for (int i = 0; i < oldTrades.size(); i++) {
+            InGameTrade oldT = oldTrades.get(i);
+            InGameTrade newT = newTrades.get(i);
+            json.beginObject().field("record", "trade")
+                    .field("index", i)
+                    .field("oldRequested", oldT.getRequestedSpecies() == null ? null :
+                            oldT.getRequestedSpecies().getFullName())
+                    .field("oldGiven", oldT.getGivenSpecies().getFullName())
+                    .field("oldNickname", oldT.getNickname())
+                    .field("newRequested", newT.getRequestedSpecies() == null ? null :
+                            newT.getRequestedSpecies().getFullName())
+                    .field("newGiven", newT.getGivenSpecies().getFullName())
+                    .field("newNickname", newT.getNickname())
+                    .endObject();
+        }
+    }
+
+    private void logTrainersJson(JsonLinesWriter json, List<String> originalTrainerNames) {
+        List<Move> moves = romHandler.getMoves();
+        for (Trainer t : romHandler.getTrainers()) {
+            String name = t.fullDisplayName != null ? t.fullDisplayName : t.name;
+            String originalName = originalTrainerNames != null ? originalTrainerNames.get(t.index)
+                    : name != null ? name : "";
+            json.beginObject().field("record", "trainer")
+                    .field("index", t.index)
+                    .field("originalName", originalName)
+                    .field("name", name)
+                    .field("tag", t.tag);
+            json.name("pokemon").beginArray();
+            for (TrainerPokemon tpk : t.pokemon) {
+                json.beginObject()
+                        .field("species", tpk.getSpecies().getFullName())
+                        .field("level", tpk.getLevel())
+                        .field("heldItem", tpk.getHeldItem() == null ? null : tpk.getHeldItem().getName());
+                json.name("moves").beginArray();
+                for (int move : tpk.getMoves()) {
+                    if (move != 0) {
+                        json.value(moves.get(move).name);
+                    }
+                }
+                json.endArray();
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private void logWildPokemonJson(JsonLinesWriter json) {
+        boolean useTimeBasedEncounters = settings.isUseTimeBasedEncounters() ||
+                (!settings.isRandomizeWildPokemon() && settings.isWildLevelsModified());
+        int i = 0;
+        for (EncounterArea area : romHandler.getSortedEncounters(useTimeBasedEncounters)) {
+            if (area.getEncounterType() == EncounterType.UNUSED) {
+                continue;
+            }
+            i++;
+            json.beginObject().field("record", "encounterArea")
+                    .field("index", i)
+                    .field("name", area.getDisplayName())
+                    .field("type", area.getEncounterType().name())
+                    .field("rate", area.getRate());
+            json.name("encounters").beginArray();
+            for (Encounter e : area) {
+                json.beginObject()
+                        .field("species", e.getSpecies().getFullName())
+                        .field("level", e.getLevel())
+                        .field("maxLevel", Math.max(e.getLevel(), e.getMaxLevel()))
+                        .field("sos", e.isSOS())
+                        .endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
     private void printSectionTitle(String bundleSectionID) {
         log.printf(getBS("Log.sectionTitle"),
                 getBS("Log." + bundleSectionID + ".title"),
@@ -166,6 +344,7 @@ public class RandomizationLogger {
         printContentsRow("overview");
         printOptionalContentsRows();
         printContentsRow("stat");
+        printContentsRow("pt");
         printContentsRow("dg");
         printSectionSeparator();
     }
@@ -323,9 +502,44 @@ public class RandomizationLogger {
         log.printf(getBS("Log.stat.callsNonCosmetic"), randomSource.callsSinceSeedNonCosmetic());
         log.printf(getBS("Log.stat.callsCosmetic"), randomSource.callsSinceSeedCosmetic());
         log.printf(getBS("Log.stat.callsTotal"), randomSource.callsSinceSeed());
+        for (RandomStream stream : randomSource.getStreams()) {
+            log.printf(getBS("Log.stat.callsStream"), stream.getName(), stream.getCalls());
+        }
         printSectionSeparator();
     }
 
+    private void logPhaseTimings(PhaseTimer phaseTimer) {
+        printSectionTitle("pt");
+        TextTable table = new TextTable(4);
+        table.addRow(getBS("Log.pt.phase"), getBS("Log.pt.wall"), getBS("Log.pt.cpu"), getBS("Log.pt.allocated"));
+        table.setColumnAlignments(TextTable.Alignment.RIGHT, 1, 2, 3);
+
+        long totalWall = 0;
+        long totalCpu = 0;
+        long totalAllocated = 0;
+        for (PhaseTimer.Phase phase : phaseTimer.getPhases()) {
+            table.addRow(phase.getName(), formatNanos(phase.getWallNanos()), formatNanos(phase.getCpuNanos()),
+                    formatBytes(phase.getAllocatedBytes()));
+            totalWall += phase.getWallNanos();
+            totalCpu = totalCpu == -1 || phase.getCpuNanos() == -1 ? -1 : totalCpu + phase.getCpuNanos();
+            totalAllocated = totalAllocated == -1 || phase.getAllocatedBytes() == -1 ? -1 :
+                    totalAllocated + phase.getAllocatedBytes();
+        }
+        table.addRow(getBS("Log.pt.total"), formatNanos(totalWall), formatNanos(totalCpu),
+                formatBytes(totalAllocated));
+
+        log.print(table);
+        printSectionSeparator();
+    }
+
+    private String formatNanos(long nanos) {
+        return nanos == -1 ? getBS("Log.pt.unsupported") : String.format("%.1f", nanos / 1e6);
+    }
+
+    private String formatBytes(long bytes) {
+        return bytes == -1 ? getBS("Log.pt.unsupported") : String.valueOf(bytes / 1024);
+    }
+
     private void logDiagnostics() {
         printSectionTitle("dg");
         if (!romHandler.isRomValid(null)) {
@@ -849,7 +1063,7 @@ public class RandomizationLogger {
         if (settings.getTmsHmsCompatibilityMod() == Settings.TMsHMsCompatibilityMod.FULL) {
             log.printf(getBS("Log.tmc.full"));
         } else if (settings.getTmsHmsCompatibilityMod() != Settings.TMsHMsCompatibilityMod.UNCHANGED) {
-            Map<Species, boolean[]> compat = romHandler.getTMHMCompatibility();
+            CompatibilityMatrix compat = romHandler.getTMHMCompatibilityMatrix();
             List<Move> tmHMs = getTMHMs();
 
             logCompatibility(compat, tmHMs, getBS("Log.tmc.byTMHM"), this::logCompTMHM);
@@ -871,16 +1085,17 @@ public class RandomizationLogger {
         return tmHMs;
     }
 
-    private void logCompatibility(Map<Species, boolean[]> compat, List<Move> moves,
+    private void logCompatibility(CompatibilityMatrix compat, List<Move> moves,
                                   String byMoveString, BiConsumer<Integer, List<Move>> logCompMoveFun) {
+        List<Species> compatSpecies = compat.getSpecies();
         log.printf(getBS("Log.tmc.bySpecies"));
-        for (Map.Entry<Species, boolean[]> entry : compat.entrySet()) {
+        for (Species pk : compatSpecies) {
 
-            logCompSpecies(entry.getKey());
+            logCompSpecies(pk);
 
             int j = 0;
             for (int i = 0; i < moves.size(); i++) {
-                if (entry.getValue()[i + 1]) {
+                if (compat.get(pk, i + 1)) {
                     if (j != 0) {
                         log.print(", ");
                     }
@@ -901,15 +1116,15 @@ public class RandomizationLogger {
             logCompMoveFun.accept(i, moves);
 
             int j = 0;
-            for (Map.Entry<Species, boolean[]> entry : compat.entrySet()) {
-                if (entry.getValue()[i + 1]) {
+            for (Species pk : compatSpecies) {
+                if (compat.get(pk, i + 1)) {
                     if (j != 0) {
                         log.print(", ");
                     }
                     if (j % TM_COMP_ROW_WIDTH == 0) {
                         log.printf("%n\t");
                     }
-                    logCompSpecies(entry.getKey());
+                    logCompSpecies(pk);
                     j++;
                 }
             }
@@ -964,7 +1179,7 @@ public class RandomizationLogger {
         if (settings.getMoveTutorsCompatibilityMod() == Settings.MoveTutorsCompatibilityMod.FULL) {
             log.printf(getBS("Log.mtc.full"));
         } else {
-            Map<Species, boolean[]> compat = romHandler.getMoveTutorCompatibility();
+            CompatibilityMatrix compat = romHandler.getMoveTutorCompatibilityMatrix();
             List<Move> moveData = romHandler.getMoves();
             List<Move> tutorMoves = romHandler.getMoveTutorMoves()
                     .stream().map(moveData::get)
@@ -986,7 +1201,6 @@ public class RandomizationLogger {
         String[] battleStyleNames = getBS("Log.tp.battleStyleNames").split(",");
         for (Trainer t : trainers) {
             log.print("#" + t.index + " ");
-            String originalTrainerName = originalTrainerNames.get(t.index);
             String currentTrainerName = "";
             if (t.fullDisplayName != null) {
                 currentTrainerName = t.fullDisplayName;
@@ -995,7 +1209,7 @@ public class RandomizationLogger {
             }
             if (!currentTrainerName.isEmpty()) {
                 if (trainerNameRandomizer.isChangesMade()) {
-                    log.printf("(%s => %s)", originalTrainerName, currentTrainerName);
+                    log.printf("(%s => %s)", originalTrainerNames.get(t.index), currentTrainerName);
                 } else {
                     log.printf("(%s)", currentTrainerName);
                 }
@@ -22,22 +22,45 @@ package com.dabomstew.pkrandom.random;
 /*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
 /*----------------------------------------------------------------------------*/
 
-import java.util.Random;
+import com.dabomstew.pkrandom.Settings;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Holds a non-cosmetic and a cosmetic {@link Random}, and keeps track of their usage.
  * This allows both Randoms to use a single seed without cosmetic RNG calls affecting non-cosmetic ones.
- * Seeing how many times RNG has been called is interesting when logging.
+ * Seeing how many times RNG has been called is interesting when logging.<br>
+ * With {@link Settings.RNGScheme#SPLIT}, {@link #getNonCosmetic(String)} and {@link #getCosmetic(String)} instead
+ * give a separate {@link RandomStream} for each name, e.g. one per randomizer.
  */
 public class RandomSource {
 
-    private final RandomWithCounter nonCosmetic = new RandomWithCounter();
-    private final RandomWithCounter cosmetic = new RandomWithCounter();
+    private final Settings.RNGScheme scheme;
+    private final AtomicInteger nonCosmeticCalls = new AtomicInteger();
+    private final AtomicInteger cosmeticCalls = new AtomicInteger();
+    private final RandomWithCounter nonCosmetic = new RandomWithCounter(nonCosmeticCalls);
+    private final RandomWithCounter cosmetic = new RandomWithCounter(cosmeticCalls);
+    private final Map<String, RandomStream> nonCosmeticStreams = new LinkedHashMap<>();
+    private final Map<String, RandomStream> cosmeticStreams = new LinkedHashMap<>();
     private long seed;
 
+    public RandomSource() {
+        this(Settings.RNGScheme.SHARED);
+    }
+
+    public RandomSource(Settings.RNGScheme scheme) {
+        this.scheme = scheme;
+    }
+
     public void seed(long seed) {
         nonCosmetic.setSeed(seed);
         cosmetic.setSeed(seed);
+        nonCosmeticCalls.set(0);
+        cosmeticCalls.set(0);
+        for (RandomStream stream : getStreams()) {
+            stream.seedFrom(seed);
+        }
         this.seed = seed;
     }
 
@@ -49,80 +72,72 @@ public class RandomSource {
         return cosmetic;
     }
 
-    public long getSeed() {
-        return seed;
+    /**
+     * Returns the non-cosmetic Random to use for the given stream name. This is {@link #getNonCosmetic()}
+     * unless the scheme is {@link Settings.RNGScheme#SPLIT}, in which case it is a {@link RandomStream}
+     * of its own.
+     */
+    public Random getNonCosmetic(String streamName) {
+        return scheme == Settings.RNGScheme.SPLIT ? getStream(nonCosmeticStreams, streamName) : nonCosmetic;
     }
 
-    public int callsSinceSeed() {
-        return nonCosmetic.calls + cosmetic.calls;
+    /**
+     * Returns the cosmetic Random to use for the given stream name. This is {@link #getCosmetic()}
+     * unless the scheme is {@link Settings.RNGScheme#SPLIT}, in which case it is a {@link RandomStream}
+     * of its own.
+     */
+    public Random getCosmetic(String streamName) {
+        return scheme == Settings.RNGScheme.SPLIT ? getStream(cosmeticStreams, streamName) : cosmetic;
     }
 
-    public int callsSinceSeedNonCosmetic() {
-        return nonCosmetic.calls;
+    private RandomStream getStream(Map<String, RandomStream> streams, String name) {
+        if (nonCosmeticStreams.containsKey(name) && streams != nonCosmeticStreams
+                || cosmeticStreams.containsKey(name) && streams != cosmeticStreams) {
+            throw new IllegalArgumentException("Stream \"" + name + "\" can't be both cosmetic and non-cosmetic");
+        }
+        return streams.computeIfAbsent(name, n -> {
+            RandomStream stream = new RandomStream(n);
+            stream.seedFrom(seed);
+            return stream;
+        });
     }
 
-    public int callsSinceSeedCosmetic() {
-        return cosmetic.calls;
+    public Settings.RNGScheme getScheme() {
+        return scheme;
     }
 
-    private static class RandomWithCounter extends Random {
-
-        private int calls = 0;
-
-        @Override
-        public synchronized void setSeed(long seed) {
-            super.setSeed(seed);
-            calls = 0;
-        }
-
-        @Override
-        public void nextBytes(byte[] bytes) {
-            calls++;
-            super.nextBytes(bytes);
-        }
-
-        @Override
-        public int nextInt() {
-            calls++;
-            return super.nextInt();
-        }
-
-        @Override
-        public int nextInt(int bound) {
-            calls++;
-            return super.nextInt(bound);
-        }
+    /**
+     * Returns all {@link RandomStream}s in the order they were first asked for, non-cosmetic ones first.
+     * Empty unless the scheme is {@link Settings.RNGScheme#SPLIT}.
+     */
+    public List<RandomStream> getStreams() {
+        List<RandomStream> streams = new ArrayList<>(nonCosmeticStreams.values());
+        streams.addAll(cosmeticStreams.values());
+        return streams;
+    }
 
-        @Override
-        public long nextLong() {
-            calls++;
-            return super.nextLong();
-        }
+    public long getSeed() {
+        return seed;
+    }
 
-        @Override
-        public boolean nextBoolean() {
-            calls++;
-            return super.nextBoolean();
-        }
+    public int callsSinceSeed() {
+        return callsSinceSeedNonCosmetic() + callsSinceSeedCosmetic();
+    }
 
-        @Override
-        public float nextFloat() {
-            calls++;
-            return super.nextFloat();
-        }
+    public int callsSinceSeedNonCosmetic() {
+        return nonCosmeticCalls.get() + sumCalls(nonCosmeticStreams.values());
+    }
 
-        @Override
-        public double nextDouble() {
-            calls++;
-            return super.nextDouble();
-        }
+    public int callsSinceSeedCosmetic() {
+        return cosmeticCalls.get() + sumCalls(cosmeticStreams.values());
+    }
 
-        @Override
-        public synchronized double nextGaussian() {
-            calls++;
-            return super.nextGaussian();
+    private static int sumCalls(Collection<RandomStream> streams) {
+        int sum = 0;
+        for (RandomStream stream : streams) {
+            sum += stream.getCalls();
         }
-
+        return sum;
     }
 
 }
@@ -0,0 +1,68 @@
+package com.dabomstew.pkrandom.random;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A named {@link Random} with its own seed, derived from the seed of its {@link RandomSource}. Calls to one
+ * RandomStream never affect another, so e.g. one randomizer can change how much it uses RNG without
+ * changing the results of the ones after it.<br>
+ * A RandomStream can also derive a Random per entity (e.g. per trainer, area or species) with
+ * {@link #forEntity(int)}. Those depend only on the stream seed and the entity, so entities can be randomized
+ * in any order, or concurrently, with the same results.
+ */
+public class RandomStream extends RandomWithCounter {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final String name;
+    private final AtomicInteger calls;
+    private long streamSeed;
+
+    RandomStream(String name) {
+        this(name, new AtomicInteger());
+    }
+
+    private RandomStream(String name, AtomicInteger calls) {
+        super(calls);
+        this.name = name;
+        this.calls = calls;
+    }
+
+    void seedFrom(long masterSeed) {
+        streamSeed = mix(masterSeed ^ mix(name.hashCode()));
+        setSeed(streamSeed);
+        calls.set(0);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns a new Random for the given entity. It gives the same numbers every time it's created for the same
+     * entity, so call this once per entity and keep using the result. Calls to it count towards this stream.
+     * @param entity A number identifying the entity among all entities using this stream, e.g. its index.
+     */
+    public Random forEntity(int entity) {
+        return new RandomWithCounter(mix(streamSeed + GOLDEN_GAMMA * (entity + 1L)), calls);
+    }
+
+    /**
+     * Returns the number of calls to this stream, and to all Randoms made by {@link #forEntity(int)},
+     * since it was seeded.
+     */
+    public int getCalls() {
+        return calls.get();
+    }
+
+    // the finalizer of SplitMix64, which turns similar inputs (e.g. consecutive entities) into unrelated seeds
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
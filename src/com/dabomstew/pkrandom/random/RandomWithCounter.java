@@ -0,0 +1,73 @@
+package com.dabomstew.pkrandom.random;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link Random} which counts how many times it has been called. Several RandomWithCounters may share a counter,
+ * and use it from different threads.
+ */
+class RandomWithCounter extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AtomicInteger calls;
+
+    RandomWithCounter(AtomicInteger calls) {
+        this.calls = calls;
+    }
+
+    RandomWithCounter(long seed, AtomicInteger calls) {
+        super(seed);
+        this.calls = calls;
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        calls.incrementAndGet();
+        super.nextBytes(bytes);
+    }
+
+    @Override
+    public int nextInt() {
+        calls.incrementAndGet();
+        return super.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        calls.incrementAndGet();
+        return super.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        calls.incrementAndGet();
+        return super.nextLong();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        calls.incrementAndGet();
+        return super.nextBoolean();
+    }
+
+    @Override
+    public float nextFloat() {
+        calls.incrementAndGet();
+        return super.nextFloat();
+    }
+
+    @Override
+    public double nextDouble() {
+        calls.incrementAndGet();
+        return super.nextDouble();
+    }
+
+    @Override
+    public synchronized double nextGaussian() {
+        calls.incrementAndGet();
+        return super.nextGaussian();
+    }
+
+}
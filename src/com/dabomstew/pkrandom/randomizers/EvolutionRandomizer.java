@@ -3,6 +3,7 @@ package com.dabomstew.pkrandom.randomizers;
 import com.dabomstew.pkrandom.Settings;
 import com.dabomstew.pkrandom.exceptions.RandomizationException;
 import com.dabomstew.pkromio.constants.SpeciesIDs;
+import com.dabomstew.pkromio.exceptions.OperationCancelledException;
 import com.dabomstew.pkromio.gamedata.Evolution;
 import com.dabomstew.pkromio.gamedata.EvolutionType;
 import com.dabomstew.pkromio.gamedata.Species;
@@ -10,8 +11,6 @@ import com.dabomstew.pkromio.gamedata.SpeciesSet;
 import com.dabomstew.pkromio.romhandlers.RomHandler;
 
 import java.util.*;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class EvolutionRandomizer extends Randomizer {
 
@@ -56,9 +55,70 @@ public class EvolutionRandomizer extends Randomizer {
                 .randomizeEvolutions();
     }
 
+    /**
+     * One evolution to be given a new target, i.e. one variable for the solver in {@link InnerRandomizer}.
+     */
+    private static class Slot {
+        private final Species from;
+        private final Evolution original;
+        // the targets allowed by the constraints which don't depend on other slots
+        private final BitSet staticCandidates;
+        // targets already tried and backtracked from, since the slots before this one were last changed
+        private final BitSet tried = new BitSet();
+        private Evolution chosen;
+        private GraphChange change;
+
+        private Slot(Species from, Evolution original, BitSet staticCandidates) {
+            this.from = from;
+            this.original = original;
+            this.staticCandidates = staticCandidates;
+        }
+    }
+
+    /**
+     * What adding a single evolution changed in the incrementally tracked evolution graph, so it can be undone.
+     */
+    private static class GraphChange {
+        private boolean hadPreEvo;
+        private final List<Integer> bitSetNodes = new ArrayList<>();
+        private final List<BitSet[]> bitSetArrays = new ArrayList<>();
+        private final List<BitSet> oldBitSets = new ArrayList<>();
+        private final List<int[]> intArrays = new ArrayList<>();
+        private final List<int[]> oldInts = new ArrayList<>();
+
+        private void saveBitSet(BitSet[] array, int node) {
+            bitSetArrays.add(array);
+            bitSetNodes.add(node);
+            oldBitSets.add((BitSet) array[node].clone());
+        }
+
+        private void saveInt(int[] array, int node) {
+            intArrays.add(array);
+            oldInts.add(new int[]{node, array[node]});
+        }
+
+        private void undo() {
+            for (int i = oldInts.size() - 1; i >= 0; i--) {
+                intArrays.get(i)[oldInts.get(i)[0]] = oldInts.get(i)[1];
+            }
+            for (int i = oldBitSets.size() - 1; i >= 0; i--) {
+                bitSetArrays.get(i)[bitSetNodes.get(i)] = oldBitSets.get(i);
+            }
+        }
+    }
+
+    /**
+     * Picks new evolutions by backtracking search. Each original evolution is a {@link Slot}, whose candidate
+     * targets start out as those allowed by the constraints not depending on other evolutions (computed once).
+     * The rest are checked against an incrementally maintained evolution graph: the ancestors/descendants of each
+     * species as bitsets, and the longest chains above/below it. This makes the cycle and stage limit checks
+     * constant time per candidate. On a dead end, the previous slot is given another target, and only if that
+     * keeps failing for too long, the search restarts from scratch.
+     */
     private class InnerRandomizer {
 
-        private static final int MAX_TRIES = 1000;
+        private static final int MAX_RESTARTS = 100;
+        private static final int BACKTRACKS_PER_SLOT = 20;
         private static final int DEFAULT_STAGE_LIMIT = 10;
 
         private final boolean similarStrength;
@@ -74,6 +134,19 @@ public class EvolutionRandomizer extends Randomizer {
 
         private Map<Species, List<Evolution>> allOriginalEvos;
 
+        private List<Species> indexed;
+        private Map<Species, Integer> indices;
+        private Slot[] slots;
+
+        // the evolution graph so far, by species index
+        private BitSet hasPreEvo;
+        private BitSet[] ancestors;
+        private BitSet[] descendants;
+        // the longest chain of pre-evolutions above each species
+        private int[] stagesAbove;
+        // the longest chain of evolutions below each species, counting one for species still to be given an evo
+        private int[] stagesBelow;
+
         public InnerRandomizer(SpeciesSet pokemonPool, SpeciesSet banned,
                                boolean similarStrength, boolean sameType,
                                boolean limitToThreeStages, boolean noConvergence,
@@ -101,51 +174,127 @@ public class EvolutionRandomizer extends Randomizer {
 
         public void randomizeEvolutions() {
             allOriginalEvos = cacheOriginalEvolutions();
+            createSlots();
 
-            boolean succeeded = false;
-            int tries = 0;
-            while (!succeeded && tries < MAX_TRIES) {
-                succeeded = randomizeEvolutionsInner();
-                tries++;
+            for (int restarts = 0; restarts < MAX_RESTARTS; restarts++) {
+                OperationCancelledException.throwIfInterrupted();
+                if (solve()) {
+                    return;
+                }
             }
-            if (tries == MAX_TRIES) {
-                if (settings.isStandardizeEXPCurves()) {
-                    throw new RandomizationException("Could not randomize Evolutions in " + MAX_TRIES + " tries.");
-                } else {
-                    throw new RandomizationException("Could not randomize Evolutions in " + MAX_TRIES + " tries." +
-                            " Try using the \"Standardize EXP Curves\" option.");
+            throw new RandomizationException(failureMessage("Could not randomize Evolutions in "
+                    + MAX_RESTARTS + " tries."));
+        }
+
+        private String failureMessage(String message) {
+            if (settings.isStandardizeEXPCurves()) {
+                return message;
+            }
+            return message + " Try using the \"Standardize EXP Curves\" option.";
+        }
+
+        private Map<Species, List<Evolution>> cacheOriginalEvolutions() {
+            Map<Species, List<Evolution>> originalEvos = new HashMap<>();
+            for (Species pk : pokemonPool) {
+                originalEvos.put(pk, new ArrayList<>(pk.getEvolutionsFrom()));
+            }
+            return originalEvos;
+        }
+
+        private void createSlots() {
+            indexed = new ArrayList<>(pokemonPool);
+            indices = new HashMap<>();
+            for (int i = 0; i < indexed.size(); i++) {
+                indices.put(indexed.get(i), i);
+            }
+
+            List<Slot> slotList = new ArrayList<>();
+            for (Species from : indexed) {
+                for (Evolution evo : getOriginalEvos(from)) {
+                    BitSet staticCandidates = new BitSet(indexed.size());
+                    for (int i = 0; i < indexed.size(); i++) {
+                        if (isStaticallyAllowed(from, evo, indexed.get(i))) {
+                            staticCandidates.set(i);
+                        }
+                    }
+                    if (staticCandidates.isEmpty()) {
+                        throw new RandomizationException(failureMessage("Could not randomize Evolutions; "
+                                + from.getFullName() + " has no possible evolutions."));
+                    }
+                    slotList.add(new Slot(from, evo, staticCandidates));
                 }
             }
+            // most constrained first, so dead ends are found early, when there is little to backtrack
+            slotList.sort(Comparator.comparingInt(slot -> slot.staticCandidates.cardinality()));
+            slots = slotList.toArray(new Slot[0]);
         }
 
-        private boolean randomizeEvolutionsInner() {
+        private boolean solve() {
             clearEvolutions();
+            resetGraph();
+            for (Slot slot : slots) {
+                slot.tried.clear();
+                slot.chosen = null;
+                slot.change = null;
+            }
 
-            // TODO: iterating through this in a random order would be better
-            for (Species from : pokemonPool) {
-                List<Evolution> originalEvos = getOriginalEvos(from);
-                for (Evolution evo : originalEvos) {
-                    SpeciesSet possible = findPossibleReplacements(from, evo);
-                    if (possible.isEmpty()) {
+            Deque<Slot> assigned = new ArrayDeque<>();
+            Slot retry = null;
+            int backtracksLeft = BACKTRACKS_PER_SLOT * slots.length;
+            while (true) {
+                Slot slot = retry != null ? retry : mostConstrainedUnassignedSlot();
+                retry = null;
+                if (slot == null) {
+                    return true;
+                }
+                BitSet candidates = findCandidates(slot);
+                if (candidates.isEmpty()) {
+                    slot.tried.clear();
+                    if (assigned.isEmpty()) {
+                        // every possibility has been tried
+                        throw new RandomizationException(failureMessage("Could not randomize Evolutions;"
+                                + " the settings can't be satisfied."));
+                    }
+                    if (backtracksLeft-- == 0) {
                         return false;
                     }
-                    Species picked = similarStrength ? possible.getRandomSimilarStrengthSpecies(evo.getTo(), random)
-                            : possible.getRandomSpecies(random);
-
-                    Evolution newEvo = prepareNewEvolution(from, evo, picked);
-                    from.getEvolutionsFrom().add(newEvo);
-                    picked.getEvolutionsTo().add(newEvo);
+                    // give the last assigned slot another target
+                    retry = assigned.pop();
+                    unassign(retry);
+                    continue;
                 }
+                Species picked = pick(slot, candidates);
+                slot.tried.set(indices.get(picked));
+                assign(slot, picked);
+                assigned.push(slot);
             }
-            return true;
         }
 
-        private Map<Species, List<Evolution>> cacheOriginalEvolutions() {
-            Map<Species, List<Evolution>> originalEvos = new HashMap<>();
-            for (Species pk : pokemonPool) {
-                originalEvos.put(pk, new ArrayList<>(pk.getEvolutionsFrom()));
+        /**
+         * Returns the unassigned slot with the fewest candidates left, or null if all slots are assigned.
+         * The stage limit is left out of the count, to keep this cheap. Ties go to the slot first in order.
+         */
+        private Slot mostConstrainedUnassignedSlot() {
+            Slot best = null;
+            int bestCount = Integer.MAX_VALUE;
+            BitSet scratch = new BitSet(indexed.size());
+            for (Slot slot : slots) {
+                if (slot.chosen != null) {
+                    continue;
+                }
+                scratch.clear();
+                scratch.or(slot.staticCandidates);
+                narrowDownByGraph(slot, scratch);
+                int count = scratch.cardinality();
+                if (count < bestCount) {
+                    best = slot;
+                    bestCount = count;
+                    if (count == 0) {
+                        break;
+                    }
+                }
             }
-            return originalEvos;
+            return best;
         }
 
         private void clearEvolutions() {
@@ -155,6 +304,24 @@ public class EvolutionRandomizer extends Randomizer {
             }
         }
 
+        private void resetGraph() {
+            int n = indexed.size();
+            hasPreEvo = new BitSet(n);
+            if (evolveEveryLevel) {
+                return;
+            }
+            ancestors = new BitSet[n];
+            descendants = new BitSet[n];
+            stagesAbove = new int[n];
+            stagesBelow = new int[n];
+            for (int i = 0; i < n; i++) {
+                ancestors[i] = new BitSet(n);
+                descendants[i] = new BitSet(n);
+                // looks ahead to see if an evo MUST be given to this Pokemon in the future
+                stagesBelow[i] = allOriginalEvos.get(indexed.get(i)).isEmpty() ? 0 : 1;
+            }
+        }
+
         private List<Evolution> getOriginalEvos(Species from) {
             if (evolveEveryLevel) {
                 // A list containing a single dummy object; ensures we always go through all Pokemon exactly once.
@@ -180,128 +347,156 @@ public class EvolutionRandomizer extends Randomizer {
             return newEvo;
         }
 
-        private SpeciesSet findPossibleReplacements(Species from, Evolution evo) {
-            List<Predicate<Species>> filters = new ArrayList<>();
-            filters.add(to -> !banned.contains(to));
-            filters.add(to -> !to.equals(from));
-            filters.add(to -> to.getGrowthCurve().equals(from.getGrowthCurve()));
-            filters.add(to -> !isAlreadyChosenAsOtherSplitEvo(from, to));
-
-            if (!evolveEveryLevel) {
-                filters.add(to -> !createsCycle(from, to));
-                filters.add(to -> !breaksStageLimit(from, to));
-            }
-            if (noConvergence) {
-                filters.add(to -> to.getEvolutionsTo().isEmpty());
+        /**
+         * Checks the constraints which only depend on the evolving Pokemon and its original evolution.
+         */
+        private boolean isStaticallyAllowed(Species from, Evolution evo, Species to) {
+            if (banned.contains(to) || to.equals(from) || !to.getGrowthCurve().equals(from.getGrowthCurve())) {
+                return false;
             }
-            if (forceChange) {
-                filters.add(to -> !isAnOriginalEvo(from, to));
+            if (forceChange && isAnOriginalEvo(from, to)) {
+                return false;
             }
-            if (forceGrowth) {
-                filters.add(to -> to.getBSTForPowerLevels() > from.getBSTForPowerLevels());
+            if (forceGrowth && to.getBSTForPowerLevels() <= from.getBSTForPowerLevels()) {
+                return false;
             }
             if (sameType) {
                 if (from.getNumber() == SpeciesIDs.eevee && !evolveEveryLevel) {
-                    filters.add(to -> to.hasSharedType(evo.getTo()));
+                    return to.hasSharedType(evo.getTo());
                 } else {
-                    filters.add(to -> to.hasSharedType(from));
+                    return to.hasSharedType(from);
                 }
             }
-
-            Predicate<Species> combinedFilter = to -> {
-                for (Predicate<Species> filter : filters) {
-                    if (!filter.test(to)) return false;
-                }
-                return true;
-            };
-            return pokemonPool.filter(combinedFilter);
-        }
-
-        private boolean isAlreadyChosenAsOtherSplitEvo(Species from, Species to) {
-            return from.getEvolutionsFrom().stream().map(Evolution::getTo).collect(Collectors.toList()).contains(to);
+            return true;
         }
 
         /**
-         * Check whether adding an evolution from one Pokemon to another will cause
-         * an evolution cycle.
-         *
-         * @param from Pokemon that is evolving
-         * @param to   Pokemon to evolve to
-         * @return True if there is an evolution cycle, else false
+         * Narrows down the static candidates of a slot, by the constraints depending on the evolutions chosen so far.
          */
-        private boolean createsCycle(Species from, Species to) {
-            Evolution tempEvo = new Evolution(from, to, EvolutionType.NONE, 0);
-            from.getEvolutionsFrom().add(tempEvo);
-            Set<Species> visited = new HashSet<>();
-            Set<Species> recStack = new HashSet<>();
-            boolean recur = isCyclic(from, visited, recStack);
-            from.getEvolutionsFrom().remove(tempEvo);
-            return recur;
-        }
-
-        private boolean isCyclic(Species pk, Set<Species> visited, Set<Species> recStack) {
-            if (!visited.contains(pk)) {
-                visited.add(pk);
-                recStack.add(pk);
-                for (Evolution ev : pk.getEvolutionsFrom()) {
-                    if (!visited.contains(ev.getTo()) && isCyclic(ev.getTo(), visited, recStack)) {
-                        return true;
-                    } else if (recStack.contains(ev.getTo())) {
-                        return true;
+        private BitSet findCandidates(Slot slot) {
+            BitSet candidates = (BitSet) slot.staticCandidates.clone();
+            candidates.andNot(slot.tried);
+            narrowDownByGraph(slot, candidates);
+            if (!evolveEveryLevel) {
+                int maxStagesBelow = stageLimit - 2 - stagesAbove[indices.get(slot.from)];
+                for (int to = candidates.nextSetBit(0); to >= 0; to = candidates.nextSetBit(to + 1)) {
+                    if (stagesBelow[to] > maxStagesBelow) {
+                        candidates.clear(to);
                     }
                 }
             }
-            recStack.remove(pk);
-            return false;
+            return candidates;
+        }
+
+        private void narrowDownByGraph(Slot slot, BitSet candidates) {
+            // not already chosen as another split evo
+            for (Evolution evo : slot.from.getEvolutionsFrom()) {
+                candidates.clear(indices.get(evo.getTo()));
+            }
+            if (noConvergence) {
+                candidates.andNot(hasPreEvo);
+            }
+            if (!evolveEveryLevel) {
+                // evolving into an ancestor would create a cycle
+                candidates.andNot(ancestors[indices.get(slot.from)]);
+            }
+        }
+
+        private Species pick(Slot slot, BitSet candidates) {
+            SpeciesSet possible = new SpeciesSet();
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                possible.add(indexed.get(i));
+            }
+            return similarStrength ? possible.getRandomSimilarStrengthSpecies(slot.original.getTo(), random)
+                    : possible.getRandomSpecies(random);
         }
 
-        private boolean breaksStageLimit(Species from, Species to) {
-            int maxFrom = numPreEvolutions(from, stageLimit);
-            int maxTo = numEvolutions(to, stageLimit);
-            return maxFrom + maxTo + 2 > stageLimit;
+        private void assign(Slot slot, Species picked) {
+            Evolution newEvo = prepareNewEvolution(slot.from, slot.original, picked);
+            slot.from.getEvolutionsFrom().add(newEvo);
+            picked.getEvolutionsTo().add(newEvo);
+            slot.chosen = newEvo;
+            slot.change = addToGraph(indices.get(slot.from), indices.get(picked));
         }
 
-        // Return the max depth of pre-evolutions a Pokemon has
-        private int numPreEvolutions(Species pk, int maxInterested) {
-            return numPreEvolutions(pk, 0, maxInterested);
+        private void unassign(Slot slot) {
+            slot.from.getEvolutionsFrom().remove(slot.chosen);
+            slot.chosen.getTo().getEvolutionsTo().remove(slot.chosen);
+            slot.change.undo();
+            hasPreEvo.set(indices.get(slot.chosen.getTo()), slot.change.hadPreEvo);
+            slot.chosen = null;
+            slot.change = null;
         }
 
-        private int numPreEvolutions(Species pk, int depth, int maxInterested) {
-            if (pk.getEvolutionsTo().isEmpty()) {
-                return 0;
+        /**
+         * Updates the tracked evolution graph after an evolution from -> to has been added.
+         */
+        private GraphChange addToGraph(int from, int to) {
+            GraphChange change = new GraphChange();
+            change.hadPreEvo = hasPreEvo.get(to);
+            hasPreEvo.set(to);
+            if (evolveEveryLevel) {
+                return change;
             }
-            if (depth == maxInterested - 1) {
-                return 1;
+
+            BitSet above = (BitSet) ancestors[from].clone();
+            above.set(from);
+            BitSet below = (BitSet) descendants[to].clone();
+            below.set(to);
+            for (int i = below.nextSetBit(0); i >= 0; i = below.nextSetBit(i + 1)) {
+                change.saveBitSet(ancestors, i);
+                ancestors[i].or(above);
             }
-            int maxPreEvos = 0;
-            for (Evolution ev : pk.getEvolutionsTo()) {
-                maxPreEvos = Math.max(maxPreEvos, numPreEvolutions(ev.getFrom(), depth + 1, maxInterested) + 1);
+            for (int i = above.nextSetBit(0); i >= 0; i = above.nextSetBit(i + 1)) {
+                change.saveBitSet(descendants, i);
+                descendants[i].or(below);
             }
-            return maxPreEvos;
-        }
 
-        private int numEvolutions(Species pk, int maxInterested) {
-            return numEvolutions(pk, 0, maxInterested);
-        }
-
-        private int numEvolutions(Species pk, int depth, int maxInterested) {
-            if (pk.getEvolutionsFrom().isEmpty()) {
-                // looks ahead to see if an evo MUST be given to this Pokemon in the future
-                return allOriginalEvos.get(pk).isEmpty() ? 0 : 1;
+            Deque<Integer> queue = new ArrayDeque<>();
+            if (stagesAbove[to] < stagesAbove[from] + 1) {
+                change.saveInt(stagesAbove, to);
+                stagesAbove[to] = stagesAbove[from] + 1;
+                queue.add(to);
+            }
+            while (!queue.isEmpty()) {
+                int pk = queue.poll();
+                for (Evolution evo : indexed.get(pk).getEvolutionsFrom()) {
+                    int next = indices.get(evo.getTo());
+                    if (stagesAbove[next] < stagesAbove[pk] + 1) {
+                        change.saveInt(stagesAbove, next);
+                        stagesAbove[next] = stagesAbove[pk] + 1;
+                        queue.add(next);
+                    }
+                }
             }
-            if (depth == maxInterested - 1) {
-                return 1;
+
+            if (stagesBelow[from] < stagesBelow[to] + 1) {
+                change.saveInt(stagesBelow, from);
+                stagesBelow[from] = stagesBelow[to] + 1;
+                queue.add(from);
             }
-            int maxEvos = 0;
-            for (Evolution ev : pk.getEvolutionsFrom()) {
-                maxEvos = Math.max(maxEvos, numEvolutions(ev.getTo(), depth + 1, maxInterested) + 1);
+            while (!queue.isEmpty()) {
+                int pk = queue.poll();
+                for (Evolution evo : indexed.get(pk).getEvolutionsTo()) {
+                    int prev = indices.get(evo.getFrom());
+                    if (stagesBelow[prev] < stagesBelow[pk] + 1) {
+                        change.saveInt(stagesBelow, prev);
+                        stagesBelow[prev] = stagesBelow[pk] + 1;
+                        queue.add(prev);
+                    }
+                }
             }
-            return maxEvos;
+            return change;
         }
 
         private boolean isAnOriginalEvo(Species from, Species to) {
-            return allOriginalEvos.get(from).stream().map(Evolution::getTo).collect(Collectors.toList()).contains(to);
+            for (Evolution evo : allOriginalEvos.get(from)) {
+                if (evo.getTo().equals(to)) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
-}
\ No newline at end of file
+}
@@ -23,6 +23,7 @@ package com.dabomstew.pkrandom.randomizers;
 
 import com.dabomstew.pkrandom.Settings;
 import com.dabomstew.pkrandom.exceptions.RandomizationException;
+import com.dabomstew.pkromio.exceptions.OperationCancelledException;
 import com.dabomstew.pkromio.gamedata.Species;
 import com.dabomstew.pkromio.gamedata.cueh.BasicSpeciesAction;
 import com.dabomstew.pkromio.gamedata.cueh.EvolvedSpeciesAction;
@@ -32,6 +33,7 @@ import com.dabomstew.pkromio.romhandlers.RomHandler;
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
 
 /**
  * A {@link PaletteRandomizer} for Gen 3, Gen 4, and Gen 5 games (R/S/E/FR/LG,
@@ -54,6 +56,16 @@ public class Gen3to5PaletteRandomizer extends PaletteRandomizer {
 	 */
 	private final static boolean COMPILED = true;
 
+	/**
+	 * Parsed {@link PalettePartDescription}s, by description file name and then by species number - 1.
+	 * Shared by all instances, and only ever read after being put here, so it can be used by concurrent
+	 * randomizations. See {@link #clearPalettePartDescriptionCache()}.
+	 */
+	private static final Map<String, PalettePartDescription[][]> PART_DESCRIPTION_CACHE = new ConcurrentHashMap<>();
+
+	private static final PalettePartDescription[] BLANK_PART_DESCRIPTIONS =
+			PalettePartDescription.allFrom(PaletteDescription.BLANK);
+
 	/**
 	 * An identifier for the related resource files. ROMs that share a
 	 * paletteFilesID also share all resources. If they shouldn't, different ROMs
@@ -96,12 +108,15 @@ public class Gen3to5PaletteRandomizer extends PaletteRandomizer {
 
 		copyUpEvolutionsHelper.apply(evolutionSanity, true, new BasicSpeciesPaletteAction(),
 				new EvolvedSpeciesPaletteAction());
-		List<PaletteDescription> paletteDescriptions = getPaletteDescriptions("pokePalettes");
-		populatePokemonPalettes(paletteDescriptions);
+		populatePokemonPalettes();
 
 	}
 
-	private void populatePokemonPalettes(List<PaletteDescription> paletteDescriptions) {
+	private void populatePokemonPalettes() {
+		if (hasEntityRandoms()) {
+			populatePokemonPalettesConcurrently();
+			return;
+		}
 
 		PalettePopulator pp = new PalettePopulator(random);
 
@@ -110,13 +125,74 @@ public class Gen3to5PaletteRandomizer extends PaletteRandomizer {
 			Species pk = entry.getKey();
 			Palette palette = pk.getNormalPalette();
 			TypeBaseColorList typeBaseColorList = entry.getValue();
-			PalettePartDescription[] palettePartDescriptions = getPalettePartDescriptions(pk, paletteDescriptions);
+			PalettePartDescription[] palettePartDescriptions = getPalettePartDescriptions(pk);
 
 			populatePalette(palette, pp, typeBaseColorList, palettePartDescriptions);
 
 		}
 	}
 
+	/**
+	 * Populates the palettes with one {@link PalettePopulator} per Pokemon, each with a Random of its own, so they
+	 * can be populated concurrently with the same results regardless of thread scheduling.
+	 */
+	private void populatePokemonPalettesConcurrently() {
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (Entry<Species, TypeBaseColorList> entry : typeBaseColorLists.entrySet()) {
+
+			Species pk = entry.getKey();
+			Palette palette = pk.getNormalPalette();
+			TypeBaseColorList typeBaseColorList = entry.getValue();
+			PalettePartDescription[] palettePartDescriptions = getPalettePartDescriptions(pk);
+			resolveBaseColors(typeBaseColorList, palettePartDescriptions);
+			PalettePopulator pp = new PalettePopulator(randomFor(pk.getNumber()));
+
+			tasks.add(() -> {
+				populatePalette(palette, pp, typeBaseColorList, palettePartDescriptions);
+				return null;
+			});
+		}
+		runConcurrently(tasks);
+	}
+
+	/**
+	 * Base colors are tweaked randomly the first time they are used, with the Random shared by the whole
+	 * evolution line. Getting them all here, in order and before populating, keeps that Random out of the
+	 * concurrent part, and the base colors themselves the same whatever order the palettes are populated in.
+	 */
+	private void resolveBaseColors(TypeBaseColorList typeBaseColorList,
+								   PalettePartDescription[] palettePartDescriptions) {
+		for (int i = 0; i < palettePartDescriptions.length; i++) {
+			if (!palettePartDescriptions[i].isAverageDescription() && !palettePartDescriptions[i].isBlank()) {
+				typeBaseColorList.getBaseColor(i);
+				typeBaseColorList.getLightDarkMode(i);
+			}
+		}
+	}
+
+	private static void runConcurrently(List<Callable<Void>> tasks) {
+		int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), tasks.size()));
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCancelledException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RandomizationException("Could not populate palettes: " + e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	public void populatePalette(Palette palette, PalettePopulator pp, TypeBaseColorList typeBaseColorList,
 			PalettePartDescription[] palettePartDescriptions) {
 
@@ -134,10 +210,39 @@ public class Gen3to5PaletteRandomizer extends PaletteRandomizer {
 		}
 	}
 
+	/**
+	 * Gets the {@link PalettePartDescription}s for a Pokemon from the "pokePalettes" file. The file is read and
+	 * parsed only once for all instances, after that the parsed descriptions are reused.
+	 */
+	public PalettePartDescription[] getPalettePartDescriptions(Species pk) {
+		PalettePartDescription[][] all = PART_DESCRIPTION_CACHE.computeIfAbsent(getFileName("pokePalettes"),
+				fileName -> parseAllPartDescriptions(getPaletteDescriptions("pokePalettes")));
+		int paletteIndex = pk.getNumber() - 1;
+		boolean validIndex = paletteIndex < all.length;
+		// a copy, so callers can't change the array shared by everyone else
+		return (validIndex ? all[paletteIndex] : BLANK_PART_DESCRIPTIONS).clone();
+	}
+
+	private static PalettePartDescription[][] parseAllPartDescriptions(List<PaletteDescription> paletteDescriptions) {
+		PalettePartDescription[][] all = new PalettePartDescription[paletteDescriptions.size()][];
+		for (int i = 0; i < all.length; i++) {
+			all[i] = PalettePartDescription.allFrom(paletteDescriptions.get(i));
+		}
+		return all;
+	}
+
+	/**
+	 * Clears the parsed descriptions kept by {@link #getPalettePartDescriptions(Species)}, so they are read from
+	 * the file again. Call after changing a description file while the program is running.
+	 */
+	public static void clearPalettePartDescriptionCache() {
+		PART_DESCRIPTION_CACHE.clear();
+	}
+
 	public PalettePartDescription[] getPalettePartDescriptions(Species pk,
                                                                List<PaletteDescription> paletteDescriptions) {
 		int paletteIndex = pk.getNumber() - 1;
-		boolean validIndex = paletteIndex <= paletteDescriptions.size();
+		boolean validIndex = paletteIndex < paletteDescriptions.size();
 		return PalettePartDescription
 				.allFrom(validIndex ? paletteDescriptions.get(paletteIndex) : PaletteDescription.BLANK);
 	}
@@ -1,6 +1,7 @@
 package com.dabomstew.pkrandom.randomizers;
 
 import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.random.RandomStream;
 import com.dabomstew.pkromio.gamedata.Species;
 import com.dabomstew.pkromio.gamedata.cueh.CopyUpEvolutionsHelper;
 import com.dabomstew.pkromio.romhandlers.RomHandler;
@@ -34,6 +35,25 @@ public abstract class Randomizer {
         this.random = random;
     }
 
+    /**
+     * Returns the Random to use for one entity, e.g. a trainer, area or species. If {@link #random} is a
+     * {@link RandomStream}, i.e. with {@link Settings.RNGScheme#SPLIT}, this is a Random of the entity's own,
+     * so entities may be randomized in any order or concurrently. Otherwise it is just {@link #random}, and
+     * entities must be randomized in order, one at a time.<br>
+     * Call this once per entity, as each call starts the entity's numbers over.
+     * @param entity A number identifying the entity among all entities this randomizer uses it for.
+     */
+    protected Random randomFor(int entity) {
+        return random instanceof RandomStream ? ((RandomStream) random).forEntity(entity) : random;
+    }
+
+    /**
+     * Returns whether {@link #randomFor(int)} gives each entity a Random of its own.
+     */
+    protected boolean hasEntityRandoms() {
+        return random instanceof RandomStream;
+    }
+
     public boolean isChangesMade() {
         return changesMade;
     }
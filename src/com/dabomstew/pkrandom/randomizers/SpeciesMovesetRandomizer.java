@@ -1,6 +1,7 @@
 package com.dabomstew.pkrandom.randomizers;
 
 import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.exceptions.RandomizationException;
 import com.dabomstew.pkromio.constants.GlobalConstants;
 import com.dabomstew.pkromio.constants.MoveIDs;
 import com.dabomstew.pkromio.gamedata.*;
@@ -28,14 +29,11 @@ public class SpeciesMovesetRandomizer extends Randomizer {
         Map<Integer, List<MoveLearnt>> movesets = romHandler.getMovesLearnt();
 
         // Build sets of moves
-        List<Move> validMoves = new ArrayList<>();
-        List<Move> validDamagingMoves = new ArrayList<>();
-        Map<Type, List<Move>> validTypeMoves = new HashMap<>();
-        Map<Type, List<Move>> validTypeDamagingMoves = new HashMap<>();
-        createSetsOfMoves(noBroken, validMoves, validDamagingMoves, validTypeMoves, validTypeDamagingMoves);
+        MovePoolIndex moveIndex = createMovePoolIndex(noBroken);
 
         for (Integer pkmnNum : movesets.keySet()) {
             List<Integer> learnt = new ArrayList<>();
+            MovePoolIndex.Picker picker = moveIndex.newPicker();
             List<MoveLearnt> moves = movesets.get(pkmnNum);
             int lv1AttackingMove = 0;
             Species pkmn = findSpeciesInPoolWithSpeciesID(rSpecService.getAll(true), pkmnNum);
@@ -128,36 +126,7 @@ public class SpeciesMovesetRandomizer extends Randomizer {
                     }
                 }
 
-                // select a list to pick a move from that has at least one free
-                List<Move> pickList = validMoves;
-                if (attemptDamaging) {
-                    if (typeOfMove != null) {
-                        if (validTypeDamagingMoves.containsKey(typeOfMove)
-                                && checkForUnusedMove(validTypeDamagingMoves.get(typeOfMove), learnt)) {
-                            pickList = validTypeDamagingMoves.get(typeOfMove);
-                        } else if (checkForUnusedMove(validDamagingMoves, learnt)) {
-                            pickList = validDamagingMoves;
-                        }
-                    } else if (checkForUnusedMove(validDamagingMoves, learnt)) {
-                        pickList = validDamagingMoves;
-                    }
-                    MoveCategory forcedCategory = random.nextDouble() < atkSpAtkRatio ? MoveCategory.PHYSICAL : MoveCategory.SPECIAL;
-                    List<Move> filteredList = pickList.stream().filter(mv -> mv.category == forcedCategory).collect(Collectors.toList());
-                    if (!filteredList.isEmpty() && checkForUnusedMove(filteredList, learnt)) {
-                        pickList = filteredList;
-                    }
-                } else if (typeOfMove != null) {
-                    if (validTypeMoves.containsKey(typeOfMove)
-                            && checkForUnusedMove(validTypeMoves.get(typeOfMove), learnt)) {
-                        pickList = validTypeMoves.get(typeOfMove);
-                    }
-                }
-
-                // now pick a move until we get a valid one
-                Move mv = pickList.get(random.nextInt(pickList.size()));
-                while (learnt.contains(mv.number)) {
-                    mv = pickList.get(random.nextInt(pickList.size()));
-                }
+                Move mv = pickMove(moveIndex, picker, attemptDamaging, typeOfMove, atkSpAtkRatio);
 
                 if (i == lv1index) {
                     lv1AttackingMove = mv.number;
@@ -203,14 +172,11 @@ public class SpeciesMovesetRandomizer extends Randomizer {
         Map<Integer, List<Integer>> movesets = romHandler.getEggMoves();
 
         // Build sets of moves
-        List<Move> validMoves = new ArrayList<>();
-        List<Move> validDamagingMoves = new ArrayList<>();
-        Map<Type, List<Move>> validTypeMoves = new HashMap<>();
-        Map<Type, List<Move>> validTypeDamagingMoves = new HashMap<>();
-        createSetsOfMoves(noBroken, validMoves, validDamagingMoves, validTypeMoves, validTypeDamagingMoves);
+        MovePoolIndex moveIndex = createMovePoolIndex(noBroken);
 
         for (Integer pkmnNum : movesets.keySet()) {
             List<Integer> learnt = new ArrayList<>();
+            MovePoolIndex.Picker picker = moveIndex.newPicker();
             List<Integer> moves = movesets.get(pkmnNum);
             Species pkmn = findSpeciesInPoolWithSpeciesID(rSpecService.getAll(true), pkmnNum);
             if (pkmn == null) {
@@ -267,36 +233,7 @@ public class SpeciesMovesetRandomizer extends Randomizer {
                     }
                 }
 
-                // select a list to pick a move from that has at least one free
-                List<Move> pickList = validMoves;
-                if (attemptDamaging) {
-                    if (typeOfMove != null) {
-                        if (validTypeDamagingMoves.containsKey(typeOfMove)
-                                && checkForUnusedMove(validTypeDamagingMoves.get(typeOfMove), learnt)) {
-                            pickList = validTypeDamagingMoves.get(typeOfMove);
-                        } else if (checkForUnusedMove(validDamagingMoves, learnt)) {
-                            pickList = validDamagingMoves;
-                        }
-                    } else if (checkForUnusedMove(validDamagingMoves, learnt)) {
-                        pickList = validDamagingMoves;
-                    }
-                    MoveCategory forcedCategory = random.nextDouble() < atkSpAtkRatio ? MoveCategory.PHYSICAL : MoveCategory.SPECIAL;
-                    List<Move> filteredList = pickList.stream().filter(mv -> mv.category == forcedCategory).collect(Collectors.toList());
-                    if (!filteredList.isEmpty() && checkForUnusedMove(filteredList, learnt)) {
-                        pickList = filteredList;
-                    }
-                } else if (typeOfMove != null) {
-                    if (validTypeMoves.containsKey(typeOfMove)
-                            && checkForUnusedMove(validTypeMoves.get(typeOfMove), learnt)) {
-                        pickList = validTypeMoves.get(typeOfMove);
-                    }
-                }
-
-                // now pick a move until we get a valid one
-                Move mv = pickList.get(random.nextInt(pickList.size()));
-                while (learnt.contains(mv.number)) {
-                    mv = pickList.get(random.nextInt(pickList.size()));
-                }
+                Move mv = pickMove(moveIndex, picker, attemptDamaging, typeOfMove, atkSpAtkRatio);
 
                 goodDamagingLeft--;
                 learnt.add(mv.number);
@@ -313,13 +250,50 @@ public class SpeciesMovesetRandomizer extends Randomizer {
         changesMade = true;
     }
 
-    private boolean checkForUnusedMove(List<Move> potentialList, List<Integer> alreadyUsed) {
-        for (Move mv : potentialList) {
-            if (!alreadyUsed.contains(mv.number)) {
-                return true;
+    /**
+     * Picks a move not yet picked by the given {@link MovePoolIndex.Picker}, preferring (in order) the given type,
+     * good damaging moves if attemptDamaging, and the physical/special category matching atkSpAtkRatio.
+     */
+    private Move pickMove(MovePoolIndex moveIndex, MovePoolIndex.Picker picker, boolean attemptDamaging,
+                          Type typeOfMove, double atkSpAtkRatio) {
+        // select a pool to pick a move from that has at least one free
+        MovePoolIndex.Pool pickPool = moveIndex.getPool(null, false, null);
+        if (attemptDamaging) {
+            if (typeOfMove != null) {
+                MovePoolIndex.Pool typeDamaging = moveIndex.getPool(typeOfMove, true, null);
+                if (picker.hasUnused(typeDamaging)) {
+                    pickPool = typeDamaging;
+                } else if (picker.hasUnused(moveIndex.getPool(null, true, null))) {
+                    pickPool = moveIndex.getPool(null, true, null);
+                }
+            } else if (picker.hasUnused(moveIndex.getPool(null, true, null))) {
+                pickPool = moveIndex.getPool(null, true, null);
+            }
+            MoveCategory forcedCategory = random.nextDouble() < atkSpAtkRatio ? MoveCategory.PHYSICAL : MoveCategory.SPECIAL;
+            MovePoolIndex.Pool filteredPool = moveIndex.withCategory(pickPool, forcedCategory);
+            if (picker.hasUnused(filteredPool)) {
+                pickPool = filteredPool;
+            }
+        } else if (typeOfMove != null) {
+            MovePoolIndex.Pool typePool = moveIndex.getPool(typeOfMove, false, null);
+            if (picker.hasUnused(typePool)) {
+                pickPool = typePool;
             }
         }
-        return false;
+
+        if (!picker.hasUnused(pickPool)) {
+            throw new RandomizationException("Ran out of valid moves to pick from.");
+        }
+        return picker.pick(pickPool, random);
+    }
+
+    private MovePoolIndex createMovePoolIndex(boolean noBroken) {
+        List<Move> validMoves = new ArrayList<>();
+        List<Move> validDamagingMoves = new ArrayList<>();
+        Map<Type, List<Move>> validTypeMoves = new HashMap<>();
+        Map<Type, List<Move>> validTypeDamagingMoves = new HashMap<>();
+        createSetsOfMoves(noBroken, validMoves, validDamagingMoves, validTypeMoves, validTypeDamagingMoves);
+        return new MovePoolIndex(validMoves, validTypeMoves, validDamagingMoves, validTypeDamagingMoves);
     }
 
     private void createSetsOfMoves(boolean noBroken, List<Move> validMoves, List<Move> validDamagingMoves,
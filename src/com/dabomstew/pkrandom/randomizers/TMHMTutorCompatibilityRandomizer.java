@@ -1,16 +1,14 @@
 package com.dabomstew.pkrandom.randomizers;
 
 import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkromio.gamedata.CompatibilityMatrix;
 import com.dabomstew.pkromio.gamedata.Move;
 import com.dabomstew.pkromio.gamedata.MoveLearnt;
 import com.dabomstew.pkromio.gamedata.Species;
 import com.dabomstew.pkromio.gamedata.Type;
 import com.dabomstew.pkromio.romhandlers.RomHandler;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.*;
 
 public class TMHMTutorCompatibilityRandomizer extends Randomizer {
 
@@ -42,28 +40,27 @@ public class TMHMTutorCompatibilityRandomizer extends Randomizer {
         // Get current compatibility
         // increase HM chances if required early on
         List<Integer> requiredEarlyOn = romHandler.getEarlyRequiredHMMoves();
-        Map<Species, boolean[]> compat = romHandler.getTMHMCompatibility();
+        CompatibilityMatrix compat = romHandler.getTMHMCompatibilityMatrix();
         List<Integer> tmHMs = new ArrayList<>(romHandler.getTMMoves());
         tmHMs.addAll(romHandler.getHMMoves());
 
         if (followEvolutions) {
             copyUpEvolutionsHelper.apply(true, false,
-                    pk -> randomizePokemonMoveCompatibility(pk, compat.get(pk), tmHMs, requiredEarlyOn, preferSameType),
+                    pk -> randomizePokemonMoveCompatibility(pk, compat, tmHMs, requiredEarlyOn, preferSameType),
                     (evFrom, evTo, toMonIsFinalEvo) -> copyPokemonMoveCompatibilityUpEvolutions(evFrom, evTo,
-                            compat.get(evFrom), compat.get(evTo), tmHMs, preferSameType));
+                            compat, tmHMs, preferSameType));
         } else {
-            for (Map.Entry<Species, boolean[]> compatEntry : compat.entrySet()) {
-                randomizePokemonMoveCompatibility(compatEntry.getKey(), compatEntry.getValue(), tmHMs, requiredEarlyOn,
-                        preferSameType);
+            for (Species pk : compat.getSpecies()) {
+                randomizePokemonMoveCompatibility(pk, compat, tmHMs, requiredEarlyOn, preferSameType);
             }
         }
 
         // Set the new compatibility
-        romHandler.setTMHMCompatibility(compat);
+        romHandler.setTMHMCompatibilityMatrix(compat);
         tmhmChangesMade = true;
     }
 
-    private void randomizePokemonMoveCompatibility(Species pkmn, boolean[] moveCompatibilityFlags,
+    private void randomizePokemonMoveCompatibility(Species pkmn, CompatibilityMatrix compat,
                                                    List<Integer> moveIDs, List<Integer> prioritizedMoves,
                                                    boolean preferSameType) {
         List<Move> moveData = romHandler.getMoves();
@@ -76,16 +73,15 @@ public class TMHMTutorCompatibilityRandomizer extends Randomizer {
                     prioritizedMoves.contains(move),
                     preferSameType
             );
-            moveCompatibilityFlags[i] = (this.random.nextDouble() < probability);
+            compat.set(pkmn, i, this.random.nextDouble() < probability);
         }
     }
 
-    private void copyPokemonMoveCompatibilityUpEvolutions(Species evFrom, Species evTo, boolean[] prevCompatibilityFlags,
-                                                          boolean[] toCompatibilityFlags, List<Integer> moveIDs,
-                                                          boolean preferSameType) {
+    private void copyPokemonMoveCompatibilityUpEvolutions(Species evFrom, Species evTo, CompatibilityMatrix compat,
+                                                          List<Integer> moveIDs, boolean preferSameType) {
         List<Move> moveData = romHandler.getMoves();
         for (int i = 1; i <= moveIDs.size(); i++) {
-            if (!prevCompatibilityFlags[i]) {
+            if (!compat.get(evFrom, i)) {
                 // Slight chance to gain TM/HM compatibility for a move if not learned by an earlier evolution step
                 // Without prefer same type: 25% chance
                 // With prefer same type:    10% chance, 90% chance for a type new to this evolution
@@ -101,10 +97,10 @@ public class TMHMTutorCompatibilityRandomizer extends Randomizer {
                         probability = 0.9;
                     }
                 }
-                toCompatibilityFlags[i] = (this.random.nextDouble() < probability);
+                compat.set(evTo, i, this.random.nextDouble() < probability);
             }
             else {
-                toCompatibilityFlags[i] = prevCompatibilityFlags[i];
+                compat.set(evTo, i, true);
             }
         }
     }
@@ -129,83 +125,50 @@ public class TMHMTutorCompatibilityRandomizer extends Randomizer {
     }
 
     public void fullTMHMCompatibility() {
-        Map<Species, boolean[]> compat = romHandler.getTMHMCompatibility();
-        for (Map.Entry<Species, boolean[]> compatEntry : compat.entrySet()) {
-            boolean[] flags = compatEntry.getValue();
-            for (int i = 1; i < flags.length; i++) {
-                flags[i] = true;
-            }
+        CompatibilityMatrix compat = romHandler.getTMHMCompatibilityMatrix();
+        for (Species pk : compat.getSpecies()) {
+            compat.fill(pk, true);
         }
-        romHandler.setTMHMCompatibility(compat);
+        romHandler.setTMHMCompatibilityMatrix(compat);
     }
 
     /**
      * if a pokemon learns a move in its moveset and there is a TM of that move, make sure that TM can be learned.
      */
     public void ensureTMCompatSanity() {
-        //
-        Map<Species, boolean[]> compat = romHandler.getTMHMCompatibility();
+        CompatibilityMatrix compat = romHandler.getTMHMCompatibilityMatrix();
         Map<Integer, List<MoveLearnt>> movesets = romHandler.getMovesLearnt();
-        List<Integer> tmMoves = romHandler.getTMMoves();
-        for (Species pkmn : compat.keySet()) {
-            List<MoveLearnt> moveset = movesets.get(pkmn.getNumber());
-            boolean[] pkmnCompat = compat.get(pkmn);
-            for (MoveLearnt ml : moveset) {
-                if (tmMoves.contains(ml.move)) {
-                    int tmIndex = tmMoves.indexOf(ml.move);
-                    pkmnCompat[tmIndex + 1] = true;
-                }
-            }
-        }
-        romHandler.setTMHMCompatibility(compat);
+        ensureCompatSanity(compat, movesets, romHandler.getTMMoves());
+        romHandler.setTMHMCompatibilityMatrix(compat);
         tmhmChangesMade = true;
     }
 
     public void ensureTMEvolutionSanity() {
-        Map<Species, boolean[]> compat = romHandler.getTMHMCompatibility();
+        CompatibilityMatrix compat = romHandler.getTMHMCompatibilityMatrix();
         // Don't do anything with the base, just copy upwards to ensure later evolutions
         // retain learn compatibility
         copyUpEvolutionsHelper.apply(true, true, pk -> {},
-                (evFrom, evTo, toMonIsFinalEvo) -> {
-                    boolean[] fromCompat = compat.get(evFrom);
-                    boolean[] toCompat = compat.get(evTo);
-                    for (int i = 1; i < toCompat.length; i++) {
-                        toCompat[i] |= fromCompat[i];
-                    }
-                });
-        romHandler.setTMHMCompatibility(compat);
+                (evFrom, evTo, toMonIsFinalEvo) -> compat.orRow(evTo, evFrom));
+        romHandler.setTMHMCompatibilityMatrix(compat);
         tmhmChangesMade = true;
     }
 
     public void fullHMCompatibility() {
-        Map<Species, boolean[]> compat = romHandler.getTMHMCompatibility();
+        CompatibilityMatrix compat = romHandler.getTMHMCompatibilityMatrix();
         int tmCount = romHandler.getTMCount();
-        for (boolean[] flags : compat.values()) {
-            for (int i = tmCount + 1; i < flags.length; i++) {
-                flags[i] = true;
-            }
+        for (Species pk : compat.getSpecies()) {
+            compat.fill(pk, tmCount + 1, compat.getColumnCount(), true);
         }
 
         // Set the new compatibility
-        romHandler.setTMHMCompatibility(compat);
+        romHandler.setTMHMCompatibilityMatrix(compat);
         tmhmChangesMade = true;
     }
 
     public void copyTMCompatibilityToCosmeticFormes() {
-        Map<Species, boolean[]> compat = romHandler.getTMHMCompatibility();
-
-        for (Map.Entry<Species, boolean[]> compatEntry : compat.entrySet()) {
-            Species pkmn = compatEntry.getKey();
-            boolean[] flags = compatEntry.getValue();
-            if (pkmn.isActuallyCosmetic()) {
-                boolean[] baseFlags = compat.get(pkmn.getBaseForme());
-                for (int i = 1; i < flags.length; i++) {
-                    flags[i] = baseFlags[i];
-                }
-            }
-        }
-
-        romHandler.setTMHMCompatibility(compat);
+        CompatibilityMatrix compat = romHandler.getTMHMCompatibilityMatrix();
+        copyCompatibilityToCosmeticFormes(compat);
+        romHandler.setTMHMCompatibilityMatrix(compat);
         tmhmChangesMade = true;
     }
 
@@ -217,7 +180,7 @@ public class TMHMTutorCompatibilityRandomizer extends Randomizer {
             return;
         }
         // Get current compatibility
-        Map<Species, boolean[]> compat = romHandler.getMoveTutorCompatibility();
+        CompatibilityMatrix compat = romHandler.getMoveTutorCompatibilityMatrix();
         List<Integer> mts = romHandler.getMoveTutorMoves();
 
         // Empty list
@@ -225,18 +188,18 @@ public class TMHMTutorCompatibilityRandomizer extends Randomizer {
 
         if (followEvolutions) {
             copyUpEvolutionsHelper.apply(true, true,
-                    pk -> randomizePokemonMoveCompatibility(pk, compat.get(pk), mts, priorityTutors, preferSameType),
+                    pk -> randomizePokemonMoveCompatibility(pk, compat, mts, priorityTutors, preferSameType),
                     (evFrom, evTo, toMonIsFinalEvo) -> copyPokemonMoveCompatibilityUpEvolutions(evFrom, evTo,
-                            compat.get(evFrom), compat.get(evTo), mts, preferSameType));
+                            compat, mts, preferSameType));
         }
         else {
-            for (Map.Entry<Species, boolean[]> compatEntry : compat.entrySet()) {
-                randomizePokemonMoveCompatibility(compatEntry.getKey(), compatEntry.getValue(), mts, priorityTutors, preferSameType);
+            for (Species pk : compat.getSpecies()) {
+                randomizePokemonMoveCompatibility(pk, compat, mts, priorityTutors, preferSameType);
             }
         }
 
         // Set the new compatibility
-        romHandler.setMoveTutorCompatibility(compat);
+        romHandler.setMoveTutorCompatibilityMatrix(compat);
         tutorChangesMade = true;
     }
 
@@ -244,14 +207,11 @@ public class TMHMTutorCompatibilityRandomizer extends Randomizer {
         if (!romHandler.hasMoveTutors()) {
             return;
         }
-        Map<Species, boolean[]> compat = romHandler.getMoveTutorCompatibility();
-        for (Map.Entry<Species, boolean[]> compatEntry : compat.entrySet()) {
-            boolean[] flags = compatEntry.getValue();
-            for (int i = 1; i < flags.length; i++) {
-                flags[i] = true;
-            }
+        CompatibilityMatrix compat = romHandler.getMoveTutorCompatibilityMatrix();
+        for (Species pk : compat.getSpecies()) {
+            compat.fill(pk, true);
         }
-        romHandler.setMoveTutorCompatibility(compat);
+        romHandler.setMoveTutorCompatibilityMatrix(compat);
         tutorChangesMade = true;
     }
 
@@ -262,20 +222,10 @@ public class TMHMTutorCompatibilityRandomizer extends Randomizer {
         // if a pokemon learns a move in its moveset
         // and there is a tutor of that move, make sure
         // that tutor can be learned.
-        Map<Species, boolean[]> compat = romHandler.getMoveTutorCompatibility();
+        CompatibilityMatrix compat = romHandler.getMoveTutorCompatibilityMatrix();
         Map<Integer, List<MoveLearnt>> movesets = romHandler.getMovesLearnt();
-        List<Integer> mtMoves = romHandler.getMoveTutorMoves();
-        for (Species pkmn : compat.keySet()) {
-            List<MoveLearnt> moveset = movesets.get(pkmn.getNumber());
-            boolean[] pkmnCompat = compat.get(pkmn);
-            for (MoveLearnt ml : moveset) {
-                if (mtMoves.contains(ml.move)) {
-                    int mtIndex = mtMoves.indexOf(ml.move);
-                    pkmnCompat[mtIndex + 1] = true;
-                }
-            }
-        }
-        romHandler.setMoveTutorCompatibility(compat);
+        ensureCompatSanity(compat, movesets, romHandler.getMoveTutorMoves());
+        romHandler.setMoveTutorCompatibilityMatrix(compat);
         tutorChangesMade = true;
     }
 
@@ -283,35 +233,44 @@ public class TMHMTutorCompatibilityRandomizer extends Randomizer {
         if (!romHandler.hasMoveTutors()) {
             return;
         }
-        Map<Species, boolean[]> compat = romHandler.getMoveTutorCompatibility();
+        CompatibilityMatrix compat = romHandler.getMoveTutorCompatibilityMatrix();
         // Don't do anything with the base, just copy upwards to ensure later evolutions retain learn compatibility
         copyUpEvolutionsHelper.apply(true, true, pk -> {},
-                (evFrom, evTo, toMonIsFinalEvo) -> {
-                    boolean[] fromCompat = compat.get(evFrom);
-                    boolean[] toCompat = compat.get(evTo);
-                    for (int i = 1; i < toCompat.length; i++) {
-                        toCompat[i] |= fromCompat[i];
-                    }
-                });
-        romHandler.setMoveTutorCompatibility(compat);
+                (evFrom, evTo, toMonIsFinalEvo) -> compat.orRow(evTo, evFrom));
+        romHandler.setMoveTutorCompatibilityMatrix(compat);
         tutorChangesMade = true;
     }
 
     public void copyMoveTutorCompatibilityToCosmeticFormes() {
-        Map<Species, boolean[]> compat = romHandler.getMoveTutorCompatibility();
+        CompatibilityMatrix compat = romHandler.getMoveTutorCompatibilityMatrix();
+        copyCompatibilityToCosmeticFormes(compat);
+        romHandler.setMoveTutorCompatibilityMatrix(compat);
+        tutorChangesMade = true;
+    }
 
-        for (Map.Entry<Species, boolean[]> compatEntry : compat.entrySet()) {
-            Species pkmn = compatEntry.getKey();
-            boolean[] flags = compatEntry.getValue();
-            if (pkmn.isActuallyCosmetic()) {
-                boolean[] baseFlags = compat.get(pkmn.getBaseForme());
-                for (int i = 1; i < flags.length; i++) {
-                    flags[i] = baseFlags[i];
+    private void ensureCompatSanity(CompatibilityMatrix compat, Map<Integer, List<MoveLearnt>> movesets,
+                                    List<Integer> compatMoves) {
+        // column of the first TM/tutor with each move
+        Map<Integer, Integer> columns = new HashMap<>();
+        for (int i = compatMoves.size() - 1; i >= 0; i--) {
+            columns.put(compatMoves.get(i), i + 1);
+        }
+        for (Species pkmn : compat.getSpecies()) {
+            List<MoveLearnt> moveset = movesets.get(pkmn.getNumber());
+            for (MoveLearnt ml : moveset) {
+                Integer column = columns.get(ml.move);
+                if (column != null) {
+                    compat.set(pkmn, column, true);
                 }
             }
         }
+    }
 
-        romHandler.setMoveTutorCompatibility(compat);
-        tutorChangesMade = true;
+    private void copyCompatibilityToCosmeticFormes(CompatibilityMatrix compat) {
+        for (Species pkmn : compat.getSpecies()) {
+            if (pkmn.isActuallyCosmetic()) {
+                compat.copyRow(pkmn, pkmn.getBaseForme());
+            }
+        }
     }
 }
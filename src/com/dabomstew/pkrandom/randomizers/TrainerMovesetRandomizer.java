@@ -25,6 +25,7 @@ public class TrainerMovesetRandomizer extends Randomizer {
     private Map<Integer, List<Integer>> allEggMoves;
     private Map<Species, boolean[]> allTMCompat, allTutorCompat;
     private List<Integer> allTMMoves, allTutorMoves;
+    private MoveSynergyMatrix synergyMatrix;
 
     public TrainerMovesetRandomizer(RomHandler romHandler, Settings settings, Random random) {
         super(romHandler, settings, random);
@@ -36,6 +37,9 @@ public class TrainerMovesetRandomizer extends Randomizer {
 
         List<Trainer> trainers = romHandler.getTrainers();
 
+        synergyMatrix = new MoveSynergyMatrix(romHandler.getMoves(), romHandler.generationOfPokemon(),
+                romHandler.getPerfectAccuracy(), romHandler.getTypeTable());
+
         for (Trainer t : trainers) {
             t.setPokemonHaveCustomMoves(true);
 
@@ -98,13 +102,11 @@ public class TrainerMovesetRandomizer extends Randomizer {
 
                 // Hard ability/move synergy
 
-                List<Move> abilityMoveSynergyList = MoveSynergy.getHardAbilityMoveSynergy(
+                List<Move> abilityMoveSynergyList = synergyMatrix.getHardAbilityMoveSynergy(
                         romHandler.getAbilityForTrainerPokemon(tp),
                         pk.getPrimaryType(false),
                         pk.getSecondaryType(false),
-                        movesAtLevel,
-                        romHandler.generationOfPokemon(),
-                        romHandler.getPerfectAccuracy());
+                        movesAtLevel);
                 Collections.shuffle(abilityMoveSynergyList, random);
                 for (int i = 0; i < hardAbilityMoveBias * abilityMoveSynergyList.size(); i++) {
                     int j = i % abilityMoveSynergyList.size();
@@ -113,7 +115,7 @@ public class TrainerMovesetRandomizer extends Randomizer {
 
                 // Soft ability/move synergy
 
-                List<Move> softAbilityMoveSynergyList = MoveSynergy.getSoftAbilityMoveSynergy(
+                List<Move> softAbilityMoveSynergyList = synergyMatrix.getSoftAbilityMoveSynergy(
                         romHandler.getAbilityForTrainerPokemon(tp),
                         movesAtLevel,
                         pk.getPrimaryType(false),
@@ -127,7 +129,7 @@ public class TrainerMovesetRandomizer extends Randomizer {
 
                 // Soft ability/move anti-synergy
 
-                List<Move> softAbilityMoveAntiSynergyList = MoveSynergy.getSoftAbilityMoveAntiSynergy(
+                List<Move> softAbilityMoveAntiSynergyList = synergyMatrix.getSoftAbilityMoveAntiSynergy(
                         romHandler.getAbilityForTrainerPokemon(tp), movesAtLevel);
                 List<Move> withoutSoftAntiSynergy = new ArrayList<>(movesAtLevel);
                 for (Move mv : softAbilityMoveAntiSynergyList) {
@@ -154,7 +156,7 @@ public class TrainerMovesetRandomizer extends Randomizer {
 
                 // Stat/move synergy
 
-                List<Move> statSynergyList = MoveSynergy.getStatMoveSynergy(pk, movesAtLevel);
+                List<Move> statSynergyList = synergyMatrix.getStatMoveSynergy(pk, movesAtLevel);
                 Collections.shuffle(statSynergyList, random);
                 for (int i = 0; i < statBias * statSynergyList.size(); i++) {
                     int j = i % statSynergyList.size();
@@ -163,7 +165,7 @@ public class TrainerMovesetRandomizer extends Randomizer {
 
                 // Stat/move anti-synergy
 
-                List<Move> statAntiSynergyList = MoveSynergy.getStatMoveAntiSynergy(pk, movesAtLevel);
+                List<Move> statAntiSynergyList = synergyMatrix.getStatMoveAntiSynergy(pk, movesAtLevel);
                 List<Move> withoutStatAntiSynergy = new ArrayList<>(movesAtLevel);
                 for (Move mv : statAntiSynergyList) {
                     withoutStatAntiSynergy.remove(mv);
@@ -259,7 +261,7 @@ public class TrainerMovesetRandomizer extends Randomizer {
 
                         for (Move dependentMove : requiresOtherMove) {
                             boolean hasRequiredMove = false;
-                            for (Move requiredMove : MoveSynergy.requiresOtherMove(dependentMove, movesAtLevel)) {
+                            for (Move requiredMove : synergyMatrix.requiresOtherMove(dependentMove, movesAtLevel)) {
                                 if (pickedMoves.contains(requiredMove)) {
                                     hasRequiredMove = true;
                                     break;
@@ -280,7 +282,7 @@ public class TrainerMovesetRandomizer extends Randomizer {
 
                     movesAtLevel.removeAll(Collections.singletonList(move));
 
-                    movesAtLevel.removeAll(MoveSynergy.getHardMoveAntiSynergy(move, movesAtLevel));
+                    movesAtLevel.removeAll(synergyMatrix.getHardMoveAntiSynergy(move, movesAtLevel));
 
                     distinctMoveList = movesAtLevel.stream().distinct().collect(Collectors.toList());
                     movesLeft = distinctMoveList.size();
@@ -290,27 +292,21 @@ public class TrainerMovesetRandomizer extends Randomizer {
                         break;
                     }
 
-                    List<Move> hardMoveSynergyList = MoveSynergy.getMoveSynergy(
-                            move,
-                            movesAtLevel,
-                            romHandler.generationOfPokemon());
+                    List<Move> hardMoveSynergyList = synergyMatrix.getMoveSynergy(move, movesAtLevel);
                     Collections.shuffle(hardMoveSynergyList, random);
                     for (int j = 0; j < hardMoveBias * hardMoveSynergyList.size(); j++) {
                         int k = j % hardMoveSynergyList.size();
                         movesAtLevel.add(hardMoveSynergyList.get(k));
                     }
 
-                    List<Move> softMoveSynergyList = MoveSynergy.getSoftMoveSynergy(
-                            move,
-                            movesAtLevel,
-                            romHandler.getTypeTable());
+                    List<Move> softMoveSynergyList = synergyMatrix.getSoftMoveSynergy(move, movesAtLevel);
                     Collections.shuffle(softMoveSynergyList, random);
                     for (int j = 0; j < softMoveBias * softMoveSynergyList.size(); j++) {
                         int k = j % softMoveSynergyList.size();
                         movesAtLevel.add(softMoveSynergyList.get(k));
                     }
 
-                    List<Move> softMoveAntiSynergyList = MoveSynergy.getSoftMoveAntiSynergy(move, movesAtLevel);
+                    List<Move> softMoveAntiSynergyList = synergyMatrix.getSoftMoveAntiSynergy(move, movesAtLevel);
                     Collections.shuffle(softMoveAntiSynergyList, random);
                     for (int j = 0; j < softMoveAntiBias * softMoveAntiSynergyList.size(); j++) {
                         distinctMoveList = movesAtLevel.stream().distinct().collect(Collectors.toList());
@@ -402,7 +398,7 @@ public class TrainerMovesetRandomizer extends Randomizer {
                 .filter(mv -> GlobalConstants.requiresOtherMove.contains(mv.number)).collect(Collectors.toList());
 
         for (Move dependentMove : requiresOtherMove) {
-            if (MoveSynergy.requiresOtherMove(dependentMove, movesAtLevel).isEmpty()) {
+            if (synergyMatrix.requiresOtherMove(dependentMove, movesAtLevel).isEmpty()) {
                 movesAtLevel.remove(dependentMove);
             }
         }
@@ -423,7 +419,7 @@ public class TrainerMovesetRandomizer extends Randomizer {
         // Remove hard ability anti-synergy moves
 
         List<Move> withoutHardAntiSynergy = new ArrayList<>(movesAtLevel);
-        withoutHardAntiSynergy.removeAll(MoveSynergy.getHardAbilityMoveAntiSynergy(
+        withoutHardAntiSynergy.removeAll(synergyMatrix.getHardAbilityMoveAntiSynergy(
                 romHandler.getAbilityForTrainerPokemon(tp),
                 movesAtLevel));
 
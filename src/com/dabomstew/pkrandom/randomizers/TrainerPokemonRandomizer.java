@@ -10,6 +10,7 @@ import com.dabomstew.pkromio.gamedata.*;
 import com.dabomstew.pkromio.romhandlers.RomHandler;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class TrainerPokemonRandomizer extends Randomizer {
@@ -18,10 +19,20 @@ public class TrainerPokemonRandomizer extends Randomizer {
     private SpeciesSet cachedAll;
     private final SpeciesSet usedAsUnique = new SpeciesSet();
 
+    // The candidate pipeline: with the SPLIT RNG scheme, replacements are picked by filtering these arrays into
+    // candidateBuffer, rather than by building a new SpeciesSet for each filter. The SHARED scheme keeps picking
+    // from the sets above, as the picks index into their iteration order, which old seeds depend on.
+    private Species[] candidatesAll;
+    private Map<Type, Species[]> candidatesByType;
+    private SpeciesSet megaEvolutionBases;
+    private Species[] megaEvolutionBaseCandidates;
+    private Species[] candidateBuffer = new Species[0];
+
     private Map<Type, Integer> typeWeightings;
     private int totalTypeWeighting;
 
     private final Map<Species, Integer> placementHistory = new HashMap<>();
+    private int placementTotal;
 
     private Set<Type> usedUberTypes = EnumSet.noneOf(Type.class);
     private Map<Trainer, Type> trainerTypes = new HashMap<>();
@@ -85,6 +96,7 @@ public class TrainerPokemonRandomizer extends Randomizer {
 
         // Set up Pokemon pool
         cachedByType = new TreeMap<>();
+        candidatesByType = new EnumMap<>(Type.class);
         cachedAll = new SpeciesSet(rSpecService.getSpecies(noLegendaries, includeFormes, false));
 
         if (useLocalPokemon) {
@@ -105,17 +117,29 @@ public class TrainerPokemonRandomizer extends Randomizer {
         }
         cachedAll.removeAll(banned);
 
-        SpeciesSet wonderGuardPokemon = null;
-        if(noEarlyWonderGuard) {
-            wonderGuardPokemon = cachedAll.filter(pk -> pk.getAbility1() == AbilityIDs.wonderGuard
-                    || pk.getAbility2() == AbilityIDs.wonderGuard
-                    || pk.getAbility3() == AbilityIDs.wonderGuard);
+        SpeciesSet wonderGuardPokemon = noEarlyWonderGuard ?
+                cachedAll.filter(pk -> pk.getAbility1() == AbilityIDs.wonderGuard
+                        || pk.getAbility2() == AbilityIDs.wonderGuard
+                        || pk.getAbility3() == AbilityIDs.wonderGuard) :
+                new SpeciesSet();
+
+        candidatesAll = cachedAll.toArray(new Species[0]);
+        if (swapMegaEvos) {
+            megaEvolutionBases = rSpecService.getMegaEvolutions()
+                    .stream()
+                    .filter(MegaEvolution::isNeedsItem)
+                    .map(MegaEvolution::getFrom)
+                    .collect(Collectors.toCollection(SpeciesSet::new));
+            megaEvolutionBaseCandidates = megaEvolutionBases.toArray(new Species[0]);
         }
 
         List<Trainer> currentTrainers = romHandler.getTrainers();
 
         if (hasAnyTypeTheme) {
             cachedByType = cachedAll.sortByType(false);
+            for (Map.Entry<Type, SpeciesSet> entry : cachedByType.entrySet()) {
+                candidatesByType.put(entry.getKey(), entry.getValue().toArray(new Species[0]));
+            }
             typeWeightings = new TreeMap<>();
             totalTypeWeighting = 0;
 
@@ -135,6 +159,7 @@ public class TrainerPokemonRandomizer extends Randomizer {
         SpeciesSet bannedFromUnique = new SpeciesSet();
         List<Integer> eliteFourIndices = romHandler.getEliteFourTrainers(forceChallengeMode);
         SpeciesSet eliteFourExceptions = null;
+        Species[] eliteFourExceptionCandidates = null;
         if (eliteFourUniquePokemon) {
             // Sort Elite Four Trainers to the start of the list
             scrambledTrainers.sort((t1, t2) ->
@@ -153,6 +178,7 @@ public class TrainerPokemonRandomizer extends Randomizer {
                 eliteFourExceptions = new SpeciesSet(rSpecService.getSpecies(noLegendaries, includeFormes, false));
                 eliteFourExceptions.removeAll(banned);
                 eliteFourExceptions.removeAll(cachedAll); // i.e. retains only non-local pokes
+                eliteFourExceptionCandidates = eliteFourExceptions.toArray(new Species[0]);
             }
         }
         //TODO: figure out what's causing that bug with Elite 4 Unique in RBY
@@ -240,30 +266,29 @@ public class TrainerPokemonRandomizer extends Randomizer {
                         newSp = oldSp;
                     }
                 } else {
-                    SpeciesSet cacheReplacement = null;
                     boolean wgAllowed = (!noEarlyWonderGuard) || tp.getLevel() >= 20;
 
-                    SpeciesSet bannedForReplacement = new SpeciesSet(usedAsUnique);
-                    if (eliteFourSetUniquePokemon) {
-                        bannedForReplacement.addAll(bannedFromUnique);
-                        cacheReplacement = eliteFourExceptions;
-                    }
-                    if(!wgAllowed) {
-                        bannedForReplacement.addAll(wonderGuardPokemon);
+                    Predicate<Species> bannedForReplacement = sp -> usedAsUnique.contains(sp)
+                            || (eliteFourSetUniquePokemon && bannedFromUnique.contains(sp))
+                            || (!wgAllowed && wonderGuardPokemon.contains(sp));
+
+                    Type replacementType = keepThemeOrPrimaryTypes && typeForTrainer == null ?
+                            oldSp.getPrimaryType(true) : typeForTrainer;
+                    boolean usePlacementHistory = distributionSetting ||
+                            (mainPlaythroughSetting && mainPlaythroughTrainers.contains(t.index));
+
+                    if (hasEntityRandoms()) {
+                        newSp = pickTrainerPokeReplacement(oldSp, usePowerLevels, replacementType,
+                                usePlacementHistory, swapThisMegaEvo,
+                                eliteFourSetUniquePokemon ? eliteFourExceptionCandidates : null,
+                                forceMiddleEvolution, forceFinalEvolution, usedTypes, bannedForReplacement);
+                    } else {
+                        newSp = pickTrainerPokeReplacementFromSets(oldSp, usePowerLevels, replacementType,
+                                usePlacementHistory, swapThisMegaEvo,
+                                eliteFourSetUniquePokemon ? eliteFourExceptions : null,
+                                forceMiddleEvolution, forceFinalEvolution, usedTypes, bannedForReplacement);
                     }
 
-                    newSp = pickTrainerPokeReplacement(
-                            oldSp,
-                            usePowerLevels,
-                            (keepThemeOrPrimaryTypes && typeForTrainer == null ? oldSp.getPrimaryType(true) : typeForTrainer),
-                            distributionSetting || (mainPlaythroughSetting && mainPlaythroughTrainers.contains(t.index)),
-                            swapThisMegaEvo,
-                            cacheReplacement,
-                            forceMiddleEvolution,
-                            forceFinalEvolution,
-                            usedTypes,
-                            bannedForReplacement);
-
                     //We've chosen! Now to set it.
                     tp.setSpecies(newSp);
                     setFormeForTrainerPokemon(tp, newSp);
@@ -470,11 +495,18 @@ public class TrainerPokemonRandomizer extends Randomizer {
     }
 
 
-    private Species pickTrainerPokeReplacement(Species current, boolean usePowerLevels, Type type,
-                                               boolean usePlacementHistory, boolean swapMegaEvos,
-                                               SpeciesSet useInsteadOfCached,
-                                               boolean noBasicPokemonWithTwoEvos, boolean finalFormOnly,
-                                               Set<Type> bannedTypes, SpeciesSet bannedPokemon) {
+    /**
+     * Picks a replacement for a trainer Pokemon, from cachedAll or from useInsteadOfCached, building a new
+     * {@link SpeciesSet} for each filter. Used with the SHARED RNG scheme, as which Species a random number picks
+     * depends on the iteration order of the final set, and so on how it was built.<br>
+     * Otherwise the same as {@link #pickTrainerPokeReplacement(Species, boolean, Type, boolean, boolean, Species[],
+     * boolean, boolean, Set, Predicate)}.
+     */
+    private Species pickTrainerPokeReplacementFromSets(Species current, boolean usePowerLevels, Type type,
+                                                       boolean usePlacementHistory, boolean swapMegaEvos,
+                                                       SpeciesSet useInsteadOfCached,
+                                                       boolean noBasicPokemonWithTwoEvos, boolean finalFormOnly,
+                                                       Set<Type> bannedTypes, Predicate<Species> bannedPokemon) {
         SpeciesSet cacheOrReplacement;
         if(useInsteadOfCached == null) {
             cacheOrReplacement = cachedAll;
@@ -486,11 +518,7 @@ public class TrainerPokemonRandomizer extends Randomizer {
         SpeciesSet withoutBannedPokemon;
 
         if (swapMegaEvos) {
-            pickFrom = rSpecService.getMegaEvolutions()
-                    .stream()
-                    .filter(MegaEvolution::isNeedsItem)
-                    .map(MegaEvolution::getFrom)
-                    .collect(Collectors.toCollection(SpeciesSet::new));
+            pickFrom = megaEvolutionBases;
         } else {
             pickFrom = cacheOrReplacement;
         }
@@ -521,9 +549,7 @@ public class TrainerPokemonRandomizer extends Randomizer {
         }
 
         if(!bannedTypes.isEmpty()) {
-            pickFrom = pickFrom.filter(sp -> !bannedTypes.contains(sp.getPrimaryType(false)) &&
-                    (!sp.hasSecondaryType(false) ||
-                            !bannedTypes.contains(sp.getSecondaryType(false))));
+            pickFrom = pickFrom.filter(sp -> !hasAnyType(sp, bannedTypes));
         }
 
         if(finalFormOnly) {
@@ -544,17 +570,17 @@ public class TrainerPokemonRandomizer extends Randomizer {
         if(pickFrom.isEmpty() && useInsteadOfCached != null) {
             //the cache replacement has no valid Pokemon
             //recurse using the cache
-            return pickTrainerPokeReplacement(current, usePowerLevels, type, usePlacementHistory,
+            return pickTrainerPokeReplacementFromSets(current, usePowerLevels, type, usePlacementHistory,
                     swapMegaEvos, null, noBasicPokemonWithTwoEvos, finalFormOnly, bannedTypes, bannedPokemon);
         }
 
-        withoutBannedPokemon = pickFrom.filter(pk -> !bannedPokemon.contains(pk));
+        withoutBannedPokemon = pickFrom.filter(bannedPokemon.negate());
         if (!withoutBannedPokemon.isEmpty()) {
             pickFrom = withoutBannedPokemon;
         } else if(useInsteadOfCached != null) {
             //rather than using banned pokemon from the provided set,
             //see if we can get a non-banned pokemon from the cache
-            Species cachePick = pickTrainerPokeReplacement(current, usePowerLevels, type, usePlacementHistory,
+            Species cachePick = pickTrainerPokeReplacementFromSets(current, usePowerLevels, type, usePlacementHistory,
                     swapMegaEvos, null, noBasicPokemonWithTwoEvos, finalFormOnly, bannedTypes, bannedPokemon);
             if(withoutBannedPokemon.contains(cachePick)) {
                 return cachePick;
@@ -567,6 +593,172 @@ public class TrainerPokemonRandomizer extends Randomizer {
                 pickFrom.getRandomSpecies(random);
     }
 
+    /**
+     * Picks a replacement for a trainer Pokemon, from the cached candidates or from useInsteadOfCached.<br>
+     * The candidates passing all filters are gathered into candidateBuffer in a single pass, and then narrowed
+     * down in place by the "soft" filters (placement history, banned Pokemon), which are skipped if no candidate
+     * passes them. No intermediate sets are built.<br>
+     * Picks the same way as {@link #pickTrainerPokeReplacementFromSets(Species, boolean, Type, boolean, boolean,
+     * SpeciesSet, boolean, boolean, Set, Predicate)}, but the candidates are in another order, so the same random
+     * numbers give other Species. Only used with the SPLIT RNG scheme.
+     */
+    private Species pickTrainerPokeReplacement(Species current, boolean usePowerLevels, Type type,
+                                               boolean usePlacementHistory, boolean swapMegaEvos,
+                                               Species[] useInsteadOfCached,
+                                               boolean noBasicPokemonWithTwoEvos, boolean finalFormOnly,
+                                               Set<Type> bannedTypes, Predicate<Species> bannedPokemon) {
+        Species[] source = useInsteadOfCached == null ? candidatesAll : useInsteadOfCached;
+        Type sourceType = null;
+        boolean megaEvolutionBasesOnly = false;
+
+        if (swapMegaEvos) {
+            source = megaEvolutionBaseCandidates;
+        }
+
+        if (type != null) {
+            // "Type Themed" settings
+            if (useInsteadOfCached == null) {
+                source = candidatesByType.get(type);
+                if (source == null) {
+                    throw new RandomizationException("No Pokemon of type " + type + " available for trainers!");
+                }
+            } else {
+                //not using the cache, so filter the given candidates by type instead
+                source = useInsteadOfCached;
+                sourceType = type;
+            }
+            // Mega Evolution bases of the type are preferred, but not required
+            megaEvolutionBasesOnly = swapMegaEvos && hasMegaEvolutionBase(source, sourceType);
+        }
+
+        ensureCandidateBufferFits(source.length);
+        int count = 0;
+        for (Species sp : source) {
+            if ((sourceType == null || sp.hasType(sourceType, false))
+                    && (!megaEvolutionBasesOnly || megaEvolutionBases.contains(sp))
+                    && !hasAnyType(sp, bannedTypes)
+                    && (finalFormOnly ? sp.getEvolvedSpecies(false).isEmpty() :
+                    !noBasicPokemonWithTwoEvos || !sp.isBasicPokemonWithMoreThanTwoEvoStages(false))) {
+                candidateBuffer[count++] = sp;
+            }
+        }
+
+        if (usePlacementHistory) {
+            // "Distributed" settings
+            double placementAverage = getPlacementAverage();
+            int belowAverage = retainCandidates(count, pk -> getPlacementHistory(pk) < placementAverage * 2);
+            if (belowAverage != 0) {
+                count = belowAverage;
+            }
+        }
+
+        if (count == 0 && useInsteadOfCached != null) {
+            //the cache replacement has no valid Pokemon
+            //recurse using the cache
+            return pickTrainerPokeReplacement(current, usePowerLevels, type, usePlacementHistory,
+                    swapMegaEvos, null, noBasicPokemonWithTwoEvos, finalFormOnly, bannedTypes, bannedPokemon);
+        }
+
+        int withoutBannedPokemon = retainCandidates(count, bannedPokemon.negate());
+        if (withoutBannedPokemon != 0) {
+            count = withoutBannedPokemon;
+        } else if (useInsteadOfCached != null) {
+            //rather than using banned pokemon from the provided set,
+            //see if we can get a non-banned pokemon from the cache
+            //(like in pickTrainerPokeReplacementFromSets, the cache pick is only checked against the non-banned
+            //candidates of the provided set, of which there are none, so it is never used)
+            Species[] bannedCandidates = Arrays.copyOf(candidateBuffer, count);
+            pickTrainerPokeReplacement(current, usePowerLevels, type, usePlacementHistory,
+                    swapMegaEvos, null, noBasicPokemonWithTwoEvos, finalFormOnly, bannedTypes, bannedPokemon);
+            //if we didn't... well, if it's banned anyway, it might as well be from the substitution set
+            System.arraycopy(bannedCandidates, 0, candidateBuffer, 0, count);
+        }
+
+        return usePowerLevels ?
+                pickSimilarStrengthCandidate(current, count) :
+                pickCandidate(count);
+    }
+
+    private boolean hasMegaEvolutionBase(Species[] source, Type sourceType) {
+        for (Species sp : source) {
+            if ((sourceType == null || sp.hasType(sourceType, false)) && megaEvolutionBases.contains(sp)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAnyType(Species sp, Set<Type> types) {
+        return !types.isEmpty() && (types.contains(sp.getPrimaryType(false)) ||
+                (sp.hasSecondaryType(false) && types.contains(sp.getSecondaryType(false))));
+    }
+
+    private void ensureCandidateBufferFits(int size) {
+        if (candidateBuffer.length < size) {
+            candidateBuffer = new Species[size];
+        }
+    }
+
+    /**
+     * Moves the first count candidates which pass the predicate to the front of candidateBuffer, keeping their order.
+     * If none pass, candidateBuffer is left unchanged.
+     * @return The number of candidates which passed.
+     */
+    private int retainCandidates(int count, Predicate<Species> predicate) {
+        int retained = 0;
+        for (int i = 0; i < count; i++) {
+            if (predicate.test(candidateBuffer[i])) {
+                candidateBuffer[retained++] = candidateBuffer[i];
+            }
+        }
+        return retained;
+    }
+
+    private Species pickCandidate(int count) {
+        if (count == 0) {
+            throw new IllegalStateException("Tried to choose a random member of an empty set!");
+        }
+        return candidateBuffer[random.nextInt(count)];
+    }
+
+    /**
+     * Picks one of the first count candidates with BST "similar" to the given {@link Species}'s, by the same
+     * rules as {@link SpeciesSet#getRandomSimilarStrengthSpecies(Species, Random)}.
+     */
+    private Species pickSimilarStrengthCandidate(Species match, int count) {
+        if (count == 0) {
+            throw new IllegalStateException("Attempted to choose a Pokemon Species from an empty set!");
+        }
+        int minimumPool = Math.max(1, Math.min(SpeciesSet.SS_MINIMUM_POOL, count / SpeciesSet.SS_MINIMUM_POOL_FACTOR));
+        if (minimumPool >= count) {
+            return pickCandidate(count);
+        }
+
+        // start with within 10% and add 5% either direction until the pool is big enough
+        int matchBST = match.getBSTForPowerLevels();
+        int minTarget = matchBST - matchBST / 10;
+        int maxTarget = matchBST + matchBST / 10;
+        while (countCandidatesInBSTRange(count, minTarget, maxTarget) < minimumPool) {
+            minTarget -= matchBST / 20;
+            maxTarget += matchBST / 20;
+        }
+        int min = minTarget;
+        int max = maxTarget;
+        return pickCandidate(retainCandidates(count,
+                sp -> sp.getBSTForPowerLevels() >= min && sp.getBSTForPowerLevels() <= max));
+    }
+
+    private int countCandidatesInBSTRange(int count, int minBST, int maxBST) {
+        int inRange = 0;
+        for (int i = 0; i < count; i++) {
+            int bst = candidateBuffer[i].getBSTForPowerLevels();
+            if (bst >= minBST && bst <= maxBST) {
+                inRange++;
+            }
+        }
+        return inRange;
+    }
+
     /**
      * Picks a type, sometimes based on frequency of non-banned Pokémon of that type. Compare with randomType().
      * Never picks a type with no non-banned Pokémon, even when weightByFrequency == false.
@@ -762,6 +954,7 @@ public class TrainerPokemonRandomizer extends Randomizer {
     private void setPlacementHistory(Species newPK) {
         int history = getPlacementHistory(newPK);
         placementHistory.put(newPK, history + 1);
+        placementTotal++;
     }
 
     private int getPlacementHistory(Species newPK) {
@@ -769,7 +962,7 @@ public class TrainerPokemonRandomizer extends Randomizer {
     }
 
     private double getPlacementAverage() {
-        return placementHistory.values().stream().mapToInt(e -> e).average().orElse(0);
+        return placementHistory.isEmpty() ? 0 : (double) placementTotal / placementHistory.size();
     }
 
     public void makeRivalCarryStarter() {
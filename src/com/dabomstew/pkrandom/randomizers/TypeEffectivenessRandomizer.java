@@ -24,8 +24,9 @@ public class TypeEffectivenessRandomizer extends Randomizer {
     private TypeTable oldTable;
     private TypeTable typeTable;
     private final int[] effCounts = new int[Effectiveness.values().length];
-    private Map<Effectiveness, Integer> maxWhenAttacking;
-    private Map<Effectiveness, Integer> maxWhenDefending;
+    // by Effectiveness ordinal, like effCounts
+    private final int[] maxWhenAttacking = new int[Effectiveness.values().length];
+    private final int[] maxWhenDefending = new int[Effectiveness.values().length];
 
     private int placementTries;
 
@@ -59,14 +60,13 @@ public class TypeEffectivenessRandomizer extends Randomizer {
     }
 
     private void initMaxForBalanced() {
-        maxWhenAttacking = new EnumMap<>(Effectiveness.class);
-        maxWhenDefending = new EnumMap<>(Effectiveness.class);
+        Arrays.fill(maxWhenAttacking, 0);
+        Arrays.fill(maxWhenDefending, 0);
         for (Effectiveness eff : TO_BALANCE_FOR) {
-            maxWhenAttacking.put(eff, 0);
-            maxWhenDefending.put(eff, 0);
+            int i = eff.ordinal();
             for (Type t : oldTable.getTypes()) {
-                maxWhenAttacking.put(eff, Math.max(maxWhenAttacking.get(eff), oldTable.whenAttacking(t, eff).size()));
-                maxWhenDefending.put(eff, Math.max(maxWhenDefending.get(eff), oldTable.whenDefending(t, eff).size()));
+                maxWhenAttacking[i] = Math.max(maxWhenAttacking[i], oldTable.countWhenAttacking(t, eff));
+                maxWhenDefending[i] = Math.max(maxWhenDefending[i], oldTable.countWhenDefending(t, eff));
             }
         }
     }
@@ -90,9 +90,9 @@ public class TypeEffectivenessRandomizer extends Randomizer {
         if (typeTable.getEffectiveness(attacker, defender) != Effectiveness.NEUTRAL)
             return false;
         if (balanced) {
-            if (typeTable.whenAttacking(attacker, eff).size() == maxWhenAttacking.get(eff))
+            if (typeTable.countWhenAttacking(attacker, eff) == maxWhenAttacking[eff.ordinal()])
                 return false;
-            if (typeTable.whenDefending(defender, eff).size() == maxWhenDefending.get(eff))
+            if (typeTable.countWhenDefending(defender, eff) == maxWhenDefending[eff.ordinal()])
                 return false;
         }
         return true;
@@ -102,24 +102,35 @@ public class TypeEffectivenessRandomizer extends Randomizer {
     // that are more similar to the original one. If this constant is large enough though, that unevenness
     // will be negligible. It's basically a sort of random walk, where we are more likely to be near the starting
     // point the fewer steps we take. The tradeoff for better randomness being the algorithm taking more time.
-    private static final int TYPES_KEEP_IDENTITIES_SWAPS = 10000;
+    private static final int TYPES_KEEP_IDENTITIES_SWAPS = 50000;
 
     public void randomizeTypeEffectivenessKeepIdentities() {
         TypeTable typeTable = new TypeTable(romHandler.getTypeTable());
+        List<Type> types = typeTable.getTypes();
+
+        // reused by every step, so the walk doesn't allocate
+        Type[] chunk = new Type[types.size()];
+        boolean[] inChunk = new boolean[types.size()];
+        int[] effCountDiffs = new int[Effectiveness.values().length];
 
         int swapsDone = 0;
         while (swapsDone < TYPES_KEEP_IDENTITIES_SWAPS) {
             Type colA = typeService.randomType(random);
             Type colB = typeService.randomType(random);
 
-            int chunkSize = random.nextInt(typeTable.getTypes().size());
-            Set<Type> chunk = new HashSet<>(chunkSize);
-            while (chunk.size() < chunkSize) {
-                chunk.add(typeService.randomType(random));
+            int chunkSize = random.nextInt(types.size());
+            Arrays.fill(inChunk, false);
+            int filled = 0;
+            while (filled < chunkSize) {
+                int i = random.nextInt(types.size());
+                if (!inChunk[i]) {
+                    inChunk[i] = true;
+                    chunk[filled++] = types.get(i);
+                }
             }
 
-            if (typeTableChunkCanBeSwapped(typeTable, colA, colB, chunk)) {
-                swapTypeTableChunk(typeTable, colA, colB, chunk);
+            if (typeTableChunkCanBeSwapped(typeTable, colA, colB, chunk, chunkSize, effCountDiffs)) {
+                swapTypeTableChunk(typeTable, colA, colB, chunk, chunkSize);
                 swapsDone++;
             }
         }
@@ -128,18 +139,27 @@ public class TypeEffectivenessRandomizer extends Randomizer {
         changesMade = true;
     }
 
-    private boolean typeTableChunkCanBeSwapped(TypeTable typeTable, Type colA, Type colB, Set<Type> chunk) {
-        int[] effCountsA = new int[Effectiveness.values().length];
-        int[] effCountsB = new int[Effectiveness.values().length];
-        for (Type t : chunk) {
-            effCountsA[typeTable.getEffectiveness(t, colA).ordinal()]++;
-            effCountsB[typeTable.getEffectiveness(t, colB).ordinal()]++;
+    private boolean typeTableChunkCanBeSwapped(TypeTable typeTable, Type colA, Type colB, Type[] chunk, int chunkSize,
+                                               int[] effCountDiffs) {
+        if (colA == colB) {
+            return true;
         }
-        return Arrays.equals(effCountsA, effCountsB);
+        Arrays.fill(effCountDiffs, 0);
+        for (int i = 0; i < chunkSize; i++) {
+            effCountDiffs[typeTable.getEffectiveness(chunk[i], colA).ordinal()]++;
+            effCountDiffs[typeTable.getEffectiveness(chunk[i], colB).ordinal()]--;
+        }
+        for (int diff : effCountDiffs) {
+            if (diff != 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private void swapTypeTableChunk(TypeTable typeTable, Type colA, Type colB, Set<Type> chunk) {
-        for (Type t : chunk) {
+    private void swapTypeTableChunk(TypeTable typeTable, Type colA, Type colB, Type[] chunk, int chunkSize) {
+        for (int i = 0; i < chunkSize; i++) {
+            Type t = chunk[i];
             Effectiveness storage = typeTable.getEffectiveness(t, colA);
             typeTable.setEffectiveness(t, colA, typeTable.getEffectiveness(t, colB));
             typeTable.setEffectiveness(t, colB, storage);
@@ -152,12 +152,24 @@ public class WildEncounterRandomizer extends Randomizer {
         private Map<Type, SpeciesSet> remainingByType;
         private SpeciesSet remaining;
 
+        //Pools narrowed down from remaining or allowed, built on first use by getReplacementPool().
+        //The remaining-based ones are kept in step with remaining, using usedSinceRefill to refill it.
+        //Only used with the SPLIT RNG scheme; which Species a random number picks depends on the iteration order
+        //of the set picked from, so with the SHARED scheme each pick is from a fresh copy, as it always was.
+        private final boolean indexedPools;
+        private final Map<PoolKey, SpeciesSet> remainingPools = new HashMap<>();
+        private final Map<PoolKey, SpeciesSet> allowedPools = new HashMap<>();
+        private final List<Species> usedSinceRefill = new ArrayList<>();
+
         private Map<Species, Species> zoneMap;
         private Map<Species, SpeciesAreaInformation> areaInformationMap = null;
 
         //ORAS's DexNav will crash if the load is higher than this value.
         final int ORAS_CRASH_THRESHOLD = 18;
 
+        //Stands in for an evolution stage, when Species of any stage are allowed.
+        private static final int ANY_STAGE = -1;
+
         public InnerRandomizer(SpeciesSet allowed, SpeciesSet banned,
                                boolean randomTypeThemes, boolean keepTypeThemes, boolean keepPrimaryType,
                                boolean catchEmAll, boolean similarStrength, boolean balanceLowLevelEncounters,
@@ -181,6 +193,7 @@ public class WildEncounterRandomizer extends Randomizer {
             this.catchEmAll = catchEmAll;
             this.similarStrength = similarStrength;
             this.balanceLowLevelEncounters = balanceLowLevelEncounters;
+            this.indexedPools = hasEntityRandoms();
 
             if(basicPokemonOnly && !keepEvolutions) {
                 this.allowed = allowed.filterBasic(false);
@@ -197,13 +210,46 @@ public class WildEncounterRandomizer extends Randomizer {
             refillRemainingSpecies();
         }
 
+        /**
+         * Puts every {@link Species} used since the last refill back into "remaining" and all variants that are
+         * in use, so they again contain everything allowed. Without indexed pools, "remaining" is copied anew.
+         */
         private void refillRemainingSpecies() {
-            remaining = new SpeciesSet(allowed);
-            if (needsTypes) {
-                remainingByType = new EnumMap<>(Type.class);
-                for (Type t : typeService.getTypes()) {
-                    remainingByType.put(t, new SpeciesSet(allowedByType.get(t)));
+            if (remaining == null || !indexedPools) {
+                remaining = new SpeciesSet(allowed);
+                if (needsTypes) {
+                    remainingByType = new EnumMap<>(Type.class);
+                    for (Type t : typeService.getTypes()) {
+                        remainingByType.put(t, new SpeciesSet(allowedByType.get(t)));
+                    }
                 }
+                return;
+            }
+
+            for (Species used : usedSinceRefill) {
+                if (allowed.contains(used)) {
+                    remaining.add(used);
+                }
+                if (needsTypes) {
+                    refillRemainingOfType(used, used.getPrimaryType(false));
+                    if (used.hasSecondaryType(false)) {
+                        refillRemainingOfType(used, used.getSecondaryType(false));
+                    }
+                }
+                for (Map.Entry<PoolKey, SpeciesSet> pool : remainingPools.entrySet()) {
+                    PoolKey key = pool.getKey();
+                    SpeciesSet allowedPool = key.type == null ? allowed : allowedByType.get(key.type);
+                    if (allowedPool.contains(used) && key.admits(used)) {
+                        pool.getValue().add(used);
+                    }
+                }
+            }
+            usedSinceRefill.clear();
+        }
+
+        private void refillRemainingOfType(Species used, Type type) {
+            if (allowedByType.get(type).contains(used)) {
+                remainingByType.get(type).add(used);
             }
         }
 
@@ -431,14 +477,14 @@ public class WildEncounterRandomizer extends Randomizer {
 
             SpeciesSet possibleReplacements = relativeReplacement.getRelativesAtPosition(relation, false);
             possibleReplacements.retainAll(remaining);
-            possibleReplacements.removeAll(info.getBannedForReplacement());
+            possibleReplacements.removeAll(info.bannedForReplacement);
             if(!possibleReplacements.isEmpty()) {
                 return pickReplacement(toReplace, possibleReplacements);
             }
             //else - remaining didn't have any valid, but allowed should.
             possibleReplacements = relativeReplacement.getRelativesAtPosition(relation, false);
             possibleReplacements.retainAll(allowed);
-            possibleReplacements.removeAll(info.getBannedForReplacement());
+            possibleReplacements.removeAll(info.bannedForReplacement);
             if(!possibleReplacements.isEmpty()) {
                 return pickReplacement(toReplace, possibleReplacements);
             }
@@ -644,29 +690,65 @@ public class WildEncounterRandomizer extends Randomizer {
         }
 
         /**
-         * Given a {@link Type} (or null) and a set of banned {@link Species}, returns a set of {@link Species}
-         * valid for placement in that area, of the given type if there was one.
+         * Given a {@link Type} (or null), an evolution stage and a set of banned {@link Species}, returns a set of
+         * {@link Species} valid for placement in that area, of the given type if there was one.
+         * Uses remaining {@link Species} if any of the type aren't banned, allowed {@link Species} otherwise.
          * @param areaType The Type which all {@link Species} returned should have, or null.
+         * @param stage The number of evolution stages before all {@link Species} returned, or ANY_STAGE.
          * @param banned The set of banned species. Can be empty.
-         * @return A {@link SpeciesSet} (which may be a reference to an existing set) which contains all
-         * available {@link Species} of that type, except any banned ones.
+         * @return A {@link SpeciesSet} (which is a reference to an existing set; do not modify!) which contains all
+         * available {@link Species} of that type and stage, except any banned ones.
          */
-        private SpeciesSet getTypeWithoutBanned(Type areaType, SpeciesSet banned) {
-
-            SpeciesSet validSpecies;
-            if (areaType != null) {
-                validSpecies = removeBannedSpecies(remainingByType.get(areaType), banned);
-                if(validSpecies.isEmpty()) {
-                    validSpecies = removeBannedSpecies(allowedByType.get(areaType), banned);
+        private SpeciesSet getTypeWithoutBanned(Type areaType, int stage, Set<Species> banned) {
+            if (!indexedPools) {
+                SpeciesSet validSpecies = removeBannedSpecies(
+                        (areaType == null) ? remaining : remainingByType.get(areaType), banned);
+                if (validSpecies.isEmpty()) {
+                    validSpecies = removeBannedSpecies(
+                            (areaType == null) ? allowed : allowedByType.get(areaType), banned);
                 }
+                return filterByStage(validSpecies, stage);
+            }
+
+            boolean useRemaining = !getReplacementPool(true, areaType, ANY_STAGE, banned).isEmpty();
+            return getReplacementPool(useRemaining, areaType, stage, banned);
+        }
+
+        /**
+         * Returns the {@link Species} from remaining (or allowed) which have the given type and evolution stage,
+         * and are not banned. With indexed pools, each such pool is only filtered out once; the ones from remaining
+         * are then kept up to date by removeFromRemaining() and refillRemainingSpecies(). Otherwise, a new set is
+         * filtered out each time.
+         * @param fromRemaining Whether to start from remaining, rather than allowed.
+         * @param type The Type which all {@link Species} returned should have, or null for any type.
+         * @param stage The number of evolution stages before all {@link Species} returned, or ANY_STAGE.
+         * @param banned The set of banned {@link Species}. Can be empty.
+         * @return A {@link SpeciesSet} which may be a reference to remaining, allowed, or a variant of them;
+         * do not modify!
+         */
+        private SpeciesSet getReplacementPool(boolean fromRemaining, Type type, int stage, Set<Species> banned) {
+            SpeciesSet startingPool;
+            if (fromRemaining) {
+                startingPool = (type == null) ? remaining : remainingByType.get(type);
             } else {
-                validSpecies = removeBannedSpecies(remaining, banned);
-                if(validSpecies.isEmpty()) {
-                    validSpecies = removeBannedSpecies(allowed, banned);
-                }
+                startingPool = (type == null) ? allowed : allowedByType.get(type);
+            }
+            if (stage == ANY_STAGE && banned.isEmpty()) {
+                return startingPool;
+            }
+            if (!indexedPools) {
+                return filterByStage(removeBannedSpecies(startingPool, banned), stage);
             }
 
-            return validSpecies;
+            Map<PoolKey, SpeciesSet> pools = fromRemaining ? remainingPools : allowedPools;
+            PoolKey key = new PoolKey(type, stage, banned);
+            SpeciesSet pool = pools.get(key);
+            if (pool == null) {
+                pool = startingPool.filter(key::admits);
+                //the stored key gets its own copy of banned, in case the given set is modified later
+                pools.put(new PoolKey(type, stage, new SpeciesSet(banned)), pool);
+            }
+            return pool;
         }
 
         /**
@@ -677,7 +759,7 @@ public class WildEncounterRandomizer extends Randomizer {
          * @return startingPool if banned had no {@link Species}; a new {@link SpeciesSet} with the banned
          * {@link Species} removed otherwise.
          */
-        private SpeciesSet removeBannedSpecies(SpeciesSet startingPool, SpeciesSet banned) {
+        private SpeciesSet removeBannedSpecies(SpeciesSet startingPool, Set<Species> banned) {
             SpeciesSet output = startingPool;
             if(!banned.isEmpty()) {
                 output = new SpeciesSet(startingPool);
@@ -687,6 +769,14 @@ public class WildEncounterRandomizer extends Randomizer {
             return output;
         }
 
+        /**
+         * Returns the {@link Species} in the given pool with the given evolution stage, or the pool itself
+         * if the stage is ANY_STAGE.
+         */
+        private SpeciesSet filterByStage(SpeciesSet pool, int stage) {
+            return stage == ANY_STAGE ? pool : pool.filter(sp -> sp.getStagesBefore(false) == stage);
+        }
+
         /**
          * Given a {@link Species}, and some related information, finds a set of
          * valid replacements for that {@link Species}.
@@ -732,24 +822,14 @@ public class WildEncounterRandomizer extends Randomizer {
             }
 
             Type typeForReplacement = (theme != null) ? theme : info.getTheme(keepPrimaryType);
-            boolean needsInner = !info.bannedForReplacement.isEmpty() || keepEvolutions || sameEvoStage;
-            //if none of these is true, the only restriction is the type
 
-            SpeciesSet possiblyAllowed;
-            possiblyAllowed = (typeForReplacement == null) ? remaining : remainingByType.get(typeForReplacement);
-            if(needsInner) {
-                possiblyAllowed = setupAllowedForReplacementInner(info, possiblyAllowed);
-            }
+            SpeciesSet possiblyAllowed = setupAllowedForReplacementInner(info, true, typeForReplacement);
             if(!possiblyAllowed.isEmpty()) {
                 return possiblyAllowed;
             }
             //else - it didn't work looking at remaining. Let's try allowed.
 
-            possiblyAllowed = (typeForReplacement == null) ? allowed : allowedByType.get(typeForReplacement);
-            if(needsInner) {
-                possiblyAllowed = setupAllowedForReplacementInner(info, possiblyAllowed);
-            }
-            return possiblyAllowed;
+            return setupAllowedForReplacementInner(info, false, typeForReplacement);
             //If it didn't work for allowed, we have no recourse; let the calling function deal with it.
         }
 
@@ -767,41 +847,25 @@ public class WildEncounterRandomizer extends Randomizer {
         private SpeciesSet setupAllowedForReplacementNoInfoMap(Species current, EncounterArea area, Type theme) {
             Type typeForReplacement = (theme != null) ? theme :
                     (keepPrimaryType ? current.getPrimaryType(true) : null);
+            int stage = sameEvoStage ? current.getStagesBefore(true) : ANY_STAGE;
 
-            SpeciesSet allowedForReplacement = getTypeWithoutBanned(typeForReplacement, area.getBannedSpecies());
-
-            if(sameEvoStage) {
-                int stage = current.getStagesBefore(true);
-                allowedForReplacement = allowedForReplacement.filter(sp ->
-                        sp.getStagesBefore(false) == stage);
-            }
-
-            return allowedForReplacement;
+            return getTypeWithoutBanned(typeForReplacement, stage, area.getBannedSpecies());
         }
 
         /**
-         * Given a {@link SpeciesAreaInformation} and a pool of {@link Species}, narrows the pool down to
-         * {@link Species} valid as determined by the {@link SpeciesAreaInformation}.
-         * Assumes all type restrictions have already been applied.
+         * Given a {@link SpeciesAreaInformation} and a pool of {@link Species} of a given type, narrows the pool
+         * down to {@link Species} valid as determined by the {@link SpeciesAreaInformation}.
          * @param info The restrictions for the current encounter.
-         * @param startingPool The pool to start from.
-         * @return startingPool if no additional restrictions were applied, a new {@link SpeciesSet} with the narrowed
-         * set otherwise.
+         * @param fromRemaining Whether to start from remaining, rather than allowed.
+         * @param type The Type which all {@link Species} returned should have, or null for any type.
+         * @return An existing {@link SpeciesSet} if the family doesn't need to be kept (do not modify!),
+         * a new {@link SpeciesSet} with the narrowed set otherwise.
          */
-        private SpeciesSet setupAllowedForReplacementInner(SpeciesAreaInformation info, SpeciesSet startingPool) {
-            SpeciesSet allowedForReplacement;
-            if(!info.getBannedForReplacement().isEmpty()) {
-                allowedForReplacement = new SpeciesSet(startingPool);
-                allowedForReplacement.removeAll(info.getBannedForReplacement());
-            } else {
-                allowedForReplacement = startingPool;
-            }
-
-            if(sameEvoStage) {
-                int stage = info.species.getStagesBefore(true);
-                allowedForReplacement = allowedForReplacement.filter(sp ->
-                        sp.getStagesBefore(false) == stage);
-            }
+        private SpeciesSet setupAllowedForReplacementInner(SpeciesAreaInformation info, boolean fromRemaining,
+                                                           Type type) {
+            int stage = sameEvoStage ? info.species.getStagesBefore(true) : ANY_STAGE;
+            SpeciesSet allowedForReplacement = getReplacementPool(fromRemaining, type, stage,
+                    info.bannedForReplacement);
 
             if(keepEvolutions) {
                 allowedForReplacement = setupAllowedForFamily(allowedForReplacement, info);
@@ -841,11 +905,17 @@ public class WildEncounterRandomizer extends Randomizer {
          * @param replacement The {@link Species} to remove.
          */
         private void removeFromRemaining(Species replacement) {
-            remaining.remove(replacement);
+            boolean used = remaining.remove(replacement);
             if (needsTypes) {
-                remainingByType.get(replacement.getPrimaryType(false)).remove(replacement);
+                used |= remainingByType.get(replacement.getPrimaryType(false)).remove(replacement);
                 if (replacement.hasSecondaryType(false)) {
-                    remainingByType.get(replacement.getSecondaryType(false)).remove(replacement);
+                    used |= remainingByType.get(replacement.getSecondaryType(false)).remove(replacement);
+                }
+            }
+            if (used && indexedPools) {
+                usedSinceRefill.add(replacement);
+                for (SpeciesSet pool : remainingPools.values()) {
+                    pool.remove(replacement);
                 }
             }
 
@@ -956,7 +1026,7 @@ public class WildEncounterRandomizer extends Randomizer {
                 potentiallyAllowed = potentiallyAllowed.filter(p -> {
                        SpeciesSet sameRelations = p.getRelativesAtPositionSameBranch(relation, false);
                        sameRelations.retainAll(allowed);
-                       sameRelations.removeAll(areaInformationMap.get(relative).getBannedForReplacement());
+                       sameRelations.removeAll(areaInformationMap.get(relative).bannedForReplacement);
                        return !sameRelations.isEmpty();
                 });
             }
@@ -1199,6 +1269,46 @@ public class WildEncounterRandomizer extends Randomizer {
         }
     }
 
+    /**
+     * Identifies a pool of replacement {@link Species}: those of a type (or any type, if null) and evolution stage
+     * (or any stage, if negative), which are not banned.
+     */
+    private static class PoolKey {
+        private final Type type;
+        private final int stage;
+        private final Set<Species> banned;
+
+        PoolKey(Type type, int stage, Set<Species> banned) {
+            this.type = type;
+            this.stage = stage;
+            this.banned = banned;
+        }
+
+        /**
+         * Whether the given {@link Species}, assumed to be of the right type, belongs in the pool.
+         */
+        boolean admits(Species sp) {
+            return !banned.contains(sp) && (stage < 0 || sp.getStagesBefore(false) == stage);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PoolKey)) {
+                return false;
+            }
+            PoolKey other = (PoolKey) o;
+            return type == other.type && stage == other.stage && banned.equals(other.banned);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, stage, banned);
+        }
+    }
+
     /**
      * Prepares the EncounterAreas for randomization by copying them, removing unused areas, and shuffling the order.
      * @param originalAreas The List of EncounterAreas to prepare.
@@ -25,9 +25,15 @@ package com.dabomstew.pkromio;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 import java.util.zip.CRC32;
 
 /**
@@ -37,6 +43,19 @@ public class FileFunctions {
 
     private static final String CONFIG_RESOURCE_PATH = "/com/dabomstew/pkromio/config/";
 
+    private static final Set<File> foldersToDeleteOnExit = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (File folder : foldersToDeleteOnExit) {
+                try {
+                    deleteFolder(folder);
+                } catch (IOException ignored) {
+                }
+            }
+        }));
+    }
+
     public static File fixFilename(File original, String defaultExtension) {
         return fixFilename(original, defaultExtension, new ArrayList<>());
     }
@@ -174,6 +193,30 @@ public class FileFunctions {
         fos.close();
     }
 
+    /**
+     * Deletes the folder, and everything in it, when the JVM exits, unless {@link #deleteFolder(File)} is called
+     * on it before that.<br>
+     * Unlike {@link File#deleteOnExit()}, this does not need every file put in the folder to be registered,
+     * and the registration is dropped when the folder is deleted.
+     */
+    public static void deleteFolderOnExit(File folder) {
+        foldersToDeleteOnExit.add(folder);
+    }
+
+    /**
+     * Deletes the folder and everything in it, if it exists.
+     */
+    public static void deleteFolder(File folder) throws IOException {
+        if (folder.exists()) {
+            try (Stream<Path> walk = Files.walk(folder.toPath())) {
+                for (Path path : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+        foldersToDeleteOnExit.remove(folder);
+    }
+
     public static long getCRC32(byte[] data) {
         CRC32 checksum = new CRC32();
         checksum.update(data);
@@ -32,11 +32,11 @@ import com.dabomstew.pkromio.graphics.palettes.Palette;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.awt.image.DirectColorModel;
 import java.awt.image.IndexColorModel;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.stream.IntStream;
 
 public class GFXFunctions {
@@ -70,25 +70,41 @@ public class GFXFunctions {
 
 		BufferedImage bim = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED,
 				indexColorModelFromPalette(palette, bpp));
+		// TYPE_BYTE_INDEXED always stores one palette index per byte, row by row
+		byte[] pixels = ((DataBufferByte) bim.getRaster().getDataBuffer()).getData();
 
+		int bytesPerTileRow = tileWidth / pixelsPerByte;
 		for (int tile = 0; tile < numTiles; tile++) {
 			int tileX = tile % widthInTiles;
 			int tileY = tile / widthInTiles;
 			for (int yT = 0; yT < tileHeight; yT++) {
-				for (int xT = 0; xT < tileWidth; xT++) {
-					int value = data[tile * bytesPerTile + yT * tileWidth / pixelsPerByte + xT / pixelsPerByte + offset]
-							& 0xFF;
-					if (pixelsPerByte != 1) {
-						value = (value >>> (xT % pixelsPerByte) * bpp) & ((1 << bpp) - 1);
-					}
-					bim.setRGB(tileX * tileWidth + xT, tileY * tileHeight + yT, palette[value]);
-				}
+				decodeTileRow(data, offset + tile * bytesPerTile + yT * bytesPerTileRow, bytesPerTileRow, bpp,
+						pixels, (tileY * tileHeight + yT) * width + tileX * tileWidth);
 			}
 		}
 
 		return bim;
 	}
 
+	/**
+	 * Unpacks one row of a tile into palette indices, the lowest bits of each byte being the leftmost pixel.
+	 */
+	private static void decodeTileRow(byte[] data, int src, int length, int bpp, byte[] pixels, int dst) {
+		if (bpp == 8) {
+			System.arraycopy(data, src, pixels, dst, length);
+			return;
+		}
+		int pixelsPerByte = 8 / bpp;
+		int mask = (1 << bpp) - 1;
+		for (int i = 0; i < length; i++) {
+			int value = data[src + i] & 0xFF;
+			for (int j = 0; j < pixelsPerByte; j++) {
+				pixels[dst++] = (byte) (value & mask);
+				value >>>= bpp;
+			}
+		}
+	}
+
 	/**
 	 * Takes a palette in the form of a {@link Palette} object and returns an
 	 * {@link IndexColorModel}.
@@ -188,24 +204,30 @@ public class GFXFunctions {
 
 		BufferedImage bim = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED,
 				indexColorModelFromPalette(palette, bpp));
+		byte[] pixels = ((DataBufferByte) bim.getRaster().getDataBuffer()).getData();
+
+		// where each pixel of a tile goes, relative to the tile's top-left corner
+		int pixelsPerTile = tileWidth * tileHeight;
+		int[] zOrderOffsets = new int[pixelsPerTile];
+		for (int withinTile = 0; withinTile < pixelsPerTile; withinTile++) {
+			int subX = (withinTile & 0b000001) | (withinTile & 0b000100) >>> 1 | (withinTile & 0b010000) >>> 2;
+			int subY = (withinTile & 0b000010) >>> 1 | (withinTile & 0b001000) >>> 2
+					| (withinTile & 0b100000) >>> 3;
+			zOrderOffsets[withinTile] = subY * width + subX;
+		}
 
+		int mask = (1 << bpp) - 1;
 		for (int tile = 0; tile < numTiles; tile++) {
 			int tileX = tile % widthInTiles;
 			int tileY = tile / widthInTiles;
-			for (int yT = 0; yT < tileHeight; yT++) {
-				for (int xT = 0; xT < tileWidth; xT++) {
-					int value = data[tile * bytesPerTile + yT * tileWidth / pixelsPerByte + xT / pixelsPerByte + offset]
-							& 0xFF;
-					if (pixelsPerByte != 1) {
-						value = (value >>> ((xT + 1) % pixelsPerByte) * bpp) & ((1 << bpp) - 1);
-					}
-
-					int withinTile = yT * tileWidth + xT;
-					int subX = (withinTile & 0b000001) | (withinTile & 0b000100) >>> 1 | (withinTile & 0b010000) >>> 2;
-					int subY = (withinTile & 0b000010) >>> 1 | (withinTile & 0b001000) >>> 2
-							| (withinTile & 0b100000) >>> 3;
-					bim.setRGB(tileX * tileWidth + subX, tileY * tileHeight + subY, palette[value]);
+			int tileStart = tileY * tileHeight * width + tileX * tileWidth;
+			int src = offset + tile * bytesPerTile;
+			for (int withinTile = 0; withinTile < pixelsPerTile; withinTile++) {
+				int value = data[src + withinTile / pixelsPerByte] & 0xFF;
+				if (pixelsPerByte != 1) {
+					value = (value >>> ((withinTile + 1) % pixelsPerByte) * bpp) & mask;
 				}
+				pixels[tileStart + zOrderOffsets[withinTile]] = (byte) value;
 			}
 		}
 
@@ -336,29 +358,34 @@ public class GFXFunctions {
 
 		int width = img.getWidth();
 		int height = img.getHeight();
-		Queue<Integer> visitPixels = new LinkedList<Integer>();
-		boolean[][] queued = new boolean[width][height];
+		// TYPE_INT_ARGB stores one ARGB value per pixel, row by row
+		int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+		// every pixel is queued at most once, so the queue never needs more room than this
+		int[] queue = new int[width * height];
+		boolean[] queued = new boolean[width * height];
+		int queueEnd = 0;
 
 		for (int x = 0; x < width; x++) {
-			queuePixel(x, 0, width, height, visitPixels, queued);
-			queuePixel(x, height - 1, width, height, visitPixels, queued);
+			queueEnd = queuePixel(x, 0, width, height, queue, queueEnd, queued);
+			queueEnd = queuePixel(x, height - 1, width, height, queue, queueEnd, queued);
 		}
 
 		for (int y = 0; y < height; y++) {
-			queuePixel(0, y, width, height, visitPixels, queued);
-			queuePixel(width - 1, y, width, height, visitPixels, queued);
+			queueEnd = queuePixel(0, y, width, height, queue, queueEnd, queued);
+			queueEnd = queuePixel(width - 1, y, width, height, queue, queueEnd, queued);
 		}
 
-		while (!visitPixels.isEmpty()) {
-			int nextPixel = visitPixels.poll();
+		for (int queueStart = 0; queueStart < queueEnd; queueStart++) {
+			int nextPixel = queue[queueStart];
 			int x = nextPixel % width;
 			int y = nextPixel / width;
-			if (img.getRGB(x, y) == transColor) {
-				img.setRGB(x, y, 0);
-				queuePixel(x - 1, y, width, height, visitPixels, queued);
-				queuePixel(x + 1, y, width, height, visitPixels, queued);
-				queuePixel(x, y - 1, width, height, visitPixels, queued);
-				queuePixel(x, y + 1, width, height, visitPixels, queued);
+			if (pixels[nextPixel] == transColor) {
+				pixels[nextPixel] = 0;
+				queueEnd = queuePixel(x - 1, y, width, height, queue, queueEnd, queued);
+				queueEnd = queuePixel(x + 1, y, width, height, queue, queueEnd, queued);
+				queueEnd = queuePixel(x, y - 1, width, height, queue, queueEnd, queued);
+				queueEnd = queuePixel(x, y + 1, width, height, queue, queueEnd, queued);
 			}
 		}
 
@@ -369,14 +396,20 @@ public class GFXFunctions {
 		BufferedImage img = new BufferedImage(bim.getWidth(), bim.getHeight(), BufferedImage.TYPE_INT_ARGB);
 		Graphics2D g = img.createGraphics();
 		g.drawImage(bim, 0, 0, null);
+		g.dispose();
 		return img;
 	}
 
-	private static void queuePixel(int x, int y, int width, int height, Queue<Integer> queue, boolean[][] queued) {
-		if (x >= 0 && x < width && y >= 0 && y < height && !queued[x][y]) {
-			queue.add((y) * width + (x));
-			queued[x][y] = true;
+	/**
+	 * Adds the pixel at (x, y) to the end of the queue, unless it is out of bounds or has been queued before.
+	 * Returns the new end of the queue.
+	 */
+	private static int queuePixel(int x, int y, int width, int height, int[] queue, int queueEnd, boolean[] queued) {
+		if (x >= 0 && x < width && y >= 0 && y < height && !queued[y * width + x]) {
+			queue[queueEnd++] = y * width + x;
+			queued[y * width + x] = true;
 		}
+		return queueEnd;
 	}
 
 	/**
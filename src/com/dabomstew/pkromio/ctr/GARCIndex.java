@@ -0,0 +1,190 @@
+package com.dabomstew.pkromio.ctr;
+
+/*----------------------------------------------------------------------------*/
+/*--  GARCIndex.java - header-only reader for GARC archives                 --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import cuecompressors.BLZCoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A read-only view of a GARC archive, which parses only the GARC/FATO/FATB frames.<br>
+ * Unlike {@link GARCArchive}, which reads and decompresses every member up front, this reads the member
+ * data lazily, one member at a time. Use it when only the member count, or a few members, are needed.
+ */
+public class GARCIndex {
+
+    /**
+     * Where the bytes of the GARC file are read from. Offsets are relative to the start of the GARC file.
+     */
+    public interface Source {
+        byte[] read(int offset, int length) throws IOException;
+    }
+
+    private static final String GARC_MAGIC = "CRAG";
+    private static final String FATO_MAGIC = "OTAF";
+    private static final String FATB_MAGIC = "BTAF";
+    private static final String FIMB_MAGIC = "BMIF";
+    private static final int GARC_HEADER_MIN_SIZE = 0x1C;
+    private static final int DATA_OFFSET_OFFSET = 0x10;
+    private static final int SUBFILE_SLOTS = 32;
+    private static final byte LZ11_MAGIC = 0x11;
+
+    private final Source source;
+    private final int dataOffset;
+    private final int[] vectors;
+    // [file][slot], -1 where the slot is empty
+    private final int[][] starts;
+    private final int[][] lengths;
+
+    public GARCIndex(byte[] data) throws IOException {
+        this((offset, length) -> {
+            if (offset < 0 || length < 0 || offset + length > data.length) {
+                throw new IOException("Read outside of GARC file");
+            }
+            byte[] buf = new byte[length];
+            System.arraycopy(data, offset, buf, 0, length);
+            return buf;
+        });
+    }
+
+    public GARCIndex(Source source) throws IOException {
+        this.source = source;
+
+        byte[] garcHeader = source.read(0, GARC_HEADER_MIN_SIZE);
+        ByteBuffer bbuf = ByteBuffer.wrap(garcHeader).order(ByteOrder.LITTLE_ENDIAN);
+        checkMagic(bbuf, GARC_MAGIC);
+        dataOffset = bbuf.getInt(DATA_OFFSET_OFFSET);
+        if (dataOffset < GARC_HEADER_MIN_SIZE) {
+            throw new IOException("Invalid GARC file");
+        }
+
+        // everything before the data offset is headers, so this is all we need to read
+        bbuf = ByteBuffer.wrap(source.read(0, dataOffset)).order(ByteOrder.LITTLE_ENDIAN);
+        bbuf.position(4);
+        int garcHeaderSize = bbuf.getInt();
+        bbuf.position(garcHeaderSize);
+
+        // FATO
+        int fatoStart = bbuf.position();
+        checkMagic(bbuf, FATO_MAGIC);
+        int fatoHeaderSize = bbuf.getInt();
+        bbuf.position(fatoStart + fatoHeaderSize);
+
+        // FATB
+        checkMagic(bbuf, FATB_MAGIC);
+        bbuf.getInt(); // header size
+        int fileCount = bbuf.getInt();
+        vectors = new int[fileCount];
+        starts = new int[fileCount][];
+        lengths = new int[fileCount][];
+        for (int i = 0; i < fileCount; i++) {
+            int vector = bbuf.getInt();
+            vectors[i] = vector;
+            starts[i] = new int[SUBFILE_SLOTS];
+            lengths[i] = new int[SUBFILE_SLOTS];
+            for (int b = 0; b < SUBFILE_SLOTS; b++) {
+                if (((vector >>> b) & 1) == 0) {
+                    starts[i][b] = -1;
+                    lengths[i][b] = -1;
+                    continue;
+                }
+                starts[i][b] = bbuf.getInt();
+                bbuf.getInt(); // end
+                lengths[i][b] = bbuf.getInt();
+            }
+        }
+
+        // FIMB
+        checkMagic(bbuf, FIMB_MAGIC);
+    }
+
+    private static void checkMagic(ByteBuffer bbuf, String expected) throws IOException {
+        if (bbuf.remaining() < 4) {
+            throw new IOException("Invalid GARC file");
+        }
+        byte[] magicBuf = new byte[4];
+        bbuf.get(magicBuf);
+        if (!new String(magicBuf).equals(expected)) {
+            throw new IOException("Invalid GARC file");
+        }
+    }
+
+    public int getFileCount() {
+        return vectors.length;
+    }
+
+    public boolean hasFile(int index, int subIndex) {
+        return subIndex >= 0 && subIndex < SUBFILE_SLOTS && starts[index][subIndex] != -1;
+    }
+
+    /**
+     * Returns the offset of a member's (possibly compressed) data, relative to the start of the GARC file.
+     */
+    public int getOffset(int index, int subIndex) {
+        checkExists(index, subIndex);
+        return dataOffset + starts[index][subIndex];
+    }
+
+    /**
+     * Returns the length of a member's data, as stored, i.e. before any decompression.
+     */
+    public int getStoredLength(int index, int subIndex) {
+        checkExists(index, subIndex);
+        return lengths[index][subIndex];
+    }
+
+    private void checkExists(int index, int subIndex) {
+        if (!hasFile(index, subIndex)) {
+            throw new IllegalArgumentException("No GARC member " + index + "/" + subIndex);
+        }
+    }
+
+    /**
+     * Reads a single member, decompressing it if needed, the same way as
+     * {@link GARCArchive#GARCArchive(byte[], boolean)} with skipDecompression=false.
+     */
+    public byte[] getFile(int index) throws IOException {
+        return getFile(index, 0, true);
+    }
+
+    public byte[] getFile(int index, int subIndex, boolean decompress) throws IOException {
+        byte[] file = source.read(getOffset(index, subIndex), getStoredLength(index, subIndex));
+        return decompress ? decompress(file, index, subIndex) : file;
+    }
+
+    /**
+     * Decompresses a member read with decompress=false, if it is compressed. Unlike reading members,
+     * this can be done from several threads at once.
+     */
+    public static byte[] decompress(byte[] file, int index, int subIndex) throws IOException {
+        if (file.length > 0 && file[0] == LZ11_MAGIC) {
+            try {
+                return new BLZCoder(null).BLZ_DecodePub(file, "GARC");
+            } catch (Exception e) {
+                throw new IOException("Could not decompress GARC member " + index + "/" + subIndex, e);
+            }
+        }
+        return file;
+    }
+}
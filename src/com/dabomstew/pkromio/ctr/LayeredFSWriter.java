@@ -0,0 +1,205 @@
+package com.dabomstew.pkromio.ctr;
+
+import com.dabomstew.pkromio.exceptions.OperationCancelledException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes a set of files into a LayeredFS directory, making it contain exactly those files.<br>
+ * Files are written concurrently. Files already on disk with the same contents are left untouched, and files
+ * on disk which are not part of the set are deleted, so saving repeatedly into the same directory only writes
+ * what changed since the last save.
+ */
+public class LayeredFSWriter {
+
+    /**
+     * The contents of a file to write. Called concurrently from several threads.
+     */
+    public interface Contents {
+        /**
+         * Returns the contents of the file, or null if it should not be part of the LayeredFS directory after all.
+         */
+        byte[] get() throws IOException;
+    }
+
+    private final Path rootDir;
+    private final Map<String, Contents> files = new LinkedHashMap<>();
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    private int writtenCount;
+    private int unchangedCount;
+    private int deletedCount;
+
+    public LayeredFSWriter(Path rootDir) {
+        this.rootDir = rootDir;
+    }
+
+    /**
+     * Sets the number of threads to write with. Defaults to the number of available processors.
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be positive");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Adds a file to write.
+     * @param path The path of the file relative to the root directory, with "/" as the separator.
+     */
+    public void addFile(String path, Contents contents) {
+        files.put(normalize(path), contents);
+    }
+
+    public void write() throws IOException {
+        writtenCount = 0;
+        unchangedCount = 0;
+        deletedCount = 0;
+        Files.createDirectories(rootDir);
+
+        Set<String> kept = new HashSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount, files.size())));
+        try {
+            Map<String, Future<Boolean>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, Contents> entry : files.entrySet()) {
+                futures.put(entry.getKey(), executor.submit(() -> writeFile(entry.getKey(), entry.getValue())));
+            }
+            for (Map.Entry<String, Future<Boolean>> entry : futures.entrySet()) {
+                Boolean written = getFutureResult(entry.getValue());
+                if (written != null) {
+                    kept.add(entry.getKey());
+                    if (written) {
+                        writtenCount++;
+                    } else {
+                        unchangedCount++;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        deleteStaleFiles(kept);
+    }
+
+    /**
+     * Returns whether the file was written (true), already up to date (false), or not part of the output (null).
+     */
+    private Boolean writeFile(String path, Contents contents) throws IOException {
+        byte[] data = contents.get();
+        if (data == null) {
+            return null;
+        }
+        Path file = resolve(path);
+        if (Files.isRegularFile(file) && Files.size(file) == data.length
+                && Arrays.equals(Files.readAllBytes(file), data)) {
+            return false;
+        }
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+        return true;
+    }
+
+    private void deleteStaleFiles(Set<String> kept) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(rootDir)) {
+            paths = walk.collect(Collectors.toList());
+        }
+        // deepest first, so directories are emptied before they are looked at
+        Collections.reverse(paths);
+        for (Path path : paths) {
+            if (path.equals(rootDir)) {
+                continue;
+            }
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    if (!children.findAny().isPresent()) {
+                        Files.delete(path);
+                    }
+                }
+            } else if (!kept.contains(toRelativeString(path))) {
+                Files.delete(path);
+                deletedCount++;
+            }
+        }
+    }
+
+    private Path resolve(String path) {
+        Path resolved = rootDir;
+        for (String component : path.split("/")) {
+            resolved = resolved.resolve(component);
+        }
+        return resolved;
+    }
+
+    private String toRelativeString(Path path) {
+        StringBuilder sb = new StringBuilder();
+        for (Path component : rootDir.relativize(path)) {
+            if (sb.length() != 0) {
+                sb.append('/');
+            }
+            sb.append(component);
+        }
+        return sb.toString();
+    }
+
+    private static String normalize(String path) {
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return path;
+    }
+
+    private static <T> T getFutureResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationCancelledException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns the number of files written by the last {@link #write()}.
+     */
+    public int getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * Returns the number of files which were already on disk with the right contents, during the last {@link #write()}.
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * Returns the number of stale files deleted by the last {@link #write()}.
+     */
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+}
@@ -24,11 +24,13 @@ package com.dabomstew.pkromio.ctr;
 import com.dabomstew.pkromio.FileFunctions;
 import com.dabomstew.pkromio.RootPath;
 import com.dabomstew.pkromio.exceptions.EncryptedROMException;
+import com.dabomstew.pkromio.exceptions.OperationCancelledException;
 import com.dabomstew.pkromio.exceptions.RomIOException;
 import cuecompressors.BLZCoder;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
@@ -82,17 +84,16 @@ public class NCCH {
             this.version = this.readVersionFromFile();
         }
 
-        // TMP folder?
+        // TMP folder? Each opened ROM gets its own, so the same file can be opened several times at once.
         String rawFilename = new File(filename).getName();
         String dataFolder = "tmp_" + rawFilename.substring(0, rawFilename.lastIndexOf('.'));
         // remove nonsensical chars
         dataFolder = dataFolder.replaceAll("[^A-Za-z0-9_]+", "");
-        File tmpFolder = new File(RootPath.path + dataFolder);
-        tmpFolder.mkdirs();
-        if (tmpFolder.canWrite()) {
+        File tmpFolder = createTmpFolder(dataFolder);
+        if (tmpFolder != null && tmpFolder.canWrite()) {
             writingEnabled = true;
-            this.tmpFolder = RootPath.path + dataFolder + File.separator;
-            tmpFolder.deleteOnExit();
+            this.tmpFolder = tmpFolder.getPath() + File.separator;
+            FileFunctions.deleteFolderOnExit(tmpFolder);
         } else {
             writingEnabled = false;
         }
@@ -114,6 +115,15 @@ public class NCCH {
         }
     }
 
+    private static File createTmpFolder(String prefix) {
+        try {
+            Path root = Files.createDirectories(Paths.get(RootPath.path));
+            return Files.createTempDirectory(root, prefix + "_").toFile();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     public void reopenROM() throws IOException {
         if (!this.romOpen) {
             baseRom = new RandomAccessFile(this.romFilename, "r");
@@ -129,6 +139,15 @@ public class NCCH {
         }
     }
 
+    /**
+     * Deletes the temporary folder, with all files extracted to it. The NCCH can't be used after this.
+     */
+    public void deleteTmpFolder() throws IOException {
+        if (tmpFolder != null) {
+            FileFunctions.deleteFolder(new File(tmpFolder));
+        }
+    }
+
     private void readFileSystem() throws IOException {
         exefsOffset = ncchStartingOffset + FileFunctions.readIntFromFile(baseRom, ncchStartingOffset + 0x1A0) * media_unit_size;
         romfsOffset = ncchStartingOffset + FileFunctions.readIntFromFile(baseRom, ncchStartingOffset + 0x1B0) * media_unit_size;
@@ -469,6 +488,7 @@ public class NCCH {
         int fileDataOffset = FileFunctions.readFullInt(level3HeaderData, 0x24);
         long endOfFileDataOffset = 0;
         for (FileMetadata metadata : fileMetadataList) {
+            OperationCancelledException.throwIfInterrupted();
             System.out.println("NCCH: Writing file " + metadata.file.fullPath + " to romfs");
             // Users have sent us bug reports with really bizarre errors here that seem to indicate
             // broken metadata; do this in a try-catch solely so we can log the metadata if we fail
@@ -509,6 +529,7 @@ public class NCCH {
         MessageDigest digest = MessageDigest.getInstance("SHA-256");
         byte[] dataToHash = new byte[level3HashBlockSize];
         for (long i = 0; i < numberOfLevel3HashBlocks; i++) {
+            OperationCancelledException.throwIfInterrupted();
             fNew.seek(newLevel3Offset + (i * level3HashBlockSize));
             fNew.readFully(dataToHash);
             byte[] hash = digest.digest(dataToHash);
@@ -581,60 +602,30 @@ public class NCCH {
         return fileMetadataTable;
     }
 
+    /**
+     * Saves the changed files as a LayeredFS directory, for use with Luma3DS. Files which were overridden with
+     * their original contents are left out. Saving again into the same directory only rewrites the files
+     * that differ from what is already there, and removes the ones no longer changed, see {@link LayeredFSWriter}.
+     */
     public void saveAsLayeredFS(String outputPath) throws IOException {
-        String layeredFSRootPath = outputPath + File.separator + titleId + File.separator;
-        File layeredFSRootDir = new File(layeredFSRootPath);
-        if (!layeredFSRootDir.exists()) {
-            layeredFSRootDir.mkdirs();
-        } else {
-            purgeDirectory(layeredFSRootDir);
-        }
-        String romfsRootPath = layeredFSRootPath + "romfs" + File.separator;
-        File romfsDir = new File(romfsRootPath);
-        if (!romfsDir.exists()) {
-            romfsDir.mkdirs();
-        }
+        LayeredFSWriter writer = new LayeredFSWriter(Paths.get(outputPath, titleId));
 
         if (codeChanged) {
             byte[] code = getCode();
-            FileOutputStream fos = new FileOutputStream(new File(layeredFSRootPath + "code.bin"));
-            fos.write(code);
-            fos.close();
+            writer.addFile("code.bin", () -> code);
         }
 
-        for (Map.Entry<String, RomfsFile> entry : romfsFiles.entrySet()) {
-            RomfsFile file = entry.getValue();
+        for (RomfsFile file : romfsFiles.values()) {
             if (file.fileChanged) {
-                writeRomfsFileToLayeredFS(file, romfsRootPath);
+                // changed files have all been extracted, so reading them back doesn't touch the shared baseRom
+                writer.addFile("romfs/" + file.fullPath, () -> {
+                    byte[] contents = file.getOverrideContents();
+                    return FileFunctions.getCRC32(contents) == file.originalCRC ? null : contents;
+                });
             }
         }
-    }
 
-    private void purgeDirectory(File directory) {
-        for (File file : directory.listFiles()) {
-            if (file.isDirectory()) {
-                purgeDirectory(file);
-            }
-            file.delete();
-        }
-    }
-
-    private void writeRomfsFileToLayeredFS(RomfsFile file, String layeredFSRootPath) throws IOException {
-        String[] romfsPathComponents = file.fullPath.split("/");
-        StringBuffer buffer = new StringBuffer(layeredFSRootPath);
-        for (int i = 0; i < romfsPathComponents.length - 1; i++) {
-            buffer.append(romfsPathComponents[i]);
-            buffer.append(File.separator);
-            File currentDir = new File(buffer.toString());
-            if (!currentDir.exists()) {
-                currentDir.mkdirs();
-            }
-        }
-        buffer.append(romfsPathComponents[romfsPathComponents.length - 1]);
-        String romfsFilePath = buffer.toString();
-        FileOutputStream fos = new FileOutputStream(new File(romfsFilePath));
-        fos.write(file.getOverrideContents());
-        fos.close();
+        writer.write();
     }
 
     public boolean isDecrypted() throws IOException {
@@ -681,7 +672,6 @@ public class NCCH {
                 FileOutputStream fos = new FileOutputStream(arm9file);
                 fos.write(code);
                 fos.close();
-                arm9file.deleteOnExit();
                 this.codeRamstored = null;
                 return code;
             } else {
@@ -740,6 +730,15 @@ public class NCCH {
         }
     }
 
+    // returns null if file doesn't exist
+    public byte[] getFile(String filename, int start, int length) throws IOException {
+        if (romfsFiles.containsKey(filename)) {
+            return romfsFiles.get(filename).getContents(start, length);
+        } else {
+            return null;
+        }
+    }
+
     public void writeFile(String filename, byte[] data) throws IOException {
         if (romfsFiles.containsKey(filename)) {
             romfsFiles.get(filename).writeOverride(data);
@@ -61,7 +61,6 @@ public class RomfsFile {
                 FileOutputStream fos = new FileOutputStream(tmpFile);
                 fos.write(buf);
                 fos.close();
-                tmpFile.deleteOnExit();
                 this.status = Extracted.TO_FILE;
                 this.data = null;
                 return buf;
@@ -82,6 +81,36 @@ public class RomfsFile {
         }
     }
 
+    /**
+     * Reads part of the file's contents. Unlike {@link #getContents()}, this does not extract the whole file
+     * if it hasn't been extracted yet.
+     */
+    public byte[] getContents(int start, int length) throws IOException {
+        if (start < 0 || length < 0 || (long) start + length > getCurrentSize()) {
+            throw new IOException("Read outside of " + fullPath);
+        }
+        byte[] buf = new byte[length];
+        if (this.status == Extracted.NOT) {
+            parent.reopenROM();
+            RandomAccessFile rom = parent.getBaseRom();
+            rom.seek(this.offset + start);
+            rom.readFully(buf);
+        } else if (this.status == Extracted.TO_RAM) {
+            System.arraycopy(this.data, start, buf, 0, length);
+        } else {
+            String tmpDir = parent.getTmpFolder();
+            try (RandomAccessFile tmpFile = new RandomAccessFile(tmpDir + this.extFilename, "r")) {
+                tmpFile.seek(start);
+                tmpFile.readFully(buf);
+            }
+        }
+        return buf;
+    }
+
+    private long getCurrentSize() {
+        return this.status == Extracted.TO_RAM ? this.data.length : this.size;
+    }
+
     public void writeOverride(byte[] data) throws IOException {
         if (status == Extracted.NOT) {
             // temp extract
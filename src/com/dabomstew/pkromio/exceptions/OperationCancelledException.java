@@ -0,0 +1,23 @@
+package com.dabomstew.pkromio.exceptions;
+
+/**
+ * Thrown when a long-running operation notices it has been cancelled, by the thread running it
+ * being interrupted. Long loops call {@link #throwIfInterrupted()} to check for this cooperatively.
+ */
+public class OperationCancelledException extends RuntimeException {
+    public OperationCancelledException() {
+        super("Operation cancelled");
+    }
+
+    /**
+     * Throws an OperationCancelledException if the current thread has been interrupted.
+     * The interrupt status is left set, so callers further up can also see it.
+     */
+    public static void throwIfInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new OperationCancelledException();
+        }
+    }
+
+    private static final long serialVersionUID = 4719207473196218354L;
+}
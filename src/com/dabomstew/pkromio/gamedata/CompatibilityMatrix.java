@@ -0,0 +1,231 @@
+package com.dabomstew.pkromio.gamedata;
+
+import java.util.*;
+
+/**
+ * A dense bit matrix of TM/HM or Move Tutor compatibility, with one row per {@link Species} and one column per
+ * TM/HM/Tutor move.<br>
+ * Rows are stored as runs of longs in a single array, indexed by species number. Columns are numbered from 1,
+ * the same way as the boolean arrays of {@link com.dabomstew.pkromio.romhandlers.RomHandler#getTMHMCompatibility()},
+ * and column c is stored in bit c-1 of its row. This happens to be the bit order all games use for their
+ * compatibility bitfields, so a row can be read from or written to ROM data with
+ * {@link #readRowFromBitfield(Species, byte[], int, int)} and {@link #writeRowToBitfield(Species, byte[], int, int)}
+ * without going through the individual flags.
+ */
+public class CompatibilityMatrix {
+
+    private final int columnCount;
+    private final int wordsPerRow;
+    private final Species[] species;
+    private final long[] bits;
+
+    /**
+     * Creates a new, all-false matrix with a row for each of the given {@link Species}.
+     * @param species The {@link Species} to have rows for. Their numbers decide the row indices.
+     * @param columnCount The number of columns, i.e. the number of TM/HM/Tutor moves.
+     */
+    public CompatibilityMatrix(Collection<Species> species, int columnCount) {
+        int maxNumber = 0;
+        for (Species sp : species) {
+            maxNumber = Math.max(maxNumber, sp.getNumber());
+        }
+        this.columnCount = columnCount;
+        this.wordsPerRow = Math.max(1, (columnCount + 63) >>> 6);
+        this.species = new Species[maxNumber + 1];
+        for (Species sp : species) {
+            this.species[sp.getNumber()] = sp;
+        }
+        this.bits = new long[(maxNumber + 1) * wordsPerRow];
+    }
+
+    /**
+     * Creates a new matrix from compatibility data in the form used by
+     * {@link com.dabomstew.pkromio.romhandlers.RomHandler#getTMHMCompatibility()}.
+     */
+    public static CompatibilityMatrix fromMap(Map<Species, boolean[]> compat) {
+        int columnCount = 0;
+        for (boolean[] flags : compat.values()) {
+            columnCount = Math.max(columnCount, flags.length - 1);
+        }
+        CompatibilityMatrix matrix = new CompatibilityMatrix(compat.keySet(), columnCount);
+        for (Map.Entry<Species, boolean[]> entry : compat.entrySet()) {
+            boolean[] flags = entry.getValue();
+            for (int i = 1; i < flags.length; i++) {
+                if (flags[i]) {
+                    matrix.set(entry.getKey(), i, true);
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the compatibility data in the form used by
+     * {@link com.dabomstew.pkromio.romhandlers.RomHandler#setTMHMCompatibility(Map)}.
+     */
+    public Map<Species, boolean[]> toMap() {
+        Map<Species, boolean[]> compat = new TreeMap<>();
+        for (Species sp : getSpecies()) {
+            boolean[] flags = new boolean[columnCount + 1];
+            for (int i = 1; i <= columnCount; i++) {
+                flags[i] = get(sp, i);
+            }
+            compat.put(sp, flags);
+        }
+        return compat;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Returns all {@link Species} with rows in this matrix, ordered by number.
+     */
+    public List<Species> getSpecies() {
+        List<Species> all = new ArrayList<>();
+        for (Species sp : species) {
+            if (sp != null) {
+                all.add(sp);
+            }
+        }
+        return all;
+    }
+
+    public boolean hasRow(Species sp) {
+        return sp != null && sp.getNumber() < species.length && species[sp.getNumber()] != null;
+    }
+
+    public boolean get(Species sp, int column) {
+        checkColumn(column);
+        int bit = column - 1;
+        return (bits[rowStart(sp) + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    public void set(Species sp, int column, boolean value) {
+        checkColumn(column);
+        int bit = column - 1;
+        int word = rowStart(sp) + (bit >>> 6);
+        if (value) {
+            bits[word] |= 1L << bit;
+        } else {
+            bits[word] &= ~(1L << bit);
+        }
+    }
+
+    /**
+     * Sets all columns from fromColumn to toColumn (both inclusive) of a row to the given value.
+     */
+    public void fill(Species sp, int fromColumn, int toColumn, boolean value) {
+        int start = rowStart(sp);
+        for (int bit = fromColumn - 1; bit < toColumn; bit++) {
+            checkColumn(bit + 1);
+            if (value) {
+                bits[start + (bit >>> 6)] |= 1L << bit;
+            } else {
+                bits[start + (bit >>> 6)] &= ~(1L << bit);
+            }
+        }
+    }
+
+    /**
+     * Sets all columns of a row to the given value.
+     */
+    public void fill(Species sp, boolean value) {
+        int start = rowStart(sp);
+        for (int i = 0; i < wordsPerRow; i++) {
+            bits[start + i] = value ? -1L : 0;
+        }
+        clearUnusedBits(start);
+    }
+
+    /**
+     * Makes the "to" row compatible with everything the "from" row is compatible with, on top of what it
+     * was compatible with already.
+     */
+    public void orRow(Species to, Species from) {
+        int toStart = rowStart(to);
+        int fromStart = rowStart(from);
+        for (int i = 0; i < wordsPerRow; i++) {
+            bits[toStart + i] |= bits[fromStart + i];
+        }
+    }
+
+    /**
+     * Makes the "to" row compatible only with what both it and the "from" row are compatible with.
+     */
+    public void andRow(Species to, Species from) {
+        int toStart = rowStart(to);
+        int fromStart = rowStart(from);
+        for (int i = 0; i < wordsPerRow; i++) {
+            bits[toStart + i] &= bits[fromStart + i];
+        }
+    }
+
+    /**
+     * Makes the "to" row an exact copy of the "from" row.
+     */
+    public void copyRow(Species to, Species from) {
+        System.arraycopy(bits, rowStart(from), bits, rowStart(to), wordsPerRow);
+    }
+
+    /**
+     * Returns how many columns of a row are true.
+     */
+    public int countRow(Species sp) {
+        int start = rowStart(sp);
+        int count = 0;
+        for (int i = 0; i < wordsPerRow; i++) {
+            count += Long.bitCount(bits[start + i]);
+        }
+        return count;
+    }
+
+    /**
+     * Reads a row from a compatibility bitfield, where bit i of byte j is column j*8+i+1.
+     * Bits past the last column are ignored.
+     */
+    public void readRowFromBitfield(Species sp, byte[] data, int offset, int byteCount) {
+        int start = rowStart(sp);
+        for (int i = 0; i < wordsPerRow; i++) {
+            bits[start + i] = 0;
+        }
+        for (int j = 0; j < byteCount && j < wordsPerRow * 8; j++) {
+            bits[start + (j >>> 3)] |= (data[offset + j] & 0xFFL) << ((j & 7) * 8);
+        }
+        clearUnusedBits(start);
+    }
+
+    /**
+     * Writes a row to a compatibility bitfield, where bit i of byte j is column j*8+i+1.
+     * Bits past the last column are written as 0.
+     */
+    public void writeRowToBitfield(Species sp, byte[] data, int offset, int byteCount) {
+        int start = rowStart(sp);
+        for (int j = 0; j < byteCount; j++) {
+            data[offset + j] = j < wordsPerRow * 8 ? (byte) (bits[start + (j >>> 3)] >>> ((j & 7) * 8)) : 0;
+        }
+    }
+
+    private void clearUnusedBits(int start) {
+        int usedInLast = columnCount & 63;
+        if (usedInLast != 0) {
+            bits[start + wordsPerRow - 1] &= (1L << usedInLast) - 1;
+        } else if (columnCount == 0) {
+            bits[start] = 0;
+        }
+    }
+
+    private int rowStart(Species sp) {
+        if (!hasRow(sp)) {
+            throw new IllegalArgumentException("No compatibility row for " + sp);
+        }
+        return sp.getNumber() * wordsPerRow;
+    }
+
+    private void checkColumn(int column) {
+        if (column < 1 || column > columnCount) {
+            throw new IndexOutOfBoundsException("Column " + column + " out of range 1-" + columnCount);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.dabomstew.pkromio.gamedata;
+
+import java.util.*;
+
+/**
+ * An immutable index of {@link Move} pools, partitioned by {@link Type}, {@link MoveCategory} and whether the
+ * moves are "good damaging" or not. Built once per randomization pass, it lets the moveset randomizers ask
+ * "is there an unused move in this pool?" and pick an unused move from it, without filtering lists or
+ * retrying picks that land on already learnt moves.<br>
+ * Pools may contain the same {@link Move} several times, in which case it is proportionally more likely to be
+ * picked. This mirrors how the type-balanced move lists are built.<br>
+ * The per-species state lives in a {@link Picker}, which excludes moves as they are learnt.
+ */
+public class MovePoolIndex {
+
+    private static final MoveCategory[] CATEGORIES = {null, MoveCategory.PHYSICAL, MoveCategory.SPECIAL};
+
+    /**
+     * A single pool of the index. Only obtainable through {@link MovePoolIndex#getPool(Type, boolean, MoveCategory)}.
+     */
+    public static final class Pool {
+        private final int id;
+        // move numbers sorted in ascending order, duplicates adjacent
+        private final int[] entries;
+
+        private Pool(int id, int[] entries) {
+            this.id = id;
+            this.entries = entries;
+        }
+
+        public int size() {
+            return entries.length;
+        }
+
+        public boolean isEmpty() {
+            return entries.length == 0;
+        }
+
+        /**
+         * Returns the index of the first entry equal to moveNumber, or where it would be inserted.
+         */
+        private int firstIndexOf(int moveNumber) {
+            int lo = 0;
+            int hi = entries.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (entries[mid] < moveNumber) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private final Move[] movesByNumber;
+    private final Pool[] pools;
+    // for each move number, the ids of the pools it is in, and how many times it is in each
+    private final int[][] memberPools;
+    private final int[][] memberCounts;
+
+    /**
+     * Creates a new index from the given move lists. The lists are copied, so later changes to them are not
+     * reflected in the index.
+     * @param validMoves All moves which may be picked.
+     * @param validTypeMoves All moves which may be picked, by type. May contain duplicates.
+     * @param validDamagingMoves All good damaging moves which may be picked.
+     * @param validTypeDamagingMoves All good damaging moves which may be picked, by type. May contain duplicates.
+     */
+    public MovePoolIndex(List<Move> validMoves, Map<Type, List<Move>> validTypeMoves,
+                         List<Move> validDamagingMoves, Map<Type, List<Move>> validTypeDamagingMoves) {
+        int maxNumber = 0;
+        for (Move mv : validMoves) {
+            maxNumber = Math.max(maxNumber, mv.number);
+        }
+        for (List<Move> typeMoves : validTypeMoves.values()) {
+            for (Move mv : typeMoves) {
+                maxNumber = Math.max(maxNumber, mv.number);
+            }
+        }
+        movesByNumber = new Move[maxNumber + 1];
+
+        pools = new Pool[poolCount()];
+        for (Type type : typeKeys()) {
+            List<Move> all = type == null ? validMoves : validTypeMoves.getOrDefault(type, Collections.emptyList());
+            List<Move> damaging = type == null ? validDamagingMoves :
+                    validTypeDamagingMoves.getOrDefault(type, Collections.emptyList());
+            for (MoveCategory category : CATEGORIES) {
+                addPool(type, false, category, all);
+                addPool(type, true, category, damaging);
+            }
+        }
+
+        int[][] pools = new int[maxNumber + 1][];
+        int[][] counts = new int[maxNumber + 1][];
+        for (int number = 0; number <= maxNumber; number++) {
+            pools[number] = new int[0];
+            counts[number] = new int[0];
+        }
+        for (Pool pool : this.pools) {
+            int i = 0;
+            while (i < pool.entries.length) {
+                int number = pool.entries[i];
+                int j = i;
+                while (j < pool.entries.length && pool.entries[j] == number) {
+                    j++;
+                }
+                int n = pools[number].length;
+                pools[number] = Arrays.copyOf(pools[number], n + 1);
+                counts[number] = Arrays.copyOf(counts[number], n + 1);
+                pools[number][n] = pool.id;
+                counts[number][n] = j - i;
+                i = j;
+            }
+        }
+        memberPools = pools;
+        memberCounts = counts;
+    }
+
+    private void addPool(Type type, boolean damaging, MoveCategory category, List<Move> moves) {
+        int id = poolId(type, damaging, category);
+        int[] entries = moves.stream()
+                .filter(mv -> category == null || mv.category == category)
+                .mapToInt(mv -> mv.number)
+                .sorted()
+                .toArray();
+        for (Move mv : moves) {
+            movesByNumber[mv.number] = mv;
+        }
+        pools[id] = new Pool(id, entries);
+    }
+
+    private static List<Type> typeKeys() {
+        List<Type> keys = new ArrayList<>();
+        keys.add(null);
+        keys.addAll(Arrays.asList(Type.values()));
+        return keys;
+    }
+
+    private static int poolCount() {
+        return (Type.values().length + 1) * 2 * CATEGORIES.length;
+    }
+
+    private static int poolId(Type type, boolean damaging, MoveCategory category) {
+        int typeIndex = type == null ? 0 : type.ordinal() + 1;
+        return (typeIndex * 2 + (damaging ? 1 : 0)) * CATEGORIES.length + categoryIndex(category);
+    }
+
+    private static int categoryIndex(MoveCategory category) {
+        return category == null ? 0 : (category == MoveCategory.PHYSICAL ? 1 : 2);
+    }
+
+    /**
+     * Gets a pool of the index.
+     * @param type The {@link Type} of the moves in the pool, or null for moves of all types.
+     * @param damaging Whether the pool should only contain good damaging moves.
+     * @param category The {@link MoveCategory} of the moves in the pool, or null for all categories.
+     *                 {@link MoveCategory#STATUS} is not indexed.
+     */
+    public Pool getPool(Type type, boolean damaging, MoveCategory category) {
+        if (category == MoveCategory.STATUS) {
+            throw new IllegalArgumentException("Status move pools are not indexed.");
+        }
+        return pools[poolId(type, damaging, category)];
+    }
+
+    /**
+     * Gets the pool containing the same moves as the given one, but only those of the given {@link MoveCategory}.
+     */
+    public Pool withCategory(Pool pool, MoveCategory category) {
+        if (category == MoveCategory.STATUS) {
+            throw new IllegalArgumentException("Status move pools are not indexed.");
+        }
+        int base = pool.id - pool.id % CATEGORIES.length;
+        return pools[base + categoryIndex(category)];
+    }
+
+    /**
+     * Creates a new {@link Picker}, with no moves excluded.
+     */
+    public Picker newPicker() {
+        return new Picker();
+    }
+
+    /**
+     * Picks moves from the pools of a {@link MovePoolIndex}, never picking the same move twice.
+     * Meant to be used for one moveset at a time.
+     */
+    public class Picker {
+
+        private final BitSet excluded = new BitSet(movesByNumber.length);
+        private final int[] excludedWeight = new int[pools.length];
+
+        private Picker() {
+        }
+
+        /**
+         * Excludes a move from being picked by this Picker.
+         */
+        public void exclude(int moveNumber) {
+            if (moveNumber < 0 || excluded.get(moveNumber)) {
+                return;
+            }
+            excluded.set(moveNumber);
+            if (moveNumber >= memberPools.length) {
+                return;
+            }
+            int[] poolIds = memberPools[moveNumber];
+            int[] counts = memberCounts[moveNumber];
+            for (int i = 0; i < poolIds.length; i++) {
+                excludedWeight[poolIds[i]] += counts[i];
+            }
+        }
+
+        public boolean isExcluded(int moveNumber) {
+            return excluded.get(moveNumber);
+        }
+
+        /**
+         * Returns whether the given pool contains any move not yet excluded.
+         */
+        public boolean hasUnused(Pool pool) {
+            return pool.entries.length - excludedWeight[pool.id] > 0;
+        }
+
+        /**
+         * Picks a random non-excluded {@link Move} from the given pool, and excludes it. Each pick uses
+         * exactly one call to random.
+         * @throws NoSuchElementException if there are no non-excluded moves in the pool.
+         */
+        public Move pick(Pool pool, Random random) {
+            int live = pool.entries.length - excludedWeight[pool.id];
+            if (live <= 0) {
+                throw new NoSuchElementException("No unused moves left in pool.");
+            }
+            int index = random.nextInt(live);
+            // Skip over the blocks of excluded moves; since both the pool and the excluded set are
+            // ordered by move number, these blocks come in ascending order.
+            for (int number = excluded.nextSetBit(0); number >= 0; number = excluded.nextSetBit(number + 1)) {
+                int first = pool.firstIndexOf(number);
+                if (first > index) {
+                    break;
+                }
+                int last = first;
+                while (last < pool.entries.length && pool.entries[last] == number) {
+                    last++;
+                }
+                index += last - first;
+            }
+            Move picked = movesByNumber[pool.entries[index]];
+            exclude(picked.number);
+            return picked;
+        }
+    }
+}
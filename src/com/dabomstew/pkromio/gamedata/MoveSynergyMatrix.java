@@ -0,0 +1,170 @@
+package com.dabomstew.pkromio.gamedata;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A compiled form of the relations in {@link MoveSynergy}, for one game.<br>
+ * All {@link MoveSynergy} relations are decided move by move; whether a move is in the result only depends on
+ * that move and the key (another move, an ability and types, or a {@link Species}' stats), never on the rest of
+ * the move list. So each key can be evaluated once against all moves of the game, and stored as a row of
+ * bits indexed by move number. After that, getting e.g. the moves in a list with synergy with a given move is
+ * a matter of bit lookups.<br>
+ * Rows are compiled the first time their key is asked for, and kept for the lifetime of the matrix. Since
+ * the rows depend on move data, abilities, species stats and the {@link TypeTable}, a matrix should not be
+ * kept around once any of those might change.<br>
+ * All methods return the same lists as their {@link MoveSynergy} counterparts, in the same order.
+ */
+public class MoveSynergyMatrix {
+
+    private final List<Move> allMoves;
+    private final int generation;
+    private final int perfectAccuracy;
+    private final TypeTable typeTable;
+
+    // move x move
+    private final BitSet[] moveSynergy;
+    private final BitSet[] softMoveSynergy;
+    private final BitSet[] hardMoveAntiSynergy;
+    private final BitSet[] softMoveAntiSynergy;
+    private final BitSet[] requiresOtherMove;
+
+    // ability (x types) x move
+    private final Map<Integer, BitSet> hardAbilityMoveSynergy = new HashMap<>();
+    private final Map<Integer, BitSet> softAbilityMoveSynergy = new HashMap<>();
+    private final Map<Integer, BitSet> hardAbilityMoveAntiSynergy = new HashMap<>();
+    private final Map<Integer, BitSet> softAbilityMoveAntiSynergy = new HashMap<>();
+
+    // stat profile x move
+    private final Map<Species, BitSet> statMoveSynergy = new IdentityHashMap<>();
+    private final Map<Species, BitSet> statMoveAntiSynergy = new IdentityHashMap<>();
+
+    /**
+     * @param allMoves All moves of the game, as given by RomHandler.getMoves(). May contain null.
+     * @param generation The generation of the game.
+     * @param perfectAccuracy The accuracy value used by the game for moves that never miss.
+     * @param typeTable The {@link TypeTable} of the game.
+     */
+    public MoveSynergyMatrix(List<Move> allMoves, int generation, int perfectAccuracy, TypeTable typeTable) {
+        this.allMoves = new ArrayList<>();
+        int maxNumber = 0;
+        for (Move mv : allMoves) {
+            if (mv != null) {
+                this.allMoves.add(mv);
+                maxNumber = Math.max(maxNumber, mv.number);
+            }
+        }
+        this.generation = generation;
+        this.perfectAccuracy = perfectAccuracy;
+        this.typeTable = typeTable;
+
+        moveSynergy = new BitSet[maxNumber + 1];
+        softMoveSynergy = new BitSet[maxNumber + 1];
+        hardMoveAntiSynergy = new BitSet[maxNumber + 1];
+        softMoveAntiSynergy = new BitSet[maxNumber + 1];
+        requiresOtherMove = new BitSet[maxNumber + 1];
+    }
+
+    public List<Move> getSoftAbilityMoveSynergy(int ability, List<Move> moveList, Type pkType1, Type pkType2) {
+        BitSet row = softAbilityMoveSynergy.computeIfAbsent(abilityTypesKey(ability, pkType1, pkType2),
+                k -> compile(MoveSynergy.getSoftAbilityMoveSynergy(ability, allMoves, pkType1, pkType2)));
+        return filter(row, moveList);
+    }
+
+    public List<Move> getSoftAbilityMoveAntiSynergy(int ability, List<Move> moveList) {
+        BitSet row = softAbilityMoveAntiSynergy.computeIfAbsent(ability,
+                k -> compile(MoveSynergy.getSoftAbilityMoveAntiSynergy(ability, allMoves)));
+        return filter(row, moveList);
+    }
+
+    public List<Move> getHardAbilityMoveSynergy(int ability, Type pkType1, Type pkType2, List<Move> moveList) {
+        BitSet row = hardAbilityMoveSynergy.computeIfAbsent(abilityTypesKey(ability, pkType1, pkType2),
+                k -> compile(MoveSynergy.getHardAbilityMoveSynergy(ability, pkType1, pkType2, allMoves,
+                        generation, perfectAccuracy)));
+        return filter(row, moveList);
+    }
+
+    public List<Move> getHardAbilityMoveAntiSynergy(int ability, List<Move> moveList) {
+        BitSet row = hardAbilityMoveAntiSynergy.computeIfAbsent(ability,
+                k -> compile(MoveSynergy.getHardAbilityMoveAntiSynergy(ability, allMoves)));
+        return filter(row, moveList);
+    }
+
+    public List<Move> getStatMoveSynergy(Species sp, List<Move> moveList) {
+        BitSet row = statMoveSynergy.computeIfAbsent(sp,
+                k -> compile(MoveSynergy.getStatMoveSynergy(sp, allMoves)));
+        return filter(row, moveList);
+    }
+
+    public List<Move> getStatMoveAntiSynergy(Species sp, List<Move> moveList) {
+        BitSet row = statMoveAntiSynergy.computeIfAbsent(sp,
+                k -> compile(MoveSynergy.getStatMoveAntiSynergy(sp, allMoves)));
+        return filter(row, moveList);
+    }
+
+    public List<Move> getMoveSynergy(Move mv1, List<Move> moveList) {
+        return filter(moveRow(moveSynergy, mv1, mv -> MoveSynergy.getMoveSynergy(mv, allMoves, generation)),
+                moveList);
+    }
+
+    public List<Move> getSoftMoveSynergy(Move mv1, List<Move> moveList) {
+        return filter(moveRow(softMoveSynergy, mv1, mv -> MoveSynergy.getSoftMoveSynergy(mv, allMoves, typeTable)),
+                moveList);
+    }
+
+    public List<Move> getHardMoveAntiSynergy(Move mv1, List<Move> moveList) {
+        return filter(moveRow(hardMoveAntiSynergy, mv1, mv -> MoveSynergy.getHardMoveAntiSynergy(mv, allMoves)),
+                moveList);
+    }
+
+    public List<Move> getSoftMoveAntiSynergy(Move mv1, List<Move> moveList) {
+        return filter(moveRow(softMoveAntiSynergy, mv1, mv -> MoveSynergy.getSoftMoveAntiSynergy(mv, allMoves)),
+                moveList);
+    }
+
+    public List<Move> requiresOtherMove(Move mv1, List<Move> moveList) {
+        return filter(moveRow(requiresOtherMove, mv1, mv -> MoveSynergy.requiresOtherMove(mv, allMoves)),
+                moveList);
+    }
+
+    private BitSet moveRow(BitSet[] rows, Move mv1, Function<Move, List<Move>> relation) {
+        if (mv1.number < 0 || mv1.number >= rows.length) {
+            // not a move of this game; don't cache it
+            return compile(relation.apply(mv1));
+        }
+        if (rows[mv1.number] == null) {
+            rows[mv1.number] = compile(relation.apply(mv1));
+        }
+        return rows[mv1.number];
+    }
+
+    private static int abilityTypesKey(int ability, Type pkType1, Type pkType2) {
+        int typeCount = Type.values().length + 1;
+        int type1 = pkType1 == null ? 0 : pkType1.ordinal() + 1;
+        int type2 = pkType2 == null ? 0 : pkType2.ordinal() + 1;
+        return (ability * typeCount + type1) * typeCount + type2;
+    }
+
+    private static BitSet compile(List<Move> related) {
+        BitSet row = new BitSet();
+        for (Move mv : related) {
+            row.set(mv.number);
+        }
+        return row;
+    }
+
+    private static List<Move> filter(BitSet row, List<Move> moveList) {
+        List<Move> filtered = new ArrayList<>();
+        if (row.isEmpty()) {
+            return filtered;
+        }
+        BitSet seen = new BitSet();
+        for (Move mv : moveList) {
+            if (row.get(mv.number) && !seen.get(mv.number)) {
+                seen.set(mv.number);
+                filtered.add(mv);
+            }
+        }
+        return filtered;
+    }
+}
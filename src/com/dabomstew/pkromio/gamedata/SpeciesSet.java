@@ -42,8 +42,8 @@ public class SpeciesSet extends HashSet<Species> {
     private static final double CACHE_RESET_FACTOR = 0.5;
     //Similar Strength will keep expanding until it reaches the smaller of
     //MINIMUM_POOL or total_pool / MINIMUM_POOL_FACTOR
-    final int SS_MINIMUM_POOL = 5;
-    final int SS_MINIMUM_POOL_FACTOR = 4;
+    public static final int SS_MINIMUM_POOL = 5;
+    public static final int SS_MINIMUM_POOL_FACTOR = 4;
 
     //How much of the cache must consist of removed Species before resetting
 
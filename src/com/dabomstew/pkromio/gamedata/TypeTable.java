@@ -19,6 +19,10 @@ public class TypeTable {
     private final List<Type> types;
     private final Effectiveness[][] effectivenesses;
     private final Map<Type, Integer> typeIndexMap;
+    // How often each Effectiveness occurs in each row/column, indexed by [type index][Effectiveness ordinal].
+    // Kept up to date by setEffectiveness(), so counting doesn't require scanning the table.
+    private final int[][] attackingCounts;
+    private final int[][] defendingCounts;
 
     /**
      * Creates a new TypeTable.
@@ -37,14 +41,24 @@ public class TypeTable {
         for (Effectiveness[] row : effectivenesses) {
             Arrays.fill(row, NEUTRAL);
         }
+        this.attackingCounts = new int[types.size()][Effectiveness.values().length];
+        this.defendingCounts = new int[types.size()][Effectiveness.values().length];
+        for (int i = 0; i < types.size(); i++) {
+            attackingCounts[i][NEUTRAL.ordinal()] = types.size();
+            defendingCounts[i][NEUTRAL.ordinal()] = types.size();
+        }
     }
 
     public TypeTable(TypeTable original) {
         this.types = new ArrayList<>(original.types);
-        this.typeIndexMap = new HashMap<>(original.typeIndexMap);
+        this.typeIndexMap = new EnumMap<>(original.typeIndexMap);
         this.effectivenesses = new Effectiveness[types.size()][types.size()];
-        for (int row = 0; row < types.size(); row++) {
-            effectivenesses[row] = Arrays.copyOf(original.effectivenesses[row], types.size());
+        this.attackingCounts = new int[types.size()][];
+        this.defendingCounts = new int[types.size()][];
+        for (int i = 0; i < types.size(); i++) {
+            effectivenesses[i] = Arrays.copyOf(original.effectivenesses[i], types.size());
+            attackingCounts[i] = original.attackingCounts[i].clone();
+            defendingCounts[i] = original.defendingCounts[i].clone();
         }
     }
 
@@ -107,7 +121,14 @@ public class TypeTable {
         validTypeCheck(attacker);
         validTypeCheck(defender);
         validEffectivenessCheck(effectiveness);
-        effectivenesses[typeIndexMap.get(attacker)][typeIndexMap.get(defender)] = effectiveness;
+        int attIndex = typeIndexMap.get(attacker);
+        int defIndex = typeIndexMap.get(defender);
+        Effectiveness old = effectivenesses[attIndex][defIndex];
+        attackingCounts[attIndex][old.ordinal()]--;
+        defendingCounts[defIndex][old.ordinal()]--;
+        effectivenesses[attIndex][defIndex] = effectiveness;
+        attackingCounts[attIndex][effectiveness.ordinal()]++;
+        defendingCounts[defIndex][effectiveness.ordinal()]++;
     }
 
     public Effectiveness getEffectiveness(Type attacker, Type defender) {
@@ -168,6 +189,26 @@ public class TypeTable {
         return results;
     }
 
+    /**
+     * Returns the number of {@link Type}s where the effectiveness lines up for the attacker. Equivalent to
+     * {@code whenAttacking(attacker, effectiveness).size()}, but doesn't need to go through the table.
+     */
+    public int countWhenAttacking(Type attacker, Effectiveness effectiveness) {
+        validTypeCheck(attacker);
+        validEffectivenessCheck(effectiveness);
+        return attackingCounts[typeIndexMap.get(attacker)][effectiveness.ordinal()];
+    }
+
+    /**
+     * Returns the number of {@link Type}s where the effectiveness lines up for the defender. Equivalent to
+     * {@code whenDefending(defender, effectiveness).size()}, but doesn't need to go through the table.
+     */
+    public int countWhenDefending(Type defender, Effectiveness effectiveness) {
+        validTypeCheck(defender);
+        validEffectivenessCheck(effectiveness);
+        return defendingCounts[typeIndexMap.get(defender)][effectiveness.ordinal()];
+    }
+
     /**
      * Returns a {@link List} of all {@link Type}s that are immune to the attacker.<br>
      * E.g. calling this on a vanilla (Gen 2+) type table with attacker==GHOST, would give you (NORMAL).
@@ -1,7 +1,5 @@
 package com.dabomstew.pkromio.gbspace;
 
-import java.util.ListIterator;
-
 /**
  * A {@link FreedSpace} with bank functionality.<br>
  * Assumes there is data which must be in certain banks, and data which can be placed anywhere. It would be a problem
@@ -38,7 +36,6 @@ public class BankDividedFreedSpace extends FreedSpace {
                     "to prevent bad usage of free().");
         }
         super.free(start, length);
-        splitFreedChunksAtBankBoundaries();
         //System.out.println("after:\t" + this);
     }
 
@@ -48,28 +45,25 @@ public class BankDividedFreedSpace extends FreedSpace {
         return startBank != endBank;
     }
 
-    private void splitFreedChunksAtBankBoundaries() {
-        int bank = 0;
-
-        ListIterator<FreedChunk> iterator = freedChunks.listIterator();
-        while (iterator.hasNext()) {
-            FreedChunk fs = iterator.next();
-            while (freedChunkStartBank(fs) > bank) {
-                bank++;
-            }
+    private int freedChunkStartBank(FreedChunk fc) {
+        return fc.getStart() / bankSize;
+    }
 
-            int startOfNextBank = (bank + 1) * bankSize;
-            if (fs.end >= startOfNextBank) {
-                FreedChunk splitOff = new FreedChunk(startOfNextBank, fs.end);
-                fs.end = startOfNextBank - 1;
-                iterator.add(splitOff);
-                iterator.previous();
-            }
-        }
+    /**
+     * Chunks in different banks are never merged, so each chunk lies within a single bank.
+     */
+    @Override
+    protected boolean canMerge(FreedChunk left, FreedChunk right) {
+        return freedChunkStartBank(left) == freedChunkStartBank(right);
     }
 
-    private int freedChunkStartBank(FreedChunk fc) {
-        return fc.start / bankSize;
+    /**
+     * Each bank has its own length index, so {@link #findAndUnfreeInBank(int, int)} doesn't have to look
+     * through the chunks of other banks.
+     */
+    @Override
+    protected int sizeIndexOf(FreedChunk fc) {
+        return freedChunkStartBank(fc);
     }
 
     /**
@@ -97,25 +91,16 @@ public class BankDividedFreedSpace extends FreedSpace {
         if (length < 1) {
             throw new IllegalArgumentException("length must be at least 1");
         }
-        FreedChunk found = findInBank(length, bank);
+        FreedChunk found = findBestFit(length, bank);
         if (found == null) {
             return -1;
         }
-        int offset = found.start;
+        int offset = found.getStart();
         unfree(found, length);
         //System.out.println("after:\t" + this);
         return offset;
     }
 
-    private FreedChunk findInBank(int length, int bank) {
-        for (FreedChunk fc : freedChunks) {
-            if (fc.getLength() >= length && freedChunkStartBank(fc) == bank) {
-                return fc;
-            }
-        }
-        return null;
-    }
-
     public String toString() {
         return super.toString() + "(bank size: " + bankSize + " bytes)";
     }
@@ -22,12 +22,14 @@ package com.dabomstew.pkromio.gbspace;
 /*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
 /*----------------------------------------------------------------------------*/
 
-import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.*;
 
 /**
  * Represents/handles all the manually freed bytes in a ROM. If bytes are manually freed (using free())
- * we know they should be available for writing at a later time, at which point we can findAndUnfree() them.
+ * we know they should be available for writing at a later time, at which point we can findAndUnfree() them.<br>
+ * The freed chunks are indexed both by start offset, to find the neighbors to merge with when freeing, and by
+ * length, to find the best fitting chunk when unfreeing. Both are O(log n) in the number of chunks.
+ * The length index can be split up into several, see {@link #sizeIndexOf(FreedChunk)}.
  **/
 public class FreedSpace {
 
@@ -35,15 +37,26 @@ public class FreedSpace {
             "This is a safety measure to prevent bad usage of free()." +
             "\n%s overlaps with existing freed chunk %s";
 
+    private static final Comparator<FreedChunk> BY_LENGTH =
+            Comparator.comparingInt(FreedChunk::getLength).thenComparingInt(fc -> fc.start);
+
     protected static class FreedChunk {
 
-        public int start, end;
+        private int start, end;
 
         public FreedChunk(int offset, int end) {
             this.start = offset;
             this.end = end;
         }
 
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
         public int getLength() {
             return end - start + 1;
         }
@@ -55,7 +68,9 @@ public class FreedSpace {
 
     }
 
-    protected final LinkedList<FreedChunk> freedChunks = new LinkedList<>();
+    private final TreeMap<Integer, FreedChunk> byStart = new TreeMap<>();
+    private final Map<Integer, TreeSet<FreedChunk>> byLength = new HashMap<>();
+    private int lengthSum;
 
     public void free(int start, int length) {
         // System.out.printf("freeing %d bytes starting from 0x%x.%n", length, start);
@@ -63,65 +78,44 @@ public class FreedSpace {
             throw new IllegalArgumentException("length must be at least 1");
         }
 
-        int end = start + length - 1;
-        FreedChunk toFree = new FreedChunk(start, end);
-
-        boolean freedChunkAdded = false;
-        ListIterator<FreedChunk> iterator = freedChunks.listIterator();
-        while (iterator.hasNext() && !freedChunkAdded) {
-            FreedChunk neighbor = iterator.next();
-
-            if (toFree.start < neighbor.start) {
-                addChunkBeforeOrMergeWithRightNeighbor(toFree, neighbor, iterator);
-                freedChunkAdded = true;
-
-            } else if (neighbor.end == toFree.start - 1) {
-                mergeChunkWithLeftOrBothNeighbors(toFree, neighbor, iterator);
-                freedChunkAdded = true;
+        FreedChunk toFree = new FreedChunk(start, start + length - 1);
 
-            } else if (neighbor.end >= toFree.start) {
-                throw new RuntimeException(String.format(ALREADY_FREED_EXCEPTION_MESSAGE, toFree, neighbor));
-            }
+        Map.Entry<Integer, FreedChunk> leftEntry = byStart.floorEntry(toFree.start);
+        FreedChunk left = leftEntry == null ? null : leftEntry.getValue();
+        if (left != null && left.end >= toFree.start) {
+            throw new RuntimeException(String.format(ALREADY_FREED_EXCEPTION_MESSAGE, toFree, left));
         }
-
-        if (!freedChunkAdded) {
-            freedChunks.add(toFree);
+        Map.Entry<Integer, FreedChunk> rightEntry = byStart.higherEntry(toFree.start);
+        FreedChunk right = rightEntry == null ? null : rightEntry.getValue();
+        if (right != null && toFree.end >= right.start) {
+            throw new RuntimeException(String.format(ALREADY_FREED_EXCEPTION_MESSAGE, toFree, right));
         }
-        // System.out.println("after:\t" + this);
-    }
 
-    protected final void addChunkBeforeOrMergeWithRightNeighbor(FreedChunk toFree, FreedChunk rightNeighbor,
-                                                                ListIterator<FreedChunk> iterator) {
-        if (toFree.end >= rightNeighbor.start) {
-            throw new RuntimeException(String.format(ALREADY_FREED_EXCEPTION_MESSAGE, toFree, rightNeighbor));
+        if (left != null && left.end == toFree.start - 1 && canMerge(left, toFree)) {
+            remove(left);
+            toFree.start = left.start;
         }
-
-        if (toFree.end == rightNeighbor.start - 1) {
-            rightNeighbor.start = toFree.start;
-        } else {
-            iterator.previous();
-            iterator.add(toFree);
+        if (right != null && right.start == toFree.end + 1 && canMerge(toFree, right)) {
+            remove(right);
+            toFree.end = right.end;
         }
+        add(toFree);
+        // System.out.println("after:\t" + this);
     }
 
-    protected final void mergeChunkWithLeftOrBothNeighbors(FreedChunk toFree, FreedChunk leftNeighbor,
-                                                           ListIterator<FreedChunk> iterator) {
-        if (iterator.hasNext()) {
-            FreedChunk rightNeighbor = iterator.next();
-
-            if (toFree.end >= rightNeighbor.start) {
-                throw new RuntimeException(String.format(ALREADY_FREED_EXCEPTION_MESSAGE, toFree, rightNeighbor));
-            } else if (toFree.end == rightNeighbor.start - 1) {
-                leftNeighbor.end = rightNeighbor.end;
-                iterator.remove();
-            } else {
-                leftNeighbor.end = toFree.end;
-            }
-            iterator.previous();
+    /**
+     * Returns whether two adjacent chunks may be merged into one, when freeing. By default always true.
+     */
+    protected boolean canMerge(FreedChunk left, FreedChunk right) {
+        return true;
+    }
 
-        } else {
-            leftNeighbor.end = toFree.end;
-        }
+    /**
+     * Returns which length index a chunk belongs to. Chunks are only looked for among those in the same length
+     * index, see {@link #findBestFit(int, int)}. By default all chunks are in index 0.
+     */
+    protected int sizeIndexOf(FreedChunk fc) {
+        return 0;
     }
 
     public int findAndUnfree(int length) {
@@ -137,33 +131,74 @@ public class FreedSpace {
     }
 
     protected final FreedChunk find(int length) {
-        for (FreedChunk fc : freedChunks) {
-            if (fc.getLength() >= length) {
-                return fc;
-            }
+        return findBestFit(length, 0);
+    }
+
+    /**
+     * Finds the smallest chunk in the given length index which is at least length bytes long.
+     * If there are several, the one with the lowest start offset is returned.
+     */
+    protected final FreedChunk findBestFit(int length, int sizeIndex) {
+        TreeSet<FreedChunk> chunks = byLength.get(sizeIndex);
+        if (chunks == null) {
+            return null;
         }
-        return null;
+        return chunks.ceiling(new FreedChunk(Integer.MIN_VALUE, Integer.MIN_VALUE + length - 1));
     }
 
     protected final void unfree(FreedChunk toUnfree, int length) {
         // System.out.println("unfreeing " + length + " bytes starting from 0x" + Integer.toHexString(toUnfree.start));
+        remove(toUnfree);
         toUnfree.start += length;
-        if (toUnfree.start > toUnfree.end) {
-            freedChunks.remove(toUnfree);
+        if (toUnfree.start <= toUnfree.end) {
+            add(toUnfree);
         }
     }
 
+    private void add(FreedChunk fc) {
+        byStart.put(fc.start, fc);
+        byLength.computeIfAbsent(sizeIndexOf(fc), k -> new TreeSet<>(BY_LENGTH)).add(fc);
+        lengthSum += fc.getLength();
+    }
+
+    private void remove(FreedChunk fc) {
+        byStart.remove(fc.start);
+        byLength.get(sizeIndexOf(fc)).remove(fc);
+        lengthSum -= fc.getLength();
+    }
+
     public int getLengthSum() {
-        int sum = 0;
-        for (FreedChunk fs : freedChunks) {
-            sum += fs.getLength();
+        return lengthSum;
+    }
+
+    public int getChunkCount() {
+        return byStart.size();
+    }
+
+    public int getLargestChunkLength() {
+        int largest = 0;
+        for (TreeSet<FreedChunk> chunks : byLength.values()) {
+            if (!chunks.isEmpty()) {
+                largest = Math.max(largest, chunks.last().getLength());
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Returns how fragmented the freed space is, as a number between 0 and 1: the share of freed bytes which are
+     * NOT in the largest chunk. 0 means all freed space is in a single chunk (or there is none).
+     */
+    public double getFragmentation() {
+        if (lengthSum == 0) {
+            return 0;
         }
-        return sum;
+        return 1 - (double) getLargestChunkLength() / lengthSum;
     }
 
     @Override
     public String toString() {
-		return getLengthSum() + " bytes, " + freedChunks.size() + " chunks, " + freedChunks;
+		return getLengthSum() + " bytes, " + getChunkCount() + " chunks, " + byStart.values();
 	}
 
 }
@@ -0,0 +1,201 @@
+package com.dabomstew.pkromio.graphics.images;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps lists of images on disk, so they don't have to be decoded from the ROM again.<br>
+ * Each list is stored as one PNG atlas, with the images packed into rows, and an index file holding where in the
+ * atlas each image is. Lists are keyed by a ROM fingerprint, identifying the data the images were decoded from,
+ * and a palette hash, identifying palettes not part of that data (e.g. randomized ones not yet written to the ROM).
+ * <br><br>
+ * Images loaded from the cache are always {@link BufferedImage#TYPE_INT_ARGB}, whatever type they had when stored.
+ */
+public class SpriteSheetCache {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int MIN_ATLAS_WIDTH = 2048;
+
+    private final Path cacheDir;
+
+    public SpriteSheetCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Returns a ROM fingerprint made from the ROM code and the CRC32 of the given data, e.g. of the
+     * archives images are decoded from.
+     */
+    public static String fingerprint(String romCode, byte[]... data) {
+        CRC32 checksum = new CRC32();
+        for (byte[] d : data) {
+            checksum.update(d);
+        }
+        return romCode + "-" + String.format("%08x", checksum.getValue());
+    }
+
+    /**
+     * Returns the images stored for the given key, or null if there are none, or they could not be read.
+     */
+    public List<BufferedImage> load(String romFingerprint, long paletteHash) {
+        Path indexFile = getIndexFile(romFingerprint, paletteHash);
+        Path atlasFile = getAtlasFile(romFingerprint, paletteHash);
+        if (!Files.isRegularFile(indexFile) || !Files.isRegularFile(atlasFile)) {
+            return null;
+        }
+        try {
+            int[][] rects = readIndex(indexFile);
+            BufferedImage atlas = toIntARGB(ImageIO.read(atlasFile.toFile()));
+            if (rects == null || atlas == null) {
+                return null;
+            }
+            List<BufferedImage> images = new ArrayList<>(rects.length);
+            for (int[] rect : rects) {
+                images.add(atlas.getSubimage(rect[0], rect[1], rect[2], rect[3]));
+            }
+            return images;
+        } catch (IOException | RuntimeException e) {
+            // a broken cache entry is treated as a missing one, and gets overwritten by the next store()
+            return null;
+        }
+    }
+
+    /**
+     * Stores the images under the given key, replacing any images already stored under it.
+     */
+    public void store(String romFingerprint, long paletteHash, List<BufferedImage> images) throws IOException {
+        int[][] rects = packIntoRows(images);
+        int atlasWidth = 1;
+        int atlasHeight = 1;
+        for (int[] rect : rects) {
+            atlasWidth = Math.max(atlasWidth, rect[0] + rect[2]);
+            atlasHeight = Math.max(atlasHeight, rect[1] + rect[3]);
+        }
+
+        BufferedImage atlas = new BufferedImage(atlasWidth, atlasHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlas.createGraphics();
+        try {
+            for (int i = 0; i < images.size(); i++) {
+                g.drawImage(images.get(i), rects[i][0], rects[i][1], null);
+            }
+        } finally {
+            g.dispose();
+        }
+
+        Files.createDirectories(cacheDir);
+        // the atlas goes first and the index last, so a store() interrupted halfway never leaves a loadable entry
+        Path atlasTemp = Files.createTempFile(cacheDir, "atlas", ".tmp");
+        Path indexTemp = Files.createTempFile(cacheDir, "index", ".tmp");
+        try {
+            ImageIO.write(atlas, "png", atlasTemp.toFile());
+            writeIndex(indexTemp, rects);
+            moveIntoPlace(atlasTemp, getAtlasFile(romFingerprint, paletteHash));
+            moveIntoPlace(indexTemp, getIndexFile(romFingerprint, paletteHash));
+        } finally {
+            Files.deleteIfExists(atlasTemp);
+            Files.deleteIfExists(indexTemp);
+        }
+    }
+
+    /**
+     * ImageIO reads PNGs with alpha as {@link BufferedImage#TYPE_4BYTE_ABGR}, so the atlas is copied over pixel by
+     * pixel, to give the same type the images had before they were cached.
+     */
+    private static BufferedImage toIntARGB(BufferedImage bim) {
+        if (bim == null || bim.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return bim;
+        }
+        int width = bim.getWidth();
+        int height = bim.getHeight();
+        BufferedImage copy = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        copy.setRGB(0, 0, width, height, bim.getRGB(0, 0, width, height, null, 0, width), 0, width);
+        return copy;
+    }
+
+    /**
+     * Places the images left-to-right in rows as wide as the widest image, or {@link #MIN_ATLAS_WIDTH}.
+     * Returns {x, y, width, height} for each image.
+     */
+    private static int[][] packIntoRows(List<BufferedImage> images) {
+        int rowWidth = MIN_ATLAS_WIDTH;
+        for (BufferedImage bim : images) {
+            rowWidth = Math.max(rowWidth, bim.getWidth());
+        }
+
+        int[][] rects = new int[images.size()][];
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+        for (int i = 0; i < images.size(); i++) {
+            BufferedImage bim = images.get(i);
+            if (x + bim.getWidth() > rowWidth) {
+                x = 0;
+                y += rowHeight;
+                rowHeight = 0;
+            }
+            rects[i] = new int[]{x, y, bim.getWidth(), bim.getHeight()};
+            x += bim.getWidth();
+            rowHeight = Math.max(rowHeight, bim.getHeight());
+        }
+        return rects;
+    }
+
+    private static int[][] readIndex(Path indexFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.US_ASCII)) {
+            String[] header = reader.readLine().split(" ");
+            if (Integer.parseInt(header[0]) != FORMAT_VERSION) {
+                return null;
+            }
+            int[][] rects = new int[Integer.parseInt(header[1])][4];
+            for (int[] rect : rects) {
+                String[] values = reader.readLine().split(" ");
+                for (int j = 0; j < rect.length; j++) {
+                    rect[j] = Integer.parseInt(values[j]);
+                }
+            }
+            return rects;
+        }
+    }
+
+    private static void writeIndex(Path indexFile, int[][] rects) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(indexFile, StandardCharsets.US_ASCII)) {
+            writer.write(FORMAT_VERSION + " " + rects.length + "\n");
+            for (int[] rect : rects) {
+                writer.write(rect[0] + " " + rect[1] + " " + rect[2] + " " + rect[3] + "\n");
+            }
+        }
+    }
+
+    private static void moveIntoPlace(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path getAtlasFile(String romFingerprint, long paletteHash) {
+        return cacheDir.resolve(getBaseName(romFingerprint, paletteHash) + ".png");
+    }
+
+    private Path getIndexFile(String romFingerprint, long paletteHash) {
+        return cacheDir.resolve(getBaseName(romFingerprint, paletteHash) + ".idx");
+    }
+
+    private static String getBaseName(String romFingerprint, long paletteHash) {
+        return romFingerprint.replaceAll("[^A-Za-z0-9_-]", "_") + "-" + String.format("%016x", paletteHash);
+    }
+
+}
@@ -60,7 +60,6 @@ public class NDSFile {
                 FileOutputStream fos = new FileOutputStream(tmpFile);
                 fos.write(buf);
                 fos.close();
-                tmpFile.deleteOnExit();
                 this.status = Extracted.TO_FILE;
                 this.data = null;
                 return buf;
@@ -3,11 +3,13 @@ package com.dabomstew.pkromio.newnds;
 import com.dabomstew.pkromio.FileFunctions;
 import com.dabomstew.pkromio.RomFunctions;
 import com.dabomstew.pkromio.RootPath;
+import com.dabomstew.pkromio.exceptions.OperationCancelledException;
 import com.dabomstew.pkromio.exceptions.RomIOException;
 import cuecompressors.BLZCoder;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -63,17 +65,16 @@ public class NDSRom {
         this.romFilename = filename;
         this.baseRom = new RandomAccessFile(filename, "r");
         this.romOpen = true;
-        // TMP folder?
+        // TMP folder? Each opened ROM gets its own, so the same file can be opened several times at once.
         String rawFilename = new File(filename).getName();
         String dataFolder = "tmp_" + rawFilename.substring(0, rawFilename.lastIndexOf('.'));
         // remove nonsensical chars
         dataFolder = dataFolder.replaceAll("[^A-Za-z0-9_]+", "");
-        File tmpFolder = new File(RootPath.path + dataFolder);
-        tmpFolder.mkdir();
-        if (tmpFolder.canWrite()) {
+        File tmpFolder = createTmpFolder(dataFolder);
+        if (tmpFolder != null && tmpFolder.canWrite()) {
             writingEnabled = true;
-            this.tmpFolder = RootPath.path + dataFolder + File.separator;
-            tmpFolder.deleteOnExit();
+            this.tmpFolder = tmpFolder.getPath() + File.separator;
+            FileFunctions.deleteFolderOnExit(tmpFolder);
         } else {
             writingEnabled = false;
         }
@@ -83,6 +84,15 @@ public class NDSRom {
         arm9_ramstored = null;
     }
 
+    private static File createTmpFolder(String prefix) {
+        try {
+            Path root = Files.createDirectories(Paths.get(RootPath.path));
+            return Files.createTempDirectory(root, prefix + "_").toFile();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     public void reopenROM() throws IOException {
         if (!this.romOpen) {
             this.baseRom = new RandomAccessFile(this.romFilename, "r");
@@ -98,6 +108,15 @@ public class NDSRom {
         }
     }
 
+    /**
+     * Deletes the temporary folder, with all files extracted to it. The NDSRom can't be used after this.
+     */
+    public void deleteTmpFolder() throws IOException {
+        if (tmpFolder != null) {
+            FileFunctions.deleteFolder(new File(tmpFolder));
+        }
+    }
+
     private void readFileSystem() throws IOException {
         // read rom code
         baseRom.seek(0x0C);
@@ -321,6 +340,7 @@ public class NDSRom {
         int base_offset = fat_offset + fat_size;
         int filecount = fat.length / 8;
         for (int fid = 0; fid < filecount; fid++) {
+            OperationCancelledException.throwIfInterrupted();
             int offset_of_file = (base_offset + file_align) & (~file_align);
             int file_len = 0;
             boolean copiedCustom = false;
@@ -544,7 +564,6 @@ public class NDSRom {
                 FileOutputStream fos = new FileOutputStream(arm9file);
                 fos.write(arm9);
                 fos.close();
-                arm9file.deleteOnExit();
                 this.arm9_ramstored = null;
                 return arm9;
             } else {
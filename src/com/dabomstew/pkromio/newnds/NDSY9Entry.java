@@ -73,7 +73,6 @@ public class NDSY9Entry {
                 FileOutputStream fos = new FileOutputStream(tmpFile);
                 fos.write(buf);
                 fos.close();
-                tmpFile.deleteOnExit();
                 this.status = Extracted.TO_FILE;
                 this.data = null;
                 return buf;
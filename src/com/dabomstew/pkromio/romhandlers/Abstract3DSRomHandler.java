@@ -25,11 +25,14 @@ import com.dabomstew.pkromio.FileFunctions;
 import com.dabomstew.pkromio.RomFunctions;
 import com.dabomstew.pkromio.constants.Gen6Constants;
 import com.dabomstew.pkromio.ctr.GARCArchive;
+import com.dabomstew.pkromio.ctr.GARCIndex;
 import com.dabomstew.pkromio.ctr.NCCH;
 import com.dabomstew.pkromio.exceptions.CannotWriteToLocationException;
 import com.dabomstew.pkromio.exceptions.EncryptedROMException;
 import com.dabomstew.pkromio.exceptions.RomIOException;
 import com.dabomstew.pkromio.gamedata.*;
+import com.dabomstew.pkromio.graphics.images.SpriteSheetCache;
+import com.dabomstew.pkromio.romio.PatchFormat;
 
 import java.awt.image.BufferedImage;
 import java.io.FileInputStream;
@@ -38,6 +41,7 @@ import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * An abstract base class for 3DS {@link RomHandler}s, which standardises common 3DS functions.
@@ -66,6 +70,7 @@ public abstract class Abstract3DSRomHandler extends AbstractRomHandler {
 		}
 		loadedFN = filename;
 		this.loadedROM(productCode, titleId);
+		subsystems.finishLoading();
 		return true;
 	}
 
@@ -95,6 +100,17 @@ public abstract class Abstract3DSRomHandler extends AbstractRomHandler {
 		return true;
 	}
 
+	@Override
+	public boolean canSaveRomPatch() {
+		// the output is a CXI or LayeredFS directory, neither of which is an image of the loaded file to diff against
+		return false;
+	}
+
+	@Override
+	public boolean saveRomPatchFile(String filename, PatchFormat format) {
+		return false;
+	}
+
 	@Override
 	public boolean saveRomDirectory(String filename) {
 		try {
@@ -129,6 +145,7 @@ public abstract class Abstract3DSRomHandler extends AbstractRomHandler {
 			throw new RomIOException(e);
 		}
 		this.loadedROM(baseRom.getProductCode(), baseRom.getTitleId());
+		subsystems.finishLoading();
 		return true;
 	}
 
@@ -136,6 +153,7 @@ public abstract class Abstract3DSRomHandler extends AbstractRomHandler {
 	public void removeGameUpdate() {
 		gameUpdate = null;
 		this.loadedROM(baseRom.getProductCode(), baseRom.getTitleId());
+		subsystems.finishLoading();
 	}
 
 	protected abstract String getGameVersion();
@@ -154,6 +172,20 @@ public abstract class Abstract3DSRomHandler extends AbstractRomHandler {
 		baseRom.closeROM();
 	}
 
+	@Override
+	public void close() {
+		try {
+			baseRom.closeROM();
+			baseRom.deleteTmpFolder();
+			if (gameUpdate != null) {
+				gameUpdate.closeROM();
+				gameUpdate.deleteTmpFolder();
+			}
+		} catch (IOException e) {
+			throw new RomIOException(e);
+		}
+	}
+
 	@Override
 	public boolean hasPhysicalSpecialSplit() {
 		// Default value for Gen4+.
@@ -239,6 +271,13 @@ public abstract class Abstract3DSRomHandler extends AbstractRomHandler {
 		return new GARCArchive(readFile(subpath), compressThese);
 	}
 
+	/**
+	 * Reads only the headers of a GARC; its members are read from the ROM when asked for.
+	 */
+	protected GARCIndex readGARCIndex(String subpath) throws IOException {
+		return new GARCIndex((offset, length) -> readFile(subpath, offset, length));
+	}
+
 	protected void writeGARC(String subpath, GARCArchive garc) throws IOException {
 		this.writeFile(subpath, garc.getBytes());
 	}
@@ -250,6 +289,13 @@ public abstract class Abstract3DSRomHandler extends AbstractRomHandler {
 		return baseRom.getFile(location);
 	}
 
+	protected byte[] readFile(String location, int start, int length) throws IOException {
+		if (gameUpdate != null && gameUpdate.hasFile(location)) {
+			return gameUpdate.getFile(location, start, length);
+		}
+		return baseRom.getFile(location, start, length);
+	}
+
 	protected void writeFile(String location, byte[] data) throws IOException {
 		writeFile(location, data, 0, data.length);
 	}
@@ -416,28 +462,36 @@ public abstract class Abstract3DSRomHandler extends AbstractRomHandler {
 
 	@Override
 	public List<BufferedImage> getAllPokemonImages() {
-		List<BufferedImage> bims = new ArrayList<>();
-
+		// reading is done up front and in order, only decompressing and decoding is done concurrently
+		byte[][] storedIcons;
 		String GARCPath = getGARCPath("PokemonGraphics");
-		GARCArchive pokeGraphicsGARC;
 		try {
-			pokeGraphicsGARC = readGARC(GARCPath, false);
+			GARCIndex pokeGraphicsGARC = readGARCIndex(GARCPath);
+			storedIcons = new byte[pokeGraphicsGARC.getFileCount() - 1][];
+			for (int i = 0; i < storedIcons.length; i++) {
+				storedIcons[i] = pokeGraphicsGARC.getFile(i + 1, 0, false);
+			}
 		} catch (IOException e) {
 			throw new RomIOException(e);
 		}
 
-		for (int i = 1; i < pokeGraphicsGARC.files.size(); i++) {
-			BufferedImage icon = getPokemonIcon(i, pokeGraphicsGARC, false, true);
-			bims.add(icon);
-		}
-		return bims;
+		// the icons hold their own palettes, so they are covered by the fingerprint
+		String romFingerprint = SpriteSheetCache.fingerprint(getROMCode(), storedIcons);
+		return getCachedOrDecodedImages(romFingerprint, 0, () -> {
+			List<Callable<BufferedImage>> decoders = new ArrayList<>();
+			for (int i = 0; i < storedIcons.length; i++) {
+				int index = i + 1;
+				byte[] storedIcon = storedIcons[i];
+				decoders.add(() -> getPokemonIcon(GARCIndex.decompress(storedIcon, index, 0), false, true));
+			}
+			return decoders;
+		});
 	}
 
 	public int getIconGARCSize() {
 		try {
 			String GARCPath = getGARCPath("PokemonGraphics");
-			GARCArchive pokeGraphicsGARC = readGARC(GARCPath, false);
-			return pokeGraphicsGARC.files.size();
+			return readGARCIndex(GARCPath).getFileCount();
 		} catch (IOException e) {
 			throw new RomIOException(e);
 		}
@@ -446,16 +500,16 @@ public abstract class Abstract3DSRomHandler extends AbstractRomHandler {
 	public BufferedImage getPokemonIcon(int iconIndex) {
 		try {
 			String GARCPath = getGARCPath("PokemonGraphics");
-			GARCArchive pokeGraphicsGARC = readGARC(GARCPath, false);
+			GARCIndex pokeGraphicsGARC = readGARCIndex(GARCPath);
 
-			return getPokemonIcon(iconIndex, pokeGraphicsGARC, true, false);
+			return getPokemonIcon(pokeGraphicsGARC.getFile(iconIndex), true, false);
 		} catch (IOException e) {
 			throw new RomIOException(e);
 		}
 	}
 
-	public abstract BufferedImage getPokemonIcon(int pkIndex, GARCArchive pokeGraphicsGARC,
-												 boolean transparentBackground, boolean includePalette);
+	public abstract BufferedImage getPokemonIcon(byte[] iconData, boolean transparentBackground,
+												 boolean includePalette);
 
 
 	public PokemonImageGetter createPokemonImageGetter(Species pk) {
@@ -8,12 +8,16 @@ import com.dabomstew.pkromio.exceptions.RomIOException;
 import com.dabomstew.pkromio.gamedata.Species;
 import com.dabomstew.pkromio.gamedata.Type;
 import com.dabomstew.pkromio.gbspace.FreedSpace;
+import com.dabomstew.pkromio.graphics.images.SpriteSheetCache;
 import com.dabomstew.pkromio.graphics.palettes.Palette;
 import com.dabomstew.pkromio.newnds.NARCArchive;
 import com.dabomstew.pkromio.newnds.NDSRom;
 import com.dabomstew.pkromio.romhandlers.romentries.AbstractDSRomEntry;
+import com.dabomstew.pkromio.romio.PatchFormat;
+import com.dabomstew.pkromio.romio.RomPatcher;
 
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -21,6 +25,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.CRC32;
 
 /**
  * An abstract base class for DS {@link RomHandler}s, which standardises common DS functions.
@@ -48,6 +54,20 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
     private int tcmCopyingPointersOffset = -1;
     protected final FreedSpace arm9FreedSpace = new FreedSpace();
 
+    // While the ROM is being saved, NARCs passed to writeNARC() are queued here instead of being encoded at once,
+    // so they can all be encoded concurrently right before the ROM is written. Null when not saving.
+    private List<PendingNARCWrite> pendingNARCWrites;
+
+    private static class PendingNARCWrite {
+        private final String subpath;
+        private final NARCArchive narc;
+
+        private PendingNARCWrite(String subpath, NARCArchive narc) {
+            this.subpath = subpath;
+            this.narc = narc;
+        }
+    }
+
     protected abstract boolean detectNDSRom(String ndsCode, byte version);
 
     @Override
@@ -64,6 +84,7 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
         }
         loadedFN = filename;
         loadedROM(baseRom.getCode(), baseRom.getVersion());
+        subsystems.finishLoading();
         return true;
     }
 
@@ -76,6 +97,7 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
 
     @Override
     protected void prepareSaveRom() {
+        pendingNARCWrites = new ArrayList<>();
         super.prepareSaveRom();
         try {
             writeARM9(arm9);
@@ -86,6 +108,7 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
 
     @Override
     public boolean saveRomFile(String filename, long seed) {
+        flushPendingNARCWrites();
         try {
             baseRom.saveTo(filename);
         } catch (IOException e) {
@@ -98,8 +121,36 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
         return true;
     }
 
+    @Override
+    public boolean saveRomPatchFile(String filename, PatchFormat format) {
+        flushPendingNARCWrites();
+        // The rebuilt ROM has to be diffed against the original, so it is written to a temporary file next to
+        // the patch first. It is read back as a stream, since DS ROMs are too big to comfortably keep in memory.
+        File original = new File(loadedFN);
+        File rebuilt = null;
+        try {
+            rebuilt = File.createTempFile("rebuilt", ".nds", new File(filename).getAbsoluteFile().getParentFile());
+            baseRom.saveTo(rebuilt.getAbsolutePath());
+            File finalRebuilt = rebuilt;
+            RomPatcher.savePatch(format, () -> new FileInputStream(original), original.length(),
+                    () -> new FileInputStream(finalRebuilt), rebuilt.length(), filename);
+        } catch (IOException e) {
+            if (e.getMessage() != null && e.getMessage().contains("Access is denied")) {
+                throw new CannotWriteToLocationException("The randomizer cannot write to this location: " + filename);
+            } else {
+                throw new RomIOException(e);
+            }
+        } finally {
+            if (rebuilt != null) {
+                rebuilt.delete();
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean saveRomDirectory(String filename) {
+        flushPendingNARCWrites();
         // do nothing. DS games do have the concept of a filesystem, but it's way more
         // convenient for users to use ROM files instead.
         return true;
@@ -136,6 +187,16 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
         baseRom.closeROM();
     }
 
+    @Override
+    public void close() {
+        try {
+            baseRom.closeROM();
+            baseRom.deleteTmpFolder();
+        } catch (IOException e) {
+            throw new RomIOException(e);
+        }
+    }
+
     @Override
     public boolean hasPhysicalSpecialSplit() {
         // Default value for Gen4+.
@@ -147,8 +208,52 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
         return new NARCArchive(readFile(subpath));
     }
 
+    /**
+     * Writes the NARC to the given file. While the ROM is being saved, encoding it is put off until right before
+     * the ROM is written, so the NARC must not be changed after this call.
+     */
     public void writeNARC(String subpath, NARCArchive narc) throws IOException {
-        this.writeFile(subpath, narc.getBytes());
+        if (pendingNARCWrites != null) {
+            pendingNARCWrites.add(new PendingNARCWrite(subpath, narc));
+        } else {
+            this.writeFile(subpath, narc.getBytes());
+        }
+    }
+
+    private boolean isPendingNARCWrite(String subpath) {
+        if (pendingNARCWrites != null) {
+            for (PendingNARCWrite write : pendingNARCWrites) {
+                if (write.subpath.equals(subpath)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encodes all queued NARCs concurrently, since they are independent files, and then writes them to the ROM
+     * one by one, in the order they were queued. This gives the same ROM as encoding and writing each NARC at once.
+     */
+    private void flushPendingNARCWrites() {
+        if (pendingNARCWrites == null) {
+            return;
+        }
+        List<PendingNARCWrite> writes = pendingNARCWrites;
+        pendingNARCWrites = null;
+
+        List<Callable<byte[]>> encodings = new ArrayList<>(writes.size());
+        for (PendingNARCWrite write : writes) {
+            encodings.add(write.narc::getBytes);
+        }
+        List<byte[]> encoded = computeConcurrently(encodings);
+        try {
+            for (int i = 0; i < writes.size(); i++) {
+                writeFile(writes.get(i).subpath, encoded.get(i));
+            }
+        } catch (IOException e) {
+            throw new RomIOException(e);
+        }
     }
 
     protected static String getROMCodeFromFile(String filename) {
@@ -212,6 +317,9 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
     }
 
     protected byte[] readFile(String location) throws IOException {
+        if (isPendingNARCWrite(location)) {
+            flushPendingNARCWrites();
+        }
         return baseRom.getFile(location);
     }
 
@@ -220,6 +328,10 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
     }
 
     protected void writeFile(String location, byte[] data, int offset, int length) throws IOException {
+        // a queued NARC for the same file has to reach the ROM first, or it would overwrite this
+        if (isPendingNARCWrite(location)) {
+            flushPendingNARCWrites();
+        }
         if (offset != 0 || length != data.length) {
             byte[] newData = new byte[length];
             System.arraycopy(data, offset, newData, 0, length);
@@ -522,8 +634,8 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
     }
 
     // I dare not rewrite the load ROM structure, so for now loadPokemonPalettes()
-	// is separate methods called in loadROM()/loadedRom() methods. Even though
-	// one call in AbstractRomHandler should suffice.
+	// is registered as the PALETTES subsystem loader in the loadedRom() methods. Even though
+	// one registration in AbstractRomHandler should suffice.
     // TODO: move loadPokemonPalettes() up
 	protected abstract void loadPokemonPalettes();
 
@@ -541,22 +653,68 @@ public abstract class AbstractDSRomHandler extends AbstractRomHandler {
 
     @Override
     public List<BufferedImage> getAllPokemonImages() {
-        List<BufferedImage> bims = new ArrayList<>();
+        subsystems.load(GameSubsystem.PALETTES); // so the palettes are there to be hashed
+        String[] archivePaths = getPokemonImageArchivePaths();
+        byte[][] archiveData = new byte[archivePaths.length][];
+        try {
+            for (int i = 0; i < archivePaths.length; i++) {
+                archiveData[i] = readFile(archivePaths[i]);
+            }
+        } catch (IOException e) {
+            throw new RomIOException(e);
+        }
 
-		String NARCPath = getRomEntry().getFile("PokemonGraphics");
-		NARCArchive pokeGraphicsNARC;
-		try {
-			pokeGraphicsNARC = readNARC(NARCPath);
-		} catch (IOException e) {
-			throw new RomIOException(e);
-		}
+        String romFingerprint = SpriteSheetCache.fingerprint(getROMCode(), archiveData);
+        return getCachedOrDecodedImages(romFingerprint, getPokemonPalettesHash(), () -> {
+            NARCArchive[] archives = new NARCArchive[archiveData.length];
+            try {
+                for (int i = 0; i < archiveData.length; i++) {
+                    archives[i] = new NARCArchive(archiveData[i]);
+                }
+            } catch (IOException e) {
+                throw new RomIOException(e);
+            }
 
+            // the getters are made here, since making them may load subsystems, but they are used concurrently
+            List<Callable<BufferedImage>> decoders = new ArrayList<>();
+            for (int i = 1; i < getSpecies().size(); i++) {
+                DSPokemonImageGetter pig = createSharedPokemonImageGetter(getSpecies().get(i), archives);
+                decoders.add(pig::getFull);
+            }
+            return decoders;
+        });
+    }
+
+    /**
+     * Returns the paths of the archives {@link #createSharedPokemonImageGetter(Species, NARCArchive[])} uses.
+     * The first one is always the "PokemonGraphics" archive.
+     */
+    protected String[] getPokemonImageArchivePaths() {
+        return new String[]{getRomEntry().getFile("PokemonGraphics")};
+    }
+
+    /**
+     * Creates a {@link DSPokemonImageGetter} which reads only from the given, already parsed archives, so several
+     * can be used concurrently.
+     * @param archives The archives at {@link #getPokemonImageArchivePaths()}, in the same order.
+     */
+    protected DSPokemonImageGetter createSharedPokemonImageGetter(Species pk, NARCArchive[] archives) {
+        return createPokemonImageGetter(pk).setPokeGraphicsNARC(archives[0]);
+    }
+
+    /**
+     * Returns a hash of the normal and shiny palettes of all species, which may differ from the ones
+     * in the ROM's archives until {@link #savePokemonPalettes()} is called.
+     */
+    private long getPokemonPalettesHash() {
+        CRC32 checksum = new CRC32();
         for (int i = 1; i < getSpecies().size(); i++) {
             Species pk = getSpecies().get(i);
-            DSPokemonImageGetter pig = createPokemonImageGetter(pk).setPokeGraphicsNARC(pokeGraphicsNARC);
-            bims.add(pig.getFull());
+            for (Palette palette : new Palette[]{pk.getNormalPalette(), pk.getShinyPalette()}) {
+                checksum.update(palette == null ? new byte[]{0} : palette.toBytes());
+            }
         }
-        return bims;
+        return checksum.getValue();
     }
 
     @Override
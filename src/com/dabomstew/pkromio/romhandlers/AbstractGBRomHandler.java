@@ -13,13 +13,14 @@ import com.dabomstew.pkromio.gamedata.Trainer;
 import com.dabomstew.pkromio.gbspace.FreedSpace;
 import com.dabomstew.pkromio.romhandlers.romentries.AbstractGBRomEntry;
 import com.dabomstew.pkromio.romhandlers.romentries.RomEntry;
+import com.dabomstew.pkromio.romio.PatchFormat;
+import com.dabomstew.pkromio.romio.RomPatcher;
 
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
@@ -40,6 +41,7 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
         loadRomFile(filename);
         midLoadingSetUp();
         loadGameData();
+        subsystems.finishLoading();
         return true;
     }
 
@@ -78,15 +80,15 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
 
     /**
      * Loads the (randomizable) game data, i.e. stuff like the gettable lists of {@link Species}, {@link Move}s,
-     * and {@link Trainer}s.
+     * and {@link Trainer}s. Palettes and Trainers are only registered, to be loaded by the {@link SubsystemLoader}.
      */
     protected void loadGameData() {
         loadItems();
         loadPokemonStats();
         loadEvolutions();
         loadMoves();
-        loadPokemonPalettes();
-        loadTrainers();
+        subsystems.register(GameSubsystem.PALETTES, this::loadPokemonPalettes);
+        subsystems.register(GameSubsystem.TRAINERS, this::loadTrainers);
     }
 
     // the below are public because it may be kinder to the testing environment
@@ -122,6 +124,20 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
         }
     }
 
+    @Override
+    public boolean saveRomPatchFile(String filename, PatchFormat format) {
+        try {
+            RomPatcher.savePatch(format, () -> new ByteArrayInputStream(originalRom), originalRom.length,
+                    () -> new ByteArrayInputStream(rom), rom.length, filename);
+            return true;
+        } catch (IOException ex) {
+            if (ex.getMessage() != null && ex.getMessage().contains("Access is denied")) {
+                throw new CannotWriteToLocationException("The randomizer cannot write to this location: " + filename);
+            }
+            throw new RomIOException(ex);
+        }
+    }
+
     @Override
     public boolean saveRomDirectory(String filename) {
         // do nothing, because GB games don't really have a concept of a filesystem
@@ -156,6 +172,9 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
         logStream.println("File name: " + p.getFileName().toString());
         long crc = FileFunctions.getCRC32(originalRom);
         logStream.println("Original ROM CRC32: " + String.format("%08X", crc));
+        FreedSpace fs = getFreedSpace();
+        logStream.println(String.format("Freed space: %d bytes in %d chunks, largest %d bytes (%.1f%% fragmented)",
+                fs.getLengthSum(), fs.getChunkCount(), fs.getLargestChunkLength(), fs.getFragmentation() * 100));
     }
 
     @Override
@@ -164,7 +183,9 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
         // because most other gens write the trainers to ROM each time setTrainers is used,
         // instead of having a saveTrainers. (obviously those other gens shouldn't do that either,
         // but code's never perfect)
-        saveTrainers();
+        if (subsystems.isLoaded(GameSubsystem.TRAINERS)) {
+            saveTrainers();
+        }
     }
 
     abstract public void saveTrainers();
@@ -330,6 +351,15 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
 
     protected abstract void writePointer(int offset, int pointer);
 
+    /**
+     * Rewrites variable-length data which is pointed to, freeing the old data and writing the new data to free space.
+     * <br>
+     * By default, each {@link #rewriteData(int, Object, int[], Function, Function) rewriteData()} call frees and
+     * writes immediately. Between {@link #beginBatch()} and {@link #commitBatch()} the old data is still freed
+     * immediately, but the new data is only queued. On commit all queued data is placed in one go, largest first,
+     * so it can use all space freed by the batch, and small pieces of data don't split up chunks that large data
+     * would have fit into.
+     */
     protected class DataRewriter<E> {
 
         protected Function<Integer, Integer> pointerReader = AbstractGBRomHandler.this::readPointer;
@@ -337,6 +367,10 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
 
         private boolean longAlignAdresses = true;
 
+        // pending writes in queueing order, and the old data offsets freed for them. null when not batching.
+        private List<PendingRewrite> pending;
+        private Set<Integer> freedOldData;
+
         public boolean isLongAlignAdresses() {
             return longAlignAdresses;
         }
@@ -353,6 +387,40 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
             this.pointerWriter = pointerWriter;
         }
 
+        /**
+         * Starts queueing rewrites instead of writing them immediately, until {@link #commitBatch()}.
+         */
+        public void beginBatch() {
+            if (pending != null) {
+                throw new IllegalStateException("Batch already begun.");
+            }
+            pending = new ArrayList<>();
+            freedOldData = new HashSet<>();
+        }
+
+        /**
+         * Writes all rewrites queued since {@link #beginBatch()} to free space, largest first,
+         * and repoints their pointers.
+         */
+        public void commitBatch() {
+            if (pending == null) {
+                throw new IllegalStateException("No batch begun.");
+            }
+            List<PendingRewrite> toWrite = pending;
+            pending = null;
+            freedOldData = null;
+            // stable, so data of the same length keeps the queueing order
+            toWrite.sort(Comparator.comparingInt((PendingRewrite pr) -> pr.newData.length).reversed());
+            for (PendingRewrite pr : toWrite) {
+                int newDataOffset = repointAndWriteToFreeSpace(pr.pointerOffset, pr.newData);
+                for (int spo : pr.secondaryPointerOffsets) {
+                    if (spo != pr.pointerOffset) {
+                        pointerWriter.accept(spo, newDataOffset);
+                    }
+                }
+            }
+        }
+
         public void rewriteData(int pointerOffset, E e, Function<E, byte[]> newDataFunction,
                                 Function<Integer, Integer> lengthOfOldFunction) {
             rewriteData(pointerOffset, e, new int[0], newDataFunction, lengthOfOldFunction);
@@ -362,6 +430,12 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
                                 Function<E, byte[]> newDataFunction, Function<Integer, Integer> lengthOfOldFunction) {
             byte[] newData = newDataFunction.apply(e);
             int oldDataOffset = pointerReader.apply(pointerOffset);
+
+            if (pending != null) {
+                queueRewrite(pointerOffset, secondaryPointerOffsets, oldDataOffset, newData, lengthOfOldFunction);
+                return;
+            }
+
             int oldLength = lengthOfOldFunction.apply(oldDataOffset);
             freeSpace(oldDataOffset, oldLength);
             int newDataOffset = repointAndWriteToFreeSpace(pointerOffset, newData);
@@ -369,6 +443,18 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
             rewriteSecondaryPointers(pointerOffset, secondaryPointerOffsets, oldDataOffset, newDataOffset);
         }
 
+        private void queueRewrite(int pointerOffset, int[] secondaryPointerOffsets, int oldDataOffset, byte[] newData,
+                                  Function<Integer, Integer> lengthOfOldFunction) {
+            checkSecondaryPointers(pointerOffset, secondaryPointerOffsets, oldDataOffset);
+            // The old data may be shared with an earlier queued rewrite. It must only be freed once, but each
+            // rewrite still gets its own new data, like when rewriting one by one.
+            if (freedOldData.add(oldDataOffset)) {
+                int oldLength = lengthOfOldFunction.apply(oldDataOffset);
+                freeSpace(oldDataOffset, oldLength);
+            }
+            pending.add(new PendingRewrite(pointerOffset, secondaryPointerOffsets, newData));
+        }
+
         /**
          * Returns the new offset of the data.
          **/
@@ -383,6 +469,14 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
 
         protected void rewriteSecondaryPointers(int primaryPointerOffset, int[] secondaryPointerOffsets,
                                               int oldDataOffset, int newDataOffset) {
+            checkSecondaryPointers(primaryPointerOffset, secondaryPointerOffsets, oldDataOffset);
+            for (int spo : secondaryPointerOffsets) {
+                pointerWriter.accept(spo, newDataOffset);
+            }
+        }
+
+        private void checkSecondaryPointers(int primaryPointerOffset, int[] secondaryPointerOffsets,
+                                            int oldDataOffset) {
             for (int spo : secondaryPointerOffsets) {
                 int offset = pointerReader.apply(spo);
                 if (spo != primaryPointerOffset && offset != oldDataOffset) {
@@ -392,11 +486,22 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
                             ". Points to 0x" + Integer.toHexString(offset) + " instead of 0x" +
                             Integer.toHexString(oldDataOffset) + ".");
                 }
-                pointerWriter.accept(spo, newDataOffset);
             }
         }
     }
 
+    private static class PendingRewrite {
+        private final int pointerOffset;
+        private final int[] secondaryPointerOffsets;
+        private final byte[] newData;
+
+        private PendingRewrite(int pointerOffset, int[] secondaryPointerOffsets, byte[] newData) {
+            this.pointerOffset = pointerOffset;
+            this.secondaryPointerOffsets = secondaryPointerOffsets;
+            this.newData = newData;
+        }
+    }
+
 	protected void freeSpace(int offset, int length) {
 		if (length < 1) {
 			throw new IllegalArgumentException("length must be at least 1.");
@@ -33,10 +33,13 @@ import com.dabomstew.pkromio.RomFunctions;
 import com.dabomstew.pkromio.constants.AbilityIDs;
 import com.dabomstew.pkromio.constants.GlobalConstants;
 import com.dabomstew.pkromio.constants.ItemIDs;
+import com.dabomstew.pkromio.exceptions.OperationCancelledException;
 import com.dabomstew.pkromio.exceptions.RomIOException;
 import com.dabomstew.pkromio.gamedata.*;
+import com.dabomstew.pkromio.graphics.images.SpriteSheetCache;
 import com.dabomstew.pkromio.graphics.packs.GraphicsPack;
 import com.dabomstew.pkromio.romhandlers.romentries.RomEntry;
+import com.dabomstew.pkromio.romio.PatchFormat;
 import com.dabomstew.pkromio.services.RestrictedSpeciesService;
 import com.dabomstew.pkromio.services.TypeService;
 
@@ -45,6 +48,8 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -54,11 +59,14 @@ public abstract class AbstractRomHandler implements RomHandler {
 
     protected final RestrictedSpeciesService rPokeService = new RestrictedSpeciesService(this);
     protected final TypeService typeService = new TypeService(this);
+    protected final SubsystemLoader subsystems = new SubsystemLoader();
 
     protected int perfectAccuracy = 100; // default
 
     private List<Type> starterTypeTriangle = null;
 
+    private SpriteSheetCache spriteSheetCache;
+
     /*
      * Public Methods, implemented here for all gens. Unlikely to be overridden.
      */
@@ -71,6 +79,23 @@ public abstract class AbstractRomHandler implements RomHandler {
         return typeService;
     }
 
+    @Override
+    public void setLazyLoading(boolean lazyLoading) {
+        subsystems.setLazy(lazyLoading);
+    }
+
+    @Override
+    public void loadSubsystems(Collection<GameSubsystem> toLoad) {
+        for (GameSubsystem subsystem : toLoad) {
+            subsystems.load(subsystem);
+        }
+    }
+
+    @Override
+    public boolean isSubsystemLoaded(GameSubsystem subsystem) {
+        return subsystems.isLoaded(subsystem);
+    }
+
     @Override
     public SpeciesSet getSpeciesSet() {
         return SpeciesSet.unmodifiable(getSpecies());
@@ -424,6 +449,30 @@ public abstract class AbstractRomHandler implements RomHandler {
         return false;
     }
 
+    @Override
+    public CompatibilityMatrix getTMHMCompatibilityMatrix() {
+        // DEFAULT: convert from the Map form
+        return CompatibilityMatrix.fromMap(getTMHMCompatibility());
+    }
+
+    @Override
+    public void setTMHMCompatibilityMatrix(CompatibilityMatrix compatData) {
+        // DEFAULT: convert to the Map form
+        setTMHMCompatibility(compatData.toMap());
+    }
+
+    @Override
+    public CompatibilityMatrix getMoveTutorCompatibilityMatrix() {
+        // DEFAULT: convert from the Map form
+        return CompatibilityMatrix.fromMap(getMoveTutorCompatibility());
+    }
+
+    @Override
+    public void setMoveTutorCompatibilityMatrix(CompatibilityMatrix compatData) {
+        // DEFAULT: convert to the Map form
+        setMoveTutorCompatibility(compatData.toMap());
+    }
+
     @Override
     public boolean isTrainerPokemonAlwaysUseAbility1() {
         // DEFAULT: no
@@ -751,6 +800,79 @@ public abstract class AbstractRomHandler implements RomHandler {
 
     public abstract List<BufferedImage> getAllPokemonImages();
 
+    @Override
+    public void setSpriteSheetCache(SpriteSheetCache spriteSheetCache) {
+        this.spriteSheetCache = spriteSheetCache;
+    }
+
+    /**
+     * Returns the images from the {@link SpriteSheetCache} if it has them. Otherwise decodes them concurrently,
+     * and stores them in the cache (if one is set).
+     * @param romFingerprint Identifies the ROM and the data the images are decoded from,
+     *                       see {@link SpriteSheetCache#fingerprint(String, byte[]...)}.
+     * @param paletteHash Identifies the palettes used, if they are not part of the fingerprinted data.
+     * @param decoders Supplies the decoders, one per image in order. Only called if the images are not cached.
+     *                 The decoders themselves are called concurrently, so must not share any mutable state.
+     */
+    protected final List<BufferedImage> getCachedOrDecodedImages(String romFingerprint, long paletteHash,
+                                                               Supplier<List<Callable<BufferedImage>>> decoders) {
+        if (spriteSheetCache != null) {
+            List<BufferedImage> cached = spriteSheetCache.load(romFingerprint, paletteHash);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        List<BufferedImage> bims = computeConcurrently(decoders.get());
+        if (spriteSheetCache != null) {
+            try {
+                spriteSheetCache.store(romFingerprint, paletteHash, bims);
+            } catch (IOException e) {
+                // the images are decoded already, so a cache which can't be written to just stays a miss
+            }
+        }
+        return bims;
+    }
+
+    /**
+     * Runs the tasks on a thread pool, and returns their results in the same order as the tasks.
+     */
+    protected static <T> List<T> computeConcurrently(List<? extends Callable<T>> tasks) {
+        int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), tasks.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(getComputed(future));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> T getComputed(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationCancelledException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RomIOException((Exception) cause);
+        }
+    }
+
     public abstract void savePokemonPalettes();
 
     // here for testing, please do not use otherwise
@@ -767,6 +889,20 @@ public abstract class AbstractRomHandler implements RomHandler {
         }
     }
 
+    @Override
+    public boolean saveRomPatch(String filename, PatchFormat format) {
+        if (!canSaveRomPatch()) {
+            return false;
+        }
+        try {
+            prepareSaveRom();
+            return saveRomPatchFile(filename, format);
+        } catch (RomIOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * Writes the remaining things to the ROM, before it is written to file. When
      * overridden, this should be called as a superclass method.
@@ -774,7 +910,10 @@ public abstract class AbstractRomHandler implements RomHandler {
     protected void prepareSaveRom() {
         savePokemonStats();
         saveMoves();
-        savePokemonPalettes();
+        // palettes which were never loaded can't have been changed
+        if (subsystems.isLoaded(GameSubsystem.PALETTES)) {
+            savePokemonPalettes();
+        }
     }
 
     public abstract void saveMoves();
@@ -785,6 +924,18 @@ public abstract class AbstractRomHandler implements RomHandler {
 
     protected abstract boolean saveRomDirectory(String filename);
 
+    @Override
+    public boolean canSaveRomPatch() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // by default, everything is kept in memory
+    }
+
+    protected abstract boolean saveRomPatchFile(String filename, PatchFormat format);
+
     protected abstract RomEntry getRomEntry();
 
     @Override
@@ -0,0 +1,32 @@
+package com.dabomstew.pkromio.romhandlers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A part of the game data which a {@link RomHandler} may load lazily, i.e. on first access instead of when the ROM is
+ * loaded. See {@link RomHandler#setLazyLoading(boolean)}.<br>
+ * Each subsystem declares which other subsystems must be loaded before it.
+ */
+public enum GameSubsystem {
+
+    TEXT,
+    PALETTES,
+    TRAINERS(TEXT),
+    ENCOUNTERS(TEXT),
+    SHOPS(TEXT);
+
+    private final List<GameSubsystem> dependencies;
+
+    GameSubsystem(GameSubsystem... dependencies) {
+        this.dependencies = Collections.unmodifiableList(Arrays.asList(dependencies));
+    }
+
+    /**
+     * Returns the subsystems which must be loaded before this one.
+     */
+    public List<GameSubsystem> getDependencies() {
+        return dependencies;
+    }
+}
@@ -1148,9 +1148,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
 
     @Override
     public List<Trainer> getTrainers() {
-        if (trainers == null) {
-            throw new IllegalStateException("Trainers have not been loaded.");
-        }
+        subsystems.load(GameSubsystem.TRAINERS);
         return trainers;
     }
 
@@ -1256,6 +1254,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
     @Override
     public void setTrainers(List<Trainer> trainers) {
         this.trainers = trainers;
+        subsystems.markLoaded(GameSubsystem.TRAINERS);
     }
 
     @Override
@@ -2799,13 +2798,16 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         int pointerTableOffset = romEntry.getIntValue("PokemonMovesetsTableOffset");
 
         int pokemonCount = romEntry.getIntValue("InternalPokemonCount");
+        DataRewriter<Species> dataRewriter = new SameBankDataRewriter<>();
+        dataRewriter.beginBatch();
         for (int i = 1; i <= pokemonCount; i++) {
             Species pk = pokes[pokeRBYToNumTable[i]];
             int pointerOffset = pointerTableOffset + (i - 1) * 2;
-            new SameBankDataRewriter<Species>().rewriteData(pointerOffset, pk, this::pokemonToEvosAndMovesLearntBytes,
+            dataRewriter.rewriteData(pointerOffset, pk, this::pokemonToEvosAndMovesLearntBytes,
                     oldDataOffset -> lengthOfDataWithTerminatorsAt(oldDataOffset,
                             GBConstants.evosAndMovesTerminator, 2));
         }
+        dataRewriter.commitBatch();
     }
 
     private void saveLevel1Moves() {
@@ -3090,6 +3092,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
 
     @Override
     public Gen1PokemonImageGetter createPokemonImageGetter(Species pk) {
+        subsystems.load(GameSubsystem.PALETTES);
         return new Gen1PokemonImageGetter(pk);
     }
 
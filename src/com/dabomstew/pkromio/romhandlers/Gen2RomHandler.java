@@ -1015,9 +1015,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
 
     @Override
     public List<Trainer> getTrainers() {
-        if (trainers == null) {
-            throw new IllegalStateException("Trainers have not been loaded.");
-        }
+        subsystems.load(GameSubsystem.TRAINERS);
         return trainers;
     }
 
@@ -1118,6 +1116,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     @Override
     public void setTrainers(List<Trainer> trainers) {
         this.trainers = trainers;
+        subsystems.markLoaded(GameSubsystem.TRAINERS);
     }
 
     @Override
@@ -2789,14 +2788,17 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     private void saveEvosAndMovesLearnt() {
         int pointerTableOffset = romEntry.getIntValue("PokemonMovesetsTableOffset");
 
+        DataRewriter<Species> dataRewriter = new SameBankDataRewriter<>();
+        dataRewriter.beginBatch();
         for (Species pk : speciesList) {
             if (pk == null) continue;
             int pokeNum = pk.getNumber();
             int pointerOffset = pointerTableOffset + (pokeNum - 1) * 2;
-            new SameBankDataRewriter<Species>().rewriteData(pointerOffset, pk, this::pokemonToEvosAndMovesLearntBytes,
+            dataRewriter.rewriteData(pointerOffset, pk, this::pokemonToEvosAndMovesLearntBytes,
                     oldDataOffset -> lengthOfDataWithTerminatorsAt(oldDataOffset,
                             GBConstants.evosAndMovesTerminator, 2));
         }
+        dataRewriter.commitBatch();
     }
 
     private byte[] pokemonToEvosAndMovesLearntBytes(Species pk) {
@@ -3273,6 +3275,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
 
     @Override
     public Gen2PokemonImageGetter createPokemonImageGetter(Species pk) {
+        subsystems.load(GameSubsystem.PALETTES);
         return new Gen2PokemonImageGetter(pk);
     }
 
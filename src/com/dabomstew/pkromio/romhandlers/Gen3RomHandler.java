@@ -48,6 +48,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -1599,9 +1600,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 
     @Override
     public List<Trainer> getTrainers() {
-        if (trainers == null) {
-            throw new IllegalStateException("Trainers have not been loaded.");
-        }
+        subsystems.load(GameSubsystem.TRAINERS);
         return trainers;
     }
 
@@ -1775,6 +1774,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 	@Override
 	public void setTrainers(List<Trainer> trainers) {
         this.trainers = trainers;
+        subsystems.markLoaded(GameSubsystem.TRAINERS);
 	}
 
     @Override
@@ -1800,6 +1800,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         int nameLen = romEntry.getIntValue("TrainerNameLength");
         Iterator<Trainer> trainerIterator = trainers.iterator();
 
+        DataRewriter<Trainer> dataRewriter = new DataRewriter<>();
+        dataRewriter.beginBatch();
         for (int i = 1; i < amount; i++) {
             int trOffset = baseOffset + i * entryLen;
             Trainer tr = trainerIterator.next();
@@ -1808,7 +1810,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             // it needs to use parts of the old trainer data - thus those are overwritten
             // after
             int pokemonPointerOffset = trOffset + (entryLen - 4);
-            new DataRewriter<Trainer>().rewriteData(pokemonPointerOffset, tr, this::trainerPokemonToBytes,
+            dataRewriter.rewriteData(pokemonPointerOffset, tr, this::trainerPokemonToBytes,
                     (oldDataOffset) -> readTrainerPokemonDataLength(trOffset));
 
             writeByte(trOffset, (byte) tr.poketype);
@@ -1821,6 +1823,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
                     writeByte(trOffset + (entryLen - 16), (byte) 0x00);
             }
         }
+        dataRewriter.commitBatch();
 
         if (romEntry.getRomType() == Gen3Constants.RomType_Em) {
             writeMossdeepStevenTrainer();
@@ -1989,13 +1992,15 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 	@Override
 	public void setMovesLearnt(Map<Integer, List<MoveLearnt>> movesets) {
 		int baseOffset = romEntry.getIntValue("PokemonMovesets");
+		DataRewriter<List<MoveLearnt>> dataRewriter = new DataRewriter<>();
+		dataRewriter.beginBatch();
 		for (int i = 1; i <= numRealPokemon; i++) {
 			Species pk = speciesList.get(i);
 			int pointerOffset = baseOffset + (pokedexToInternal[pk.getNumber()]) * 4;
 			List<MoveLearnt> moves = movesets.get(pk.getNumber());
-			new DataRewriter<List<MoveLearnt>>().rewriteData(pointerOffset, moves, this::movesLearntToBytes,
-					this::lengthOfMovesLearntAt);
+			dataRewriter.rewriteData(pointerOffset, moves, this::movesLearntToBytes, this::lengthOfMovesLearntAt);
 		}
+		dataRewriter.commitBatch();
 	}
 
 	private byte[] movesLearntToBytes(List<MoveLearnt> movesLearnt) {
@@ -2442,6 +2447,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 			int entrySize = romEntry.getIntValue("ItemEntrySize");
 			int limitPerLine = (romEntry.getRomType() == Gen3Constants.RomType_FRLG) ? Gen3Constants.frlgItemDescCharsPerLine
 					: Gen3Constants.rseItemDescCharsPerLine;
+			DataRewriter<String> dataRewriter = new DataRewriter<>();
+			dataRewriter.beginBatch();
 			for (int i = 0; i < Gen3Constants.tmCount; i++) {
 				int itemBaseOffset = idOffset + (i + Gen3Constants.tmItemOffset) * entrySize;
 				int moveBaseOffset = mdOffset + (moveIndexes.get(i) - 1) * 4;
@@ -2450,13 +2457,15 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 				String newItemDesc = RomFunctions.rewriteDescriptionForNewLineSize(moveDesc, "\\n", limitPerLine, ssd);
 
 				int itemDescPointerOffset = itemBaseOffset + Gen3Constants.itemDataDescriptionOffset;
-				try {
-					rewriteVariableLengthString(itemDescPointerOffset, newItemDesc);
-				} catch (RomIOException e) {
-                    // This used to be a simple logging, turned it into a full error because I don't *think* it
-                    // should be too common? Plus the RomHandler arguably should not do logging.
-					throw new RomIOException("Couldn't insert new item description. " + e.getMessage());
-				}
+				dataRewriter.rewriteData(itemDescPointerOffset, newItemDesc, this::variableLengthStringToBytes,
+						this::lengthOfStringAt);
+			}
+			try {
+				dataRewriter.commitBatch();
+			} catch (RomIOException e) {
+                // This used to be a simple logging, turned it into a full error because I don't *think* it
+                // should be too common? Plus the RomHandler arguably should not do logging.
+				throw new RomIOException("Couldn't insert new item descriptions. " + e.getMessage());
 			}
 		}
     }
@@ -2513,6 +2522,27 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         }
     }
 
+    @Override
+    public CompatibilityMatrix getTMHMCompatibilityMatrix() {
+        CompatibilityMatrix compat = new CompatibilityMatrix(speciesList.subList(1, numRealPokemon + 1),
+                Gen3Constants.tmCount + Gen3Constants.hmCount);
+        int offset = romEntry.getIntValue("PokemonTMHMCompat");
+        for (Species pkmn : compat.getSpecies()) {
+            int compatOffset = offset + (pokedexToInternal[pkmn.getNumber()]) * 8;
+            compat.readRowFromBitfield(pkmn, rom, compatOffset, 8);
+        }
+        return compat;
+    }
+
+    @Override
+    public void setTMHMCompatibilityMatrix(CompatibilityMatrix compatData) {
+        int offset = romEntry.getIntValue("PokemonTMHMCompat");
+        for (Species pkmn : compatData.getSpecies()) {
+            int compatOffset = offset + (pokedexToInternal[pkmn.getNumber()]) * 8;
+            compatData.writeRowToBitfield(pkmn, rom, compatOffset, 8);
+        }
+    }
+
     @Override
     public boolean hasMoveTutors() {
         return (romEntry.getRomType() == Gen3Constants.RomType_Em || romEntry.getRomType() == Gen3Constants.RomType_FRLG);
@@ -2554,6 +2584,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 
     private void writeEventText(List<Gen3EventTextEntry> eventTextEntries, Function<Integer, String[]> idToReplacers,
                                 String[] targets, String description) {
+        DataRewriter<String> dataRewriter = new DataRewriter<>();
+        dataRewriter.beginBatch();
         for (Gen3EventTextEntry ete : eventTextEntries) {
             // create the new text
             Map<String, String> replacements = new HashMap<>();
@@ -2573,13 +2605,19 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int pointerOffset = ete.getActualPointerOffset();
             int[] secondaryPointerOffsets = searchForPointerCopies(pointerOffset);
             try {
-                rewriteVariableLengthString(pointerOffset, newText, secondaryPointerOffsets);
+                dataRewriter.rewriteData(pointerOffset, newText, secondaryPointerOffsets,
+                        this::variableLengthStringToBytes, this::lengthOfStringAt);
             } catch (RomIOException e) {
                 // This used to be a simple logging, turned it into a full error because I don't *think* it
                 // should be too common? Plus the RomHandler arguably should not do logging.
                 throw new RomIOException("Couldn't insert new " + description + " text. " + e.getMessage());
             }
         }
+        try {
+            dataRewriter.commitBatch();
+        } catch (RomIOException e) {
+            throw new RomIOException("Couldn't insert new " + description + " texts. " + e.getMessage());
+        }
     }
 
     /**
@@ -4222,7 +4260,22 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
     public void savePokemonPalettes() {
         int normalPaletteTableOffset = romEntry.getIntValue("PokemonNormalPalettes");
         int shinyPaletteTableOffset = romEntry.getIntValue("PokemonShinyPalettes");
-        for (Species pk : getSpeciesSet()) {
+
+        // Compressing is independent for each palette, so it's done concurrently up front.
+        // Writing stays in order, since where each palette ends up depends on what was written before it.
+        List<Species> speciesList = new ArrayList<>(getSpeciesSet());
+        List<Callable<byte[][]>> compressors = new ArrayList<>();
+        for (Species pk : speciesList) {
+            Palette normal = pk.getNormalPalette();
+            Palette shiny = pk.getShinyPalette();
+            compressors.add(() -> new byte[][]{DSCmp.compressLZ10(normal.toBytes()), DSCmp.compressLZ10(shiny.toBytes())});
+        }
+        List<byte[][]> compressed = computeConcurrently(compressors);
+
+        for (int j = 0; j < speciesList.size(); j++) {
+            Species pk = speciesList.get(j);
+            byte[] compressedNormal = compressed.get(j)[0];
+            byte[] compressedShiny = compressed.get(j)[1];
             int pokeNumber = pokedexToInternal[pk.getNumber()];
             int normalPalPointerOffset = normalPaletteTableOffset + pokeNumber * 8;
             int shinyPalPointerOffset = shinyPaletteTableOffset + pokeNumber * 8;
@@ -4234,14 +4287,12 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
                 int[] altFormeShinyPointerOffsets = IntStream.range(0, Gen3Constants.unownFormeCount - 1)
                         .map(i -> shinyPaletteTableOffset + (Gen3Constants.unownBIndex + i) * 8)
                         .toArray();
-                rewriteCompressedData(normalPalPointerOffset, pk.getNormalPalette().toBytes(),
-                        altFormeNormalPointerOffsets);
-                rewriteCompressedData(shinyPalPointerOffset, pk.getShinyPalette().toBytes(),
-                        altFormeShinyPointerOffsets);
+                rewritePrecompressedData(normalPalPointerOffset, compressedNormal, altFormeNormalPointerOffsets);
+                rewritePrecompressedData(shinyPalPointerOffset, compressedShiny, altFormeShinyPointerOffsets);
 
             } else {
-                rewriteCompressedPalette(normalPalPointerOffset, pk.getNormalPalette());
-                rewriteCompressedPalette(shinyPalPointerOffset, pk.getShinyPalette());
+                rewritePrecompressedData(normalPalPointerOffset, compressedNormal, new int[0]);
+                rewritePrecompressedData(shinyPalPointerOffset, compressedShiny, new int[0]);
             }
         }
     }
@@ -4508,6 +4559,15 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
                 DSCmp::compressLZ10, this::lengthOfCompressedDataAt);
     }
 
+    /**
+     * Like {@link #rewriteCompressedData(int, byte[], int[])}, but for data already compressed with
+     * {@link DSCmp#compressLZ10(byte[])}.
+     */
+    private void rewritePrecompressedData(int pointerOffset, byte[] compressed, int[] secondaryPointerOffsets) {
+        new DataRewriter<byte[]>().rewriteData(pointerOffset, compressed, secondaryPointerOffsets,
+                data -> data, this::lengthOfCompressedDataAt);
+    }
+
     /*
      * Returns the length in bytes of the compressed data at the pointer. NOT the
      * length of the uncompressed data, but the length of it when compressed.
@@ -4590,6 +4650,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 
     @Override
     public Gen3PokemonImageGetter createPokemonImageGetter(Species pk) {
+        subsystems.load(GameSubsystem.PALETTES);
         return new Gen3PokemonImageGetter(pk);
     }
 
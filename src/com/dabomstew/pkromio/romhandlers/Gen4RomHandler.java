@@ -139,7 +139,7 @@ public class Gen4RomHandler extends AbstractDSRomHandler {
 		loadItems();
 		loadPokemonStats();
 		loadMoves();
-		loadPokemonPalettes();
+		subsystems.register(GameSubsystem.PALETTES, this::loadPokemonPalettes);
 		abilityNames = getStrings(romEntry.getIntValue("AbilityNamesTextOffset"));
 		loadedWildMapNames = false;
 
@@ -3907,6 +3907,32 @@ public class Gen4RomHandler extends AbstractDSRomHandler {
 		}
 	}
 
+	@Override
+	public CompatibilityMatrix getTMHMCompatibilityMatrix() {
+		int formeCount = Gen4Constants.getFormeCount(romEntry.getRomType());
+		CompatibilityMatrix compat = new CompatibilityMatrix(
+				Arrays.asList(pokes).subList(1, Gen4Constants.pokemonCount + formeCount + 1),
+				Gen4Constants.tmCount + Gen4Constants.hmCount);
+		for (int i = 1; i <= Gen4Constants.pokemonCount + formeCount; i++) {
+			byte[] data;
+			if (i > Gen4Constants.pokemonCount) {
+				data = pokeNarc.files.get(i + Gen4Constants.formeOffset);
+			} else {
+				data = pokeNarc.files.get(i);
+			}
+			compat.readRowFromBitfield(pokes[i], data, Gen4Constants.bsTMHMCompatOffset, 13);
+		}
+		return compat;
+	}
+
+	@Override
+	public void setTMHMCompatibilityMatrix(CompatibilityMatrix compatData) {
+		for (Species pkmn : compatData.getSpecies()) {
+			byte[] data = pokeNarc.files.get(pkmn.getNumber());
+			compatData.writeRowToBitfield(pkmn, data, Gen4Constants.bsTMHMCompatOffset, 13);
+		}
+	}
+
 	@Override
 	public boolean hasMoveTutors() {
 		return romEntry.getRomType() != Gen4Constants.Type_DP;
@@ -5932,9 +5958,20 @@ public class Gen4RomHandler extends AbstractDSRomHandler {
     }
 
 	public Gen4PokemonImageGetter createPokemonImageGetter(Species pk) {
+		subsystems.load(GameSubsystem.PALETTES);
 		return new Gen4PokemonImageGetter(pk);
 	}
 
+	@Override
+	protected String[] getPokemonImageArchivePaths() {
+		return new String[]{getRomEntry().getFile("PokemonGraphics"), getRomEntry().getFile("OtherPokemonGraphics")};
+	}
+
+	@Override
+	protected DSPokemonImageGetter createSharedPokemonImageGetter(Species pk, NARCArchive[] archives) {
+		return createPokemonImageGetter(pk).setOtherPokeGraphicsNARC(archives[1]).setPokeGraphicsNARC(archives[0]);
+	}
+
 	public class Gen4PokemonImageGetter extends DSPokemonImageGetter {
 
 		protected NARCArchive otherPokeGraphicsNARC;
@@ -6028,16 +6065,10 @@ public class Gen4RomHandler extends AbstractDSRomHandler {
 		private Palette getPalette() {
 			// placeholder code, until the form rewrite comes along
 			if (pk.isBaseForme() && forme != 0) {
-				String NARCpath = getRomEntry().getFile("OtherPokemonGraphics");
-				NARCArchive NARC;
-				try {
-					NARC = readNARC(NARCpath);
-				} catch (IOException e) {
-					throw new RomIOException(e);
-				}
-
+				// beforeGet() has already read the archive
 				int[][] palettes = Gen4Constants.getOtherPokemonGraphicsPalettes(romEntry.getRomType()).get(pk.getNumber());
-				return shiny ? readPalette(NARC, palettes[1][forme]) : readPalette(NARC, palettes[0][forme]);
+				return shiny ? readPalette(otherPokeGraphicsNARC, palettes[1][forme])
+						: readPalette(otherPokeGraphicsNARC, palettes[0][forme]);
 			} else {
 				return shiny ? pk.getShinyPalette() : pk.getNormalPalette();
 			}
@@ -100,6 +100,8 @@ public class Gen5RomHandler extends AbstractDSRomHandler {
     private Map<String, Long> actualFileCRC32s;
     
     private NARCArchive pokeNarc, moveNarc, stringsNarc, storyTextNarc, scriptNarc, shopNarc;
+    private final StringTableCache<NARCArchive> stringTables =
+            new StringTableCache<>(this::decodeStrings, this::encodeStrings);
 
     @Override
     protected int getARM9Offset() {
@@ -133,10 +135,10 @@ public class Gen5RomHandler extends AbstractDSRomHandler {
         this.romEntry = entryFor(romCode, version);
         try {
             stringsNarc = readNARC(romEntry.getFile("TextStrings"));
-            storyTextNarc = readNARC(romEntry.getFile("TextStory"));
         } catch (IOException e) {
             throw new RomIOException(e);
         }
+        subsystems.register(GameSubsystem.TEXT, this::loadStoryText);
 
         try {
             scriptNarc = readNARC(romEntry.getFile("Scripts"));
@@ -144,16 +146,12 @@ public class Gen5RomHandler extends AbstractDSRomHandler {
             throw new RomIOException(e);
         }
         if (romEntry.getRomType() == Gen5Constants.Type_BW2) {
-            try {
-                shopNarc = readNARC(romEntry.getFile("ShopItems"));
-            } catch (IOException e) {
-                throw new RomIOException(e);
-            }
+            subsystems.register(GameSubsystem.SHOPS, this::loadShopNarc);
         }
         loadItems();
         loadPokemonStats();
         loadMoves();
-        loadPokemonPalettes();
+        subsystems.register(GameSubsystem.PALETTES, this::loadPokemonPalettes);
 
         abilityNames = getStrings(false, romEntry.getIntValue("AbilityNamesTextOffset"));
         if (romEntry.getRomType() == Gen5Constants.Type_BW) {
@@ -448,8 +446,11 @@ public class Gen5RomHandler extends AbstractDSRomHandler {
     protected void prepareSaveRom() {
         super.prepareSaveRom();
         try {
+            stringTables.writeBackConcurrently();
             writeNARC(romEntry.getFile("TextStrings"), stringsNarc);
-            writeNARC(romEntry.getFile("TextStory"), storyTextNarc);
+            if (subsystems.isLoaded(GameSubsystem.TEXT)) {
+                writeNARC(romEntry.getFile("TextStory"), storyTextNarc);
+            }
         } catch (IOException e) {
             throw new RomIOException(e);
         }
@@ -2607,6 +2608,38 @@ public class Gen5RomHandler extends AbstractDSRomHandler {
         }
     }
 
+    @Override
+    public CompatibilityMatrix getTMHMCompatibilityMatrix() {
+        int formeCount = Gen5Constants.getFormeCount(romEntry.getRomType());
+        int formeOffset = Gen5Constants.getFormeOffset(romEntry.getRomType());
+        CompatibilityMatrix compat = new CompatibilityMatrix(
+                Arrays.asList(pokes).subList(1, Gen5Constants.pokemonCount + formeCount + 1),
+                Gen5Constants.tmCount + Gen5Constants.hmCount);
+        for (int i = 1; i <= Gen5Constants.pokemonCount + formeCount; i++) {
+            byte[] data;
+            if (i > Gen5Constants.pokemonCount) {
+                data = pokeNarc.files.get(i + formeOffset);
+            } else {
+                data = pokeNarc.files.get(i);
+            }
+            compat.readRowFromBitfield(pokes[i], data, Gen5Constants.bsTMHMCompatOffset, 13);
+        }
+        return compat;
+    }
+
+    @Override
+    public void setTMHMCompatibilityMatrix(CompatibilityMatrix compatData) {
+        int formeOffset = Gen5Constants.getFormeOffset(romEntry.getRomType());
+        for (Species pkmn : compatData.getSpecies()) {
+            int number = pkmn.getNumber();
+            if (number > Gen5Constants.pokemonCount) {
+                number += formeOffset;
+            }
+            byte[] data = pokeNarc.files.get(number);
+            compatData.writeRowToBitfield(pkmn, data, Gen5Constants.bsTMHMCompatOffset, 13);
+        }
+    }
+
     @Override
     public boolean hasMoveTutors() {
         return romEntry.getRomType() == Gen5Constants.Type_BW2;
@@ -2724,17 +2757,47 @@ public class Gen5RomHandler extends AbstractDSRomHandler {
         }
     }
 
+    private void loadStoryText() {
+        try {
+            storyTextNarc = readNARC(romEntry.getFile("TextStory"));
+        } catch (IOException e) {
+            throw new RomIOException(e);
+        }
+    }
+
+    private void loadShopNarc() {
+        try {
+            shopNarc = readNARC(romEntry.getFile("ShopItems"));
+        } catch (IOException e) {
+            throw new RomIOException(e);
+        }
+    }
+
     private List<String> getStrings(boolean isStoryText, int index) {
+        if (isStoryText) {
+            subsystems.load(GameSubsystem.TEXT);
+        }
         NARCArchive baseNARC = isStoryText ? storyTextNarc : stringsNarc;
-        byte[] rawFile = baseNARC.files.get(index);
-        return new ArrayList<>(PPTxtHandler.readTexts(rawFile));
+        return stringTables.get(baseNARC, index);
+    }
+
+    private List<String> decodeStrings(NARCArchive textNARC, int index) {
+        byte[] rawFile = textNARC.files.get(index);
+        return PPTxtHandler.readTexts(rawFile);
     }
 
     private void setStrings(boolean isStoryText, int index, List<String> strings) {
+        if (isStoryText) {
+            subsystems.load(GameSubsystem.TEXT);
+        }
         NARCArchive baseNARC = isStoryText ? storyTextNarc : stringsNarc;
-        byte[] oldRawFile = baseNARC.files.get(index);
+        stringTables.set(baseNARC, index, strings);
+    }
+
+    private void encodeStrings(NARCArchive textNARC, int index, List<String> strings) {
+        byte[] oldRawFile = textNARC.files.get(index);
         byte[] newRawFile = PPTxtHandler.saveEntry(oldRawFile, strings);
-        baseNARC.files.set(index, newRawFile);
+        textNARC.files.set(index, newRawFile);
     }
 
     @Override
@@ -3647,6 +3710,7 @@ public class Gen5RomHandler extends AbstractDSRomHandler {
     }
 
     private List<Shop> getShopsBW2() {
+        subsystems.load(GameSubsystem.SHOPS);
         int shopCount = romEntry.getIntValue("ShopCount");
         List<Shop> shops = new ArrayList<>();
 
@@ -3756,6 +3820,7 @@ public class Gen5RomHandler extends AbstractDSRomHandler {
     }
 
     private void writeBW2ShopItems(List<Shop> shops) {
+        subsystems.load(GameSubsystem.SHOPS);
         try {
             for (int i = 0; i < shops.size(); i++) {
                 List<Item> shopContents = shops.get(i).getItems();
@@ -4063,6 +4128,7 @@ public class Gen5RomHandler extends AbstractDSRomHandler {
 
     @Override
     public Gen5PokemonImageGetter createPokemonImageGetter(Species pk) {
+        subsystems.load(GameSubsystem.PALETTES);
         return new Gen5PokemonImageGetter(pk);
     }
 
@@ -98,6 +98,8 @@ public class Gen6RomHandler extends Abstract3DSRomHandler {
     private Map<String, Long> actualFileCRC32s;
 
     private GARCArchive pokeGarc, moveGarc, stringsGarc, storyTextGarc;
+    private final StringTableCache<GARCArchive> stringTables =
+            new StringTableCache<>(this::decodeStrings, this::encodeStrings);
 
     @Override
     protected boolean detect3DSRom(String productCode, String titleId) {
@@ -133,10 +135,10 @@ public class Gen6RomHandler extends Abstract3DSRomHandler {
 
         try {
             stringsGarc = readGARC(romEntry.getFile("TextStrings"),true);
-            storyTextGarc = readGARC(romEntry.getFile("StoryText"), true);
         } catch (IOException e) {
             throw new RomIOException(e);
         }
+        subsystems.register(GameSubsystem.TEXT, this::loadStoryText);
 
         loadItems();
 
@@ -422,22 +424,44 @@ public class Gen6RomHandler extends Abstract3DSRomHandler {
         }
     }
 
+    private void loadStoryText() {
+        try {
+            storyTextGarc = readGARC(romEntry.getFile("StoryText"), true);
+        } catch (IOException e) {
+            throw new RomIOException(e);
+        }
+    }
+
     private List<String> getStrings(boolean isStoryText, int index) {
+        if (isStoryText) {
+            subsystems.load(GameSubsystem.TEXT);
+        }
         GARCArchive baseGARC = isStoryText ? storyTextGarc : stringsGarc;
         return getStrings(baseGARC, index);
     }
 
     private List<String> getStrings(GARCArchive textGARC, int index) {
+        return stringTables.get(textGARC, index);
+    }
+
+    private List<String> decodeStrings(GARCArchive textGARC, int index) {
         byte[] rawFile = textGARC.files.get(index).get(0);
-        return new ArrayList<>(N3DSTxtHandler.readTexts(rawFile,true,romEntry.getRomType()));
+        return N3DSTxtHandler.readTexts(rawFile,true,romEntry.getRomType());
     }
 
     private void setStrings(boolean isStoryText, int index, List<String> strings) {
+        if (isStoryText) {
+            subsystems.load(GameSubsystem.TEXT);
+        }
         GARCArchive baseGARC = isStoryText ? storyTextGarc : stringsGarc;
         setStrings(baseGARC, index, strings);
     }
 
     private void setStrings(GARCArchive textGARC, int index, List<String> strings) {
+        stringTables.set(textGARC, index, strings);
+    }
+
+    private void encodeStrings(GARCArchive textGARC, int index, List<String> strings) {
         byte[] oldRawFile = textGARC.files.get(index).get(0);
         try {
             byte[] newRawFile = N3DSTxtHandler.saveEntry(oldRawFile, strings, romEntry.getRomType());
@@ -576,8 +600,11 @@ public class Gen6RomHandler extends Abstract3DSRomHandler {
     	super.prepareSaveRom();
         try {
             writeCode(code);
+            stringTables.writeBack();
             writeGARC(romEntry.getFile("TextStrings"), stringsGarc);
-            writeGARC(romEntry.getFile("StoryText"), storyTextGarc);
+            if (subsystems.isLoaded(GameSubsystem.TEXT)) {
+                writeGARC(romEntry.getFile("StoryText"), storyTextGarc);
+            }
         } catch (IOException e) {
             throw new RomIOException(e);
         }
@@ -2962,6 +2989,27 @@ public class Gen6RomHandler extends Abstract3DSRomHandler {
         }
     }
 
+    @Override
+    public CompatibilityMatrix getTMHMCompatibilityMatrix() {
+        int formeCount = Gen6Constants.getFormeCount(romEntry.getRomType());
+        CompatibilityMatrix compat = new CompatibilityMatrix(
+                Arrays.asList(pokes).subList(1, Gen6Constants.pokemonCount + formeCount + 1),
+                Gen6Constants.tmCount + Gen6Constants.getHMCount(romEntry.getRomType()));
+        for (int i = 1; i <= Gen6Constants.pokemonCount + formeCount; i++) {
+            byte[] data = pokeGarc.files.get(i).get(0);
+            compat.readRowFromBitfield(pokes[i], data, Gen6Constants.bsTMHMCompatOffset, 14);
+        }
+        return compat;
+    }
+
+    @Override
+    public void setTMHMCompatibilityMatrix(CompatibilityMatrix compatData) {
+        for (Species pkmn : compatData.getSpecies()) {
+            byte[] data = pokeGarc.files.get(pkmn.getNumber()).get(0);
+            compatData.writeRowToBitfield(pkmn, data, Gen6Constants.bsTMHMCompatOffset, 14);
+        }
+    }
+
     @Override
     public boolean hasMoveTutors() {
         return romEntry.getRomType() == Gen6Constants.Type_ORAS;
@@ -3273,7 +3321,7 @@ public class Gen6RomHandler extends Abstract3DSRomHandler {
         for (String nonEnglishLanguage : nonEnglishLanguages) {
             String key = "TextStrings" + nonEnglishLanguage;
             GARCArchive stringsGarcForLanguage = readGARC(romEntry.getFile(key),true);
-            setStrings(stringsGarcForLanguage, index, strings);
+            encodeStrings(stringsGarcForLanguage, index, strings);
             writeGARC(romEntry.getFile(key), stringsGarcForLanguage);
         }
     }
@@ -3984,9 +4032,7 @@ public class Gen6RomHandler extends Abstract3DSRomHandler {
     }
 
     @Override
-    public BufferedImage getPokemonIcon(int iconIndex, GARCArchive pokeGraphicsGARC,
-                                        boolean transparentBackground, boolean includePalette) {
-        byte[] icon = pokeGraphicsGARC.files.get(iconIndex).get(0);
+    public BufferedImage getPokemonIcon(byte[] icon, boolean transparentBackground, boolean includePalette) {
         Palette palette = Palette.read3DSIconPalette(icon);
 
         int width = 64;
@@ -90,6 +90,8 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
     private Map<String, Long> actualFileCRC32s;
 
     private GARCArchive pokeGarc, moveGarc, encounterGarc, stringsGarc, storyTextGarc;
+    private final StringTableCache<GARCArchive> stringTables =
+            new StringTableCache<>(this::decodeStrings, this::encodeStrings);
 
     @Override
     protected boolean detect3DSRom(String productCode, String titleId) {
@@ -125,11 +127,11 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
 
         try {
             stringsGarc = readGARC(romEntry.getFile("TextStrings"), true);
-            storyTextGarc = readGARC(romEntry.getFile("StoryText"), true);
-            areaDataList = getAreaData();
         } catch (IOException e) {
             throw new RomIOException(e);
         }
+        subsystems.register(GameSubsystem.TEXT, this::loadStoryText);
+        subsystems.register(GameSubsystem.ENCOUNTERS, this::loadAreaData);
 
         loadItems();
 
@@ -146,22 +148,52 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
         }
     }
 
+    private void loadStoryText() {
+        try {
+            storyTextGarc = readGARC(romEntry.getFile("StoryText"), true);
+        } catch (IOException e) {
+            throw new RomIOException(e);
+        }
+    }
+
+    private void loadAreaData() {
+        try {
+            areaDataList = getAreaData();
+        } catch (IOException e) {
+            throw new RomIOException(e);
+        }
+    }
+
     private List<String> getStrings(boolean isStoryText, int index) {
+        if (isStoryText) {
+            subsystems.load(GameSubsystem.TEXT);
+        }
         GARCArchive baseGARC = isStoryText ? storyTextGarc : stringsGarc;
         return getStrings(baseGARC, index);
     }
 
     private List<String> getStrings(GARCArchive textGARC, int index) {
+        return stringTables.get(textGARC, index);
+    }
+
+    private List<String> decodeStrings(GARCArchive textGARC, int index) {
         byte[] rawFile = textGARC.files.get(index).get(0);
-        return new ArrayList<>(N3DSTxtHandler.readTexts(rawFile,true,romEntry.getRomType()));
+        return N3DSTxtHandler.readTexts(rawFile,true,romEntry.getRomType());
     }
 
     private void setStrings(boolean isStoryText, int index, List<String> strings) {
+        if (isStoryText) {
+            subsystems.load(GameSubsystem.TEXT);
+        }
         GARCArchive baseGARC = isStoryText ? storyTextGarc : stringsGarc;
         setStrings(baseGARC, index, strings);
     }
 
     private void setStrings(GARCArchive textGARC, int index, List<String> strings) {
+        stringTables.set(textGARC, index, strings);
+    }
+
+    private void encodeStrings(GARCArchive textGARC, int index, List<String> strings) {
         byte[] oldRawFile = textGARC.files.get(index).get(0);
         try {
             byte[] newRawFile = N3DSTxtHandler.saveEntry(oldRawFile, strings, romEntry.getRomType());
@@ -639,9 +671,14 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
         super.prepareSaveRom();
         try {
             writeCode(code);
-            writeGARC(romEntry.getFile("WildPokemon"), encounterGarc);
+            if (subsystems.isLoaded(GameSubsystem.ENCOUNTERS)) {
+                writeGARC(romEntry.getFile("WildPokemon"), encounterGarc);
+            }
+            stringTables.writeBack();
             writeGARC(romEntry.getFile("TextStrings"), stringsGarc);
-            writeGARC(romEntry.getFile("StoryText"), storyTextGarc);
+            if (subsystems.isLoaded(GameSubsystem.TEXT)) {
+                writeGARC(romEntry.getFile("StoryText"), storyTextGarc);
+            }
         } catch (IOException e) {
             throw new RomIOException(e);
         }
@@ -1193,6 +1230,7 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
 
     @Override
     public List<EncounterArea> getEncounters(boolean useTimeOfDay) {
+        subsystems.load(GameSubsystem.ENCOUNTERS);
         List<EncounterArea> encounterAreas = new ArrayList<>();
         for (AreaData areaData : areaDataList) {
             if (!areaData.hasTables) {
@@ -1309,6 +1347,7 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
 
     @Override
     public void setEncounters(boolean useTimeOfDay, List<EncounterArea> encounterAreas) {
+        subsystems.load(GameSubsystem.ENCOUNTERS);
         Iterator<EncounterArea> areaIterator = encounterAreas.iterator();
         for (AreaData areaData : areaDataList) {
             if (!areaData.hasTables) {
@@ -2538,6 +2577,27 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
         }
     }
 
+    @Override
+    public CompatibilityMatrix getTMHMCompatibilityMatrix() {
+        int pokemonCount = Gen7Constants.getPokemonCount(romEntry.getRomType());
+        int formeCount = Gen7Constants.getFormeCount(romEntry.getRomType());
+        CompatibilityMatrix compat = new CompatibilityMatrix(
+                Arrays.asList(pokes).subList(1, pokemonCount + formeCount + 1), Gen7Constants.tmCount);
+        for (int i = 1; i <= pokemonCount + formeCount; i++) {
+            byte[] data = pokeGarc.files.get(i).get(0);
+            compat.readRowFromBitfield(pokes[i], data, Gen7Constants.bsTMHMCompatOffset, 13);
+        }
+        return compat;
+    }
+
+    @Override
+    public void setTMHMCompatibilityMatrix(CompatibilityMatrix compatData) {
+        for (Species pkmn : compatData.getSpecies()) {
+            byte[] data = pokeGarc.files.get(pkmn.getNumber()).get(0);
+            compatData.writeRowToBitfield(pkmn, data, Gen7Constants.bsTMHMCompatOffset, 13);
+        }
+    }
+
     @Override
     public boolean hasMoveTutors() {
         return romEntry.getRomType() == Gen7Constants.Type_USUM;
@@ -2837,6 +2897,7 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
         }
         List<String> names = new ArrayList<>();
         List<Integer> areaIndices = Gen7Constants.getAreaIndicesForLocationEvolution(et, romEntry.getRomType());
+        subsystems.load(GameSubsystem.ENCOUNTERS);
         for (int areaIndex : areaIndices) {
             names.add(areaDataList.get(areaIndex).name);
         }
@@ -2889,7 +2950,7 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
         for (String nonEnglishLanguage : nonEnglishLanguages) {
             String key = "TextStrings" + nonEnglishLanguage;
             GARCArchive stringsGarcForLanguage = readGARC(romEntry.getFile(key),true);
-            setStrings(stringsGarcForLanguage, index, strings);
+            encodeStrings(stringsGarcForLanguage, index, strings);
             writeGARC(romEntry.getFile(key), stringsGarcForLanguage);
         }
     }
@@ -3038,6 +3099,7 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
     }
 
     public List<Integer> getFieldItemIds() {
+        subsystems.load(GameSubsystem.ENCOUNTERS);
         List<Integer> fieldItems = new ArrayList<>();
         int numberOfAreas = encounterGarc.files.size() / 11;
         for (int i = 0; i < numberOfAreas; i++) {
@@ -3075,6 +3137,7 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
     }
 
     public void setFieldItemIds(List<Integer> items) {
+        subsystems.load(GameSubsystem.ENCOUNTERS);
         try {
             int numberOfAreas = encounterGarc.files.size() / 11;
             Iterator<Integer> iterItems = items.iterator();
@@ -3470,9 +3533,7 @@ public class Gen7RomHandler extends Abstract3DSRomHandler {
     }
 
     @Override
-    public BufferedImage getPokemonIcon(int iconIndex, GARCArchive pokeGraphicsGARC,
-                                        boolean transparentBackground, boolean includePalette) {
-        byte[] iconBytes = pokeGraphicsGARC.files.get(iconIndex).get(0);
+    public BufferedImage getPokemonIcon(byte[] iconBytes, boolean transparentBackground, boolean includePalette) {
         BFLIM icon = new BFLIM(iconBytes);
         return icon.getImage();
     }
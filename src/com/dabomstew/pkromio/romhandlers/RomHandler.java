@@ -24,12 +24,15 @@ package com.dabomstew.pkromio.romhandlers;
 
 import com.dabomstew.pkromio.MiscTweak;
 import com.dabomstew.pkromio.gamedata.*;
+import com.dabomstew.pkromio.graphics.images.SpriteSheetCache;
 import com.dabomstew.pkromio.graphics.packs.GraphicsPack;
+import com.dabomstew.pkromio.romio.PatchFormat;
 import com.dabomstew.pkromio.services.RestrictedSpeciesService;
 import com.dabomstew.pkromio.services.TypeService;
 
 import java.awt.image.BufferedImage;
 import java.io.PrintStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -69,11 +72,45 @@ public interface RomHandler {
     // =======================
 
     boolean loadRom(String filename);
+
+    /**
+     * Sets whether the parts of the game data listed in {@link GameSubsystem} are loaded lazily, i.e. on first
+     * access instead of by {@link #loadRom(String)}. Must be called before loadRom() to have an effect.
+     * False by default.
+     */
+    void setLazyLoading(boolean lazyLoading);
+
+    /**
+     * Loads the given subsystems (and their dependencies) if they have not been loaded already.
+     * With lazy loading, this can be used to preload what is known to be needed.
+     */
+    void loadSubsystems(Collection<GameSubsystem> subsystems);
+
+    boolean isSubsystemLoaded(GameSubsystem subsystem);
     
     boolean saveRom(String filename, long seed, boolean saveAsDirectory);
 
+    /**
+     * Saves the edited Rom as a patch against the loaded Rom file, instead of as a full Rom image.
+     * The patch is checked by applying it to the loaded Rom file before it is written.<br>
+     * Returns false without touching the Rom if {@link #canSaveRomPatch()} is false.
+     */
+    boolean saveRomPatch(String filename, PatchFormat format);
+
+    /**
+     * Whether the edited Rom can be saved as a patch. Not the case for 3DS games, which are saved as a CXI or
+     * LayeredFS directory rather than an image of the loaded file.
+     */
+    boolean canSaveRomPatch();
+
     String loadedFilename();
 
+    /**
+     * Releases what the RomHandler keeps outside of memory, i.e. the open Rom file and any temporary files
+     * extracted from it. The RomHandler can't be used after this.
+     */
+    void close();
+
     // =============================================================
     // Methods relating to game updates for the 3DS and Switch games
     // =============================================================
@@ -399,6 +436,14 @@ public interface RomHandler {
 
     void setTMHMCompatibility(Map<Species, boolean[]> compatData);
 
+    /**
+     * Gets the same data as {@link #getTMHMCompatibility()}, but as a {@link CompatibilityMatrix}.
+     * Columns are indexed the same way as the boolean arrays.
+     */
+    CompatibilityMatrix getTMHMCompatibilityMatrix();
+
+    void setTMHMCompatibilityMatrix(CompatibilityMatrix compatData);
+
     // ===========
     // Move Tutors
     // ===========
@@ -417,6 +462,14 @@ public interface RomHandler {
 
     void setMoveTutorCompatibility(Map<Species, boolean[]> compatData);
 
+    /**
+     * Gets the same data as {@link #getMoveTutorCompatibility()}, but as a {@link CompatibilityMatrix}.
+     * Columns are indexed the same way as the boolean arrays.
+     */
+    CompatibilityMatrix getMoveTutorCompatibilityMatrix();
+
+    void setMoveTutorCompatibilityMatrix(CompatibilityMatrix compatData);
+
     // =============
     // Trainer Names
     // =============
@@ -691,6 +744,12 @@ public interface RomHandler {
 
     List<BufferedImage> getAllPokemonImages();
 
+    /**
+     * Sets a cache for {@link #getAllPokemonImages()} to keep its images in, so later calls with the same
+     * ROM and palettes can load them instead of decoding them again. Null (the default) means no cache.
+     */
+    void setSpriteSheetCache(SpriteSheetCache spriteSheetCache);
+
     // ======
     // Types
     // ======
@@ -703,4 +762,4 @@ public interface RomHandler {
 
     boolean hasTypeEffectivenessSupport();
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.dabomstew.pkromio.romhandlers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Caches decoded string tables, i.e. the text files of a text archive, so each is decoded at most once.<br>
+ * Changed tables are only kept in the cache, and marked dirty. {@link #writeBack()} encodes them back into
+ * their archives, once each; it should be called before the archives are saved.
+ * <br>
+ * Tables are keyed by archive and index. Archives are compared by identity, so an archive which has been
+ * re-read counts as a different archive.
+ *
+ * @param <A> The type of the text archives.
+ */
+public class StringTableCache<A> {
+
+    public interface Decoder<A> {
+        List<String> decode(A archive, int index);
+    }
+
+    public interface Encoder<A> {
+        void encode(A archive, int index, List<String> strings);
+    }
+
+    private static class Table {
+        private List<String> strings;
+        private boolean dirty;
+
+        private Table(List<String> strings) {
+            this.strings = strings;
+        }
+    }
+
+    private final Decoder<A> decoder;
+    private final Encoder<A> encoder;
+    private final Map<A, Map<Integer, Table>> tables = new IdentityHashMap<>();
+
+    public StringTableCache(Decoder<A> decoder, Encoder<A> encoder) {
+        this.decoder = decoder;
+        this.encoder = encoder;
+    }
+
+    /**
+     * Returns a copy of the string table, which the caller is free to modify.
+     */
+    public List<String> get(A archive, int index) {
+        return new ArrayList<>(getTable(archive, index).strings);
+    }
+
+    /**
+     * Replaces the string table. It is not encoded until {@link #writeBack()}.
+     */
+    public void set(A archive, int index, List<String> strings) {
+        Table table = tables.computeIfAbsent(archive, a -> new HashMap<>())
+                .computeIfAbsent(index, i -> new Table(null));
+        table.strings = new ArrayList<>(strings);
+        table.dirty = true;
+    }
+
+    private Table getTable(A archive, int index) {
+        return tables.computeIfAbsent(archive, a -> new HashMap<>())
+                .computeIfAbsent(index, i -> new Table(decoder.decode(archive, i)));
+    }
+
+    /**
+     * Encodes all dirty string tables into their archives, and marks them as clean.
+     */
+    public void writeBack() {
+        for (Map.Entry<A, Map<Integer, Table>> archiveEntry : tables.entrySet()) {
+            for (Map.Entry<Integer, Table> tableEntry : archiveEntry.getValue().entrySet()) {
+                Table table = tableEntry.getValue();
+                if (table.dirty) {
+                    encoder.encode(archiveEntry.getKey(), tableEntry.getKey(), table.strings);
+                    table.dirty = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Like {@link #writeBack()}, but encodes the dirty string tables concurrently. Only use this if the
+     * {@link Encoder} may be called from several threads at once, for different tables; each call should only
+     * replace the file of its own table.
+     */
+    public void writeBackConcurrently() {
+        List<Callable<Void>> encodings = new ArrayList<>();
+        List<Table> encoded = new ArrayList<>();
+        for (Map.Entry<A, Map<Integer, Table>> archiveEntry : tables.entrySet()) {
+            for (Map.Entry<Integer, Table> tableEntry : archiveEntry.getValue().entrySet()) {
+                Table table = tableEntry.getValue();
+                if (table.dirty) {
+                    A archive = archiveEntry.getKey();
+                    int index = tableEntry.getKey();
+                    encodings.add(() -> {
+                        encoder.encode(archive, index, table.strings);
+                        return null;
+                    });
+                    encoded.add(table);
+                }
+            }
+        }
+        AbstractRomHandler.computeConcurrently(encodings);
+        for (Table table : encoded) {
+            table.dirty = false;
+        }
+    }
+
+    public int getDirtyCount() {
+        int count = 0;
+        for (Map<Integer, Table> archiveTables : tables.values()) {
+            for (Table table : archiveTables.values()) {
+                if (table.dirty) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+package com.dabomstew.pkromio.romhandlers;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of which {@link GameSubsystem}s a {@link RomHandler} has loaded, and loads the rest on request.<br>
+ * A RomHandler {@link #register(GameSubsystem, Runnable) registers} a loader for each subsystem it is able to defer.
+ * Subsystems without a registered loader are assumed to be loaded along with the ROM, and count as loaded once their
+ * dependencies are.
+ * <br>
+ * When not lazy, {@link #finishLoading()} loads all registered subsystems right away, so the RomHandler behaves
+ * as if it loaded everything eagerly.
+ */
+public class SubsystemLoader {
+
+    private final Map<GameSubsystem, Runnable> loaders = new EnumMap<>(GameSubsystem.class);
+    private final Set<GameSubsystem> loaded = EnumSet.noneOf(GameSubsystem.class);
+    private final Set<GameSubsystem> loading = EnumSet.noneOf(GameSubsystem.class);
+    private boolean lazy;
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Registers the loader of a subsystem, and marks it as not loaded.
+     */
+    public void register(GameSubsystem subsystem, Runnable loader) {
+        loaders.put(subsystem, loader);
+        loaded.remove(subsystem);
+    }
+
+    /**
+     * To be called once the ROM has been loaded. Loads all registered subsystems, unless lazy.
+     */
+    public void finishLoading() {
+        if (!lazy) {
+            for (GameSubsystem subsystem : loaders.keySet()) {
+                load(subsystem);
+            }
+        }
+    }
+
+    /**
+     * Loads the subsystem and its dependencies, if they are not already loaded.
+     */
+    public void load(GameSubsystem subsystem) {
+        if (loaded.contains(subsystem)) {
+            return;
+        }
+        if (!loading.add(subsystem)) {
+            throw new IllegalStateException("Circular dependency when loading " + subsystem);
+        }
+        try {
+            for (GameSubsystem dependency : subsystem.getDependencies()) {
+                load(dependency);
+            }
+            Runnable loader = loaders.get(subsystem);
+            if (loader != null) {
+                loader.run();
+            }
+            loaded.add(subsystem);
+        } finally {
+            loading.remove(subsystem);
+        }
+    }
+
+    /**
+     * Marks a subsystem as loaded without running its loader, e.g. because its data was set from the outside.
+     */
+    public void markLoaded(GameSubsystem subsystem) {
+        loaded.add(subsystem);
+    }
+
+    public boolean isLoaded(GameSubsystem subsystem) {
+        if (loaded.contains(subsystem)) {
+            return true;
+        }
+        if (loaders.containsKey(subsystem)) {
+            return false;
+        }
+        for (GameSubsystem dependency : subsystem.getDependencies()) {
+            if (!isLoaded(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
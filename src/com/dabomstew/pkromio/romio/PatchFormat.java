@@ -0,0 +1,26 @@
+package com.dabomstew.pkromio.romio;
+
+/**
+ * The patch formats a randomized ROM can be saved as, instead of as a full ROM image.
+ * See {@link RomPatcher}.
+ */
+public enum PatchFormat {
+    /**
+     * The IPS format. Can only patch the first 16 MiB of a ROM.
+     */
+    IPS("ips"),
+    /**
+     * The BPS format. Has no size limit, and includes checksums of the source, target and patch.
+     */
+    BPS("bps");
+
+    private final String extension;
+
+    PatchFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
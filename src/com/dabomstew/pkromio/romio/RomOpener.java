@@ -65,6 +65,7 @@ public class RomOpener {
     private final int[] allowedGenerations;
     private Map<String, String> gameUpdates = new HashMap<>();
     private boolean extraMemoryAvailable;
+    private boolean lazyLoading;
 
     /**
      * Creates a RomOpener, allowing ROMs of all Generations to be opened.
@@ -97,6 +98,13 @@ public class RomOpener {
         this.extraMemoryAvailable = extraMemoryAvailable;
     }
 
+    /**
+     * Sets whether opened ROMs load their game data lazily, see {@link RomHandler#setLazyLoading(boolean)}.
+     */
+    public void setLazyLoading(boolean lazyLoading) {
+        this.lazyLoading = lazyLoading;
+    }
+
     public Results openRomFile(File romFile) {
         RomHandler romHandler;
 
@@ -116,6 +124,7 @@ public class RomOpener {
                 }
 
                 try {
+                    romHandler.setLazyLoading(lazyLoading);
                     romHandler.loadRom(romFile.getAbsolutePath());
                     if (gameUpdates.containsKey(romHandler.getROMCode())) {
                         romHandler.loadGameUpdate(gameUpdates.get(romHandler.getROMCode()));
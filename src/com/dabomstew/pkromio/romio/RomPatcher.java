@@ -0,0 +1,592 @@
+package com.dabomstew.pkromio.romio;
+
+/*----------------------------------------------------------------------------*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Creates and applies {@link PatchFormat IPS and BPS} patches.<br>
+ * Both directions work on streams, reading the source and target once, front to back, so neither has to be
+ * in memory at once. Only the patch itself is kept in memory.
+ * <br>
+ * Applying is limited to what can be done in a single pass, which covers all patches created here:
+ * IPS records must be in order and not overlap, and BPS patches can't use the SourceCopy/TargetCopy actions.
+ */
+public class RomPatcher {
+
+    public interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    private static final byte[] IPS_MAGIC = "PATCH".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IPS_EOF = "EOF".getBytes(StandardCharsets.US_ASCII);
+    private static final int IPS_EOF_OFFSET = 0x454F46;
+    private static final int IPS_MAX_OFFSET = 0xFFFFFF;
+    private static final int IPS_MAX_RECORD_SIZE = 0xFFFF;
+    // a new record costs 5 bytes of header, so shorter runs of unchanged bytes are cheaper to include
+    private static final int IPS_MERGE_GAP = 5;
+
+    private static final byte[] BPS_MAGIC = "BPS1".getBytes(StandardCharsets.US_ASCII);
+    private static final int BPS_SOURCE_READ = 0;
+    private static final int BPS_TARGET_READ = 1;
+    private static final int BPS_FOOTER_SIZE = 12;
+    // an action costs at least 1 byte, so shorter runs of unchanged bytes are cheaper to include
+    private static final int BPS_MIN_SOURCE_RUN = 4;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Creates a patch which turns the source into the target, applies it to the source to check that
+     * it gives back the target, and then writes it to the given file.
+     */
+    public static void savePatch(PatchFormat format, StreamOpener source, long sourceLength,
+                                 StreamOpener target, long targetLength, String filename) throws IOException {
+        ByteArrayOutputStream patch = new ByteArrayOutputStream();
+        long targetCRC;
+        try (InputStream sourceStream = source.open(); InputStream targetStream = target.open()) {
+            targetCRC = createPatch(format, sourceStream, sourceLength, targetStream, targetLength, patch);
+        }
+        byte[] patchBytes = patch.toByteArray();
+        verifyPatch(format, source, patchBytes, targetLength, targetCRC);
+        try (FileOutputStream fos = new FileOutputStream(filename)) {
+            fos.write(patchBytes);
+        }
+    }
+
+    public static byte[] createPatch(PatchFormat format, byte[] source, byte[] target) throws IOException {
+        ByteArrayOutputStream patch = new ByteArrayOutputStream();
+        createPatch(format, new ByteArrayInputStream(source), source.length,
+                new ByteArrayInputStream(target), target.length, patch);
+        return patch.toByteArray();
+    }
+
+    /**
+     * Writes a patch which turns the source into the target. The streams must be exactly as long as
+     * their given lengths.
+     *
+     * @return The CRC32 of the target.
+     */
+    public static long createPatch(PatchFormat format, InputStream source, long sourceLength,
+                                   InputStream target, long targetLength, OutputStream patch) throws IOException {
+        ByteReader sourceReader = new ByteReader(source);
+        ByteReader targetReader = new ByteReader(target);
+        switch (format) {
+            case IPS:
+                createIPS(sourceReader, sourceLength, targetReader, targetLength, patch);
+                break;
+            case BPS:
+                createBPS(sourceReader, sourceLength, targetReader, targetLength, patch);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported patch format " + format);
+        }
+        if (targetReader.available() != 0) {
+            throw new IOException("Stream is longer than its given length");
+        }
+        return targetReader.getCRC();
+    }
+
+    public static byte[] applyPatch(PatchFormat format, byte[] source, byte[] patch) throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream(source.length);
+        applyPatch(format, new ByteArrayInputStream(source), patch, target);
+        return target.toByteArray();
+    }
+
+    public static void applyPatch(PatchFormat format, InputStream source, byte[] patch,
+                                  OutputStream target) throws IOException {
+        switch (format) {
+            case IPS:
+                applyIPS(new ByteReader(source), new PatchReader(patch), target);
+                break;
+            case BPS:
+                applyBPS(new ByteReader(source), new PatchReader(patch), target);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported patch format " + format);
+        }
+    }
+
+    /**
+     * Applies the patch to the source, and checks that the result has the given length and CRC32.
+     *
+     * @throws IOException if the patch can't be applied, or doesn't give the expected result.
+     */
+    public static void verifyPatch(PatchFormat format, StreamOpener source, byte[] patch,
+                                   long targetLength, long targetCRC) throws IOException {
+        CRCOutputStream result = new CRCOutputStream();
+        try (InputStream sourceStream = source.open()) {
+            applyPatch(format, sourceStream, patch, result);
+        }
+        if (result.length != targetLength || result.crc.getValue() != targetCRC) {
+            throw new IOException("Patch verification failed: applying the " + format
+                    + " patch does not give the saved ROM.");
+        }
+    }
+
+    private static void createIPS(ByteReader source, long sourceLength, ByteReader target, long targetLength,
+                                  OutputStream patch) throws IOException {
+        if (targetLength < sourceLength && targetLength > IPS_MAX_OFFSET) {
+            throw new IOException("IPS patches can't shrink a ROM to more than 16 MiB; use BPS instead.");
+        }
+        patch.write(IPS_MAGIC);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        int recordStart = -1;
+        byte[] gap = new byte[IPS_MERGE_GAP];
+        int gapLength = 0;
+        int previous = 0;
+        for (long i = 0; i < targetLength; i++) {
+            int t = target.readFully();
+            int s = i < sourceLength ? source.readFully() : -1;
+            if (s != t) {
+                if (recordStart != -1 && record.size() + gapLength + 1 > maxIPSRecordSize(recordStart)) {
+                    writeIPSRecord(patch, recordStart, record);
+                    recordStart = -1;
+                }
+                if (recordStart == -1) {
+                    long start = i;
+                    if (start == IPS_EOF_OFFSET) {
+                        // the offset would be read as "EOF", so start the record one (unchanged) byte early
+                        start--;
+                        record.write(previous);
+                    }
+                    if (start > IPS_MAX_OFFSET) {
+                        throw new IOException("IPS patches can't change data past 16 MiB; use BPS instead.");
+                    }
+                    recordStart = (int) start;
+                } else {
+                    record.write(gap, 0, gapLength);
+                }
+                gapLength = 0;
+                record.write(t);
+            } else if (recordStart != -1) {
+                gap[gapLength++] = (byte) t;
+                if (gapLength == IPS_MERGE_GAP) {
+                    writeIPSRecord(patch, recordStart, record);
+                    recordStart = -1;
+                    gapLength = 0;
+                }
+            }
+            previous = t;
+        }
+        if (recordStart != -1) {
+            writeIPSRecord(patch, recordStart, record);
+        }
+
+        patch.write(IPS_EOF);
+        if (targetLength < sourceLength) {
+            write24BE(patch, (int) targetLength);
+        }
+    }
+
+    private static int maxIPSRecordSize(int recordStart) {
+        // makes sure a record directly following this one can't start at the EOF offset
+        return recordStart + IPS_MAX_RECORD_SIZE == IPS_EOF_OFFSET ? IPS_MAX_RECORD_SIZE - 1 : IPS_MAX_RECORD_SIZE;
+    }
+
+    private static void writeIPSRecord(OutputStream patch, int start, ByteArrayOutputStream record) throws IOException {
+        write24BE(patch, start);
+        patch.write((record.size() >> 8) & 0xFF);
+        patch.write(record.size() & 0xFF);
+        record.writeTo(patch);
+        record.reset();
+    }
+
+    private static void applyIPS(ByteReader source, PatchReader patch, OutputStream target) throws IOException {
+        if (!patch.startsWith(IPS_MAGIC)) {
+            throw new IOException("not a valid IPS file");
+        }
+        patch.pos = IPS_MAGIC.length;
+        long written = 0;
+        while (true) {
+            int offset = patch.read24BE();
+            if (offset == IPS_EOF_OFFSET) {
+                break;
+            }
+            int size = patch.read16BE();
+            if (offset < written) {
+                throw new IOException("IPS records which are out of order can't be applied in a single pass");
+            }
+            copySource(source, target, offset - written);
+            written = offset;
+            if (size == 0) {
+                // RLE
+                int rleSize = patch.read16BE();
+                int rleByte = patch.read8();
+                for (int i = 0; i < rleSize; i++) {
+                    target.write(rleByte);
+                }
+                size = rleSize;
+            } else {
+                target.write(patch.data, patch.advance(size), size);
+            }
+            source.skip(size);
+            written += size;
+        }
+        if (patch.remaining() >= 3) {
+            // truncation extension
+            int targetLength = patch.read24BE();
+            if (targetLength < written) {
+                throw new IOException("IPS truncation below patched data can't be applied in a single pass");
+            }
+            copySource(source, target, targetLength - written);
+        } else {
+            long remaining;
+            while ((remaining = source.available()) > 0) {
+                copySource(source, target, remaining);
+            }
+        }
+    }
+
+    private static void createBPS(ByteReader source, long sourceLength, ByteReader target, long targetLength,
+                                  OutputStream patchOut) throws IOException {
+        CheckedOutputStream patch = new CheckedOutputStream(patchOut, new CRC32());
+        patch.write(BPS_MAGIC);
+        writeVarint(patch, sourceLength);
+        writeVarint(patch, targetLength);
+        writeVarint(patch, 0); // metadata size
+
+        ByteArrayOutputStream targetRun = new ByteArrayOutputStream();
+        byte[] sourceRunStart = new byte[BPS_MIN_SOURCE_RUN];
+        long sourceRun = 0;
+        for (long i = 0; i < targetLength; i++) {
+            int t = target.readFully();
+            int s = i < sourceLength ? source.readFully() : -1;
+            if (s == t) {
+                if (sourceRun < BPS_MIN_SOURCE_RUN) {
+                    sourceRunStart[(int) sourceRun] = (byte) t;
+                }
+                sourceRun++;
+                if (sourceRun == BPS_MIN_SOURCE_RUN) {
+                    writeBPSTargetRead(patch, targetRun);
+                }
+            } else {
+                endBPSSourceRun(patch, sourceRun, sourceRunStart, targetRun);
+                sourceRun = 0;
+                targetRun.write(t);
+            }
+        }
+        endBPSSourceRun(patch, sourceRun, sourceRunStart, targetRun);
+        writeBPSTargetRead(patch, targetRun);
+
+        source.drain();
+        writeLE32(patch, source.getCRC());
+        writeLE32(patch, target.getCRC());
+        writeLE32(patch, patch.getChecksum().getValue());
+    }
+
+    private static void endBPSSourceRun(OutputStream patch, long sourceRun, byte[] sourceRunStart,
+                                        ByteArrayOutputStream targetRun) throws IOException {
+        if (sourceRun == 0) {
+            return;
+        }
+        if (sourceRun < BPS_MIN_SOURCE_RUN && targetRun.size() > 0) {
+            targetRun.write(sourceRunStart, 0, (int) sourceRun);
+        } else {
+            writeVarint(patch, ((sourceRun - 1) << 2) | BPS_SOURCE_READ);
+        }
+    }
+
+    private static void writeBPSTargetRead(OutputStream patch, ByteArrayOutputStream targetRun) throws IOException {
+        if (targetRun.size() == 0) {
+            return;
+        }
+        writeVarint(patch, ((long) (targetRun.size() - 1) << 2) | BPS_TARGET_READ);
+        targetRun.writeTo(patch);
+        targetRun.reset();
+    }
+
+    private static void applyBPS(ByteReader source, PatchReader patch, OutputStream targetOut) throws IOException {
+        if (!patch.startsWith(BPS_MAGIC) || patch.data.length < BPS_MAGIC.length + BPS_FOOTER_SIZE) {
+            throw new IOException("not a valid BPS file");
+        }
+        int footer = patch.data.length - BPS_FOOTER_SIZE;
+        CRC32 patchCRC = new CRC32();
+        patchCRC.update(patch.data, 0, patch.data.length - 4);
+        if (patchCRC.getValue() != readLE32(patch.data, footer + 8)) {
+            throw new IOException("BPS patch checksum mismatch");
+        }
+
+        patch.pos = BPS_MAGIC.length;
+        long sourceLength = patch.readVarint();
+        long targetLength = patch.readVarint();
+        patch.advance(patch.readVarint()); // metadata
+
+        CheckedOutputStream target = new CheckedOutputStream(targetOut, new CRC32());
+        long written = 0;
+        while (patch.pos < footer) {
+            long data = patch.readVarint();
+            int action = (int) (data & 3);
+            long length = (data >>> 2) + 1;
+            if (written + length > targetLength) {
+                throw new IOException("BPS patch writes past the end of the target");
+            }
+            if (action == BPS_SOURCE_READ) {
+                if (written + length > sourceLength) {
+                    throw new IOException("BPS patch reads past the end of the source");
+                }
+                copySource(source, target, length);
+            } else if (action == BPS_TARGET_READ) {
+                target.write(patch.data, patch.advance(length), (int) length);
+                source.skip(length);
+            } else {
+                throw new IOException("BPS copy actions can't be applied in a single pass");
+            }
+            written += length;
+        }
+        if (written != targetLength) {
+            throw new IOException("BPS patch does not fill the target");
+        }
+
+        source.drain();
+        if (source.consumed != sourceLength || source.getCRC() != readLE32(patch.data, footer)) {
+            throw new IOException("BPS source checksum mismatch; the patch is for a different ROM");
+        }
+        if (target.getChecksum().getValue() != readLE32(patch.data, footer + 4)) {
+            throw new IOException("BPS target checksum mismatch");
+        }
+    }
+
+    private static void copySource(ByteReader source, OutputStream target, long length) throws IOException {
+        for (long i = 0; i < length; i++) {
+            int b = source.read();
+            // IPS may write past the end of the source, the space in between is filled with zeros
+            target.write(b == -1 ? 0 : b);
+        }
+    }
+
+    private static void write24BE(OutputStream out, int value) throws IOException {
+        out.write((value >> 16) & 0xFF);
+        out.write((value >> 8) & 0xFF);
+        out.write(value & 0xFF);
+    }
+
+    private static void writeLE32(OutputStream out, long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            out.write((int) (value >> (i * 8)) & 0xFF);
+        }
+    }
+
+    private static long readLE32(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 0; i < 4; i++) {
+            value |= (long) (data[offset + i] & 0xFF) << (i * 8);
+        }
+        return value;
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while (true) {
+            int x = (int) (value & 0x7F);
+            value >>>= 7;
+            if (value == 0) {
+                out.write(0x80 | x);
+                return;
+            }
+            out.write(x);
+            value--;
+        }
+    }
+
+    /**
+     * Reads a stream byte by byte, through a buffer. Unlike {@link java.io.BufferedInputStream} it is
+     * not synchronized, which matters when reading hundreds of MB one byte at a time.
+     * Keeps the CRC32 of everything read from the stream.
+     */
+    private static class ByteReader {
+        private final InputStream in;
+        private final byte[] buf = new byte[BUFFER_SIZE];
+        private final CRC32 crc = new CRC32();
+        private int pos;
+        private int limit;
+        private long consumed;
+        private boolean eof;
+
+        private ByteReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Returns the next byte, or -1 at the end of the stream.
+         */
+        private int read() throws IOException {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            consumed++;
+            return buf[pos++] & 0xFF;
+        }
+
+        private int readFully() throws IOException {
+            int b = read();
+            if (b == -1) {
+                throw new EOFException("Stream is shorter than its given length");
+            }
+            return b;
+        }
+
+        private void skip(long length) throws IOException {
+            for (long i = 0; i < length && read() != -1; i++) {
+                // just read
+            }
+        }
+
+        /**
+         * Returns the number of bytes that can be read without blocking; 0 only at the end of the stream.
+         */
+        private long available() throws IOException {
+            if (pos == limit && !fill()) {
+                return 0;
+            }
+            return limit - pos;
+        }
+
+        /**
+         * Reads the rest of the stream, so {@link #getCRC()} covers all of it.
+         */
+        private void drain() throws IOException {
+            consumed += limit - pos;
+            pos = limit;
+            while (fill()) {
+                consumed += limit;
+                pos = limit;
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (eof) {
+                return false;
+            }
+            int n;
+            do {
+                n = in.read(buf);
+            } while (n == 0);
+            if (n < 0) {
+                eof = true;
+                return false;
+            }
+            crc.update(buf, 0, n);
+            pos = 0;
+            limit = n;
+            return true;
+        }
+
+        /**
+         * Returns the CRC32 of everything read from the stream so far; only of what has been consumed once
+         * the stream has been read to the end.
+         */
+        private long getCRC() {
+            return crc.getValue();
+        }
+    }
+
+    private static class PatchReader {
+        private final byte[] data;
+        private int pos;
+
+        private PatchReader(byte[] data) {
+            this.data = data;
+        }
+
+        private boolean startsWith(byte[] magic) {
+            if (data.length < magic.length) {
+                return false;
+            }
+            for (int i = 0; i < magic.length; i++) {
+                if (data[i] != magic[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int remaining() {
+            return data.length - pos;
+        }
+
+        /**
+         * Skips the given number of bytes, and returns the position before skipping.
+         */
+        private int advance(long length) throws IOException {
+            if (length > remaining()) {
+                throw new IOException("abrupt ending to patch file");
+            }
+            int start = pos;
+            pos += (int) length;
+            return start;
+        }
+
+        private int read8() throws IOException {
+            return data[advance(1)] & 0xFF;
+        }
+
+        private int read16BE() throws IOException {
+            int start = advance(2);
+            return ((data[start] & 0xFF) << 8) | (data[start + 1] & 0xFF);
+        }
+
+        private int read24BE() throws IOException {
+            int start = advance(3);
+            return ((data[start] & 0xFF) << 16) | ((data[start + 1] & 0xFF) << 8) | (data[start + 2] & 0xFF);
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            long shift = 1;
+            while (true) {
+                int x = read8();
+                value += (x & 0x7F) * shift;
+                if ((x & 0x80) != 0) {
+                    return value;
+                }
+                shift <<= 7;
+                value += shift;
+            }
+        }
+    }
+
+    private static class CRCOutputStream extends OutputStream {
+        private final CRC32 crc = new CRC32();
+        private long length;
+
+        @Override
+        public void write(int b) {
+            crc.update(b);
+            length++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            crc.update(b, off, len);
+            length += len;
+        }
+    }
+}
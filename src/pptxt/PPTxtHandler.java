@@ -115,9 +115,6 @@ public class PPTxtHandler {
         return uncomp;
     }
 
-    private static List<Integer> lastKeys;
-    private static List<Integer> lastUnknowns;
-
     /**
      * Take a byte-array corresponding to a NARC entry and build a list of
      * strings against the gen5 text encryption. Decompresses as appropriate.
@@ -128,10 +125,18 @@ public class PPTxtHandler {
      */
 
     public static List<String> readTexts(byte[] ds) {
+        return readTexts(ds, new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * Like {@link #readTexts(byte[])}, but also collects the key and unknown of
+     * each entry, which {@link #saveEntry(byte[], List)} needs. Keeping these
+     * local, rather than in static fields, lets entries be read and saved from
+     * several threads at once.
+     */
+    private static List<String> readTexts(byte[] ds, List<Integer> keys, List<Integer> unknowns) {
         int pos = 0;
         int i = 0;
-        lastKeys = new ArrayList<>();
-        lastUnknowns = new ArrayList<>();
         List<String> strings = new ArrayList<>();
         int numSections, numEntries, tmpCharCount, tmpUnknown, tmpChar;
         int tmpOffset;
@@ -173,7 +178,7 @@ public class PPTxtHandler {
                 tableOffsets.get(i).add(tmpOffset);
                 characterCount.get(i).add(tmpCharCount);
                 unknown.get(i).add(tmpUnknown);
-                lastUnknowns.add(tmpUnknown);
+                unknowns.add(tmpUnknown);
             }
             for (int j = 0; j < numEntries; j++) {
                 List<Integer> tmpEncChars = new ArrayList<>();
@@ -188,7 +193,7 @@ public class PPTxtHandler {
                 for (int k = characterCount.get(i).get(j) - 1; k >= 0; k--) {
                     encText.get(i).get(j).set(k, (encText.get(i).get(j).get(k)) ^ key);
                     if (k == 0) {
-                        lastKeys.add(key);
+                        keys.add(key);
                     }
                     key = ((key >>> 3) | (key << 13)) & 0xffff;
                 }
@@ -256,7 +261,9 @@ public class PPTxtHandler {
         }
 
         // Make sure we have the original unknowns etc
-        readTexts(originalData);
+        List<Integer> keys = new ArrayList<>();
+        List<Integer> unknowns = new ArrayList<>();
+        readTexts(originalData, keys, unknowns);
 
         // Start getting stuff
         int numSections, numEntries;
@@ -278,7 +285,7 @@ public class PPTxtHandler {
             System.err.println("Can't do anything due to too few lines");
             return originalData;
         } else {
-            byte[] newEntry = makeSection(text, numEntries);
+            byte[] newEntry = makeSection(text, numEntries, keys, unknowns);
             for (int z = 0; z < numSections; z++) {
                 sectionOffset[z] = readLong(originalData, pos);
                 pos += 4;
@@ -304,18 +311,19 @@ public class PPTxtHandler {
         }
     }
 
-    private static byte[] makeSection(List<String> strings, int numEntries) {
+    private static byte[] makeSection(List<String> strings, int numEntries, List<Integer> keys,
+                                      List<Integer> unknowns) {
         List<List<Integer>> data = new ArrayList<>();
         int size = 0;
         int offset = 4 + 8 * numEntries;
         int charCount;
         for (int i = 0; i < numEntries; i++) {
-            data.add(parseString(strings.get(i), i));
+            data.add(parseString(strings.get(i), keys.get(i)));
             size += (data.get(i).size() * 2);
         }
         if (size % 4 == 2) {
             size += 2;
-            int tmpKey = lastKeys.get(numEntries - 1);
+            int tmpKey = keys.get(numEntries - 1);
             for (int i = 0; i < data.get(numEntries - 1).size(); i++) {
                 tmpKey = ((tmpKey << 3) | (tmpKey >> 13)) & 0xFFFF;
             }
@@ -332,7 +340,7 @@ public class PPTxtHandler {
             pos += 4;
             writeWord(section, pos, charCount);
             pos += 2;
-            writeWord(section, pos, lastUnknowns.get(i));
+            writeWord(section, pos, unknowns.get(i));
             pos += 2;
             offset += (charCount * 2);
         }
@@ -345,7 +353,7 @@ public class PPTxtHandler {
         return section;
     }
 
-    private static List<Integer> parseString(String string, int entry_id) {
+    private static List<Integer> parseString(String string, int key) {
         List<Integer> chars = new ArrayList<>();
         for (int i = 0; i < string.length(); i++) {
             if (string.charAt(i) != '\\') {
@@ -360,7 +368,6 @@ public class PPTxtHandler {
             }
         }
         chars.add(0xFFFF);
-        int key = lastKeys.get(entry_id);
         for (int i = 0; i < chars.size(); i++) {
             chars.set(i, (chars.get(i) ^ key) & 0xFFFF);
             key = ((key << 3) | (key >>> 13)) & 0xFFFF;
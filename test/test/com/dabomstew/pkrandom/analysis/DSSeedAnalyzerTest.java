@@ -0,0 +1,66 @@
+package test.com.dabomstew.pkrandom.analysis;
+
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.analysis.Histogram;
+import com.dabomstew.pkrandom.analysis.SeedAnalyzer;
+import com.dabomstew.pkrandom.analysis.StandardMetric;
+import com.dabomstew.pkromio.romhandlers.RomHandler;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import test.com.dabomstew.pkromio.romhandlers.Generation;
+import test.com.dabomstew.pkromio.romhandlers.RomHandlerTest;
+import test.com.dabomstew.pkromio.romhandlers.Roms;
+
+import java.util.Arrays;
+import java.util.ResourceBundle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the {@link SeedAnalyzer} on DS ROMs, which keep extracted and changed files in a temporary folder.
+ * Like the CLI, each seed gets a RomHandler freshly opened from the same file.
+ */
+public class DSSeedAnalyzerTest extends RomHandlerTest {
+
+    private static final ResourceBundle BUNDLE = ResourceBundle.getBundle("com/dabomstew/pkrandom/gui/Bundle");
+
+    public static String[] getDSRomNames() {
+        return Roms.getRoms(new int[]{4, 5}, new Roms.Region[]{Roms.Region.USA}, false);
+    }
+
+    @ParameterizedTest
+    @MethodSource("getDSRomNames")
+    public void twoThreadsGiveSameResultsAsOne(String romName) throws InterruptedException {
+        Settings settings = new Settings();
+        settings.setRandomizeWildPokemon(true);
+        settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+        settings.setRomName(openRomHandler(romName).getROMName());
+
+        SeedAnalyzer single = new SeedAnalyzer(settings, () -> openRomHandler(romName), BUNDLE);
+        single.setThreadCount(1);
+        SeedAnalyzer multi = new SeedAnalyzer(settings, () -> openRomHandler(romName), BUNDLE);
+        multi.setThreadCount(2);
+
+        SeedAnalyzer.Results a = single.analyze(100, 4, Arrays.asList(StandardMetric.values()));
+        SeedAnalyzer.Results b = multi.analyze(100, 4, Arrays.asList(StandardMetric.values()));
+
+        assertTrue(b.getFailures().isEmpty(), b.getFailures().toString());
+        assertEquals(4, b.getSuccessCount());
+        for (StandardMetric metric : StandardMetric.values()) {
+            Histogram ha = a.getHistogram(metric);
+            Histogram hb = b.getHistogram(metric);
+            assertEquals(ha.getKeysByCount(), hb.getKeysByCount(), metric.getName());
+            for (String key : ha.getKeysByCount()) {
+                assertEquals(ha.getCount(key), hb.getCount(key), metric.getName() + " " + key);
+            }
+        }
+    }
+
+    private static RomHandler openRomHandler(String romName) {
+        Generation gen = getGenerationOf(romName);
+        RomHandler romHandler = gen.createFactory().create();
+        romHandler.setLazyLoading(true);
+        romHandler.loadRom("test/roms/" + romName + gen.getFileSuffix());
+        return romHandler;
+    }
+}
@@ -0,0 +1,122 @@
+package test.com.dabomstew.pkrandom.analysis;
+
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.analysis.Histogram;
+import com.dabomstew.pkrandom.analysis.SeedAnalyzer;
+import com.dabomstew.pkrandom.analysis.StandardMetric;
+import com.dabomstew.pkromio.gamedata.ExpCurve;
+import com.dabomstew.pkromio.gamedata.Trainer;
+import org.junit.jupiter.api.Test;
+import test.com.dabomstew.pkrandom.randomizers.SyntheticRomGenerator;
+import test.com.dabomstew.pkrandom.randomizers.SyntheticRomHandler;
+
+import java.util.Arrays;
+import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeedAnalyzerTest {
+
+    private static final ResourceBundle BUNDLE = ResourceBundle.getBundle("com/dabomstew/pkrandom/gui/Bundle");
+
+    private static SyntheticRomHandler createRomHandler() {
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(1)
+                .setTrainerCount(40).setAreaCount(10));
+        romHandler.prepare();
+        return romHandler;
+    }
+
+    private static Settings createSettings() {
+        Settings settings = new Settings();
+        settings.setRomName(createRomHandler().getROMName());
+        settings.setSelectedEXPCurve(ExpCurve.MEDIUM_FAST);
+        settings.setRandomizeWildPokemon(true);
+        settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+        settings.setSpeciesTypesMod(Settings.SpeciesTypesMod.RANDOM_FOLLOW_EVOLUTIONS);
+        return settings;
+    }
+
+    @Test
+    public void eachSeedGetsAFreshRomHandler() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        SeedAnalyzer analyzer = new SeedAnalyzer(createSettings(), () -> {
+            created.incrementAndGet();
+            return createRomHandler();
+        }, BUNDLE);
+        SeedAnalyzer.Results results = analyzer.analyze(0, 12, Arrays.asList(StandardMetric.TRAINER_SPECIES));
+
+        assertTrue(results.getFailures().isEmpty(), results.getFailures().toString());
+        assertEquals(12, results.getSuccessCount());
+        assertEquals(12, created.get());
+
+        int trainerPokemon = 0;
+        for (Trainer t : createRomHandler().getTrainers()) {
+            trainerPokemon += t.pokemon.size();
+        }
+        assertEquals(12L * trainerPokemon, results.getHistogram(StandardMetric.TRAINER_SPECIES).getTotal());
+    }
+
+    @Test
+    public void eachRomHandlerIsClosedAfterItsSeed() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        SeedAnalyzer analyzer = new SeedAnalyzer(createSettings(), () -> {
+            created.incrementAndGet();
+            SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(1)
+                    .setTrainerCount(40).setAreaCount(10)) {
+                @Override
+                public void close() {
+                    closed.incrementAndGet();
+                }
+            };
+            romHandler.prepare();
+            return romHandler;
+        }, BUNDLE);
+        analyzer.setThreadCount(3);
+        analyzer.analyze(0, 9, Arrays.asList(StandardMetric.TRAINER_SPECIES));
+
+        assertEquals(9, created.get());
+        assertEquals(9, closed.get());
+    }
+
+    @Test
+    public void resultsDoNotDependOnThreadCount() throws InterruptedException {
+        Settings settings = createSettings();
+        SeedAnalyzer single = new SeedAnalyzer(settings, SeedAnalyzerTest::createRomHandler, BUNDLE);
+        single.setThreadCount(1);
+        SeedAnalyzer multi = new SeedAnalyzer(settings, SeedAnalyzerTest::createRomHandler, BUNDLE);
+        multi.setThreadCount(4);
+
+        SeedAnalyzer.Results a = single.analyze(100, 10, Arrays.asList(StandardMetric.values()));
+        SeedAnalyzer.Results b = multi.analyze(100, 10, Arrays.asList(StandardMetric.values()));
+
+        for (StandardMetric metric : StandardMetric.values()) {
+            Histogram ha = a.getHistogram(metric);
+            Histogram hb = b.getHistogram(metric);
+            assertEquals(ha.getKeysByCount(), hb.getKeysByCount(), metric.getName());
+            for (String key : ha.getKeysByCount()) {
+                assertEquals(ha.getCount(key), hb.getCount(key), metric.getName() + " " + key);
+            }
+        }
+        assertTrue(a.getHistogram(StandardMetric.WILD_SPECIES).size() > 1);
+    }
+
+    @Test
+    public void histogramsMerge() {
+        Histogram a = new Histogram();
+        a.add("x");
+        a.add("y", 3);
+        Histogram b = new Histogram();
+        b.add("x", 4);
+        b.add("z");
+        a.merge(b);
+
+        assertEquals(5, a.getCount("x"));
+        assertEquals(3, a.getCount("y"));
+        assertEquals(1, a.getCount("z"));
+        assertEquals(0, a.getCount("w"));
+        assertEquals(9, a.getTotal());
+        assertEquals(Arrays.asList("x", "y", "z"), a.getKeysByCount());
+    }
+}
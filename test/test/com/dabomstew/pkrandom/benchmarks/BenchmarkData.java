@@ -0,0 +1,76 @@
+package test.com.dabomstew.pkrandom.benchmarks;
+
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkromio.gamedata.ExpCurve;
+import com.dabomstew.pkromio.romhandlers.RomHandler;
+import org.openjdk.jmh.annotations.*;
+import test.com.dabomstew.pkrandom.randomizers.SyntheticRomGenerator;
+import test.com.dabomstew.pkrandom.randomizers.SyntheticRomHandler;
+
+/**
+ * The benchmark state shared by {@link RandomizerBenchmark} and {@link GameRandomizerBenchmark}:
+ * a {@link SyntheticRomHandler} of the parameterized size, and {@link Settings} that turn on the randomizers
+ * being measured.<br>
+ * The synthetic data is generated once per trial, and reset before every invocation, so each invocation
+ * randomizes the same unrandomized data. Resetting is not part of the measurement.
+ */
+@State(Scope.Thread)
+public class BenchmarkData {
+
+    public static final long SEED = 20240601;
+
+    @Param({"5"})
+    public int generation;
+
+    @Param({"650"})
+    public int speciesCount;
+
+    @Param({"600"})
+    public int trainerCount;
+
+    @Param({"150"})
+    public int areaCount;
+
+    SyntheticRomHandler romHandler;
+    Settings settings;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        romHandler = new SyntheticRomHandler(new SyntheticRomGenerator()
+                .setSeed(SEED)
+                .setGeneration(generation)
+                .setSpeciesCount(speciesCount)
+                .setTrainerCount(trainerCount)
+                .setAreaCount(areaCount));
+        settings = createSettings(romHandler);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetData() {
+        romHandler.reset();
+        romHandler.prepare();
+    }
+
+    private static Settings createSettings(RomHandler romHandler) {
+        Settings settings = new Settings();
+        settings.setRomName(romHandler.getROMName());
+        settings.setSelectedEXPCurve(ExpCurve.MEDIUM_FAST);
+        settings.setBaseStatisticsMod(Settings.BaseStatisticsMod.RANDOM);
+        settings.setSpeciesTypesMod(Settings.SpeciesTypesMod.RANDOM_FOLLOW_EVOLUTIONS);
+        settings.setAbilitiesMod(Settings.AbilitiesMod.RANDOMIZE);
+        settings.setEvolutionsMod(Settings.EvolutionsMod.RANDOM);
+        settings.setStartersMod(Settings.StartersMod.COMPLETELY_RANDOM);
+        settings.setMovesetsMod(Settings.MovesetsMod.RANDOM_PREFER_SAME_TYPE);
+        settings.setTmsMod(Settings.TMsMod.RANDOM);
+        settings.setTmsHmsCompatibilityMod(Settings.TMsHMsCompatibilityMod.RANDOM_PREFER_TYPE);
+        settings.setMoveTutorMovesMod(Settings.MoveTutorMovesMod.RANDOM);
+        settings.setMoveTutorsCompatibilityMod(Settings.MoveTutorsCompatibilityMod.RANDOM_PREFER_TYPE);
+        settings.setRandomizeWildPokemon(true);
+        settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+        settings.setBetterTrainerMovesets(true);
+        settings.setStaticPokemonMod(Settings.StaticPokemonMod.RANDOM_MATCHING);
+        settings.setFieldItemsMod(Settings.FieldItemsMod.RANDOM);
+        settings.setTypeEffectivenessMod(Settings.TypeEffectivenessMod.RANDOM_BALANCED);
+        return settings;
+    }
+}
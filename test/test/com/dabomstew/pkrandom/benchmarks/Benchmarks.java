@@ -0,0 +1,28 @@
+package test.com.dabomstew.pkrandom.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all randomizer benchmarks with the GC profiler, which reports allocation rates
+ * ("gc.alloc.rate.norm" is bytes allocated per operation) next to the timings.<br>
+ * Needs JMH (jmh-core, and jmh-generator-annprocess as an annotation processor) on the test classpath.
+ * Arguments are passed on as a regex of benchmarks to include, e.g. "RandomizerBenchmark.trainer".
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0) {
+            builder.include(Benchmarks.class.getPackage().getName() + ".*");
+        }
+        for (String include : args) {
+            builder.include(include);
+        }
+        Options options = builder.addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
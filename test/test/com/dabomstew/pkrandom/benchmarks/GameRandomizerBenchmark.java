@@ -0,0 +1,39 @@
+package test.com.dabomstew.pkrandom.benchmarks;
+
+import com.dabomstew.pkrandom.GameRandomizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full {@link GameRandomizer#randomize(String, PrintStream, long)} on synthetic data
+ * (see {@link BenchmarkData}), including writing the log, but excluding saving (the synthetic ROM only pretends
+ * to save).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GameRandomizerBenchmark {
+
+    private static final ResourceBundle BUNDLE = ResourceBundle.getBundle("com/dabomstew/pkrandom/gui/Bundle");
+
+    @Benchmark
+    public GameRandomizer.Results randomize(BenchmarkData data) {
+        PrintStream log = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        });
+        GameRandomizer.Results results = new GameRandomizer(data.settings, data.romHandler, BUNDLE, false)
+                .randomize("benchmark", log, BenchmarkData.SEED);
+        if (!results.wasSaveSuccessful()) {
+            throw new IllegalStateException("Randomization failed", results.getException());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,92 @@
+package test.com.dabomstew.pkrandom.benchmarks;
+
+import com.dabomstew.pkrandom.randomizers.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the randomizers one at a time, on synthetic data (see {@link BenchmarkData}).<br>
+ * Each benchmark starts from the unrandomized data, so e.g. trainer Pokémon are randomized without species
+ * types having been randomized first. That keeps the benchmarks independent of each other;
+ * {@link GameRandomizerBenchmark} covers the randomizers working together.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomizerBenchmark {
+
+    private static Random newRandom() {
+        return new Random(BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public void speciesBaseStats(BenchmarkData data) {
+        new SpeciesBaseStatRandomizer(data.romHandler, data.settings, newRandom()).randomizeSpeciesStats();
+    }
+
+    @Benchmark
+    public void speciesTypes(BenchmarkData data) {
+        new SpeciesTypeRandomizer(data.romHandler, data.settings, newRandom()).randomizeSpeciesTypes();
+    }
+
+    @Benchmark
+    public void speciesAbilities(BenchmarkData data) {
+        new SpeciesAbilityRandomizer(data.romHandler, data.settings, newRandom()).randomizeAbilities();
+    }
+
+    @Benchmark
+    public void evolutions(BenchmarkData data) {
+        new EvolutionRandomizer(data.romHandler, data.settings, newRandom()).randomizeEvolutions();
+    }
+
+    @Benchmark
+    public void starters(BenchmarkData data) {
+        new StarterRandomizer(data.romHandler, data.settings, newRandom()).randomizeStarters();
+    }
+
+    @Benchmark
+    public void speciesMovesets(BenchmarkData data) {
+        new SpeciesMovesetRandomizer(data.romHandler, data.settings, newRandom()).randomizeMovesLearnt();
+    }
+
+    @Benchmark
+    public void eggMoves(BenchmarkData data) {
+        new SpeciesMovesetRandomizer(data.romHandler, data.settings, newRandom()).randomizeEggMoves();
+    }
+
+    @Benchmark
+    public void tmhmCompatibility(BenchmarkData data) {
+        new TMHMTutorCompatibilityRandomizer(data.romHandler, data.settings, newRandom())
+                .randomizeTMHMCompatibility();
+    }
+
+    @Benchmark
+    public void wildEncounters(BenchmarkData data) {
+        new WildEncounterRandomizer(data.romHandler, data.settings, newRandom()).randomizeEncounters();
+    }
+
+    @Benchmark
+    public void trainerPokemon(BenchmarkData data) {
+        new TrainerPokemonRandomizer(data.romHandler, data.settings, newRandom()).randomizeTrainerPokes();
+    }
+
+    @Benchmark
+    public void trainerMovesets(BenchmarkData data) {
+        new TrainerMovesetRandomizer(data.romHandler, data.settings, newRandom()).randomizeTrainerMovesets();
+    }
+
+    @Benchmark
+    public void staticPokemon(BenchmarkData data) {
+        new StaticPokemonRandomizer(data.romHandler, data.settings, newRandom()).randomizeStaticPokemon();
+    }
+
+    @Benchmark
+    public void typeEffectiveness(BenchmarkData data) {
+        new TypeEffectivenessRandomizer(data.romHandler, data.settings, newRandom())
+                .randomizeTypeEffectiveness(true);
+    }
+}
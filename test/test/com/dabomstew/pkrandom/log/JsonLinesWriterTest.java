@@ -0,0 +1,50 @@
+package test.com.dabomstew.pkrandom.log;
+
+import com.dabomstew.pkrandom.log.JsonLinesWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonLinesWriterTest {
+
+    @Test
+    public void writesOneLinePerTopLevelObject() {
+        StringWriter out = new StringWriter();
+        JsonLinesWriter json = new JsonLinesWriter(out);
+        json.beginObject().field("a", 1).field("b", true).endObject();
+        json.beginObject().field("c", "x").endObject();
+        assertEquals("{\"a\":1,\"b\":true}\n{\"c\":\"x\"}\n", out.toString());
+    }
+
+    @Test
+    public void writesNestedArraysAndObjects() {
+        StringWriter out = new StringWriter();
+        JsonLinesWriter json = new JsonLinesWriter(out);
+        json.beginObject().name("list").beginArray()
+                .beginObject().field("n", 1).endObject()
+                .value("s")
+                .beginArray().endArray()
+                .endArray()
+                .field("after", (String) null)
+                .endObject();
+        assertEquals("{\"list\":[{\"n\":1},\"s\",[]],\"after\":null}\n", out.toString());
+    }
+
+    @Test
+    public void escapesStrings() {
+        StringWriter out = new StringWriter();
+        JsonLinesWriter json = new JsonLinesWriter(out);
+        json.beginObject().field("s", "a\"b\\c\nd\u0001é").endObject();
+        assertEquals("{\"s\":\"a\\\"b\\\\c\\nd\\u0001é\"}\n", out.toString());
+    }
+
+    @Test
+    public void namesOutsideObjectsThrow() {
+        JsonLinesWriter json = new JsonLinesWriter(new StringWriter());
+        assertThrows(IllegalStateException.class, () -> json.name("a"));
+        json.beginObject().name("a");
+        assertThrows(IllegalStateException.class, () -> json.name("b"));
+    }
+}
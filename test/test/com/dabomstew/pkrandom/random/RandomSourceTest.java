@@ -0,0 +1,123 @@
+package test.com.dabomstew.pkrandom.random;
+
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.random.RandomSource;
+import com.dabomstew.pkrandom.random.RandomStream;
+import com.dabomstew.pkromio.gamedata.ExpCurve;
+import org.junit.jupiter.api.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RandomSourceTest {
+
+    private static final long SEED = 12345;
+
+    @Test
+    public void sharedSchemeGivesTheSameRandomForAllStreams() {
+        RandomSource randomSource = new RandomSource();
+        assertSame(randomSource.getNonCosmetic(), randomSource.getNonCosmetic("a"));
+        assertSame(randomSource.getNonCosmetic(), randomSource.getNonCosmetic("b"));
+        assertSame(randomSource.getCosmetic(), randomSource.getCosmetic("c"));
+        assertTrue(randomSource.getStreams().isEmpty());
+    }
+
+    @Test
+    public void sharedSchemeMatchesPlainRandom() {
+        RandomSource randomSource = new RandomSource();
+        randomSource.seed(SEED);
+        Random expected = new Random(SEED);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.nextInt(1000), randomSource.getNonCosmetic("a").nextInt(1000));
+        }
+    }
+
+    @Test
+    public void splitStreamsDoNotAffectEachOther() {
+        RandomSource first = new RandomSource(Settings.RNGScheme.SPLIT);
+        Random firstA = first.getNonCosmetic("a");
+        first.seed(SEED);
+        int[] expected = draw(firstA, 20);
+
+        RandomSource second = new RandomSource(Settings.RNGScheme.SPLIT);
+        Random secondB = second.getNonCosmetic("b");
+        Random secondA = second.getNonCosmetic("a");
+        second.seed(SEED);
+        draw(secondB, 50);
+        assertArrayEquals(expected, draw(secondA, 20));
+    }
+
+    @Test
+    public void splitStreamsDependOnTheSeed() {
+        RandomSource randomSource = new RandomSource(Settings.RNGScheme.SPLIT);
+        Random a = randomSource.getNonCosmetic("a");
+        randomSource.seed(SEED);
+        int[] first = draw(a, 20);
+        randomSource.seed(SEED);
+        assertArrayEquals(first, draw(a, 20));
+        randomSource.seed(SEED + 1);
+        assertFalse(Arrays.equals(first, draw(a, 20)));
+    }
+
+    @Test
+    public void entityRandomsDoNotDependOnOrder() {
+        RandomSource randomSource = new RandomSource(Settings.RNGScheme.SPLIT);
+        RandomStream stream = (RandomStream) randomSource.getNonCosmetic("a");
+        randomSource.seed(SEED);
+        int[] entity3 = draw(stream.forEntity(3), 20);
+
+        draw(stream, 10);
+        draw(stream.forEntity(4), 10);
+        assertArrayEquals(entity3, draw(stream.forEntity(3), 20));
+        assertFalse(Arrays.equals(entity3, draw(stream.forEntity(4), 20)));
+    }
+
+    @Test
+    public void callsAreCountedPerStream() {
+        RandomSource randomSource = new RandomSource(Settings.RNGScheme.SPLIT);
+        RandomStream a = (RandomStream) randomSource.getNonCosmetic("a");
+        RandomStream b = (RandomStream) randomSource.getCosmetic("b");
+        randomSource.seed(SEED);
+        draw(a, 5);
+        draw(a.forEntity(1), 3);
+        draw(b, 2);
+        draw(randomSource.getNonCosmetic(), 1);
+
+        assertEquals(8, a.getCalls());
+        assertEquals(2, b.getCalls());
+        assertEquals(9, randomSource.callsSinceSeedNonCosmetic());
+        assertEquals(2, randomSource.callsSinceSeedCosmetic());
+        assertEquals(11, randomSource.callsSinceSeed());
+
+        randomSource.seed(SEED);
+        assertEquals(0, randomSource.callsSinceSeed());
+    }
+
+    @Test
+    public void streamCanNotBeBothCosmeticAndNonCosmetic() {
+        RandomSource randomSource = new RandomSource(Settings.RNGScheme.SPLIT);
+        randomSource.getNonCosmetic("a");
+        assertThrows(IllegalArgumentException.class, () -> randomSource.getCosmetic("a"));
+    }
+
+    @Test
+    public void schemeIsSavedInSettings() throws UnsupportedEncodingException {
+        Settings settings = new Settings();
+        settings.setRomName("test");
+        settings.setSelectedEXPCurve(ExpCurve.MEDIUM_FAST);
+        assertEquals(Settings.RNGScheme.SHARED, Settings.fromString(settings.toString()).getRNGScheme());
+        settings.setRNGScheme(Settings.RNGScheme.SPLIT);
+        assertEquals(Settings.RNGScheme.SPLIT, Settings.fromString(settings.toString()).getRNGScheme());
+    }
+
+    private static int[] draw(Random random, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt(1000);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,121 @@
+package test.com.dabomstew.pkrandom.randomizers;
+
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.random.RandomSource;
+import com.dabomstew.pkrandom.randomizers.Gen3to5PaletteRandomizer;
+import com.dabomstew.pkromio.gamedata.Species;
+import com.dabomstew.pkromio.graphics.palettes.Color;
+import com.dabomstew.pkromio.graphics.palettes.Palette;
+import com.dabomstew.pkromio.graphics.palettes.PaletteDescription;
+import com.dabomstew.pkromio.graphics.palettes.PalettePartDescription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Gen3to5PaletteRandomizerTest {
+
+    private static final long SEED = 12345;
+
+    private final Species bulbasaur = new Species(1);
+    private final Species outOfRange = new Species(5000);
+
+    @AfterEach
+    public void clearCache() {
+        Gen3to5PaletteRandomizer.clearPalettePartDescriptionCache();
+    }
+
+    @Test
+    public void cachedPartDescriptionsMatchTheFile() {
+        Gen3to5PaletteRandomizer paletteRandomizer = newPaletteRandomizer("DP");
+        List<PaletteDescription> fromFile = paletteRandomizer.getPaletteDescriptions("pokePalettes");
+
+        assertEquals(Arrays.toString(paletteRandomizer.getPalettePartDescriptions(bulbasaur, fromFile)),
+                Arrays.toString(paletteRandomizer.getPalettePartDescriptions(bulbasaur)));
+    }
+
+    @Test
+    public void partDescriptionsAreSharedBetweenInstances() {
+        PalettePartDescription[] first = newPaletteRandomizer("DP").getPalettePartDescriptions(bulbasaur);
+        PalettePartDescription[] second = newPaletteRandomizer("DP").getPalettePartDescriptions(bulbasaur);
+
+        assertNotSame(first, second);
+        assertSame(first[0], second[0]);
+    }
+
+    @Test
+    public void partDescriptionsAreKeptPerFile() {
+        PalettePartDescription[] dp = newPaletteRandomizer("DP").getPalettePartDescriptions(bulbasaur);
+        PalettePartDescription[] bw = newPaletteRandomizer("BW").getPalettePartDescriptions(bulbasaur);
+
+        assertNotSame(dp[0], bw[0]);
+    }
+
+    @Test
+    public void clearingGivesNewlyParsedPartDescriptions() {
+        PalettePartDescription[] before = newPaletteRandomizer("DP").getPalettePartDescriptions(bulbasaur);
+        Gen3to5PaletteRandomizer.clearPalettePartDescriptionCache();
+        PalettePartDescription[] after = newPaletteRandomizer("DP").getPalettePartDescriptions(bulbasaur);
+
+        assertNotSame(before[0], after[0]);
+        assertEquals(Arrays.toString(before), Arrays.toString(after));
+    }
+
+    @Test
+    public void speciesWithoutDescriptionGetsBlankPartDescription() {
+        PalettePartDescription[] parts = newPaletteRandomizer("DP").getPalettePartDescriptions(outOfRange);
+
+        assertEquals(1, parts.length);
+        assertTrue(parts[0].isBlank());
+    }
+
+    @Test
+    public void splitSchemePopulationIsReproducible() {
+        List<int[]> first = randomizePalettesWithSplitScheme(SEED);
+        List<int[]> second = randomizePalettesWithSplitScheme(SEED);
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertArrayEquals(first.get(i), second.get(i));
+        }
+        List<int[]> otherSeed = randomizePalettesWithSplitScheme(SEED + 1);
+        assertFalse(IntStream.range(0, first.size()).allMatch(i -> Arrays.equals(first.get(i), otherSeed.get(i))));
+    }
+
+    private static List<int[]> randomizePalettesWithSplitScheme(long seed) {
+        SyntheticRomHandler romHandler = newRomHandler("DP");
+        for (Species pk : romHandler.getSpeciesSetInclFormes()) {
+            pk.setNormalPalette(new Palette(16, new Color(0x808080)));
+        }
+        RandomSource randomSource = new RandomSource(Settings.RNGScheme.SPLIT);
+        Random random = randomSource.getCosmetic("Pokemon palettes");
+        randomSource.seed(seed);
+        new Gen3to5PaletteRandomizer(romHandler, new Settings(), random).randomizePokemonPalettes();
+
+        List<int[]> palettes = new ArrayList<>();
+        for (Species pk : romHandler.getSpeciesInclFormes().subList(1, romHandler.getSpeciesInclFormes().size())) {
+            palettes.add(pk.getNormalPalette().toARGB());
+        }
+        return palettes;
+    }
+
+    private static Gen3to5PaletteRandomizer newPaletteRandomizer(String paletteFilesID) {
+        return new Gen3to5PaletteRandomizer(newRomHandler(paletteFilesID), new Settings(), new Random(1));
+    }
+
+    private static SyntheticRomHandler newRomHandler(String paletteFilesID) {
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(1)) {
+            @Override
+            public String getPaletteFilesID() {
+                return paletteFilesID;
+            }
+        };
+        romHandler.prepare();
+        return romHandler;
+    }
+}
@@ -0,0 +1,454 @@
+package test.com.dabomstew.pkrandom.randomizers;
+
+import com.dabomstew.pkromio.gamedata.*;
+import com.dabomstew.pkromio.romhandlers.RomHandler;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Generates random, but seeded, game data of a configurable size, in the shape a loaded {@link RomHandler} would
+ * give it. Meant for tests and benchmarks that need a realistic amount of data, without needing (copyrighted)
+ * ROMs to load it from.<br>
+ * The data does not correspond to any real game; species, moves, trainers and areas are all made up. It is only
+ * guaranteed to be internally consistent (evolutions go to existing species, moves learnt exist, etc.).<br>
+ * The same seed and sizes always generate the same data.
+ */
+public class SyntheticRomGenerator {
+
+    private static final int HIGHEST_ABILITY = 160;
+    private static final int ENCOUNTERS_PER_AREA = 12;
+
+    private long seed = 0;
+    private int generation = 5;
+    private int speciesCount = 650;
+    private int formeCount = 50;
+    private int moveCount = 560;
+    private int tmCount = 95;
+    private int hmCount = 6;
+    private int moveTutorCount = 30;
+    private int trainerCount = 600;
+    private int areaCount = 150;
+    private int staticCount = 40;
+    private int itemCount = 600;
+
+    private Random random;
+    private List<Species> speciesInclFormes;
+    private List<Species> baseSpecies;
+    private List<Move> moves;
+    private List<Item> items;
+
+    public SyntheticRomGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public SyntheticRomGenerator setGeneration(int generation) {
+        if (generation < 2 || generation > 7) {
+            throw new IllegalArgumentException("Only generations 2-7 can be generated.");
+        }
+        this.generation = generation;
+        return this;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public SyntheticRomGenerator setSpeciesCount(int speciesCount) {
+        this.speciesCount = speciesCount;
+        return this;
+    }
+
+    public SyntheticRomGenerator setFormeCount(int formeCount) {
+        this.formeCount = formeCount;
+        return this;
+    }
+
+    public SyntheticRomGenerator setMoveCount(int moveCount) {
+        this.moveCount = moveCount;
+        return this;
+    }
+
+    public SyntheticRomGenerator setTMHMCount(int tmCount, int hmCount) {
+        this.tmCount = tmCount;
+        this.hmCount = hmCount;
+        return this;
+    }
+
+    public SyntheticRomGenerator setMoveTutorCount(int moveTutorCount) {
+        this.moveTutorCount = moveTutorCount;
+        return this;
+    }
+
+    public SyntheticRomGenerator setTrainerCount(int trainerCount) {
+        this.trainerCount = trainerCount;
+        return this;
+    }
+
+    public SyntheticRomGenerator setAreaCount(int areaCount) {
+        this.areaCount = areaCount;
+        return this;
+    }
+
+    public SyntheticRomGenerator setStaticCount(int staticCount) {
+        this.staticCount = staticCount;
+        return this;
+    }
+
+    public SyntheticRomGenerator setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+        return this;
+    }
+
+    public int getHighestAbilityIndex() {
+        return generation >= 3 ? HIGHEST_ABILITY : 0;
+    }
+
+    /**
+     * Generates the data, and returns a {@link RomHandler} which gives it through its getters, as if it had
+     * been loaded from a ROM. It is only meant to be given to {@link TestRomHandler#TestRomHandler(RomHandler)};
+     * any method which does not simply get data throws an {@link UnsupportedOperationException}.
+     */
+    public RomHandler generate() {
+        random = new Random(seed);
+        TypeTable typeTable = generation <= 5 ? TypeTable.getVanillaGen2To5Table() :
+                TypeTable.getVanillaGen6PlusTable();
+
+        generateSpecies(typeTable.getTypes());
+        generateMoves(typeTable.getTypes());
+        generateItems();
+
+        List<Integer> tmhmMoves = pickDistinctMoves(tmCount + hmCount);
+        List<Integer> tmMoves = new ArrayList<>(tmhmMoves.subList(0, tmCount));
+        List<Integer> hmMoves = new ArrayList<>(tmhmMoves.subList(tmCount, tmCount + hmCount));
+        List<Integer> tutorMoves = pickDistinctMoves(moveTutorCount);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("getTypeTable", typeTable);
+        data.put("getSpeciesInclFormes", speciesInclFormes);
+        data.put("getIrregularFormes", new SpeciesSet());
+        data.put("abilitiesPerSpecies", generation >= 5 ? 3 : (generation >= 3 ? 2 : 0));
+        data.put("getMoves", moves);
+        data.put("getMovesLearnt", generateMovesLearnt());
+        data.put("getEggMoves", generateEggMoves());
+        data.put("getTMMoves", tmMoves);
+        data.put("getHMMoves", hmMoves);
+        data.put("hasMoveTutors", moveTutorCount > 0);
+        data.put("getMoveTutorMoves", tutorMoves);
+        data.put("getTMHMCompatibility", generateCompatibility(tmCount + hmCount));
+        data.put("getMoveTutorCompatibility", generateCompatibility(moveTutorCount));
+        data.put("altFormesCanHaveDifferentEvolutions", false);
+        data.put("getEncounters", generateEncounters());
+        data.put("hasTimeBasedEncounters", false);
+        data.put("hasWildAltFormes", false);
+        data.put("getBannedForWildEncounters", new SpeciesSet());
+        data.put("getStaticPokemon", generateStatics());
+        data.put("canChangeStaticPokemon", true);
+        data.put("hasStaticAltFormes", false);
+        data.put("getBannedForStaticPokemon", new SpeciesSet());
+        data.put("forceSwapStaticMegaEvos", false);
+        data.put("hasMainGameLegendaries", false);
+        data.put("getMainGameLegendaries", Collections.emptyList());
+        data.put("isTMsReusable", generation >= 5);
+        data.put("canTMsBeHeld", true);
+        data.put("hasTypeEffectivenessSupport", true);
+        data.put("generationOfPokemon", generation);
+        data.put("getROMType", 0);
+        data.put("isYellow", false);
+        data.put("isORAS", false);
+        data.put("isUSUM", false);
+        data.put("miscTweaksAvailable", 0);
+        data.put("getStarters", new ArrayList<>(baseSpecies.subList(0, 3)));
+        data.put("hasStarterAltFormes", false);
+        data.put("getItems", items);
+        data.put("getEvolutionItems", new HashSet<>(items.subList(1, 11)));
+        data.put("getXItems", new HashSet<>(items.subList(11, 18)));
+        data.put("getRegularShopItems", new HashSet<>(items.subList(18, 40)));
+        data.put("getOPShopItems", new HashSet<>(items.subList(40, 45)));
+        data.put("getMegaStones", new HashSet<Item>());
+        data.put("getRequiredFieldTMs", new HashSet<Item>());
+        data.put("getFieldItems", generateFieldItems());
+        data.put("getPickupItems", new ArrayList<PickupItem>());
+        data.put("getShops", new ArrayList<Shop>());
+        data.put("getBannedFormesForTrainerPokemon", new SpeciesSet());
+        List<Trainer> trainers = generateTrainers();
+        data.put("getTrainers", trainers);
+        List<Integer> trainerIndices = new ArrayList<>();
+        for (Trainer tr : trainers) {
+            trainerIndices.add(tr.index);
+        }
+        data.put("getMainPlaythroughTrainers", trainerIndices);
+        data.put("getEliteFourTrainers", Collections.emptyList());
+        data.put("getGymAndEliteTypeThemes", new HashMap<String, Type>());
+        data.put("isTrainerPokemonAlwaysUseAbility1", false);
+        data.put("isTrainerPokemonUseBaseFormeAbilities", false);
+        data.put("canAddPokemonToBossTrainers", true);
+        data.put("canAddPokemonToImportantTrainers", true);
+        data.put("canAddPokemonToRegularTrainers", true);
+        data.put("getPerfectAccuracy", 100);
+
+        return (RomHandler) Proxy.newProxyInstance(RomHandler.class.getClassLoader(),
+                new Class<?>[]{RomHandler.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("toString")) {
+                        return "Synthetic ROM data (seed " + seed + ")";
+                    }
+                    if (!data.containsKey(method.getName())) {
+                        throw new UnsupportedOperationException("No synthetic data for " + method.getName());
+                    }
+                    return data.get(method.getName());
+                });
+    }
+
+    private void generateSpecies(List<Type> types) {
+        speciesInclFormes = new ArrayList<>();
+        speciesInclFormes.add(null);
+        baseSpecies = new ArrayList<>();
+
+        int number = 1;
+        while (number <= speciesCount) {
+            // evolutionary lines of 1-3 species, the most common being 3
+            int lineLength = Math.min(speciesCount - number + 1, 1 + random.nextInt(3));
+            Type primary = randomType(types);
+            Type secondary = random.nextInt(2) == 0 ? null : randomType(types);
+            if (secondary == primary) {
+                secondary = null;
+            }
+            int baseBST = 250 + random.nextInt(150);
+            Species previous = null;
+            for (int stage = 0; stage < lineLength; stage++) {
+                Species sp = newSpecies(number, primary, secondary, baseBST + stage * (60 + random.nextInt(60)));
+                sp.setName("Species " + number);
+                if (previous != null) {
+                    int level = 15 + stage * 10 + random.nextInt(15);
+                    Evolution evo = new Evolution(previous, sp, EvolutionType.LEVEL, level);
+                    previous.getEvolutionsFrom().add(evo);
+                    sp.getEvolutionsTo().add(evo);
+                }
+                speciesInclFormes.add(sp);
+                baseSpecies.add(sp);
+                previous = sp;
+                number++;
+            }
+        }
+
+        for (int i = 0; i < formeCount; i++) {
+            Species base = baseSpecies.get(random.nextInt(baseSpecies.size()));
+            Type secondary = randomType(types);
+            Species forme = newSpecies(number, base.getPrimaryType(true),
+                    secondary == base.getPrimaryType(true) ? null : secondary, base.getBST());
+            int formeNumber = 1;
+            for (Species sp : speciesInclFormes) {
+                if (sp != null && sp.getBaseForme() == base) {
+                    formeNumber++;
+                }
+            }
+            forme.setName(base.getName());
+            forme.setBaseForme(base);
+            forme.setFormeNumber(formeNumber);
+            forme.setFormeSuffix("-Forme" + formeNumber);
+            speciesInclFormes.add(forme);
+            number++;
+        }
+    }
+
+    private Species newSpecies(int number, Type primary, Type secondary, int bst) {
+        Species sp = new Species(number);
+        sp.setGeneration(1 + random.nextInt(generation));
+        sp.setPrimaryType(primary);
+        sp.setSecondaryType(secondary);
+
+        int[] stats = new int[6];
+        int remaining = bst;
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = 20;
+            remaining -= 20;
+        }
+        while (remaining > 0) {
+            int add = Math.min(remaining, 1 + random.nextInt(10));
+            stats[random.nextInt(stats.length)] += add;
+            remaining -= add;
+        }
+        sp.setHp(stats[0]);
+        sp.setAttack(stats[1]);
+        sp.setDefense(stats[2]);
+        sp.setSpatk(stats[3]);
+        sp.setSpdef(stats[4]);
+        sp.setSpeed(stats[5]);
+
+        if (generation >= 3) {
+            sp.setAbility1(1 + random.nextInt(HIGHEST_ABILITY));
+            sp.setAbility2(random.nextInt(2) == 0 ? 0 : 1 + random.nextInt(HIGHEST_ABILITY));
+            sp.setAbility3(generation >= 5 ? 1 + random.nextInt(HIGHEST_ABILITY) : 0);
+        }
+        sp.setExpYield(50 + bst / 5);
+        sp.setCatchRate(3 + random.nextInt(253));
+        sp.setGenderRatio(random.nextInt(255));
+        sp.setGrowthCurve(ExpCurve.values()[random.nextInt(4)]);
+        sp.setCallRate(random.nextInt(16));
+        return sp;
+    }
+
+    private void generateMoves(List<Type> types) {
+        moves = new ArrayList<>();
+        moves.add(null);
+        for (int number = 1; number <= moveCount; number++) {
+            Move mv = new Move();
+            mv.number = number;
+            mv.internalId = number;
+            mv.name = "Move " + number;
+            mv.type = randomType(types);
+            int roll = random.nextInt(3);
+            if (roll == 0) {
+                mv.category = MoveCategory.STATUS;
+                mv.power = 0;
+            } else {
+                mv.category = roll == 1 ? MoveCategory.PHYSICAL : MoveCategory.SPECIAL;
+                mv.power = 20 + 5 * random.nextInt(25);
+            }
+            mv.pp = 5 * (1 + random.nextInt(8));
+            mv.hitratio = random.nextInt(3) == 0 ? 70 + 5 * random.nextInt(6) : 100;
+            mv.makesContact = mv.category == MoveCategory.PHYSICAL;
+            moves.add(mv);
+        }
+    }
+
+    private void generateItems() {
+        items = new ArrayList<>();
+        items.add(null);
+        for (int id = 1; id <= itemCount; id++) {
+            Item item = new Item(id, "Item " + id);
+            item.setAllowed(true);
+            items.add(item);
+        }
+    }
+
+    private Map<Integer, List<MoveLearnt>> generateMovesLearnt() {
+        Map<Integer, List<MoveLearnt>> movesLearnt = new TreeMap<>();
+        for (Species sp : speciesInclFormes) {
+            if (sp == null) {
+                continue;
+            }
+            List<MoveLearnt> learnt = new ArrayList<>();
+            learnt.add(new MoveLearnt(randomMove(), 1));
+            learnt.add(new MoveLearnt(randomMove(), 1));
+            int level = 1;
+            int count = 8 + random.nextInt(10);
+            for (int i = 0; i < count && level < 70; i++) {
+                level += 1 + random.nextInt(6);
+                learnt.add(new MoveLearnt(randomMove(), level));
+            }
+            movesLearnt.put(sp.getNumber(), learnt);
+        }
+        return movesLearnt;
+    }
+
+    private Map<Integer, List<Integer>> generateEggMoves() {
+        Map<Integer, List<Integer>> eggMoves = new TreeMap<>();
+        for (Species sp : baseSpecies) {
+            if (!sp.getEvolutionsTo().isEmpty()) {
+                continue;
+            }
+            eggMoves.put(sp.getNumber(), pickDistinctMoves(2 + random.nextInt(6)));
+        }
+        return eggMoves;
+    }
+
+    private Map<Species, boolean[]> generateCompatibility(int count) {
+        Map<Species, boolean[]> compat = new TreeMap<>();
+        for (Species sp : speciesInclFormes) {
+            if (sp == null) {
+                continue;
+            }
+            boolean[] flags = new boolean[count + 1];
+            for (int i = 1; i <= count; i++) {
+                flags[i] = random.nextInt(5) < 2;
+            }
+            compat.put(sp, flags);
+        }
+        return compat;
+    }
+
+    private List<EncounterArea> generateEncounters() {
+        List<EncounterArea> areas = new ArrayList<>();
+        EncounterType[] encounterTypes = {EncounterType.WALKING, EncounterType.SURFING, EncounterType.FISHING};
+        for (int i = 0; i < areaCount; i++) {
+            EncounterArea area = new EncounterArea();
+            area.setRate(10 + random.nextInt(20));
+            int location = i / encounterTypes.length;
+            area.setIdentifiers("Route " + (location + 1) + " " + encounterTypes[i % encounterTypes.length],
+                    i, encounterTypes[i % encounterTypes.length], "Route " + (location + 1));
+            int baseLevel = 2 + (i * 60) / Math.max(1, areaCount);
+            for (int j = 0; j < ENCOUNTERS_PER_AREA; j++) {
+                Encounter enc = new Encounter();
+                enc.setSpecies(baseSpecies.get(random.nextInt(baseSpecies.size())));
+                enc.setLevel(baseLevel + random.nextInt(3));
+                enc.setMaxLevel(enc.getLevel() + random.nextInt(3));
+                area.add(enc);
+            }
+            areas.add(area);
+        }
+        return areas;
+    }
+
+    private List<StaticEncounter> generateStatics() {
+        List<StaticEncounter> statics = new ArrayList<>();
+        for (int i = 0; i < staticCount; i++) {
+            StaticEncounter se = new StaticEncounter(baseSpecies.get(random.nextInt(baseSpecies.size())));
+            se.setLevel(5 + random.nextInt(66));
+            statics.add(se);
+        }
+        return statics;
+    }
+
+    private List<Item> generateFieldItems() {
+        List<Item> fieldItems = new ArrayList<>();
+        for (int i = 0; i < itemCount / 2; i++) {
+            fieldItems.add(items.get(1 + random.nextInt(itemCount)));
+        }
+        return fieldItems;
+    }
+
+    private List<Trainer> generateTrainers() {
+        List<Trainer> trainers = new ArrayList<>();
+        for (int index = 1; index <= trainerCount; index++) {
+            Trainer tr = new Trainer();
+            tr.index = index;
+            tr.name = "Trainer " + index;
+            tr.fullDisplayName = "Trainer " + index;
+            tr.trainerclass = random.nextInt(50);
+            if (index % 50 == 0 && index / 50 <= 8) {
+                tr.tag = "GYM" + (index / 50) + "-LEADER";
+            }
+
+            int level = 3 + (index * 65) / Math.max(1, trainerCount);
+            int teamSize = tr.tag != null ? 6 : 1 + random.nextInt(4);
+            for (int i = 0; i < teamSize; i++) {
+                TrainerPokemon tp = new TrainerPokemon();
+                tp.setSpecies(baseSpecies.get(random.nextInt(baseSpecies.size())));
+                tp.setLevel(level + random.nextInt(4));
+                tp.setAbilitySlot(1);
+                tr.pokemon.add(tp);
+            }
+            trainers.add(tr);
+        }
+        return trainers;
+    }
+
+    private Type randomType(List<Type> types) {
+        return types.get(random.nextInt(types.size()));
+    }
+
+    private int randomMove() {
+        return 1 + random.nextInt(moveCount);
+    }
+
+    private List<Integer> pickDistinctMoves(int count) {
+        List<Integer> all = new ArrayList<>();
+        for (int number = 1; number <= moveCount; number++) {
+            all.add(number);
+        }
+        Collections.shuffle(all, random);
+        return new ArrayList<>(all.subList(0, Math.min(count, all.size())));
+    }
+}
@@ -0,0 +1,203 @@
+package test.com.dabomstew.pkrandom.randomizers;
+
+import com.dabomstew.pkromio.gamedata.*;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * A {@link TestRomHandler} with data from a {@link SyntheticRomGenerator}, instead of from a loaded ROM.<br>
+ * Beyond the data, it answers the "capability" questions a full randomization asks in the most conservative way
+ * (no trainer text, no palettes, etc.), and saving only pretends to save. This way the whole
+ * {@link com.dabomstew.pkrandom.GameRandomizer} can be run on it.<br>
+ * As with any TestRomHandler, {@link #prepare()} must be called before use, and {@link #reset()} between uses.
+ */
+public class SyntheticRomHandler extends TestRomHandler {
+
+    private final int highestAbilityIndex;
+
+    public SyntheticRomHandler(SyntheticRomGenerator generator) {
+        super(generator.generate());
+        this.highestAbilityIndex = generator.getHighestAbilityIndex();
+    }
+
+    @Override
+    public boolean saveRom(String filename, long seed, boolean saveAsDirectory) {
+        // nothing to save to
+        return true;
+    }
+
+    @Override
+    public boolean hasGameUpdateLoaded() {
+        return false;
+    }
+
+    @Override
+    public void printRomDiagnostics(PrintStream logStream) {
+        logStream.println("Synthetic ROM, no diagnostics.");
+    }
+
+    @Override
+    public boolean isRomValid(PrintStream logStream) {
+        return true;
+    }
+
+    @Override
+    public String getROMName() {
+        return "Synthetic ROM";
+    }
+
+    @Override
+    public String getROMCode() {
+        return "SYNTH";
+    }
+
+    @Override
+    public String getSupportLevel() {
+        return "Complete";
+    }
+
+    @Override
+    public List<Species> getSpeciesInclFormes() {
+        List<Species> speciesInclFormes = new ArrayList<>(getSpeciesSetInclFormes());
+        speciesInclFormes.sort(Comparator.comparingInt(Species::getNumber));
+        speciesInclFormes.add(0, null);
+        return speciesInclFormes;
+    }
+
+    @Override
+    public boolean supportsStarterHeldItems() {
+        return false;
+    }
+
+    @Override
+    public List<Item> getStarterHeldItems() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public int highestAbilityIndex() {
+        return highestAbilityIndex;
+    }
+
+    @Override
+    public String abilityName(int number) {
+        return number == 0 ? "" : "Ability " + number;
+    }
+
+    @Override
+    public Map<Integer, List<Integer>> getAbilityVariations() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public List<Integer> getUselessAbilities() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public boolean hasMegaEvolutions() {
+        return false;
+    }
+
+    @Override
+    public boolean hasPhysicalSpecialSplit() {
+        return generationOfPokemon() >= 4;
+    }
+
+    @Override
+    public List<Integer> getMovesBannedFromLevelup() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public boolean supportsFourStartingMoves() {
+        return false;
+    }
+
+    @Override
+    public List<Integer> getGameBreakingMoves() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Integer> getIllegalMoves() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Integer> getFieldMoves() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Integer> getEarlyRequiredHMMoves() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Map<Species, List<Evolution>> getPreImprovedEvolutions() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public boolean canChangeTrainerText() {
+        return false;
+    }
+
+    @Override
+    public List<EncounterArea> getEncounters(boolean useTimeOfDay) {
+        // there are no time-based encounters, so both ways of getting encounters are the same
+        return super.getEncounters(true);
+    }
+
+    @Override
+    public List<EncounterArea> getSortedEncounters(boolean useTimeOfDay) {
+        return getEncounters(useTimeOfDay);
+    }
+
+    @Override
+    public List<InGameTrade> getInGameTrades() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public void setInGameTrades(List<InGameTrade> trades) {
+        // there are none
+    }
+
+    @Override
+    public boolean hasTotemPokemon() {
+        return false;
+    }
+
+    @Override
+    public List<TotemPokemon> getTotemPokemon() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public boolean canSetIntroPokemon() {
+        return false;
+    }
+
+    @Override
+    public boolean hasFunctionalFormes() {
+        return false;
+    }
+
+    @Override
+    public boolean hasPokemonPaletteSupport() {
+        return false;
+    }
+
+    @Override
+    public String getPaletteFilesID() {
+        return null;
+    }
+
+    @Override
+    public boolean hasCustomPlayerGraphicsSupport() {
+        return false;
+    }
+}
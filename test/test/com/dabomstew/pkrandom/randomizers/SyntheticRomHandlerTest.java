@@ -0,0 +1,280 @@
+package test.com.dabomstew.pkrandom.randomizers;
+
+import com.dabomstew.pkrandom.GameRandomizer;
+import com.dabomstew.pkrandom.RandomizationListener;
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.log.PhaseTimer;
+import com.dabomstew.pkrandom.randomizers.EvolutionRandomizer;
+import com.dabomstew.pkromio.exceptions.OperationCancelledException;
+import com.dabomstew.pkromio.gamedata.Evolution;
+import com.dabomstew.pkromio.gamedata.ExpCurve;
+import com.dabomstew.pkromio.gamedata.Species;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyntheticRomHandlerTest {
+
+    @Test
+    public void sameSeedGeneratesSameData() {
+        SyntheticRomHandler a = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(123));
+        SyntheticRomHandler b = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(123));
+        a.prepare();
+        b.prepare();
+
+        assertEquals(a.getSpeciesSetInclFormes().size(), b.getSpeciesSetInclFormes().size());
+        for (int i = 1; i < a.getSpecies().size(); i++) {
+            Species spA = a.getSpecies().get(i);
+            Species spB = b.getSpecies().get(i);
+            assertEquals(spA.getPrimaryType(true), spB.getPrimaryType(true));
+            assertEquals(spA.getBST(), spB.getBST());
+            assertEquals(spA.getEvolutionsFrom().size(), spB.getEvolutionsFrom().size());
+        }
+        assertEquals(a.getTrainers().toString(), b.getTrainers().toString());
+        assertEquals(a.getMovesLearnt().toString(), b.getMovesLearnt().toString());
+    }
+
+    @Test
+    public void sizesAreAsConfigured() {
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator()
+                .setSpeciesCount(200).setFormeCount(10).setMoveCount(300)
+                .setTrainerCount(100).setAreaCount(30));
+        romHandler.prepare();
+
+        assertEquals(200, romHandler.getSpeciesSet().size());
+        assertEquals(210, romHandler.getSpeciesSetInclFormes().size());
+        assertEquals(10, romHandler.getAltFormes().size());
+        assertEquals(301, romHandler.getMoves().size());
+        assertEquals(100, romHandler.getTrainers().size());
+        assertEquals(30, romHandler.getEncounters(true).size());
+    }
+
+    @Test
+    public void gameRandomizerRunsWithoutErrors() {
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(1));
+        romHandler.prepare();
+
+        Settings settings = new Settings();
+        settings.setRomName(romHandler.getROMName());
+        settings.setSelectedEXPCurve(ExpCurve.MEDIUM_FAST);
+        settings.setBaseStatisticsMod(Settings.BaseStatisticsMod.RANDOM);
+        settings.setSpeciesTypesMod(Settings.SpeciesTypesMod.RANDOM_FOLLOW_EVOLUTIONS);
+        settings.setAbilitiesMod(Settings.AbilitiesMod.RANDOMIZE);
+        settings.setEvolutionsMod(Settings.EvolutionsMod.RANDOM);
+        settings.setStartersMod(Settings.StartersMod.COMPLETELY_RANDOM);
+        settings.setMovesetsMod(Settings.MovesetsMod.RANDOM_PREFER_SAME_TYPE);
+        settings.setTmsMod(Settings.TMsMod.RANDOM);
+        settings.setTmsHmsCompatibilityMod(Settings.TMsHMsCompatibilityMod.RANDOM_PREFER_TYPE);
+        settings.setMoveTutorMovesMod(Settings.MoveTutorMovesMod.RANDOM);
+        settings.setMoveTutorsCompatibilityMod(Settings.MoveTutorsCompatibilityMod.RANDOM_PREFER_TYPE);
+        settings.setRandomizeWildPokemon(true);
+        settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+        settings.setStaticPokemonMod(Settings.StaticPokemonMod.RANDOM_MATCHING);
+        settings.setFieldItemsMod(Settings.FieldItemsMod.RANDOM);
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        GameRandomizer.Results results = new GameRandomizer(settings, romHandler,
+                ResourceBundle.getBundle("com/dabomstew/pkrandom/gui/Bundle"), false)
+                .randomize("synthetic", new PrintStream(log), 1);
+        if (!results.wasSaveSuccessful()) {
+            results.getException().printStackTrace();
+        }
+        if (!results.wasLogSuccessful()) {
+            results.getLogException().printStackTrace();
+        }
+        assertTrue(results.wasSaveSuccessful());
+        assertTrue(results.wasLogSuccessful());
+        assertEquals("Log", results.getPhaseTimings().get(results.getPhaseTimings().size() - 1).getName());
+    }
+
+    @Test
+    public void jsonLinesLogHasOneRecordPerLine() {
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(2)
+                .setTrainerCount(50).setAreaCount(20));
+        romHandler.prepare();
+
+        Settings settings = new Settings();
+        settings.setRomName(romHandler.getROMName());
+        settings.setSelectedEXPCurve(ExpCurve.MEDIUM_FAST);
+        settings.setRandomizeWildPokemon(true);
+        settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+
+        StringWriter jsonLog = new StringWriter();
+        GameRandomizer randomizer = new GameRandomizer(settings, romHandler,
+                ResourceBundle.getBundle("com/dabomstew/pkrandom/gui/Bundle"), false);
+        randomizer.setJsonLinesLog(jsonLog);
+        GameRandomizer.Results results = randomizer.randomize("synthetic", new PrintStream(new ByteArrayOutputStream()), 2);
+        assertTrue(results.wasLogSuccessful());
+
+        String[] lines = jsonLog.toString().split("\n");
+        assertTrue(lines[0].startsWith("{\"record\":\"head\""));
+        int trainers = 0;
+        int areas = 0;
+        for (String line : lines) {
+            assertTrue(line.startsWith("{\"record\":") && line.endsWith("}"), line);
+            if (line.startsWith("{\"record\":\"trainer\"")) {
+                trainers++;
+            } else if (line.startsWith("{\"record\":\"encounterArea\"")) {
+                areas++;
+            }
+        }
+        assertEquals(50, trainers);
+        assertTrue(areas > 0);
+    }
+
+    @Test
+    public void splitRNGSchemeIsReproducible() {
+        String[] trainers = new String[2];
+        String[] logs = new String[2];
+        for (int i = 0; i < 2; i++) {
+            SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(4)
+                    .setTrainerCount(50).setAreaCount(20));
+            romHandler.prepare();
+
+            Settings settings = new Settings();
+            settings.setRomName(romHandler.getROMName());
+            settings.setSelectedEXPCurve(ExpCurve.MEDIUM_FAST);
+            settings.setRNGScheme(Settings.RNGScheme.SPLIT);
+            settings.setEvolutionsMod(Settings.EvolutionsMod.RANDOM);
+            settings.setRandomizeWildPokemon(true);
+            settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            GameRandomizer.Results results = new GameRandomizer(settings, romHandler,
+                    ResourceBundle.getBundle("com/dabomstew/pkrandom/gui/Bundle"), false)
+                    .randomize("synthetic", new PrintStream(log), 5);
+            assertTrue(results.wasSaveSuccessful());
+            trainers[i] = romHandler.getTrainers().toString();
+            logs[i] = log.toString();
+        }
+        assertEquals(trainers[0], trainers[1]);
+        assertTrue(logs[0].contains("of which Trainer Pokemon: "));
+    }
+
+    @Test
+    public void listenerIsToldAboutEachPhase() {
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(3));
+        romHandler.prepare();
+        Settings settings = new Settings();
+        settings.setRomName(romHandler.getROMName());
+        settings.setSelectedEXPCurve(ExpCurve.MEDIUM_FAST);
+        settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+
+        List<String> started = new ArrayList<>();
+        List<String> ended = new ArrayList<>();
+        List<Integer> completed = new ArrayList<>();
+        int[] total = new int[1];
+        GameRandomizer randomizer = new GameRandomizer(settings, romHandler,
+                ResourceBundle.getBundle("com/dabomstew/pkrandom/gui/Bundle"), false);
+        randomizer.setListener(new RandomizationListener() {
+            @Override
+            public void phaseStarted(String phase) {
+                started.add(phase);
+            }
+
+            @Override
+            public void phaseEnded(PhaseTimer.Phase phase) {
+                ended.add(phase.getName());
+            }
+
+            @Override
+            public void progress(int completedPhases, int totalPhases) {
+                completed.add(completedPhases);
+                total[0] = totalPhases;
+            }
+        });
+        GameRandomizer.Results results = randomizer.randomize("synthetic",
+                new PrintStream(new ByteArrayOutputStream()), 3);
+
+        assertTrue(results.wasSaveSuccessful());
+        assertEquals(started, ended);
+        assertTrue(started.contains("Trainer Pokemon"));
+        assertTrue(started.contains("Save ROM"));
+        assertEquals("Log", started.get(started.size() - 1));
+        assertEquals(started.size(), total[0]);
+        for (int i = 0; i < completed.size(); i++) {
+            assertEquals(i + 1, completed.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void cancellingStopsBeforeTheNextPhase() {
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(4));
+        romHandler.prepare();
+        Settings settings = new Settings();
+        settings.setRomName(romHandler.getROMName());
+        settings.setSelectedEXPCurve(ExpCurve.MEDIUM_FAST);
+        settings.setEvolutionsMod(Settings.EvolutionsMod.RANDOM);
+
+        List<String> started = new ArrayList<>();
+        GameRandomizer randomizer = new GameRandomizer(settings, romHandler,
+                ResourceBundle.getBundle("com/dabomstew/pkrandom/gui/Bundle"), false);
+        randomizer.setListener(new RandomizationListener() {
+            @Override
+            public void phaseStarted(String phase) {
+                started.add(phase);
+                if (phase.equals("Evolutions")) {
+                    randomizer.cancel();
+                }
+            }
+        });
+        GameRandomizer.Results results = randomizer.randomize("synthetic",
+                new PrintStream(new ByteArrayOutputStream()), 4);
+
+        assertFalse(results.wasSaveSuccessful());
+        assertTrue(results.wasCancelled());
+        assertTrue(results.getException() instanceof OperationCancelledException);
+        assertEquals("Evolutions", started.get(started.size() - 1));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void restrictiveEvolutionSettingsAreSatisfied() {
+        for (int seed = 0; seed < 10; seed++) {
+            SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(seed)
+                    .setSpeciesCount(400));
+            romHandler.prepare();
+            Map<Species, List<Species>> evosBefore = new HashMap<>();
+            for (Species pk : romHandler.getSpeciesSet()) {
+                List<Species> evos = new ArrayList<>();
+                for (Evolution evo : pk.getEvolutionsFrom()) {
+                    evos.add(evo.getTo());
+                }
+                evosBefore.put(pk, evos);
+            }
+
+            Settings s = new Settings();
+            s.setEvolutionsMod(false, true, false);
+            s.setEvosSameTyping(true);
+            s.setEvosMaxThreeStages(true);
+            s.setEvosForceChange(true);
+            s.setEvosSimilarStrength(seed % 2 == 0);
+            new EvolutionRandomizer(romHandler, s, new Random(seed)).randomizeEvolutions();
+
+            for (Species pk : romHandler.getSpeciesSet()) {
+                assertEquals(evosBefore.get(pk).size(), pk.getEvolutionsFrom().size());
+                for (Evolution evo : pk.getEvolutionsFrom()) {
+                    assertEquals(pk.getGrowthCurve(), evo.getTo().getGrowthCurve());
+                    assertTrue(evo.getTo().hasSharedType(pk));
+                    assertFalse(evosBefore.get(pk).contains(evo.getTo()));
+                }
+                assertTrue(evoStages(pk, 1) <= 3, pk.getName());
+            }
+        }
+    }
+
+    private int evoStages(Species pk, int count) {
+        // a cycle would show up as an absurd number of stages
+        assertTrue(count < 20);
+        int max = count;
+        for (Evolution evo : pk.getEvolutionsFrom()) {
+            max = Math.max(max, evoStages(evo.getTo(), count + 1));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,181 @@
+package test.com.dabomstew.pkrandom.randomizers;
+
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.random.RandomSource;
+import com.dabomstew.pkrandom.randomizers.WildEncounterRandomizer;
+import com.dabomstew.pkromio.gamedata.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the {@link WildEncounterRandomizer} that need no ROM, using a {@link SyntheticRomHandler}.
+ */
+public class SyntheticWildEncounterRandomizerTest {
+
+    private static final long SEED = 12345;
+
+    @Test
+    public void catchEmAllPlacesEverySpecies() {
+        Settings settings = new Settings();
+        settings.setRandomizeWildPokemon(true);
+        settings.setWildPokemonZoneMod(Settings.WildPokemonZoneMod.NONE);
+        settings.setCatchEmAllEncounters(true);
+
+        SyntheticRomHandler romHandler = newRomHandler();
+        List<EncounterArea> areas = randomizeEncounters(romHandler, settings, SEED);
+
+        SpeciesSet placed = new SpeciesSet();
+        areas.forEach(area -> placed.addAll(area.getSpeciesInArea()));
+        assertEquals(romHandler.getRestrictedSpeciesService().getSpecies(true, false, false), placed);
+    }
+
+    @Test
+    public void typeThemedAreasShareAType() {
+        Settings settings = new Settings();
+        settings.setRandomizeWildPokemon(true);
+        settings.setWildPokemonZoneMod(Settings.WildPokemonZoneMod.ENCOUNTER_SET);
+        settings.setWildPokemonTypeMod(Settings.WildPokemonTypeMod.RANDOM_THEMES);
+        settings.setCatchEmAllEncounters(true);
+
+        for (EncounterArea area : randomizeEncounters(newRomHandler(), settings, SEED)) {
+            assertNotNull(area.getSpeciesInArea().getSharedType(false), area.toString());
+        }
+    }
+
+    @Test
+    public void sameEvoStageIsKept() {
+        Settings settings = new Settings();
+        settings.setRandomizeWildPokemon(true);
+        settings.setWildPokemonZoneMod(Settings.WildPokemonZoneMod.MAP);
+        settings.setWildPokemonEvolutionMod(Settings.WildPokemonEvolutionMod.KEEP_STAGE);
+        settings.setCatchEmAllEncounters(true);
+
+        SyntheticRomHandler romHandler = newRomHandler();
+        List<Species> before = getEncounterSpecies(romHandler.getEncounters(false));
+        List<Species> after = getEncounterSpecies(randomizeEncounters(romHandler, settings, SEED));
+
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals(before.get(i).getStagesBefore(true), after.get(i).getStagesBefore(false));
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameEncounters() {
+        Settings settings = new Settings();
+        settings.setRandomizeWildPokemon(true);
+        settings.setWildPokemonZoneMod(Settings.WildPokemonZoneMod.MAP);
+        settings.setWildPokemonTypeMod(Settings.WildPokemonTypeMod.KEEP_PRIMARY);
+        settings.setWildPokemonEvolutionMod(Settings.WildPokemonEvolutionMod.KEEP_STAGE);
+        settings.setSimilarStrengthEncounters(true);
+
+        assertEquals(getEncounterSpecies(randomizeEncounters(newRomHandler(), settings, SEED)),
+                getEncounterSpecies(randomizeEncounters(newRomHandler(), settings, SEED)));
+    }
+
+    /**
+     * The expected values are checksums of the encounter species for seeds 1 to 5, as given before replacement
+     * pools were indexed. The SHARED RNG scheme has to keep giving the same encounters.
+     */
+    @Test
+    public void sharedSchemeGivesSameEncountersAsOlderVersions() {
+        Settings mapKeepStage = new Settings();
+        mapKeepStage.setRandomizeWildPokemon(true);
+        mapKeepStage.setWildPokemonZoneMod(Settings.WildPokemonZoneMod.MAP);
+        mapKeepStage.setWildPokemonEvolutionMod(Settings.WildPokemonEvolutionMod.KEEP_STAGE);
+        mapKeepStage.setCatchEmAllEncounters(true);
+        assertChecksums(mapKeepStage, 0x294960aeL, 0x3609d640L, 0x1fbb80b1L, 0xe3825333L, 0x69cdca5eL);
+
+        Settings typeThemes = new Settings();
+        typeThemes.setRandomizeWildPokemon(true);
+        typeThemes.setWildPokemonZoneMod(Settings.WildPokemonZoneMod.ENCOUNTER_SET);
+        typeThemes.setWildPokemonTypeMod(Settings.WildPokemonTypeMod.RANDOM_THEMES);
+        typeThemes.setCatchEmAllEncounters(true);
+        assertChecksums(typeThemes, 0x58cfda3eL, 0x3e289776L, 0x6a923fd7L, 0x78b5b8ffL, 0xfaa489a9L);
+
+        Settings keepPrimary = new Settings();
+        keepPrimary.setRandomizeWildPokemon(true);
+        keepPrimary.setWildPokemonZoneMod(Settings.WildPokemonZoneMod.MAP);
+        keepPrimary.setWildPokemonTypeMod(Settings.WildPokemonTypeMod.KEEP_PRIMARY);
+        keepPrimary.setWildPokemonEvolutionMod(Settings.WildPokemonEvolutionMod.KEEP_STAGE);
+        keepPrimary.setSimilarStrengthEncounters(true);
+        assertChecksums(keepPrimary, 0xef6ff313L, 0x876110ceL, 0x3e83da64L, 0x2093183bL, 0xbe95fafaL);
+
+        Settings namedLocationBasic = new Settings();
+        namedLocationBasic.setRandomizeWildPokemon(true);
+        namedLocationBasic.setWildPokemonZoneMod(Settings.WildPokemonZoneMod.NAMED_LOCATION);
+        namedLocationBasic.setWildPokemonEvolutionMod(Settings.WildPokemonEvolutionMod.BASIC_ONLY);
+        namedLocationBasic.setCatchEmAllEncounters(true);
+        assertChecksums(namedLocationBasic, 0x0c7468fcL, 0xf72164cfL, 0xd12cf149L, 0x80d63f7fL, 0xdf57e719L);
+    }
+
+    @Test
+    public void splitSchemeKeepsStagesAndGivesSameEncountersForSameSeed() {
+        Settings settings = new Settings();
+        settings.setRandomizeWildPokemon(true);
+        settings.setWildPokemonZoneMod(Settings.WildPokemonZoneMod.MAP);
+        settings.setWildPokemonEvolutionMod(Settings.WildPokemonEvolutionMod.KEEP_STAGE);
+        settings.setCatchEmAllEncounters(true);
+
+        SyntheticRomHandler romHandler = newRomHandler();
+        List<Species> before = getEncounterSpecies(romHandler.getEncounters(false));
+        List<EncounterArea> areas = randomizeEncounters(romHandler, settings, splitRandom(SEED));
+        List<Species> after = getEncounterSpecies(areas);
+
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals(before.get(i).getStagesBefore(true), after.get(i).getStagesBefore(false));
+        }
+        assertEquals(getEncounterSpecies(randomizeEncounters(newRomHandler(), settings, splitRandom(SEED))), after);
+    }
+
+    private static void assertChecksums(Settings settings, long... expected) {
+        for (int i = 0; i < expected.length; i++) {
+            long seed = i + 1;
+            CRC32 checksum = new CRC32();
+            for (Species sp : getEncounterSpecies(randomizeEncounters(newRomHandler(), settings, seed))) {
+                checksum.update(sp.getNumber());
+                checksum.update(sp.getNumber() >> 8);
+            }
+            assertEquals(expected[i], checksum.getValue(), settings.getWildPokemonZoneMod() + ", seed " + seed);
+        }
+    }
+
+    private static Random splitRandom(long seed) {
+        RandomSource randomSource = new RandomSource(Settings.RNGScheme.SPLIT);
+        randomSource.seed(seed);
+        return randomSource.getNonCosmetic("Wild Pokemon");
+    }
+
+    private static SyntheticRomHandler newRomHandler() {
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(1));
+        romHandler.prepare();
+        return romHandler;
+    }
+
+    private static List<EncounterArea> randomizeEncounters(SyntheticRomHandler romHandler, Settings settings,
+                                                           long seed) {
+        return randomizeEncounters(romHandler, settings, new Random(seed));
+    }
+
+    private static List<EncounterArea> randomizeEncounters(SyntheticRomHandler romHandler, Settings settings,
+                                                           Random random) {
+        new WildEncounterRandomizer(romHandler, settings, random).randomizeEncounters();
+        return romHandler.getEncounters(false);
+    }
+
+    private static List<Species> getEncounterSpecies(List<EncounterArea> areas) {
+        List<Species> species = new ArrayList<>();
+        for (EncounterArea area : areas) {
+            for (Encounter enc : area) {
+                species.add(enc.getSpecies());
+            }
+        }
+        return species;
+    }
+}
@@ -7,6 +7,7 @@ import com.dabomstew.pkromio.romhandlers.AbstractRomHandler;
 import com.dabomstew.pkromio.romhandlers.PokemonImageGetter;
 import com.dabomstew.pkromio.romhandlers.RomHandler;
 import com.dabomstew.pkromio.romhandlers.romentries.RomEntry;
+import com.dabomstew.pkromio.romio.PatchFormat;
 import com.dabomstew.pkromio.services.RestrictedSpeciesService;
 import com.dabomstew.pkromio.services.TypeService;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
@@ -565,6 +566,11 @@ public class TestRomHandler extends AbstractRomHandler {
         return false;
     }
 
+    @Override
+    protected boolean saveRomPatchFile(String filename, PatchFormat format) {
+        return false;
+    }
+
     @Override
     protected RomEntry getRomEntry() {
         return null;
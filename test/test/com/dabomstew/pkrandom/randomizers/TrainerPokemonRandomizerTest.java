@@ -0,0 +1,177 @@
+package test.com.dabomstew.pkrandom.randomizers;
+
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.random.RandomSource;
+import com.dabomstew.pkrandom.randomizers.TrainerPokemonRandomizer;
+import com.dabomstew.pkromio.gamedata.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrainerPokemonRandomizerTest {
+
+    private static final long SEED = 12345;
+
+    @Test
+    public void sameSeedGivesSameTrainerPokemon() {
+        Settings settings = new Settings();
+        settings.setTrainersMod(Settings.TrainersMod.DISTRIBUTED);
+        settings.setTrainersUsePokemonOfSimilarStrength(true);
+
+        assertEquals(randomizeTrainers(settings, SEED).getTrainers().toString(),
+                randomizeTrainers(settings, SEED).getTrainers().toString());
+    }
+
+    @Test
+    public void gymTrainersGetPokemonOfTheirTheme() {
+        Settings settings = new Settings();
+        settings.setTrainersMod(Settings.TrainersMod.TYPE_THEMED_ELITE4_GYMS);
+        settings.setTrainersUsePokemonOfSimilarStrength(true);
+
+        for (Trainer tr : randomizeTrainers(settings, SEED).getTrainers()) {
+            if (tr.tag != null && tr.tag.startsWith("GYM")) {
+                SpeciesSet team = new SpeciesSet();
+                tr.pokemon.forEach(tp -> team.add(tp.getSpecies()));
+                assertNotNull(team.getSharedType(false), tr.toString());
+            }
+        }
+    }
+
+    @Test
+    public void forcedFullyEvolvedTrainerPokemonAreFinalEvos() {
+        Settings settings = new Settings();
+        settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+        settings.setTrainersForceFullyEvolved(true);
+        settings.setTrainersForceFullyEvolvedLevel(30);
+
+        for (Trainer tr : randomizeTrainers(settings, SEED).getTrainers()) {
+            for (TrainerPokemon tp : tr.pokemon) {
+                if (tp.getLevel() >= 30) {
+                    assertTrue(tp.getSpecies().getEvolvedSpecies(false).isEmpty(), tp.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void diverseRegularTrainersShareNoTypes() {
+        Settings settings = new Settings();
+        settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+        settings.setDiverseTypesForRegularTrainers(true);
+
+        for (Trainer tr : randomizeTrainers(settings, SEED).getTrainers()) {
+            if (tr.isBoss() || tr.isImportant()) {
+                continue;
+            }
+            Set<Type> usedTypes = EnumSet.noneOf(Type.class);
+            for (TrainerPokemon tp : tr.pokemon) {
+                Species sp = tp.getSpecies();
+                assertTrue(usedTypes.add(sp.getPrimaryType(false)), tr.toString());
+                if (sp.hasSecondaryType(false)) {
+                    assertTrue(usedTypes.add(sp.getSecondaryType(false)), tr.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * The expected values are checksums of the trainer Pokemon for seeds 1 to 5, as given by the SpeciesSet-based
+     * picks used before the SPLIT RNG scheme was added. The SHARED scheme has to keep giving the same Pokemon.
+     */
+    @Test
+    public void sharedSchemeGivesSameTrainerPokemonAsOlderVersions() {
+        Settings distributed = new Settings();
+        distributed.setTrainersMod(Settings.TrainersMod.DISTRIBUTED);
+        distributed.setTrainersUsePokemonOfSimilarStrength(true);
+        assertChecksums(distributed, 0x5b10f7deL, 0x39b7d50dL, 0xcc4e4602L, 0xbe1469a7L, 0x9f3ebcd5L);
+
+        Settings gymThemed = new Settings();
+        gymThemed.setTrainersMod(Settings.TrainersMod.TYPE_THEMED_ELITE4_GYMS);
+        gymThemed.setTrainersUsePokemonOfSimilarStrength(true);
+        assertChecksums(gymThemed, 0xc5b7b1eeL, 0xd98ce273L, 0x0819803bL, 0xcdb87e98L, 0xf7caf67aL);
+
+        Settings uniqueEliteFour = new Settings();
+        uniqueEliteFour.setTrainersMod(Settings.TrainersMod.RANDOM);
+        uniqueEliteFour.setTrainersForceFullyEvolved(true);
+        uniqueEliteFour.setTrainersForceFullyEvolvedLevel(30);
+        uniqueEliteFour.setEliteFourUniquePokemonNumber(2);
+        assertChecksums(uniqueEliteFour, 0x217f7dbaL, 0xb6281ad9L, 0xc0993a37L, 0x224bac6dL, 0xa2288e0aL);
+
+        Settings typeThemed = new Settings();
+        typeThemed.setTrainersMod(Settings.TrainersMod.TYPE_THEMED);
+        typeThemed.setDiverseTypesForRegularTrainers(true);
+        typeThemed.setTrainersForceMiddleStage(true);
+        typeThemed.setTrainersForceMiddleStageLevel(20);
+        assertChecksums(typeThemed, 0xc4ff718cL, 0x4db5d28dL, 0xa09bd1ffL, 0x0036a5ceL, 0xd5403d5fL);
+
+        Settings mainPlaythrough = new Settings();
+        mainPlaythrough.setTrainersMod(Settings.TrainersMod.MAINPLAYTHROUGH);
+        mainPlaythrough.setTrainersBlockEarlyWonderGuard(true);
+        mainPlaythrough.setEliteFourUniquePokemonNumber(3);
+        assertChecksums(mainPlaythrough, 0x6ca1d973L, 0x4363dc6aL, 0x7067d01aL, 0x5004a72fL, 0x16e15ac9L);
+    }
+
+    @Test
+    public void splitSchemeGivesSameTrainerPokemonForSameSeed() {
+        Settings settings = new Settings();
+        settings.setTrainersMod(Settings.TrainersMod.DISTRIBUTED);
+        settings.setTrainersUsePokemonOfSimilarStrength(true);
+
+        assertEquals(randomizeTrainers(settings, splitRandom(SEED)).getTrainers().toString(),
+                randomizeTrainers(settings, splitRandom(SEED)).getTrainers().toString());
+    }
+
+    @Test
+    public void splitSchemeGymTrainersGetPokemonOfTheirTheme() {
+        Settings settings = new Settings();
+        settings.setTrainersMod(Settings.TrainersMod.TYPE_THEMED_ELITE4_GYMS);
+        settings.setTrainersUsePokemonOfSimilarStrength(true);
+        settings.setEliteFourUniquePokemonNumber(2);
+
+        for (Trainer tr : randomizeTrainers(settings, splitRandom(SEED)).getTrainers()) {
+            if (tr.tag != null && tr.tag.startsWith("GYM")) {
+                SpeciesSet team = new SpeciesSet();
+                tr.pokemon.forEach(tp -> team.add(tp.getSpecies()));
+                assertNotNull(team.getSharedType(false), tr.toString());
+            }
+        }
+    }
+
+    private static void assertChecksums(Settings settings, long... expected) {
+        for (int i = 0; i < expected.length; i++) {
+            long seed = i + 1;
+            CRC32 checksum = new CRC32();
+            for (Trainer tr : randomizeTrainers(settings, seed).getTrainers()) {
+                for (TrainerPokemon tp : tr.pokemon) {
+                    int number = tp.getSpecies().getNumber();
+                    checksum.update(number);
+                    checksum.update(number >> 8);
+                }
+            }
+            assertEquals(expected[i], checksum.getValue(), settings.getTrainersMod() + ", seed " + seed);
+        }
+    }
+
+    private static Random splitRandom(long seed) {
+        RandomSource randomSource = new RandomSource(Settings.RNGScheme.SPLIT);
+        randomSource.seed(seed);
+        return randomSource.getNonCosmetic("Trainer Pokemon");
+    }
+
+    private static SyntheticRomHandler randomizeTrainers(Settings settings, long seed) {
+        return randomizeTrainers(settings, new Random(seed));
+    }
+
+    private static SyntheticRomHandler randomizeTrainers(Settings settings, Random random) {
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(1)
+                .setTrainerCount(400));
+        romHandler.prepare();
+        new TrainerPokemonRandomizer(romHandler, settings, random).randomizeTrainerPokes();
+        return romHandler;
+    }
+}
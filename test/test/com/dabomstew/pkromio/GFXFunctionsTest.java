@@ -0,0 +1,90 @@
+package test.com.dabomstew.pkromio;
+
+import com.dabomstew.pkromio.GFXFunctions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GFXFunctionsTest {
+
+    private static final int[] PALETTE = new int[16];
+
+    static {
+        for (int i = 0; i < PALETTE.length; i++) {
+            PALETTE[i] = 0xFF000000 | i * 0x0F0F0F;
+        }
+    }
+
+    @Test
+    public void drawTiledImageUnpacks4bppLowNibbleFirst() {
+        // two 8x8 tiles side by side, the first pixel byte of each being 0x21 and 0x43
+        byte[] data = new byte[64];
+        data[0] = 0x21;
+        data[32] = 0x43;
+        BufferedImage bim = GFXFunctions.drawTiledImage(data, PALETTE, 16, 8, 4);
+
+        assertEquals(1, bim.getRaster().getSample(0, 0, 0));
+        assertEquals(2, bim.getRaster().getSample(1, 0, 0));
+        assertEquals(3, bim.getRaster().getSample(8, 0, 0));
+        assertEquals(4, bim.getRaster().getSample(9, 0, 0));
+        assertEquals(PALETTE[2], bim.getRGB(1, 0));
+    }
+
+    @Test
+    public void drawTiledImagePlacesTileRows() {
+        // a 16x16 image of 8bpp tiles, where each byte is its own offset into the tile
+        byte[] data = new byte[256];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 64);
+        }
+        int[] palette = new int[256];
+        BufferedImage bim = GFXFunctions.drawTiledImage(data, palette, 0, 16, 16, 8, 8, 8);
+
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                assertEquals((y % 8) * 8 + x % 8, bim.getRaster().getSample(x, y, 0));
+            }
+        }
+    }
+
+    @Test
+    public void drawTiledZOrderImageInterleavesAxes() {
+        // 8bpp, so each byte is one pixel; pixel n of the tile goes to the position given by n's bits
+        byte[] data = new byte[64];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        BufferedImage bim = GFXFunctions.drawTiledZOrderImage(data, new int[256], 0, 8, 8, 8);
+
+        assertEquals(0, bim.getRaster().getSample(0, 0, 0));
+        assertEquals(1, bim.getRaster().getSample(1, 0, 0));
+        assertEquals(2, bim.getRaster().getSample(0, 1, 0));
+        assertEquals(3, bim.getRaster().getSample(1, 1, 0));
+        assertEquals(4, bim.getRaster().getSample(2, 0, 0));
+        assertEquals(63, bim.getRaster().getSample(7, 7, 0));
+    }
+
+    @Test
+    public void pseudoTransparentOnlyClearsColorConnectedToBorder() {
+        // a ring of color 1 on a background of color 0, with color 0 also inside the ring
+        byte[] data = new byte[32];
+        for (int y = 2; y <= 5; y++) {
+            for (int x = 2; x <= 5; x++) {
+                boolean ring = x == 2 || x == 5 || y == 2 || y == 5;
+                if (ring) {
+                    data[y * 4 + x / 2] |= (byte) (1 << (x % 2) * 4);
+                }
+            }
+        }
+        BufferedImage bim = GFXFunctions.drawTiledImage(data, PALETTE, 8, 8, 4);
+        BufferedImage transparent = GFXFunctions.pseudoTransparent(bim, PALETTE[0]);
+
+        assertEquals(0, transparent.getRGB(0, 0));
+        assertEquals(0, transparent.getRGB(7, 7));
+        assertEquals(PALETTE[1], transparent.getRGB(2, 2));
+        assertEquals(PALETTE[0], transparent.getRGB(3, 3));
+        assertEquals(PALETTE[0], transparent.getRGB(4, 4));
+    }
+}
@@ -0,0 +1,147 @@
+package test.com.dabomstew.pkromio.ctr;
+
+import com.dabomstew.pkromio.ctr.GARCArchive;
+import com.dabomstew.pkromio.ctr.GARCIndex;
+import cuecompressors.BLZCoder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GARCIndexTest {
+
+    private static final int GARC_HEADER_SIZE = 0x24;
+
+    @Test
+    public void fileCountMatchesGARCArchive() throws IOException {
+        byte[] garc = buildGARC(testMembers(), false);
+        assertEquals(new GARCArchive(garc, false).files.size(), new GARCIndex(garc).getFileCount());
+    }
+
+    @Test
+    public void filesMatchGARCArchive() throws IOException {
+        byte[] garc = buildGARC(testMembers(), false);
+        GARCArchive archive = new GARCArchive(garc, false);
+        GARCIndex index = new GARCIndex(garc);
+        for (int i = 0; i < index.getFileCount(); i++) {
+            assertArrayEquals(archive.getFile(i), index.getFile(i));
+        }
+    }
+
+    @Test
+    public void compressedFilesAreDecompressed() throws IOException {
+        List<byte[]> members = testMembers();
+        byte[] garc = buildGARC(members, true);
+        GARCArchive archive = new GARCArchive(garc, false);
+        GARCIndex index = new GARCIndex(garc);
+        for (int i = 0; i < index.getFileCount(); i++) {
+            assertArrayEquals(members.get(i), index.getFile(i));
+            assertArrayEquals(archive.getFile(i), index.getFile(i));
+        }
+    }
+
+    @Test
+    public void onlyHeadersAreReadUpFront() throws IOException {
+        byte[] garc = buildGARC(testMembers(), false);
+        int[] furthestRead = new int[1];
+        GARCIndex index = new GARCIndex((offset, length) -> {
+            furthestRead[0] = Math.max(furthestRead[0], offset + length);
+            byte[] buf = new byte[length];
+            System.arraycopy(garc, offset, buf, 0, length);
+            return buf;
+        });
+        assertTrue(furthestRead[0] <= index.getOffset(0, 0));
+
+        index.getFile(2);
+        assertEquals(index.getOffset(2, 0) + index.getStoredLength(2, 0), furthestRead[0]);
+    }
+
+    @Test
+    public void invalidMagicThrows() {
+        byte[] garc = buildGARC(testMembers(), false);
+        garc[0] = 'X';
+        assertThrows(IOException.class, () -> new GARCIndex(garc));
+    }
+
+    private static List<byte[]> testMembers() {
+        List<byte[]> members = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            byte[] member = new byte[0x40 + i * 0x13];
+            for (int j = 0; j < member.length; j++) {
+                member[j] = (byte) (0x20 + (j / 4 + i) % 8);
+            }
+            members.add(member);
+        }
+        return members;
+    }
+
+    /**
+     * Builds a version 6 GARC, with one single-file entry per member.
+     */
+    private static byte[] buildGARC(List<byte[]> members, boolean compress) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        int[] starts = new int[members.size()];
+        int[] lengths = new int[members.size()];
+        int largest = 0;
+        for (int i = 0; i < members.size(); i++) {
+            byte[] member = members.get(i);
+            if (compress) {
+                member = new BLZCoder(null).BLZ_EncodePub(member, false, false, "GARC");
+            }
+            starts[i] = payload.size();
+            lengths[i] = member.length;
+            payload.write(member, 0, member.length);
+            while (payload.size() % 4 != 0) {
+                payload.write(0xFF);
+            }
+            largest = Math.max(largest, member.length);
+        }
+
+        int fatoSize = 12 + members.size() * 4;
+        int fatbSize = 12 + members.size() * 16;
+        int fimbSize = 12;
+        int dataOffset = GARC_HEADER_SIZE + fatoSize + fatbSize + fimbSize;
+        ByteBuffer bbuf = ByteBuffer.allocate(dataOffset + payload.size()).order(ByteOrder.LITTLE_ENDIAN);
+
+        bbuf.put("CRAG".getBytes());
+        bbuf.putInt(GARC_HEADER_SIZE);
+        bbuf.putShort((short) 0xFEFF);
+        bbuf.putShort((short) 0x0600);
+        bbuf.putInt(4);
+        bbuf.putInt(dataOffset);
+        bbuf.putInt(dataOffset + payload.size());
+        bbuf.putInt(largest);
+        bbuf.putInt(largest);
+        bbuf.putInt(4);
+
+        bbuf.put("OTAF".getBytes());
+        bbuf.putInt(fatoSize);
+        bbuf.putShort((short) members.size());
+        bbuf.putShort((short) 0xFFFF);
+        for (int i = 0; i < members.size(); i++) {
+            bbuf.putInt(i * 16);
+        }
+
+        bbuf.put("BTAF".getBytes());
+        bbuf.putInt(fatbSize);
+        bbuf.putInt(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            bbuf.putInt(1);
+            bbuf.putInt(starts[i]);
+            bbuf.putInt(starts[i] + lengths[i]);
+            bbuf.putInt(lengths[i]);
+        }
+
+        bbuf.put("BMIF".getBytes());
+        bbuf.putInt(fimbSize);
+        bbuf.putInt(payload.size());
+        bbuf.put(payload.toByteArray());
+        return bbuf.array();
+    }
+}
@@ -0,0 +1,97 @@
+package test.com.dabomstew.pkromio.ctr;
+
+import com.dabomstew.pkromio.ctr.LayeredFSWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LayeredFSWriterTest {
+
+    private Path root;
+
+    @BeforeEach
+    public void createRoot() throws IOException {
+        root = Files.createTempDirectory("layeredfs").resolve("0004000000055D00");
+    }
+
+    @AfterEach
+    public void deleteRoot() throws IOException {
+        try (Stream<Path> walk = Files.walk(root.getParent())) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void writesAllFiles() throws IOException {
+        LayeredFSWriter writer = new LayeredFSWriter(root);
+        writer.addFile("code.bin", () -> new byte[]{1, 2, 3});
+        writer.addFile("romfs/a/0/1/2", () -> new byte[]{4});
+        writer.addFile("/romfs/a/0/1/3", () -> new byte[]{5});
+        writer.write();
+
+        assertEquals(3, writer.getWrittenCount());
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(root.resolve("code.bin")));
+        assertArrayEquals(new byte[]{4}, Files.readAllBytes(root.resolve("romfs/a/0/1/2")));
+        assertArrayEquals(new byte[]{5}, Files.readAllBytes(root.resolve("romfs/a/0/1/3")));
+    }
+
+    @Test
+    public void unchangedFilesAreNotRewritten() throws IOException {
+        LayeredFSWriter first = new LayeredFSWriter(root);
+        first.addFile("romfs/a/0/1/2", () -> new byte[]{4});
+        first.addFile("romfs/a/0/1/3", () -> new byte[]{5});
+        first.write();
+        Path unchanged = root.resolve("romfs/a/0/1/2");
+        long modified = Files.getLastModifiedTime(unchanged).toMillis() - 10000;
+        Files.setLastModifiedTime(unchanged, FileTime.fromMillis(modified));
+
+        LayeredFSWriter second = new LayeredFSWriter(root);
+        second.addFile("romfs/a/0/1/2", () -> new byte[]{4});
+        second.addFile("romfs/a/0/1/3", () -> new byte[]{6, 7});
+        second.write();
+
+        assertEquals(1, second.getWrittenCount());
+        assertEquals(1, second.getUnchangedCount());
+        assertEquals(modified, Files.getLastModifiedTime(unchanged).toMillis());
+        assertArrayEquals(new byte[]{6, 7}, Files.readAllBytes(root.resolve("romfs/a/0/1/3")));
+    }
+
+    @Test
+    public void staleFilesAndEmptyDirectoriesAreRemoved() throws IOException {
+        LayeredFSWriter first = new LayeredFSWriter(root);
+        first.addFile("code.bin", () -> new byte[]{1});
+        first.addFile("romfs/a/0/1/2", () -> new byte[]{4});
+        first.addFile("romfs/a/0/2/0", () -> new byte[]{5});
+        first.write();
+
+        LayeredFSWriter second = new LayeredFSWriter(root);
+        second.addFile("romfs/a/0/1/2", () -> new byte[]{4});
+        // e.g. overridden with its original contents
+        second.addFile("romfs/a/0/2/0", () -> null);
+        second.write();
+
+        assertEquals(2, second.getDeletedCount());
+        assertFalse(Files.exists(root.resolve("code.bin")));
+        assertFalse(Files.exists(root.resolve("romfs/a/0/2")));
+        assertTrue(Files.exists(root.resolve("romfs/a/0/1/2")));
+    }
+
+    @Test
+    public void exceptionsAreRethrown() {
+        LayeredFSWriter writer = new LayeredFSWriter(root);
+        writer.addFile("romfs/a", () -> {
+            throw new IOException("test");
+        });
+        IOException e = assertThrows(IOException.class, writer::write);
+        assertEquals("test", e.getMessage());
+    }
+}
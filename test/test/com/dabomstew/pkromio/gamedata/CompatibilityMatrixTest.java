@@ -0,0 +1,100 @@
+package test.com.dabomstew.pkromio.gamedata;
+
+import com.dabomstew.pkromio.gamedata.CompatibilityMatrix;
+import com.dabomstew.pkromio.gamedata.Species;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompatibilityMatrixTest {
+
+    private static List<Species> makeSpecies(int count) {
+        List<Species> species = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Species sp = new Species(i);
+            sp.setName("Species " + i);
+            species.add(sp);
+        }
+        return species;
+    }
+
+    @Test
+    public void convertingFromAndToMapKeepsAllFlags() {
+        List<Species> species = makeSpecies(5);
+        Random random = new Random(1);
+        Map<Species, boolean[]> compat = new TreeMap<>();
+        for (Species sp : species) {
+            boolean[] flags = new boolean[101];
+            for (int i = 1; i < flags.length; i++) {
+                flags[i] = random.nextBoolean();
+            }
+            compat.put(sp, flags);
+        }
+
+        Map<Species, boolean[]> after = CompatibilityMatrix.fromMap(compat).toMap();
+        assertEquals(compat.keySet(), after.keySet());
+        for (Species sp : species) {
+            assertArrayEquals(compat.get(sp), after.get(sp));
+        }
+    }
+
+    @Test
+    public void bitfieldRoundTripMatchesRomLayout() {
+        List<Species> species = makeSpecies(1);
+        Species sp = species.get(0);
+        CompatibilityMatrix compat = new CompatibilityMatrix(species, 100);
+        // bit i of byte j is column j*8+i+1
+        byte[] data = new byte[16];
+        data[3] = 0x10;
+        data[3 + 1] = (byte) 0x81;
+        data[3 + 12] = (byte) 0xFF; // only the low 4 bits are within 100 columns
+
+        compat.readRowFromBitfield(sp, data, 3, 13);
+        assertTrue(compat.get(sp, 5));
+        assertTrue(compat.get(sp, 9));
+        assertTrue(compat.get(sp, 16));
+        assertTrue(compat.get(sp, 97));
+        assertTrue(compat.get(sp, 100));
+        assertFalse(compat.get(sp, 1));
+        assertEquals(7, compat.countRow(sp));
+
+        byte[] written = new byte[16];
+        compat.writeRowToBitfield(sp, written, 3, 13);
+        byte[] expected = Arrays.copyOf(data, data.length);
+        expected[3 + 12] = 0x0F;
+        assertArrayEquals(expected, written);
+    }
+
+    @Test
+    public void orRowAddsCompatibilityWithoutRemovingAny() {
+        List<Species> species = makeSpecies(2);
+        Species from = species.get(0);
+        Species to = species.get(1);
+        CompatibilityMatrix compat = new CompatibilityMatrix(species, 70);
+        compat.set(from, 1, true);
+        compat.set(from, 70, true);
+        compat.set(to, 2, true);
+
+        compat.orRow(to, from);
+        assertTrue(compat.get(to, 1));
+        assertTrue(compat.get(to, 2));
+        assertTrue(compat.get(to, 70));
+        assertFalse(compat.get(from, 2));
+    }
+
+    @Test
+    public void fillOnlyAffectsGivenColumns() {
+        List<Species> species = makeSpecies(1);
+        Species sp = species.get(0);
+        CompatibilityMatrix compat = new CompatibilityMatrix(species, 108);
+        compat.fill(sp, 101, 108, true);
+        assertEquals(8, compat.countRow(sp));
+        assertFalse(compat.get(sp, 100));
+
+        compat.fill(sp, true);
+        assertEquals(108, compat.countRow(sp));
+    }
+
+}
@@ -0,0 +1,117 @@
+package test.com.dabomstew.pkromio.gamedata;
+
+import com.dabomstew.pkromio.gamedata.Move;
+import com.dabomstew.pkromio.gamedata.MoveCategory;
+import com.dabomstew.pkromio.gamedata.MovePoolIndex;
+import com.dabomstew.pkromio.gamedata.Type;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovePoolIndexTest {
+
+    private static Move makeMove(int number, Type type, MoveCategory category) {
+        Move mv = new Move();
+        mv.number = number;
+        mv.name = "Move " + number;
+        mv.type = type;
+        mv.category = category;
+        return mv;
+    }
+
+    private static MovePoolIndex makeIndex(List<Move> moves) {
+        Map<Type, List<Move>> typeMoves = new HashMap<>();
+        for (Move mv : moves) {
+            typeMoves.computeIfAbsent(mv.type, t -> new ArrayList<>()).add(mv);
+        }
+        return new MovePoolIndex(moves, typeMoves, moves, typeMoves);
+    }
+
+    @Test
+    public void pickerNeverPicksTheSameMoveTwice() {
+        List<Move> moves = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            moves.add(makeMove(i, Type.values()[i % 3], i % 2 == 0 ? MoveCategory.PHYSICAL : MoveCategory.SPECIAL));
+        }
+        MovePoolIndex index = makeIndex(moves);
+        MovePoolIndex.Pool all = index.getPool(null, false, null);
+
+        Random random = new Random(1);
+        MovePoolIndex.Picker picker = index.newPicker();
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < moves.size(); i++) {
+            assertTrue(picker.hasUnused(all));
+            assertTrue(picked.add(picker.pick(all, random).number));
+        }
+        assertFalse(picker.hasUnused(all));
+    }
+
+    @Test
+    public void categoryPoolsOnlyContainThatCategory() {
+        List<Move> moves = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            moves.add(makeMove(i, Type.FIRE, i % 2 == 0 ? MoveCategory.PHYSICAL : MoveCategory.SPECIAL));
+        }
+        MovePoolIndex index = makeIndex(moves);
+        MovePoolIndex.Pool physical = index.withCategory(index.getPool(Type.FIRE, true, null), MoveCategory.PHYSICAL);
+        assertEquals(10, physical.size());
+
+        Random random = new Random(2);
+        MovePoolIndex.Picker picker = index.newPicker();
+        while (picker.hasUnused(physical)) {
+            assertEquals(MoveCategory.PHYSICAL, picker.pick(physical, random).category);
+        }
+        assertTrue(index.getPool(Type.WATER, false, null).isEmpty());
+    }
+
+    @Test
+    public void excludedMovesAreSkippedWithoutAffectingOtherPicks() {
+        List<Move> moves = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            moves.add(makeMove(i, Type.NORMAL, MoveCategory.PHYSICAL));
+        }
+        MovePoolIndex index = makeIndex(moves);
+        MovePoolIndex.Pool all = index.getPool(null, false, null);
+
+        int[] count = new int[11];
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            MovePoolIndex.Picker picker = index.newPicker();
+            picker.exclude(3);
+            picker.exclude(7);
+            count[picker.pick(all, random).number]++;
+        }
+        assertEquals(0, count[3]);
+        assertEquals(0, count[7]);
+        for (int i = 1; i <= 10; i++) {
+            if (i != 3 && i != 7) {
+                assertTrue(count[i] > 0);
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSamePicks() {
+        List<Move> moves = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            moves.add(makeMove(i, Type.values()[i % 5], MoveCategory.SPECIAL));
+        }
+        MovePoolIndex index = makeIndex(moves);
+        MovePoolIndex.Pool all = index.getPool(null, false, null);
+
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+        Random randomA = new Random(4);
+        Random randomB = new Random(4);
+        MovePoolIndex.Picker pickerA = index.newPicker();
+        MovePoolIndex.Picker pickerB = index.newPicker();
+        for (int i = 0; i < 25; i++) {
+            first.add(pickerA.pick(all, randomA).number);
+            second.add(pickerB.pick(all, randomB).number);
+        }
+        assertEquals(first, second);
+    }
+
+}
@@ -0,0 +1,141 @@
+package test.com.dabomstew.pkromio.gamedata;
+
+import com.dabomstew.pkromio.constants.Gen5Constants;
+import com.dabomstew.pkromio.gamedata.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that {@link MoveSynergyMatrix} gives the same results as {@link MoveSynergy}, for a move list
+ * numbered like that of Gen 5, with made up move data.
+ */
+public class MoveSynergyMatrixTest {
+
+    private static final int GENERATION = 5;
+    private static final int PERFECT_ACCURACY = 101;
+
+    @Test
+    public void moveRelationsMatchMoveSynergyForEveryMovePair() {
+        List<Move> allMoves = makeGen5Moves(new Random(1));
+        TypeTable typeTable = TypeTable.getVanillaGen2To5Table();
+        MoveSynergyMatrix matrix = new MoveSynergyMatrix(allMoves, GENERATION, PERFECT_ACCURACY, typeTable);
+        List<Move> moveList = allMoves.subList(1, allMoves.size());
+
+        int related = 0;
+        for (Move mv1 : moveList) {
+            String message = mv1.name;
+            List<Move> synergy = MoveSynergy.getMoveSynergy(mv1, moveList, GENERATION);
+            related += synergy.size();
+            assertEquals(synergy, matrix.getMoveSynergy(mv1, moveList), message);
+            assertEquals(MoveSynergy.getSoftMoveSynergy(mv1, moveList, typeTable),
+                    matrix.getSoftMoveSynergy(mv1, moveList), message);
+            assertEquals(MoveSynergy.getHardMoveAntiSynergy(mv1, moveList),
+                    matrix.getHardMoveAntiSynergy(mv1, moveList), message);
+            assertEquals(MoveSynergy.getSoftMoveAntiSynergy(mv1, moveList),
+                    matrix.getSoftMoveAntiSynergy(mv1, moveList), message);
+            assertEquals(MoveSynergy.requiresOtherMove(mv1, moveList),
+                    matrix.requiresOtherMove(mv1, moveList), message);
+        }
+        assertTrue(related > 0);
+    }
+
+    @Test
+    public void moveRelationsMatchMoveSynergyForShuffledSubLists() {
+        Random random = new Random(2);
+        List<Move> allMoves = makeGen5Moves(random);
+        TypeTable typeTable = TypeTable.getVanillaGen2To5Table();
+        MoveSynergyMatrix matrix = new MoveSynergyMatrix(allMoves, GENERATION, PERFECT_ACCURACY, typeTable);
+
+        List<Move> moveList = new ArrayList<>(allMoves.subList(1, allMoves.size()));
+        Collections.shuffle(moveList, random);
+        moveList = moveList.subList(0, moveList.size() / 3);
+
+        for (Move mv1 : allMoves.subList(1, allMoves.size())) {
+            String message = mv1.name;
+            assertEquals(MoveSynergy.getMoveSynergy(mv1, moveList, GENERATION),
+                    matrix.getMoveSynergy(mv1, moveList), message);
+            assertEquals(MoveSynergy.getSoftMoveSynergy(mv1, moveList, typeTable),
+                    matrix.getSoftMoveSynergy(mv1, moveList), message);
+            assertEquals(MoveSynergy.getHardMoveAntiSynergy(mv1, moveList),
+                    matrix.getHardMoveAntiSynergy(mv1, moveList), message);
+            assertEquals(MoveSynergy.getSoftMoveAntiSynergy(mv1, moveList),
+                    matrix.getSoftMoveAntiSynergy(mv1, moveList), message);
+            assertEquals(MoveSynergy.requiresOtherMove(mv1, moveList),
+                    matrix.requiresOtherMove(mv1, moveList), message);
+        }
+    }
+
+    @Test
+    public void abilityRelationsMatchMoveSynergyForEveryAbilityAndType() {
+        List<Move> allMoves = makeGen5Moves(new Random(3));
+        TypeTable typeTable = TypeTable.getVanillaGen2To5Table();
+        MoveSynergyMatrix matrix = new MoveSynergyMatrix(allMoves, GENERATION, PERFECT_ACCURACY, typeTable);
+        List<Move> moveList = allMoves.subList(1, allMoves.size());
+
+        for (int ability = 1; ability <= Gen5Constants.highestAbilityIndex; ability++) {
+            assertEquals(MoveSynergy.getSoftAbilityMoveAntiSynergy(ability, moveList),
+                    matrix.getSoftAbilityMoveAntiSynergy(ability, moveList), "ability " + ability);
+            assertEquals(MoveSynergy.getHardAbilityMoveAntiSynergy(ability, moveList),
+                    matrix.getHardAbilityMoveAntiSynergy(ability, moveList), "ability " + ability);
+            for (Type type : typeTable.getTypes()) {
+                String message = "ability " + ability + ", " + type;
+                assertEquals(MoveSynergy.getSoftAbilityMoveSynergy(ability, moveList, type, null),
+                        matrix.getSoftAbilityMoveSynergy(ability, moveList, type, null), message);
+                assertEquals(MoveSynergy.getHardAbilityMoveSynergy(ability, type, null, moveList,
+                                GENERATION, PERFECT_ACCURACY),
+                        matrix.getHardAbilityMoveSynergy(ability, type, null, moveList), message);
+            }
+        }
+    }
+
+    /**
+     * Makes moves numbered 1 to {@link Gen5Constants#moveCount}, so all the move-specific relations apply, with
+     * random data for the relations that depend on it.
+     */
+    private static List<Move> makeGen5Moves(Random random) {
+        List<Type> types = TypeTable.getVanillaGen2To5Table().getTypes();
+        List<Move> moves = new ArrayList<>();
+        moves.add(null);
+        for (int number = 1; number <= Gen5Constants.moveCount; number++) {
+            Move mv = new Move();
+            mv.number = number;
+            mv.internalId = number;
+            mv.name = "Move " + number;
+            mv.type = types.get(random.nextInt(types.size()));
+            mv.category = MoveCategory.values()[random.nextInt(MoveCategory.values().length)];
+            mv.power = mv.category == MoveCategory.STATUS ? 0 : 10 + 10 * random.nextInt(15);
+            mv.pp = 5 * (1 + random.nextInt(8));
+            mv.hitratio = random.nextInt(4) == 0 ? PERFECT_ACCURACY : 50 + 10 * random.nextInt(6);
+            mv.priority = random.nextInt(5) == 0 ? random.nextInt(5) - 2 : 0;
+            mv.criticalChance = CriticalChance.values()[random.nextInt(CriticalChance.values().length)];
+            mv.statusMoveType = StatusMoveType.values()[random.nextInt(StatusMoveType.values().length)];
+            mv.statusType = StatusType.values()[random.nextInt(StatusType.values().length)];
+            mv.statusPercentChance = 10 * random.nextInt(11);
+            mv.flinchPercentChance = random.nextInt(4) == 0 ? 30 : 0;
+            mv.recoilPercent = random.nextInt(5) == 0 ? 25 : 0;
+            mv.absorbPercent = random.nextInt(5) == 0 ? 50 : 0;
+            mv.statChangeMoveType = StatChangeMoveType.values()[random.nextInt(StatChangeMoveType.values().length)];
+            for (Move.StatChange sc : mv.statChanges) {
+                if (random.nextBoolean()) {
+                    sc.type = StatChangeType.values()[random.nextInt(StatChangeType.values().length)];
+                    sc.stages = random.nextInt(5) - 2;
+                    sc.percentChance = 10 * random.nextInt(11);
+                }
+            }
+            mv.makesContact = random.nextBoolean();
+            mv.isChargeMove = random.nextInt(10) == 0;
+            mv.isRechargeMove = random.nextInt(10) == 0;
+            mv.isPunchMove = random.nextInt(10) == 0;
+            mv.isSoundMove = random.nextInt(10) == 0;
+            mv.isTrapMove = random.nextInt(10) == 0;
+            moves.add(mv);
+        }
+        return moves;
+    }
+}
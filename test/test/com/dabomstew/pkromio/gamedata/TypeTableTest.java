@@ -0,0 +1,59 @@
+package test.com.dabomstew.pkromio.gamedata;
+
+import com.dabomstew.pkromio.gamedata.Effectiveness;
+import com.dabomstew.pkromio.gamedata.Type;
+import com.dabomstew.pkromio.gamedata.TypeTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypeTableTest {
+
+    private static final List<Effectiveness> VALID_EFFECTIVENESSES = Arrays.asList(
+            Effectiveness.ZERO, Effectiveness.HALF, Effectiveness.NEUTRAL, Effectiveness.DOUBLE);
+
+    @Test
+    public void countsMatchVanillaTables() {
+        assertCountsMatchLists(TypeTable.getVanillaGen1Table());
+        assertCountsMatchLists(TypeTable.getVanillaGen2To5Table());
+        assertCountsMatchLists(TypeTable.getVanillaGen6PlusTable());
+    }
+
+    @Test
+    public void countsFollowChanges() {
+        TypeTable typeTable = TypeTable.getVanillaGen6PlusTable();
+        List<Type> types = typeTable.getTypes();
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            typeTable.setEffectiveness(types.get(random.nextInt(types.size())),
+                    types.get(random.nextInt(types.size())),
+                    VALID_EFFECTIVENESSES.get(random.nextInt(VALID_EFFECTIVENESSES.size())));
+        }
+        assertCountsMatchLists(typeTable);
+    }
+
+    @Test
+    public void copyHasIndependentCounts() {
+        TypeTable original = TypeTable.getVanillaGen6PlusTable();
+        TypeTable copy = new TypeTable(original);
+        copy.setEffectiveness(Type.NORMAL, Type.NORMAL, Effectiveness.ZERO);
+
+        assertEquals(1, copy.countWhenAttacking(Type.NORMAL, Effectiveness.ZERO) -
+                original.countWhenAttacking(Type.NORMAL, Effectiveness.ZERO));
+        assertCountsMatchLists(original);
+        assertCountsMatchLists(copy);
+    }
+
+    private void assertCountsMatchLists(TypeTable typeTable) {
+        for (Type t : typeTable.getTypes()) {
+            for (Effectiveness eff : VALID_EFFECTIVENESSES) {
+                assertEquals(typeTable.whenAttacking(t, eff).size(), typeTable.countWhenAttacking(t, eff));
+                assertEquals(typeTable.whenDefending(t, eff).size(), typeTable.countWhenDefending(t, eff));
+            }
+        }
+    }
+}
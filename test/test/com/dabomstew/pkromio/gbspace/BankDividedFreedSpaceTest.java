@@ -44,4 +44,17 @@ public class BankDividedFreedSpaceTest {
         assertEquals(5, fs.findAndUnfree(1));
     }
 
+    @Test
+    public void findAndUnfreeInBankOnlyFindsInThatBank() {
+        BankDividedFreedSpace fs = new BankDividedFreedSpace(0x10, 4, new int[0]);
+        fs.free(0x00, 0x8);
+        fs.free(0x12, 0x4);
+        fs.free(0x18, 0x8);
+        System.out.println(fs);
+        assertEquals(-1, fs.findAndUnfreeInBank(0x8, 2));
+        assertEquals(0x18, fs.findAndUnfreeInBank(0x8, 1));
+        assertEquals(0x12, fs.findAndUnfreeInBank(0x2, 1));
+        assertEquals(0x0, fs.findAndUnfreeInBank(0x2, 0));
+    }
+
 }
@@ -0,0 +1,62 @@
+package test.com.dabomstew.pkromio.gbspace;
+
+import com.dabomstew.pkromio.gbspace.FreedSpace;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FreedSpaceTest {
+
+    @Test
+    public void adjacentChunksMerge() {
+        FreedSpace fs = new FreedSpace();
+        fs.free(0x10, 0x10);
+        fs.free(0x30, 0x10);
+        fs.free(0x20, 0x10);
+        System.out.println(fs);
+        assertEquals(1, fs.getChunkCount());
+        assertEquals(0x30, fs.getLengthSum());
+        assertEquals(0x10, fs.findAndUnfree(0x30));
+        assertEquals(0, fs.getLengthSum());
+    }
+
+    @Test
+    public void canNotFreeOverlappingSpace() {
+        FreedSpace fs = new FreedSpace();
+        fs.free(0x10, 0x10);
+        assertThrows(RuntimeException.class, () -> fs.free(0x18, 0x10));
+        assertThrows(RuntimeException.class, () -> fs.free(0x8, 0x10));
+        assertThrows(RuntimeException.class, () -> fs.free(0x12, 1));
+        assertEquals(1, fs.getChunkCount());
+        assertEquals(0x10, fs.getLengthSum());
+    }
+
+    @Test
+    public void findAndUnfreeUsesBestFit() {
+        FreedSpace fs = new FreedSpace();
+        fs.free(0x100, 0x40);
+        fs.free(0x200, 0x8);
+        fs.free(0x300, 0x10);
+        fs.free(0x400, 0x10);
+        System.out.println(fs);
+        assertEquals(0x300, fs.findAndUnfree(0xA));
+        assertEquals(0x400, fs.findAndUnfree(0x10));
+        assertEquals(0x200, fs.findAndUnfree(0x8));
+        assertEquals(-1, fs.findAndUnfree(0x41));
+        assertEquals(0x100, fs.findAndUnfree(0x40));
+        assertEquals(0x30A, fs.findAndUnfree(0x6));
+        assertEquals(-1, fs.findAndUnfree(1));
+    }
+
+    @Test
+    public void fragmentationIsShareOutsideLargestChunk() {
+        FreedSpace fs = new FreedSpace();
+        assertEquals(0.0, fs.getFragmentation());
+        fs.free(0, 30);
+        assertEquals(0.0, fs.getFragmentation());
+        fs.free(100, 10);
+        assertEquals(30, fs.getLargestChunkLength());
+        assertEquals(0.25, fs.getFragmentation(), 1e-9);
+    }
+
+}
@@ -0,0 +1,140 @@
+package test.com.dabomstew.pkromio.graphics.images;
+
+import com.dabomstew.pkromio.graphics.images.SpriteSheetCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import test.com.dabomstew.pkrandom.randomizers.SyntheticRomGenerator;
+import test.com.dabomstew.pkrandom.randomizers.SyntheticRomHandler;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpriteSheetCacheTest {
+
+    private static final String FINGERPRINT = SpriteSheetCache.fingerprint("IRBO", new byte[]{1, 2, 3});
+
+    private Path cacheDir;
+
+    @BeforeEach
+    public void createCacheDir() throws IOException {
+        cacheDir = Files.createTempDirectory("spritesheets");
+    }
+
+    @AfterEach
+    public void deleteCacheDir() throws IOException {
+        try (Stream<Path> walk = Files.walk(cacheDir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void storedImagesAreLoadedBack() throws IOException {
+        // sizes like those of DS sprite sheets, many enough to need several rows
+        List<BufferedImage> images = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 50; i++) {
+            images.add(randomImage(random, 96 * (2 + 2 * random.nextInt(2)), 192));
+        }
+        images.add(randomImage(random, 3000, 10));
+
+        SpriteSheetCache cache = new SpriteSheetCache(cacheDir);
+        cache.store(FINGERPRINT, 42, images);
+        List<BufferedImage> loaded = new SpriteSheetCache(cacheDir).load(FINGERPRINT, 42);
+
+        assertNotNull(loaded);
+        assertEquals(images.size(), loaded.size());
+        for (int i = 0; i < images.size(); i++) {
+            assertSamePixels(images.get(i), loaded.get(i));
+            assertEquals(BufferedImage.TYPE_INT_ARGB, loaded.get(i).getType());
+        }
+    }
+
+    @Test
+    public void otherKeysAreNotLoaded() throws IOException {
+        SpriteSheetCache cache = new SpriteSheetCache(cacheDir);
+        cache.store(FINGERPRINT, 42, Arrays.asList(randomImage(new Random(1), 8, 8)));
+
+        assertNull(cache.load(FINGERPRINT, 43));
+        assertNull(cache.load(SpriteSheetCache.fingerprint("IRBO", new byte[]{1, 2, 4}), 42));
+        assertNull(cache.load(SpriteSheetCache.fingerprint("IRAO", new byte[]{1, 2, 3}), 42));
+    }
+
+    @Test
+    public void storeReplacesImages() throws IOException {
+        SpriteSheetCache cache = new SpriteSheetCache(cacheDir);
+        cache.store(FINGERPRINT, 42, Arrays.asList(randomImage(new Random(1), 8, 8)));
+        BufferedImage replacement = randomImage(new Random(2), 16, 4);
+        cache.store(FINGERPRINT, 42, Arrays.asList(replacement, replacement));
+
+        List<BufferedImage> loaded = cache.load(FINGERPRINT, 42);
+        assertEquals(2, loaded.size());
+        assertSamePixels(replacement, loaded.get(1));
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void brokenEntryIsNotLoaded() throws IOException {
+        SpriteSheetCache cache = new SpriteSheetCache(cacheDir);
+        cache.store(FINGERPRINT, 42, Arrays.asList(randomImage(new Random(1), 8, 8)));
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.toString().endsWith(".idx")) {
+                    Files.write(file, "1 5\n0 0 8 8\n".getBytes());
+                }
+            }
+        }
+
+        assertNull(cache.load(FINGERPRINT, 42));
+    }
+
+    @Test
+    public void failedStoreStillGivesDecodedImages() throws IOException {
+        Path notADirectory = Files.createFile(cacheDir.resolve("not-a-directory"));
+        BufferedImage image = randomImage(new Random(1), 8, 8);
+        SyntheticRomHandler romHandler = new SyntheticRomHandler(new SyntheticRomGenerator().setSeed(1)) {
+            @Override
+            public List<BufferedImage> getAllPokemonImages() {
+                return getCachedOrDecodedImages(FINGERPRINT, 42,
+                        () -> Collections.<Callable<BufferedImage>>singletonList(() -> image));
+            }
+        };
+        romHandler.setSpriteSheetCache(new SpriteSheetCache(notADirectory));
+
+        assertEquals(Collections.singletonList(image), romHandler.getAllPokemonImages());
+    }
+
+    private static BufferedImage randomImage(Random random, int width, int height) {
+        BufferedImage bim = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                bim.setRGB(x, y, random.nextBoolean() ? 0 : random.nextInt() | 0xFF000000);
+            }
+        }
+        return bim;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+}
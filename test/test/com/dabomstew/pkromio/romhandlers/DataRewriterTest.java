@@ -0,0 +1,134 @@
+package test.com.dabomstew.pkromio.romhandlers;
+
+import com.dabomstew.pkromio.exceptions.RomIOException;
+import com.dabomstew.pkromio.romhandlers.Gen3RomHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the batching of the DataRewriter, on a small blank ROM.
+ */
+public class DataRewriterTest {
+
+    private static final int POINTER_A = 0x10;
+    private static final int POINTER_B = 0x14;
+    private static final int POINTER_C = 0x18;
+
+    private static class BlankRomHandler extends Gen3RomHandler {
+
+        private final DataRewriter<byte[]> rewriter = new DataRewriter<byte[]>() {};
+
+        private BlankRomHandler() {
+            rom = new byte[0x400];
+            rewriter.setLongAlignAdresses(false);
+        }
+
+        private void putData(int pointerOffset, int offset, int length) {
+            writePointer(pointerOffset, offset);
+            Arrays.fill(rom, offset, offset + length, (byte) 0x11);
+        }
+
+        private int pointerAt(int pointerOffset) {
+            return readPointer(pointerOffset);
+        }
+
+        private void setPointer(int pointerOffset, int offset) {
+            writePointer(pointerOffset, offset);
+        }
+
+        private void beginBatch() {
+            rewriter.beginBatch();
+        }
+
+        private void commitBatch() {
+            rewriter.commitBatch();
+        }
+
+        private void free(int offset, int length) {
+            freeSpace(offset, length);
+        }
+
+        private void rewrite(int pointerOffset, int[] secondaryPointerOffsets, byte[] newData, int oldLength) {
+            rewriter.rewriteData(pointerOffset, newData, secondaryPointerOffsets, data -> data,
+                    oldOffset -> oldLength);
+        }
+
+        private byte[] dataAt(int pointerOffset, int length) {
+            int offset = readPointer(pointerOffset);
+            return Arrays.copyOfRange(rom, offset, offset + length);
+        }
+    }
+
+    @Test
+    public void batchPlacesLargestDataFirst() {
+        BlankRomHandler romHandler = new BlankRomHandler();
+        romHandler.putData(POINTER_A, 0x100, 0x10);
+        romHandler.putData(POINTER_B, 0x200, 0x8);
+
+        romHandler.beginBatch();
+        romHandler.rewrite(POINTER_A, new int[0], filled(0x8, 1), 0x10);
+        romHandler.rewrite(POINTER_B, new int[0], filled(0x10, 2), 0x8);
+        romHandler.commitBatch();
+
+        assertEquals(0x200, romHandler.pointerAt(POINTER_A));
+        assertEquals(0x100, romHandler.pointerAt(POINTER_B));
+        assertArrayEquals(filled(0x8, 1), romHandler.dataAt(POINTER_A, 0x8));
+        assertArrayEquals(filled(0x10, 2), romHandler.dataAt(POINTER_B, 0x10));
+    }
+
+    @Test
+    public void unbatchedSmallDataCanSplitTheChunkLargeDataNeeds() {
+        BlankRomHandler romHandler = new BlankRomHandler();
+        romHandler.putData(POINTER_A, 0x100, 0x10);
+        romHandler.putData(POINTER_B, 0x200, 0x8);
+
+        romHandler.rewrite(POINTER_A, new int[0], filled(0x8, 1), 0x10);
+        assertThrows(RomIOException.class,
+                () -> romHandler.rewrite(POINTER_B, new int[0], filled(0x10, 2), 0x8));
+    }
+
+    @Test
+    public void batchRepointsSecondaryPointers() {
+        BlankRomHandler romHandler = new BlankRomHandler();
+        romHandler.putData(POINTER_A, 0x100, 0x8);
+        romHandler.setPointer(POINTER_B, 0x100);
+        romHandler.free(0x200, 0x10);
+
+        romHandler.beginBatch();
+        romHandler.rewrite(POINTER_A, new int[]{POINTER_B}, filled(0x10, 3), 0x8);
+        assertEquals(0x100, romHandler.pointerAt(POINTER_B));
+        romHandler.commitBatch();
+
+        assertEquals(0x200, romHandler.pointerAt(POINTER_A));
+        assertEquals(0x200, romHandler.pointerAt(POINTER_B));
+        assertArrayEquals(filled(0x10, 3), romHandler.dataAt(POINTER_A, 0x10));
+    }
+
+    @Test
+    public void batchedRewritesOfSharedOldDataKeepTheirOwnData() {
+        BlankRomHandler romHandler = new BlankRomHandler();
+        romHandler.putData(POINTER_A, 0x100, 0x8);
+        romHandler.setPointer(POINTER_B, 0x100);
+        romHandler.setPointer(POINTER_C, 0x100);
+        romHandler.free(0x200, 0x8);
+
+        romHandler.beginBatch();
+        romHandler.rewrite(POINTER_A, new int[]{POINTER_C}, filled(0x8, 1), 0x8);
+        romHandler.rewrite(POINTER_B, new int[0], filled(0x8, 2), 0x8);
+        romHandler.commitBatch();
+
+        assertArrayEquals(filled(0x8, 1), romHandler.dataAt(POINTER_A, 0x8));
+        assertArrayEquals(filled(0x8, 2), romHandler.dataAt(POINTER_B, 0x8));
+        assertEquals(romHandler.pointerAt(POINTER_A), romHandler.pointerAt(POINTER_C));
+        assertNotEquals(romHandler.pointerAt(POINTER_A), romHandler.pointerAt(POINTER_B));
+    }
+
+    private static byte[] filled(int length, int value) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) value);
+        return data;
+    }
+}
@@ -0,0 +1,129 @@
+package test.com.dabomstew.pkromio.romhandlers;
+
+import com.dabomstew.pkromio.romhandlers.StringTableCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringTableCacheTest {
+
+    private static class FakeArchive {
+        private final List<List<String>> files = new ArrayList<>();
+        private int decodeCount;
+        private int encodeCount;
+
+        private FakeArchive(int size) {
+            for (int i = 0; i < size; i++) {
+                files.add(Arrays.asList("file" + i + "a", "file" + i + "b"));
+            }
+        }
+    }
+
+    private static StringTableCache<FakeArchive> createCache() {
+        return new StringTableCache<>(
+                (archive, index) -> {
+                    archive.decodeCount++;
+                    return new ArrayList<>(archive.files.get(index));
+                },
+                (archive, index, strings) -> {
+                    archive.encodeCount++;
+                    archive.files.set(index, new ArrayList<>(strings));
+                });
+    }
+
+    @Test
+    public void tablesAreDecodedOnce() {
+        FakeArchive archive = new FakeArchive(3);
+        StringTableCache<FakeArchive> cache = createCache();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(archive.files.get(1), cache.get(archive, 1));
+        }
+        assertEquals(1, archive.decodeCount);
+    }
+
+    @Test
+    public void returnedTablesAreCopies() {
+        FakeArchive archive = new FakeArchive(3);
+        StringTableCache<FakeArchive> cache = createCache();
+        cache.get(archive, 0).set(0, "changed");
+        assertEquals("file0a", cache.get(archive, 0).get(0));
+        assertEquals(0, cache.getDirtyCount());
+    }
+
+    @Test
+    public void setTablesAreEncodedOnceOnWriteBack() {
+        FakeArchive archive = new FakeArchive(3);
+        StringTableCache<FakeArchive> cache = createCache();
+        for (int i = 0; i < 4; i++) {
+            List<String> strings = cache.get(archive, 2);
+            strings.set(0, "changed" + i);
+            cache.set(archive, 2, strings);
+        }
+        assertEquals(0, archive.encodeCount);
+        assertEquals("file2a", archive.files.get(2).get(0));
+        assertEquals(1, cache.getDirtyCount());
+
+        cache.writeBack();
+        assertEquals(1, archive.encodeCount);
+        assertEquals("changed3", archive.files.get(2).get(0));
+        assertEquals(0, cache.getDirtyCount());
+
+        cache.writeBack();
+        assertEquals(1, archive.encodeCount);
+    }
+
+    @Test
+    public void setWithoutGetDoesNotDecode() {
+        FakeArchive archive = new FakeArchive(3);
+        StringTableCache<FakeArchive> cache = createCache();
+        cache.set(archive, 1, Arrays.asList("x", "y"));
+        assertEquals(Arrays.asList("x", "y"), cache.get(archive, 1));
+        assertEquals(0, archive.decodeCount);
+    }
+
+    @Test
+    public void archivesAreKeyedByIdentity() {
+        FakeArchive first = new FakeArchive(2);
+        FakeArchive second = new FakeArchive(2);
+        StringTableCache<FakeArchive> cache = createCache();
+        cache.set(first, 0, Arrays.asList("first"));
+        cache.set(second, 0, Arrays.asList("second"));
+        cache.writeBack();
+        assertEquals(Arrays.asList("first"), first.files.get(0));
+        assertEquals(Arrays.asList("second"), second.files.get(0));
+    }
+
+    @Test
+    public void concurrentWriteBackEncodesEveryDirtyTable() {
+        FakeArchive first = new FakeArchive(50);
+        FakeArchive second = new FakeArchive(50);
+        AtomicInteger encodeCount = new AtomicInteger();
+        StringTableCache<FakeArchive> cache = new StringTableCache<>(
+                (archive, index) -> new ArrayList<>(archive.files.get(index)),
+                (archive, index, strings) -> {
+                    encodeCount.incrementAndGet();
+                    archive.files.set(index, new ArrayList<>(strings));
+                });
+        for (int i = 0; i < 50; i += 2) {
+            cache.set(first, i, Arrays.asList("first" + i));
+            cache.set(second, i + 1, Arrays.asList("second" + i));
+        }
+
+        cache.writeBackConcurrently();
+        assertEquals(50, encodeCount.get());
+        assertEquals(0, cache.getDirtyCount());
+        for (int i = 0; i < 50; i += 2) {
+            assertEquals(Arrays.asList("first" + i), first.files.get(i));
+            assertEquals(Arrays.asList("file" + (i + 1) + "a", "file" + (i + 1) + "b"), first.files.get(i + 1));
+            assertEquals(Arrays.asList("second" + i), second.files.get(i + 1));
+        }
+
+        cache.writeBackConcurrently();
+        assertEquals(50, encodeCount.get());
+    }
+}
@@ -0,0 +1,73 @@
+package test.com.dabomstew.pkromio.romhandlers;
+
+import com.dabomstew.pkromio.romhandlers.GameSubsystem;
+import com.dabomstew.pkromio.romhandlers.SubsystemLoader;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubsystemLoaderTest {
+
+    @Test
+    public void eagerLoaderLoadsAllOnFinish() {
+        List<GameSubsystem> loadOrder = new ArrayList<>();
+        SubsystemLoader loader = new SubsystemLoader();
+        loader.register(GameSubsystem.PALETTES, () -> loadOrder.add(GameSubsystem.PALETTES));
+        loader.register(GameSubsystem.TRAINERS, () -> loadOrder.add(GameSubsystem.TRAINERS));
+        assertFalse(loader.isLoaded(GameSubsystem.PALETTES));
+        loader.finishLoading();
+        assertEquals(Arrays.asList(GameSubsystem.PALETTES, GameSubsystem.TRAINERS), loadOrder);
+        assertTrue(loader.isLoaded(GameSubsystem.PALETTES));
+        assertTrue(loader.isLoaded(GameSubsystem.TRAINERS));
+    }
+
+    @Test
+    public void lazyLoaderLoadsOnceOnRequest() {
+        List<GameSubsystem> loadOrder = new ArrayList<>();
+        SubsystemLoader loader = new SubsystemLoader();
+        loader.setLazy(true);
+        loader.register(GameSubsystem.PALETTES, () -> loadOrder.add(GameSubsystem.PALETTES));
+        loader.finishLoading();
+        assertTrue(loadOrder.isEmpty());
+        loader.load(GameSubsystem.PALETTES);
+        loader.load(GameSubsystem.PALETTES);
+        assertEquals(Arrays.asList(GameSubsystem.PALETTES), loadOrder);
+    }
+
+    @Test
+    public void dependenciesAreLoadedFirst() {
+        List<GameSubsystem> loadOrder = new ArrayList<>();
+        SubsystemLoader loader = new SubsystemLoader();
+        loader.setLazy(true);
+        loader.register(GameSubsystem.TEXT, () -> loadOrder.add(GameSubsystem.TEXT));
+        loader.register(GameSubsystem.TRAINERS, () -> loadOrder.add(GameSubsystem.TRAINERS));
+        loader.load(GameSubsystem.TRAINERS);
+        assertEquals(Arrays.asList(GameSubsystem.TEXT, GameSubsystem.TRAINERS), loadOrder);
+    }
+
+    @Test
+    public void unregisteredSubsystemIsLoadedOnceDependenciesAre() {
+        SubsystemLoader loader = new SubsystemLoader();
+        loader.setLazy(true);
+        loader.register(GameSubsystem.TEXT, () -> { });
+        assertTrue(loader.isLoaded(GameSubsystem.PALETTES));
+        assertFalse(loader.isLoaded(GameSubsystem.SHOPS));
+        loader.load(GameSubsystem.SHOPS);
+        assertTrue(loader.isLoaded(GameSubsystem.TEXT));
+        assertTrue(loader.isLoaded(GameSubsystem.SHOPS));
+    }
+
+    @Test
+    public void markLoadedSkipsLoader() {
+        SubsystemLoader loader = new SubsystemLoader();
+        loader.setLazy(true);
+        loader.register(GameSubsystem.TRAINERS, () -> fail("should not load"));
+        loader.markLoaded(GameSubsystem.TRAINERS);
+        loader.load(GameSubsystem.TRAINERS);
+        assertTrue(loader.isLoaded(GameSubsystem.TRAINERS));
+    }
+}
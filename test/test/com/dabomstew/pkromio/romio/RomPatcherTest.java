@@ -0,0 +1,132 @@
+package test.com.dabomstew.pkromio.romio;
+
+import com.dabomstew.pkromio.romio.PatchFormat;
+import com.dabomstew.pkromio.romio.RomPatcher;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RomPatcherTest {
+
+    private static final int EOF_OFFSET = 0x454F46;
+
+    @Test
+    public void roundTripsScatteredChanges() throws IOException {
+        byte[] source = randomBytes(0x40000, 1);
+        byte[] target = source.clone();
+        Random random = new Random(2);
+        for (int i = 0; i < 500; i++) {
+            int offset = random.nextInt(target.length - 16);
+            for (int j = random.nextInt(16); j >= 0; j--) {
+                target[offset + j] ^= (byte) (random.nextInt(255) + 1);
+            }
+        }
+        for (PatchFormat format : PatchFormat.values()) {
+            byte[] patch = RomPatcher.createPatch(format, source, target);
+            assertArrayEquals(target, RomPatcher.applyPatch(format, source, patch), format.toString());
+        }
+    }
+
+    @Test
+    public void roundTripsGrowingTarget() throws IOException {
+        byte[] source = randomBytes(0x1000, 3);
+        byte[] target = Arrays.copyOf(source, 0x1800);
+        target[0x10] = 0;
+        for (PatchFormat format : PatchFormat.values()) {
+            byte[] patch = RomPatcher.createPatch(format, source, target);
+            assertArrayEquals(target, RomPatcher.applyPatch(format, source, patch), format.toString());
+        }
+    }
+
+    @Test
+    public void roundTripsShrinkingTarget() throws IOException {
+        byte[] source = randomBytes(0x1800, 4);
+        byte[] target = Arrays.copyOf(source, 0x1000);
+        target[0x20] ^= 1;
+        for (PatchFormat format : PatchFormat.values()) {
+            byte[] patch = RomPatcher.createPatch(format, source, target);
+            assertArrayEquals(target, RomPatcher.applyPatch(format, source, patch), format.toString());
+        }
+    }
+
+    @Test
+    public void patchIsSmallForFewChanges() throws IOException {
+        byte[] source = randomBytes(0x100000, 5);
+        byte[] target = source.clone();
+        target[0x1234] ^= 1;
+        target[0x80000] ^= 1;
+        for (PatchFormat format : PatchFormat.values()) {
+            byte[] patch = RomPatcher.createPatch(format, source, target);
+            assertTrue(patch.length < 64, format.toString());
+        }
+    }
+
+    @Test
+    public void ipsChangeAtEOFOffsetRoundTrips() throws IOException {
+        byte[] source = new byte[EOF_OFFSET + 0x100];
+        byte[] target = source.clone();
+        target[EOF_OFFSET] = 1;
+        byte[] patch = RomPatcher.createPatch(PatchFormat.IPS, source, target);
+        assertArrayEquals(target, RomPatcher.applyPatch(PatchFormat.IPS, source, patch));
+    }
+
+    @Test
+    public void ipsMaxSizeRecordEndingAtEOFOffsetRoundTrips() throws IOException {
+        byte[] source = new byte[EOF_OFFSET + 0x100];
+        byte[] target = source.clone();
+        Arrays.fill(target, EOF_OFFSET - 0xFFFF, EOF_OFFSET + 2, (byte) 1);
+        byte[] patch = RomPatcher.createPatch(PatchFormat.IPS, source, target);
+        assertArrayEquals(target, RomPatcher.applyPatch(PatchFormat.IPS, source, patch));
+    }
+
+    @Test
+    public void ipsCanNotChangeDataPast16MiB() {
+        byte[] source = new byte[0x1000010];
+        byte[] target = source.clone();
+        target[0x1000008] = 1;
+        assertThrows(IOException.class, () -> RomPatcher.createPatch(PatchFormat.IPS, source, target));
+    }
+
+    @Test
+    public void ipsAppliesRLERecords() throws IOException {
+        byte[] source = new byte[0x20];
+        byte[] patch = {'P', 'A', 'T', 'C', 'H', 0, 0, 4, 0, 0, 0, 3, 7, 'E', 'O', 'F'};
+        byte[] expected = source.clone();
+        Arrays.fill(expected, 4, 7, (byte) 7);
+        assertArrayEquals(expected, RomPatcher.applyPatch(PatchFormat.IPS, source, patch));
+    }
+
+    @Test
+    public void bpsRejectsWrongSource() throws IOException {
+        byte[] source = randomBytes(0x1000, 6);
+        byte[] target = source.clone();
+        target[0] ^= 1;
+        byte[] patch = RomPatcher.createPatch(PatchFormat.BPS, source, target);
+        byte[] otherSource = source.clone();
+        otherSource[0x800] ^= 1;
+        assertThrows(IOException.class, () -> RomPatcher.applyPatch(PatchFormat.BPS, otherSource, patch));
+    }
+
+    @Test
+    public void verifyPatchRejectsWrongTarget() throws IOException {
+        byte[] source = randomBytes(0x1000, 7);
+        byte[] target = source.clone();
+        target[0x100] ^= 1;
+        for (PatchFormat format : PatchFormat.values()) {
+            byte[] patch = RomPatcher.createPatch(format, source, target);
+            assertThrows(IOException.class, () -> RomPatcher.verifyPatch(format,
+                    () -> new ByteArrayInputStream(source), patch, target.length, 0));
+        }
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,94 @@
+package test.pptxt;
+
+import org.junit.jupiter.api.Test;
+import pptxt.PPTxtHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PPTxtHandlerTest {
+
+    private static final int FILE_COUNT = 40;
+    private static final int ENTRY_COUNT = 30;
+
+    @Test
+    public void savedEntriesAreReadBack() {
+        byte[] original = blankTextFile(ENTRY_COUNT + 1, 1);
+        List<String> strings = strings(1);
+
+        byte[] saved = PPTxtHandler.saveEntry(original, new ArrayList<>(strings));
+        assertEquals(strings, PPTxtHandler.readTexts(saved));
+    }
+
+    @Test
+    public void concurrentSavesMatchSequentialSaves() throws Exception {
+        List<byte[]> sequential = new ArrayList<>();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            sequential.add(PPTxtHandler.saveEntry(blankTextFile(ENTRY_COUNT + i, i), strings(i)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> concurrent = new ArrayList<>();
+            for (int i = 0; i < FILE_COUNT; i++) {
+                int fileIndex = i;
+                concurrent.add(executor.submit(() ->
+                        PPTxtHandler.saveEntry(blankTextFile(ENTRY_COUNT + fileIndex, fileIndex), strings(fileIndex))));
+            }
+            for (int i = 0; i < FILE_COUNT; i++) {
+                assertArrayEquals(sequential.get(i), concurrent.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> strings(int fileIndex) {
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < ENTRY_COUNT + fileIndex; i++) {
+            strings.add("File " + fileIndex + ", line " + i + (i % 2 == 0 ? "." : "!"));
+        }
+        return strings;
+    }
+
+    /**
+     * Builds a text file with a single section, where each entry is empty, and is encrypted with its own key.
+     */
+    private static byte[] blankTextFile(int entryCount, int seed) {
+        int sectionSize = 4 + 8 * entryCount + 2 * entryCount;
+        if (sectionSize % 4 == 2) {
+            sectionSize += 2;
+        }
+        byte[] data = new byte[0x10 + sectionSize];
+        writeWord(data, 0, 1);
+        writeWord(data, 2, entryCount);
+        writeLong(data, 4, sectionSize);
+        writeLong(data, 0xC, 0x10);
+
+        writeLong(data, 0x10, sectionSize);
+        int charOffset = 4 + 8 * entryCount;
+        for (int i = 0; i < entryCount; i++) {
+            writeLong(data, 0x14 + 8 * i, charOffset + 2 * i);
+            writeWord(data, 0x18 + 8 * i, 1);
+            writeWord(data, 0x1A + 8 * i, i + seed);
+            // a single terminator, decrypted by a key of 0xFFFF ^ the stored word
+            writeWord(data, 0x10 + charOffset + 2 * i, (0x1234 + 0x101 * (i + seed)) & 0xFFFF);
+        }
+        return data;
+    }
+
+    private static void writeWord(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value & 0xFF);
+        data[offset + 1] = (byte) ((value >> 8) & 0xFF);
+    }
+
+    private static void writeLong(byte[] data, int offset, int value) {
+        writeWord(data, offset, value);
+        writeWord(data, offset + 2, value >> 16);
+    }
+}